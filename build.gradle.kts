@@ -11,6 +11,7 @@ plugins {
     alias(libs.plugins.spotless)
     alias(libs.plugins.shadow)
     alias(libs.plugins.jpackage)
+    alias(libs.plugins.jmh)
 }
 
 repositories {
@@ -76,6 +77,25 @@ tasks.withType<Test>() {
     }
 }
 
+// run: gradlew jmh
+// benchmarks in src/jmh/java. result will be written in build/results/jmh.
+// to run a part: gradlew jmh -PjmhIncludes=FoldingStageBenchmark.enumerate
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    resultFormat = "JSON"
+    if (project.hasProperty("jmhIncludes")) {
+        includes = listOf(project.property("jmhIncludes").toString())
+    }
+}
+
+// run: gradlew generateBenchmarkCorpus
+// regenerates crease patterns for benchmarks in src/jmh/resources/corpus.
+task("generateBenchmarkCorpus", JavaExec::class) {
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "oripa.domain.fold.BenchmarkCorpusGenerator"
+    args = listOf("src/jmh/resources/corpus")
+}
+
 // Coverage report
 tasks.jacocoTestReport {
     dependsOn(tasks.test) // tests are required to run before generating the report
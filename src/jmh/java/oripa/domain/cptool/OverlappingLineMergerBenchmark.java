@@ -0,0 +1,120 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oripa.geom.GeomUtil;
+import oripa.value.OriLine;
+
+/**
+ * Benchmarks comparing the sequential and the parallel merge of
+ * {@link AnalyticOverlappingLineMerger}. The lines are random overlapping
+ * segments on the lattice of the paper, whose directions are chosen from the
+ * given number of angles.
+ *
+ * @author OUCHI Koji
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverlappingLineMergerBenchmark {
+	private static final int LATTICE_SIZE = 64;
+
+	@Param({ "4", "32" })
+	public int angleCount;
+
+	@Param({ "2000", "20000" })
+	public int lineCount;
+
+	private final double eps = GeomUtil.pointEps();
+
+	private List<OriLine> lines;
+
+	private AnalyticOverlappingLineMerger sequentialMerger;
+	private AnalyticOverlappingLineMerger parallelMerger;
+
+	@Setup
+	public void setUp() {
+		var random = new Random(1);
+
+		// integer directions keep the end points on the lattice.
+		var directions = new ArrayList<int[]>();
+		for (int dx = 0; directions.size() < angleCount; dx++) {
+			for (int dy = 1; dy <= dx + 1 && directions.size() < angleCount; dy++) {
+				if (gcd(dx, dy) != 1) {
+					continue;
+				}
+				directions.add(new int[] { dx, dy });
+				if (dx != 0 && directions.size() < angleCount) {
+					directions.add(new int[] { -dx, dy });
+				}
+			}
+		}
+
+		lines = new ArrayList<>();
+		for (int i = 0; i < lineCount; i++) {
+			var direction = directions.get(random.nextInt(angleCount));
+			var length = random.nextInt(4) + 1;
+			var x = random.nextInt(LATTICE_SIZE);
+			var y = random.nextInt(LATTICE_SIZE);
+			lines.add(new OriLine(x, y,
+					x + direction[0] * length, y + direction[1] * length,
+					OriLine.Type.MOUNTAIN));
+		}
+
+		sequentialMerger = new AnalyticOverlappingLineMerger();
+		parallelMerger = new AnalyticOverlappingLineMerger(ForkJoinPool.commonPool());
+	}
+
+	private int gcd(final int a, final int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+
+	@Benchmark
+	public Collection<OriLine> mergeSequentially() {
+		return sequentialMerger.mergeIgnoringType(lines, eps);
+	}
+
+	@Benchmark
+	public Collection<OriLine> mergeInParallel() {
+		return parallelMerger.mergeIgnoringType(lines, eps);
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oripa.geom.GeomUtil;
+import oripa.geom.RectangleDomain;
+import oripa.value.OriLine;
+import oripa.vecmath.Vector2d;
+
+/**
+ * Benchmarks comparing the fixed grids ({@link OriLineClip} and
+ * {@link VerticesManager}) with the quadtrees ({@link OriLineQuadTree} and
+ * {@link VerticesQuadTree}). The lines are short random segments spread
+ * uniformly on the paper, or mostly gathered in a small square at a corner of
+ * the paper as a detailed part of a pattern.
+ *
+ * @author OUCHI Koji
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpatialIndexBenchmark {
+	public enum Distribution {
+		UNIFORM, SKEWED
+	}
+
+	private static final double PAPER_SIZE = 400;
+
+	@Param({ "UNIFORM", "SKEWED" })
+	public Distribution distribution;
+
+	@Param({ "1000", "10000" })
+	public int lineCount;
+
+	private final double eps = GeomUtil.pointEps();
+
+	private RectangleDomain paperDomain;
+	private List<OriLine> lines;
+
+	private OriLineClip grid;
+	private OriLineQuadTree quadTree;
+
+	private VerticesManager verticesGrid;
+	private VerticesQuadTree verticesQuadTree;
+
+	@Setup
+	public void setUp() {
+		paperDomain = new RectangleDomain(-PAPER_SIZE / 2, -PAPER_SIZE / 2, PAPER_SIZE / 2, PAPER_SIZE / 2);
+
+		var random = new Random(1);
+
+		lines = new ArrayList<>();
+		for (int i = 0; i < lineCount; i++) {
+			var regionSize = regionSize(random);
+			var length = regionSize / Math.sqrt(lineCount);
+			var x = -PAPER_SIZE / 2 + random.nextDouble() * (regionSize - length);
+			var y = -PAPER_SIZE / 2 + random.nextDouble() * (regionSize - length);
+			var angle = random.nextDouble() * Math.PI / 2;
+			lines.add(new OriLine(x, y,
+					x + length * Math.cos(angle), y + length * Math.sin(angle),
+					OriLine.Type.MOUNTAIN));
+		}
+
+		grid = addLinesToGrid();
+		quadTree = addLinesToQuadTree();
+
+		verticesGrid = new VerticesManager(paperDomain);
+		verticesQuadTree = new VerticesQuadTree(paperDomain);
+		for (var line : lines) {
+			verticesGrid.add(line.getP0());
+			verticesGrid.add(line.getP1());
+			verticesQuadTree.add(line.getP0());
+			verticesQuadTree.add(line.getP1());
+		}
+	}
+
+	/**
+	 * @return the size of the square at the left-top corner where the next
+	 *         line is placed.
+	 */
+	private double regionSize(final Random random) {
+		if (distribution == Distribution.SKEWED && random.nextDouble() < 0.9) {
+			return PAPER_SIZE / 32;
+		}
+		return PAPER_SIZE;
+	}
+
+	@Benchmark
+	public OriLineClip addLinesToGrid() {
+		var grid = new OriLineClip(paperDomain);
+		lines.forEach(grid::add);
+		return grid;
+	}
+
+	@Benchmark
+	public OriLineQuadTree addLinesToQuadTree() {
+		var tree = new OriLineQuadTree(paperDomain);
+		lines.forEach(tree::add);
+		return tree;
+	}
+
+	@Benchmark
+	public int clipByGrid() {
+		return clipAroundLines(grid);
+	}
+
+	@Benchmark
+	public int clipByQuadTree() {
+		return clipAroundLines(quadTree);
+	}
+
+	private int clipAroundLines(final Clippable<OriLine> clippable) {
+		var count = 0;
+		for (var line : lines) {
+			count += clippable.clip(RectangleDomain.createFromSegments(List.of(line)), eps).size();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int getVerticesInAreaOfGrid() {
+		return countVerticesAroundLines(verticesGrid);
+	}
+
+	@Benchmark
+	public int getVerticesInAreaOfQuadTree() {
+		return countVerticesAroundLines(verticesQuadTree);
+	}
+
+	/**
+	 * Counts the vertices near the end points as the nearest vertex search
+	 * does, which iterates all vertices in the given areas.
+	 */
+	private int countVerticesAroundLines(final NearVerticesGettable vertices) {
+		var distance = PAPER_SIZE / Math.sqrt(lineCount) / 4;
+		var count = 0;
+		for (var line : lines) {
+			Vector2d p = line.getP0();
+			for (var area : vertices.getVerticesInArea(p.getX(), p.getY(), distance)) {
+				for (var v : area) {
+					if (p.distance(v) < distance) {
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+
+import oripa.persistence.doc.loader.LoaderXML;
+import oripa.value.OriLine;
+
+/**
+ * Crease patterns for benchmarks stored in the resource directory "corpus".
+ * Run {@link BenchmarkCorpusGenerator} (gradlew generateBenchmarkCorpus) to
+ * regenerate them.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class BenchmarkCorpus {
+	public enum Size {
+		/** 9 faces, 10 folded states. */
+		SMALL(3),
+		/** 25 faces, 472 folded states. */
+		MEDIUM(5),
+		/** 49 faces, 1289 folded states. */
+		LARGE(7);
+
+		private final int divisionCount;
+
+		private Size(final int divisionCount) {
+			this.divisionCount = divisionCount;
+		}
+
+		int getDivisionCount() {
+			return divisionCount;
+		}
+
+		String getFileName() {
+			return "map_" + divisionCount + "x" + divisionCount + ".opx";
+		}
+	}
+
+	/**
+	 * Loads the crease pattern of the given size.
+	 */
+	static Collection<OriLine> load(final Size size) throws Exception {
+		// the loader needs a file path.
+		var file = Files.createTempFile("oripa-benchmark-", ".opx");
+		try (var in = BenchmarkCorpus.class.getResourceAsStream("/corpus/" + size.getFileName())) {
+			if (in == null) {
+				throw new IllegalStateException("corpus is not found: " + size.getFileName());
+			}
+			Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+
+			return new LoaderXML().load(file.toString()).orElseThrow().getCreasePattern();
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePattern;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.projectprop.Property;
+import oripa.geom.GeomUtil;
+import oripa.persistence.doc.Doc;
+import oripa.persistence.doc.exporter.ExporterXML;
+import oripa.value.OriLine;
+
+/**
+ * Generates the crease patterns of {@link BenchmarkCorpus}. Each pattern is a
+ * map fold: n x n grid whose vertical creases flip M/V at every horizontal
+ * crease, so that the pattern is flat foldable with many layer orders. The
+ * assignment is random with a fixed seed to keep the corpus reproducible.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class BenchmarkCorpusGenerator {
+	private static final double PAPER_SIZE = 400;
+	private static final long SEED = 1;
+
+	/**
+	 *
+	 * @param args
+	 *            output directory.
+	 */
+	public static void main(final String[] args) throws IOException {
+		var directory = Path.of(args.length > 0 ? args[0] : ".");
+		Files.createDirectories(directory);
+
+		var generator = new BenchmarkCorpusGenerator();
+
+		for (var entry : BenchmarkCorpus.Size.values()) {
+			var creasePattern = generator.createMapFold(entry.getDivisionCount());
+			var path = directory.resolve(entry.getFileName());
+
+			var property = new Property()
+					.setTitle("map fold " + entry.getDivisionCount() + "x" + entry.getDivisionCount())
+					.setMemo("generated by " + BenchmarkCorpusGenerator.class.getSimpleName());
+
+			new ExporterXML().export(Doc.forSaving(creasePattern, property), path.toString(), null);
+		}
+	}
+
+	/**
+	 * Creates a map fold pattern.
+	 *
+	 * @param n
+	 *            the number of divisions of each side.
+	 */
+	public CreasePattern createMapFold(final int n) {
+		var eps = GeomUtil.pointEps();
+		var random = new Random(SEED);
+
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(PAPER_SIZE);
+		var adder = new LineAdder();
+
+		var half = PAPER_SIZE / 2;
+
+		var horizontalIsMountain = new boolean[n];
+		for (int j = 1; j < n; j++) {
+			horizontalIsMountain[j] = random.nextBoolean();
+		}
+
+		for (int i = 1; i < n; i++) {
+			double x = -half + PAPER_SIZE * i / n;
+
+			adder.addLine(new OriLine(-half, x, half, x, toType(horizontalIsMountain[i])), creasePattern, eps);
+
+			var verticalIsMountain = random.nextBoolean();
+			for (int j = 0; j < n; j++) {
+				double y0 = -half + PAPER_SIZE * j / n;
+				double y1 = -half + PAPER_SIZE * (j + 1) / n;
+				var isMountain = verticalIsMountain ^ (j % 2 == 1);
+				adder.addLine(new OriLine(x, y0, x, y1, toType(isMountain)), creasePattern, eps);
+			}
+		}
+
+		return creasePattern;
+	}
+
+	private OriLine.Type toType(final boolean isMountain) {
+		return isMountain ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY;
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import oripa.domain.fold.condfac.FaceIndicesOnHalfEdgeFactory;
+import oripa.domain.fold.condfac.FaceToSubfacesFactory;
+import oripa.domain.fold.condfac.OverlappingFaceIndexIntersectionFactory;
+import oripa.domain.fold.condfac.OverlappingFaceIndexIntersections;
+import oripa.domain.fold.condfac.StackConditionOf3FaceFactory;
+import oripa.domain.fold.condfac.StackConditionOf4FaceFactory;
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriHalfedge;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.halfedge.OrigamiModelFactory;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.stackcond.StackConditionOf3Faces;
+import oripa.domain.fold.stackcond.StackConditionOf4Faces;
+import oripa.domain.fold.subface.SubFace;
+import oripa.domain.fold.subface.SubFacesFactory;
+import oripa.geom.GeomUtil;
+import oripa.value.OriLine;
+
+/**
+ * Benchmarks for each stage of {@link Folder} for an assigned model. The
+ * inputs of each stage are computed once in the setup by running the previous
+ * stages. The generated code of JMH lives in another package, so that the
+ * types appearing in the signatures should be public.
+ *
+ * @author OUCHI Koji
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FoldingStageBenchmark {
+
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	public BenchmarkCorpus.Size size;
+
+	private final double eps = GeomUtil.pointEps();
+
+	private Collection<OriLine> creasePattern;
+
+	/**
+	 * the faces are at the folded positions.
+	 */
+	private OrigamiModel origamiModel;
+
+	private SubFacesFactory subfacesFactory;
+	private List<SubFace> subfaces;
+
+	/**
+	 * overlap relation given by the line types only.
+	 */
+	private OverlapRelation overlapRelation;
+
+	private Map<OriFace, Set<SubFace>> subfacesOfEachFace;
+	private OverlappingFaceIndexIntersections overlappingFaceIndexIntersections;
+	private Map<OriHalfedge, Set<Integer>> faceIndicesOnHalfedge;
+	private List<StackConditionOf4Faces> condition4s;
+
+	@Setup
+	public void setUp() throws Exception {
+		creasePattern = BenchmarkCorpus.load(size);
+
+		origamiModel = new OrigamiModelFactory().createOrigamiModel(creasePattern, eps);
+		new SimpleFolder().simpleFoldWithoutZorder(origamiModel, eps);
+
+		var faces = origamiModel.getFaces();
+
+		subfacesFactory = new FolderFactory().createSubFacesFactory();
+		subfaces = subfacesFactory.createSubFaces(faces, origamiModel.getPaperSize(), eps);
+
+		overlapRelation = new OverlapRelationFactory().createOverlapRelationByLineType(faces, eps)
+				.getOverlapRelation();
+
+		subfacesOfEachFace = new FaceToSubfacesFactory().create(faces, subfaces);
+		overlappingFaceIndexIntersections = new OverlappingFaceIndexIntersectionFactory().create(
+				faces, overlapRelation);
+		faceIndicesOnHalfedge = new FaceIndicesOnHalfEdgeFactory().create(faces, eps);
+
+		condition4s = createStackConditionsOf4Faces();
+	}
+
+	@Benchmark
+	public OrigamiModel createOrigamiModel() {
+		return new OrigamiModelFactory().createOrigamiModel(creasePattern, eps);
+	}
+
+	@Benchmark
+	public List<SubFace> createSubFaces() {
+		return subfacesFactory.createSubFaces(origamiModel.getFaces(), origamiModel.getPaperSize(), eps);
+	}
+
+	@Benchmark
+	public OverlappingFaceIndexIntersections createOverlappingFaceIndexIntersections() {
+		return new OverlappingFaceIndexIntersectionFactory().create(origamiModel.getFaces(), overlapRelation);
+	}
+
+	@Benchmark
+	public List<StackConditionOf3Faces> createStackConditionsOf3Faces() {
+		return new StackConditionOf3FaceFactory().createAll(origamiModel.getFaces(), overlapRelation,
+				overlappingFaceIndexIntersections, faceIndicesOnHalfedge);
+	}
+
+	@Benchmark
+	public List<StackConditionOf4Faces> createStackConditionsOf4Faces() {
+		return new StackConditionOf4FaceFactory().createAll(origamiModel.getFaces(), origamiModel.getEdges(),
+				overlapRelation, subfacesOfEachFace, eps);
+	}
+
+	@Benchmark
+	public EstimationResultRules estimate() {
+		var estimator = new DeterministicLayerOrderEstimator(origamiModel.getFaces(), subfaces,
+				overlappingFaceIndexIntersections, faceIndicesOnHalfedge, condition4s);
+
+		// the estimation changes the given matrix.
+		return estimator.estimate(overlapRelation.clone(), eps);
+	}
+
+	@Benchmark
+	public int enumerate() {
+		return new LayerOrderEnumerator(subfacesFactory, false).enumerate(origamiModel, eps, false)
+				.getAnswerCount();
+	}
+}
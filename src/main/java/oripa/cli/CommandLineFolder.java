@@ -18,6 +18,9 @@
  */
 package oripa.cli;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -27,12 +30,18 @@ import jakarta.inject.Inject;
 import oripa.application.FileAccessService;
 import oripa.domain.fold.Folder;
 import oripa.domain.fold.FolderFactory;
+import oripa.domain.fold.FoldingMetrics;
+import oripa.domain.fold.FoldingMonitor;
 import oripa.domain.fold.TestedOrigamiModelFactory;
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.persistence.dao.DataAccessException;
 import oripa.persistence.doc.Doc;
+import oripa.persistence.entity.FoldedModelBinaryFormat;
 import oripa.persistence.entity.FoldedModelEntity;
-import oripa.persistence.entity.exporter.FoldedModelAllExporterFOLD;
 import oripa.persistence.entity.exporter.FoldedModelSingleExporterFOLD;
+import oripa.persistence.entity.exporter.FoldedModelStreamWriter;
+import oripa.persistence.entity.exporter.FoldedModelStreamWriterBinary;
+import oripa.persistence.entity.exporter.FoldedModelStreamWriterFOLD;
 
 /**
  * @author OUCHI Koji
@@ -41,6 +50,8 @@ import oripa.persistence.entity.exporter.FoldedModelSingleExporterFOLD;
 public class CommandLineFolder {
 	private static final Logger logger = LoggerFactory.getLogger(CommandLineFolder.class);
 
+	static final String BINARY_EXTENSION = "." + FoldedModelBinaryFormat.EXTENSION;
+
 	private final FileAccessService<Doc> creasePatternFileAccess;
 
 	@Inject
@@ -49,52 +60,151 @@ public class CommandLineFolder {
 		this.creasePatternFileAccess = creasePatternFileAccess;
 	}
 
-	public void fold(final String inputFilePath, final boolean any, final boolean split, final String outputFilePath,
+	/**
+	 * Folds the given crease pattern and writes the folded states. The output
+	 * is the binary file of folded model if the output path ends with
+	 * {@value #BINARY_EXTENSION} and the output is not split, otherwise FOLD.
+	 *
+	 * @param config
+	 *            options of folding and output.
+	 */
+	public void fold(final String inputFilePath, final String outputFilePath, final CommandLineFolderConfig config,
 			final double pointEps) {
 
-		if (!outputFilePath.endsWith(".fold")) {
-			throw new IllegalArgumentException("Output format is not supported. acceptable format: fold");
+		var split = config.isSplit();
+		var foldConfig = config.getFoldConfig();
+
+		var lowerOutputFilePath = outputFilePath.toLowerCase();
+		var binary = !split && lowerOutputFilePath.endsWith(BINARY_EXTENSION);
+		var extension = foldConfig.isGzip() && !split ? ".fold.gz" : ".fold";
+		if (!binary && !lowerOutputFilePath.endsWith(extension)) {
+			throw new IllegalArgumentException("Output format is not supported. acceptable format: " + extension
+					+ (split ? "" : ", " + BINARY_EXTENSION));
 		}
 
+		var monitor = createMonitor(config.getTimeLimitMilliSec());
+
 		try {
-			var creasePattern = creasePatternFileAccess.loadFile(inputFilePath).get().getCreasePattern();
-			var modelFactory = new TestedOrigamiModelFactory();
+			var origamiModel = loadOrigamiModel(inputFilePath, pointEps);
+
+			var folder = new FolderFactory().create(origamiModel.getModelType(), monitor);
+			var estimationType = config.isAny() ? Folder.EstimationType.FIRST_ONLY : Folder.EstimationType.FULL;
+
+			if (!split) {
+				// write each folded state as soon as it is found.
+				try (var writer = createWriter(origamiModel, outputFilePath, binary, config)) {
+					var result = folder.fold(origamiModel, pointEps, estimationType, overlapRelation -> {
+						try {
+							writer.write(overlapRelation);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+					writeMetrics(result.metrics(), config.getMetricsFilePath());
+				}
+				warnIfStopped(monitor);
+				return;
+			}
 
-			List<OrigamiModel> origamiModels = modelFactory.createOrigamiModels(creasePattern, pointEps);
+			var result = folder.fold(origamiModel, pointEps, estimationType);
+			writeMetrics(result.metrics(), config.getMetricsFilePath());
+			warnIfStopped(monitor);
+			var foldedModel = result.foldedModel();
 
-			if (origamiModels.size() > 1) {
-				throw new IllegalArgumentException("Input should be a single model.");
+			// the number of digits in the file names depends on the number of
+			// answers.
+			var digitLength = Integer.toString(foldedModel.getFoldablePatternCount()).length();
+			for (int i = 0; i < foldedModel.getFoldablePatternCount(); i++) {
+				var paddedNumber = "0".repeat(digitLength - Integer.toString(i).length()) + i;
+				var outputName = outputFilePath.replaceFirst("(?i)[.]fold$", "." + paddedNumber + ".fold");
+
+				var foldedModelExporter = new FoldedModelSingleExporterFOLD();
+				foldedModelExporter.export(
+						new FoldedModelEntity(foldedModel, i), outputName, null);
 			}
 
-			var origamiModel = origamiModels.get(0);
+		} catch (Exception e) {
+			logger.error("folding error", e);
+		}
+	}
+
+	private FoldedModelStreamWriter createWriter(final OrigamiModel origamiModel, final String outputFilePath,
+			final boolean binary, final CommandLineFolderConfig config) throws IOException {
+		if (binary) {
+			return new FoldedModelStreamWriterBinary(origamiModel, outputFilePath, config.getBinaryConfig());
+		}
+		return new FoldedModelStreamWriterFOLD(origamiModel, outputFilePath, config.getFoldConfig());
+	}
 
-			if (!origamiModel.isLocallyFlatFoldable()) {
-				throw new IllegalArgumentException("Input crease pattern is not locally flat foldable.");
-			}
+	/**
+	 * Counts the folded states of the given crease pattern without holding
+	 * them.
+	 *
+	 * @param config
+	 *            options of folding. Only the metrics file path and the time
+	 *            limit are used.
+	 * @return the number of the folded states, which is smaller than the
+	 *         actual number if the time limit is exceeded. -1 if something is
+	 *         wrong.
+	 */
+	public BigInteger count(final String inputFilePath, final CommandLineFolderConfig config,
+			final double pointEps) {
+		var monitor = createMonitor(config.getTimeLimitMilliSec());
 
-			var folder = new FolderFactory().create(origamiModel.getModelType());
-			var foldedModel = any
-					? folder.fold(origamiModel, pointEps, Folder.EstimationType.FIRST_ONLY).foldedModel()
-					: folder.fold(origamiModel, pointEps, Folder.EstimationType.FULL).foldedModel();
+		try {
+			var origamiModel = loadOrigamiModel(inputFilePath, pointEps);
 
-			if (split) {
-				var digitLength = Integer.toString(foldedModel.getFoldablePatternCount()).length();
-				for (int i = 0; i < foldedModel.getFoldablePatternCount(); i++) {
-					var paddedNumber = "0".repeat(digitLength - Integer.toString(i).length()) + i;
-					var outputName = outputFilePath.replaceFirst("[.]fold$", "." + paddedNumber + ".fold");
+			var folder = new FolderFactory().create(origamiModel.getModelType(), monitor);
 
-					var foldedModelExporter = new FoldedModelSingleExporterFOLD();
-					foldedModelExporter.export(
-							new FoldedModelEntity(foldedModel, i), outputName, null);
-				}
-			} else {
-				var foldedModelExporter = new FoldedModelAllExporterFOLD();
-				foldedModelExporter.export(
-						new FoldedModelEntity(foldedModel), outputFilePath, null);
-			}
+			var metrics = new FoldingMetrics();
+			var count = folder.count(origamiModel, pointEps, metrics);
+			writeMetrics(metrics, config.getMetricsFilePath());
+			warnIfStopped(monitor);
+
+			return count;
 
 		} catch (Exception e) {
-			logger.error("folding error", e);
+			logger.error("counting error", e);
+		}
+		return BigInteger.ONE.negate();
+	}
+
+	private FoldingMonitor createMonitor(final long timeLimitMilliSec) {
+		return new FoldingMonitor(timeLimitMilliSec, FoldingMonitor.NO_LIMIT,
+				progress -> logger.info("search progress: {}%", Math.round(progress * 100)));
+	}
+
+	private void warnIfStopped(final FoldingMonitor monitor) {
+		if (monitor.getStopReason() == FoldingMonitor.StopReason.NONE) {
+			return;
+		}
+		logger.warn("folding is stopped by {}. the result is partial.", monitor.getStopReason());
+	}
+
+	private void writeMetrics(final FoldingMetrics metrics, final String metricsFilePath) throws IOException {
+		if (metricsFilePath == null) {
+			return;
 		}
+		new FoldingMetricsWriter().write(metrics, metricsFilePath);
+	}
+
+	private OrigamiModel loadOrigamiModel(final String inputFilePath, final double pointEps)
+			throws DataAccessException {
+		var creasePattern = creasePatternFileAccess.loadFile(inputFilePath).get().getCreasePattern();
+		var modelFactory = new TestedOrigamiModelFactory();
+
+		List<OrigamiModel> origamiModels = modelFactory.createOrigamiModels(creasePattern, pointEps);
+
+		if (origamiModels.size() > 1) {
+			throw new IllegalArgumentException("Input should be a single model.");
+		}
+
+		var origamiModel = origamiModels.get(0);
+
+		if (!origamiModel.isLocallyFlatFoldable()) {
+			throw new IllegalArgumentException("Input crease pattern is not locally flat foldable.");
+		}
+
+		return origamiModel;
 	}
 }
@@ -0,0 +1,122 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.cli;
+
+import oripa.domain.fold.FoldingMonitor;
+import oripa.persistence.entity.exporter.FoldedModelBinaryConfig;
+import oripa.persistence.entity.exporter.FoldedModelFOLDConfig;
+
+/**
+ * Options of folding from command line.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class CommandLineFolderConfig {
+	private boolean any = false;
+	private boolean split = false;
+	private FoldedModelFOLDConfig foldConfig = new FoldedModelFOLDConfig();
+	private FoldedModelBinaryConfig binaryConfig = new FoldedModelBinaryConfig();
+	private String metricsFilePath = null;
+	private long timeLimitMilliSec = FoldingMonitor.NO_LIMIT;
+
+	public boolean isAny() {
+		return any;
+	}
+
+	/**
+	 *
+	 * @param any
+	 *            true if only one folded state is needed.
+	 */
+	public void setAny(final boolean any) {
+		this.any = any;
+	}
+
+	public boolean isSplit() {
+		return split;
+	}
+
+	/**
+	 *
+	 * @param split
+	 *            true if each folded state should be written to its own
+	 *            file.
+	 */
+	public void setSplit(final boolean split) {
+		this.split = split;
+	}
+
+	public FoldedModelFOLDConfig getFoldConfig() {
+		return foldConfig;
+	}
+
+	/**
+	 *
+	 * @param foldConfig
+	 *            output options of multiple frame FOLD file. Ignored if the
+	 *            output is split.
+	 */
+	public void setFoldConfig(final FoldedModelFOLDConfig foldConfig) {
+		this.foldConfig = foldConfig;
+	}
+
+	public FoldedModelBinaryConfig getBinaryConfig() {
+		return binaryConfig;
+	}
+
+	/**
+	 *
+	 * @param binaryConfig
+	 *            output options of binary file. Ignored if the output is
+	 *            FOLD.
+	 */
+	public void setBinaryConfig(final FoldedModelBinaryConfig binaryConfig) {
+		this.binaryConfig = binaryConfig;
+	}
+
+	public String getMetricsFilePath() {
+		return metricsFilePath;
+	}
+
+	/**
+	 *
+	 * @param metricsFilePath
+	 *            path of JSON file to write the timings and the counters of
+	 *            folding. null for no output.
+	 */
+	public void setMetricsFilePath(final String metricsFilePath) {
+		this.metricsFilePath = metricsFilePath;
+	}
+
+	public long getTimeLimitMilliSec() {
+		return timeLimitMilliSec;
+	}
+
+	/**
+	 *
+	 * @param timeLimitMilliSec
+	 *            the search stops after this time and the folded states found
+	 *            until then are used. {@link FoldingMonitor#NO_LIMIT} for no
+	 *            limit.
+	 */
+	public void setTimeLimitMilliSec(final long timeLimitMilliSec) {
+		this.timeLimitMilliSec = timeLimitMilliSec;
+	}
+}
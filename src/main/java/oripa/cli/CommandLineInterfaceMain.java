@@ -25,6 +25,7 @@ import org.apache.commons.cli.Options;
 
 import com.google.inject.Guice;
 
+import oripa.domain.fold.FoldingMonitor;
 import oripa.geom.GeomUtil;
 import oripa.inject.FileAccessServiceModule;
 
@@ -42,12 +43,22 @@ public class CommandLineInterfaceMain {
 	private static final String FOLD = "fold";
 	private static final String ANY = "any";
 	private static final String COUNT = "count";
+	private static final String FOLD_COUNT = "fold-count";
+	private static final String METRICS = "metrics";
+	private static final String TIME_LIMIT = "time-limit";
+	private static final String COMPACT = "compact";
+	private static final String GZIP = "gzip";
+	private static final String INDEX_FILE = "index-file";
+	private static final String DEDUP = "dedup";
+	private static final String DELTA = "delta";
 	private static final String HELP = "help";
 
 	private static final String CP_FILE = "cp-file";
 	private static final String IMAGE_FILE = "image-file";
 	private static final String FOLD_FILE = "fold-file";
 	private static final String FRAME_INDEX = "frame-index";
+	private static final String METRICS_FILE = "metrics-file";
+	private static final String MILLISECONDS = "milliseconds";
 
 	public void run(final String[] args) {
 		Options options = new Options();
@@ -65,7 +76,7 @@ public class CommandLineInterfaceMain {
 				.longOpt(IMAGE)
 				.hasArg()
 				.argName(IMAGE_FILE)
-				.desc("Output image file (svg, jpg, png) of folded forms in multiple frame FOLD format. "
+				.desc("Output image file (svg, jpg, png) of folded forms in multiple frame FOLD format or binary format. "
 						+ "The argument is output file path."
 						+ "This option requires --" + INDEX + " option.")
 				.build();
@@ -95,8 +106,9 @@ public class CommandLineInterfaceMain {
 				.longOpt(FOLD)
 				.hasArg()
 				.argName(FOLD_FILE)
-				.desc("Fold crease pattern file (opx, fold, cp) and save as a multipule frame FOLD format. "
-						+ "The argument is output file path. If you specify --" + SPLIT + " option, "
+				.desc("Fold crease pattern file (opx, fold, cp) and save as a multipule frame FOLD format, "
+						+ "or binary format if the output file path ends with \"" + CommandLineFolder.BINARY_EXTENSION
+						+ "\". The argument is output file path. If you specify --" + SPLIT + " option, "
 						+ "the output will be single frame FOLD files and index will be inserted into file name as \"givenName.123.fold\".")
 				.build();
 		options.addOption(foldOption);
@@ -110,10 +122,73 @@ public class CommandLineInterfaceMain {
 
 		var countOption = Option.builder("C")
 				.longOpt(COUNT)
-				.desc("Count the folded models in the given FOLD format file and print it. -1 if something is wrong.")
+				.desc("Count the folded models in the given FOLD format or binary format file and print it. "
+						+ "-1 if something is wrong.")
 				.build();
 		options.addOption(countOption);
 
+		var foldCountOption = Option.builder("F")
+				.longOpt(FOLD_COUNT)
+				.desc("Fold crease pattern file (opx, fold, cp) and print the number of the folded models. "
+						+ "The folded models are not kept, so that this is faster than --" + FOLD + " and --" + COUNT
+						+ ". -1 if something is wrong.")
+				.build();
+		options.addOption(foldCountOption);
+
+		var metricsOption = Option.builder("m")
+				.longOpt(METRICS)
+				.hasArg()
+				.argName(METRICS_FILE)
+				.desc("Write the timings and the counters of folding as JSON. The argument is output file path. "
+						+ "This option is to be used with --" + FOLD + " or --" + FOLD_COUNT + " option.")
+				.build();
+		options.addOption(metricsOption);
+
+		var timeLimitOption = Option.builder("t")
+				.longOpt(TIME_LIMIT)
+				.hasArg()
+				.argName(MILLISECONDS)
+				.desc("Stop the search of folded models after the given time and output the models found so far. "
+						+ "This option is to be used with --" + FOLD + " or --" + FOLD_COUNT + " option.")
+				.build();
+		options.addOption(timeLimitOption);
+
+		var indexFileOption = Option.builder()
+				.longOpt(INDEX_FILE)
+				.desc("Put this option if the frame index of the input FOLD file should be saved as \"inputName.fold.idx\" "
+						+ "and be reused for the next --" + IMAGE + " or --" + COUNT + ".")
+				.build();
+		options.addOption(indexFileOption);
+
+		var compactOption = Option.builder()
+				.longOpt(COMPACT)
+				.desc("Put this option if the output of --" + FOLD
+						+ " should be written without indents and line breaks. Not available with --" + SPLIT
+						+ ".")
+				.build();
+		options.addOption(compactOption);
+
+		var gzipOption = Option.builder()
+				.longOpt(GZIP)
+				.desc("Put this option if the output of --" + FOLD + " should be compressed by gzip. "
+						+ "The output file path should end with \".fold.gz\". Not available with --" + SPLIT + ".")
+				.build();
+		options.addOption(gzipOption);
+
+		var dedupOption = Option.builder()
+				.longOpt(DEDUP)
+				.desc("Put this option if the binary output (" + CommandLineFolder.BINARY_EXTENSION + ") of --" + FOLD
+						+ " should write a folded model same as a former one as a reference to it.")
+				.build();
+		options.addOption(dedupOption);
+
+		var deltaOption = Option.builder()
+				.longOpt(DELTA)
+				.desc("Put this option if the binary output (" + CommandLineFolder.BINARY_EXTENSION + ") of --" + FOLD
+						+ " should write each folded model as the difference from the previous one when it is smaller.")
+				.build();
+		options.addOption(deltaOption);
+
 		var helpOption = Option.builder("h")
 				.longOpt(HELP)
 				.desc("Show help.")
@@ -160,18 +235,33 @@ public class CommandLineInterfaceMain {
 				var index = Integer.parseInt(line.getOptionValue(indexOption));
 				var reverse = line.hasOption(reverseOption);
 				var converter = new FoldedModelImageExporter();
-				converter.export(inputFilePath, index, reverse, outputFilePath, pointEps);
+				converter.export(inputFilePath, index, reverse, outputFilePath, line.hasOption(indexFileOption),
+						pointEps);
 
 			} else if (line.hasOption(foldOption)) {
 				var outputFilePath = line.getOptionValue(foldOption);
 				var folder = injector.getInstance(CommandLineFolder.class);
-				var split = line.hasOption(splitOption);
-				var any = line.hasOption(anyOption);
-				folder.fold(inputFilePath, any, split, outputFilePath, pointEps);
+				var config = new CommandLineFolderConfig();
+				config.setMetricsFilePath(line.getOptionValue(metricsOption));
+				config.setTimeLimitMilliSec(parseTimeLimit(line.getOptionValue(timeLimitOption)));
+				config.setSplit(line.hasOption(splitOption));
+				config.setAny(line.hasOption(anyOption));
+				config.getFoldConfig().setCompact(line.hasOption(compactOption));
+				config.getFoldConfig().setGzip(line.hasOption(gzipOption));
+				config.getBinaryConfig().setDedup(line.hasOption(dedupOption));
+				config.getBinaryConfig().setDelta(line.hasOption(deltaOption));
+				folder.fold(inputFilePath, outputFilePath, config, pointEps);
 
 			} else if (line.hasOption(countOption)) {
 				var counter = new FoldedModelCounter();
-				System.out.println(counter.count(inputFilePath));
+				System.out.println(counter.count(inputFilePath, line.hasOption(indexFileOption)));
+
+			} else if (line.hasOption(foldCountOption)) {
+				var folder = injector.getInstance(CommandLineFolder.class);
+				var config = new CommandLineFolderConfig();
+				config.setMetricsFilePath(line.getOptionValue(metricsOption));
+				config.setTimeLimitMilliSec(parseTimeLimit(line.getOptionValue(timeLimitOption)));
+				System.out.println(folder.count(inputFilePath, config, pointEps));
 
 			} else if (line.getOptions().length == 0) {
 				throw new IllegalArgumentException("No option is given. Hint: see help by -" + helpOption.getOpt());
@@ -181,4 +271,8 @@ public class CommandLineInterfaceMain {
 			System.err.println("command line error: " + ex);
 		}
 	}
+
+	private long parseTimeLimit(final String value) {
+		return value == null ? FoldingMonitor.NO_LIMIT : Long.parseLong(value);
+	}
 }
@@ -21,7 +21,8 @@ package oripa.cli;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import oripa.persistence.entity.loader.FoldedModelLoaderFOLD;
+import oripa.persistence.entity.loader.FoldedModelBinaryReader;
+import oripa.persistence.entity.loader.FoldedModelIndexedLoaderFOLD;
 
 /**
  * @author OUCHI Koji
@@ -31,11 +32,27 @@ public class FoldedModelCounter {
 	private static final Logger logger = LoggerFactory.getLogger(FoldedModelCounter.class);
 
 	public int count(final String inputFilePath) {
-		var inputFileLoader = new FoldedModelLoaderFOLD();
+		return count(inputFilePath, false);
+	}
+
+	/**
+	 * Counts the frames having face orders without decoding them.
+	 *
+	 * @param usesIndexFile
+	 *            true if the index file of the input should be used. Ignored
+	 *            if the input is binary file.
+	 */
+	public int count(final String inputFilePath, final boolean usesIndexFile) {
 		try {
-			var inputModelEntityOpt = inputFileLoader.load(inputFilePath);
+			if (inputFilePath.toLowerCase().endsWith(CommandLineFolder.BINARY_EXTENSION)) {
+				try (var reader = new FoldedModelBinaryReader(inputFilePath)) {
+					return reader.getOverlapRelationCount();
+				}
+			}
+
+			var inputFileLoader = new FoldedModelIndexedLoaderFOLD(inputFilePath, usesIndexFile);
 
-			return inputModelEntityOpt.orElseThrow().getOverlapRelations().size();
+			return inputFileLoader.getOverlapRelationCount();
 		} catch (Exception e) {
 			logger.error("count error.", e);
 		}
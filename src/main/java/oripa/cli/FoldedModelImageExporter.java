@@ -19,6 +19,7 @@
 package oripa.cli;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -29,7 +30,9 @@ import oripa.persistence.entity.FoldedModelEntity;
 import oripa.persistence.entity.exporter.FoldedModelExporterSVG;
 import oripa.persistence.entity.exporter.FoldedModelPictureConfig;
 import oripa.persistence.entity.exporter.FoldedModelPictureExporter;
-import oripa.persistence.entity.loader.FoldedModelLoaderFOLD;
+import oripa.persistence.entity.loader.FoldedModelBinaryReader;
+import oripa.persistence.entity.loader.FoldedModelIndexedLoaderFOLD;
+import oripa.persistence.filetool.WrongDataFormatException;
 
 /**
  * @author OUCHI Koji
@@ -46,12 +49,25 @@ public class FoldedModelImageExporter {
 
 	public void export(final String inputFilePath, final int index, final boolean reverse,
 			final String outputFilePath, final double eps) {
+		export(inputFilePath, index, reverse, outputFilePath, false, eps);
+	}
+
+	/**
+	 * Reads only the folded state at the given index and writes its image.
+	 *
+	 * @param usesIndexFile
+	 *            true if the index file of the input should be used.
+	 */
+	public void export(final String inputFilePath, final int index, final boolean reverse,
+			final String outputFilePath, final boolean usesIndexFile, final double eps) {
 
 		final var lowerInputFilePath = inputFilePath.toLowerCase();
 		final var lowerOutputFilePath = outputFilePath.toLowerCase();
 
-		if (!lowerInputFilePath.endsWith(".fold")) {
-			throw new IllegalArgumentException("Input format is not supported. acceptable format: .fold");
+		if (!lowerInputFilePath.endsWith(".fold") && !lowerInputFilePath.endsWith(".fold.gz")
+				&& !lowerInputFilePath.endsWith(CommandLineFolder.BINARY_EXTENSION)) {
+			throw new IllegalArgumentException("Input format is not supported. acceptable format: .fold, .fold.gz, "
+					+ CommandLineFolder.BINARY_EXTENSION);
 		}
 
 		if (AVAILABLE_EXTENSIONS.stream().noneMatch(lowerOutputFilePath::endsWith)) {
@@ -59,8 +75,6 @@ public class FoldedModelImageExporter {
 					+ String.join(",", AVAILABLE_EXTENSIONS));
 		}
 
-		var inputFileLoader = new FoldedModelLoaderFOLD();
-
 		var outputExtension = findExtension(outputFilePath);
 
 		var outputFileExporter = switch (outputExtension) {
@@ -69,9 +83,7 @@ public class FoldedModelImageExporter {
 		};
 
 		try {
-			var inputModelEntityOpt = inputFileLoader.load(inputFilePath);
-
-			var entity = new FoldedModelEntity(inputModelEntityOpt.orElseThrow().toFoldedModel(), index);
+			var entity = load(inputFilePath, index, usesIndexFile);
 
 			Object config = switch (outputExtension) {
 			case (SVG_EXTENSION) -> null;
@@ -90,6 +102,16 @@ public class FoldedModelImageExporter {
 		}
 	}
 
+	private FoldedModelEntity load(final String inputFilePath, final int index, final boolean usesIndexFile)
+			throws IOException, WrongDataFormatException {
+		if (inputFilePath.toLowerCase().endsWith(CommandLineFolder.BINARY_EXTENSION)) {
+			try (var reader = new FoldedModelBinaryReader(inputFilePath)) {
+				return reader.load(index);
+			}
+		}
+		return new FoldedModelIndexedLoaderFOLD(inputFilePath, usesIndexFile).load(index);
+	}
+
 	private String findExtension(final String filePath) {
 		var regex = Pattern.compile("[.][\\w]+$");
 		var matcher = regex.matcher(filePath);
@@ -0,0 +1,69 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import oripa.domain.fold.FoldingMetrics;
+
+/**
+ * Writes {@link FoldingMetrics} as JSON. Times are in milliseconds.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class FoldingMetricsWriter {
+	public void write(final FoldingMetrics metrics, final String path) throws IOException {
+		try (var writer = Files.newBufferedWriter(Path.of(path))) {
+			var gson = new GsonBuilder().setPrettyPrinting().create();
+			gson.toJson(toJson(metrics), writer);
+			writer.flush();
+		}
+	}
+
+	JsonObject toJson(final FoldingMetrics metrics) {
+		var stageTimes = new JsonObject();
+		for (var stage : FoldingMetrics.Stage.values()) {
+			stageTimes.addProperty(stage.name().toLowerCase(), metrics.getTime(stage));
+		}
+
+		var failureCounts = new JsonObject();
+		failureCounts.addProperty("2faces", metrics.getFailureCountOf2Faces());
+		failureCounts.addProperty("3faces", metrics.getFailureCountOf3Faces());
+		failureCounts.addProperty("4faces", metrics.getFailureCountOf4Faces());
+
+		var json = new JsonObject();
+		json.add("stage_times_ms", stageTimes);
+		json.addProperty("total_time_ms", metrics.getTotalTime());
+		json.addProperty("assignments", metrics.getAssignmentCount());
+		json.addProperty("search_nodes", metrics.getSearchNodeCount());
+		json.addProperty("local_layer_orders", metrics.getLocalLayerOrderCount());
+		json.add("pruned_local_layer_orders", failureCounts);
+		json.addProperty("peak_overlap_relation_copies", metrics.getPeakCopyCount());
+		json.addProperty("answers", metrics.getAnswerCount());
+		json.addProperty("answers_per_second", metrics.getAnswersPerSecond());
+
+		return json;
+	}
+}
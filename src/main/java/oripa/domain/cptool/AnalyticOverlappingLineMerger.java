@@ -19,20 +19,29 @@
 package oripa.domain.cptool;
 
 import java.lang.invoke.MethodHandles;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import oripa.domain.cptool.compgeom.HashFactory;
-import oripa.geom.GeomUtil;
 import oripa.util.MathUtil;
-import oripa.util.collection.CollectionUtil;
 import oripa.value.OriLine;
 import oripa.value.OriLine.Type;
-import oripa.value.OriPoint;
 
 /**
+ * Merges overlapping lines by sweeping each group of lines with the same angle.
+ * The groups are independent of each other and can be merged in parallel. The
+ * result does not depend on whether the groups are merged in parallel or not.
+ *
+ * The sweep runs on a {@link SegmentBuffer} and the primitive arrays of the
+ * sweep keys. The lines are referred by index during the sweep and converted
+ * back to {@link OriLine} with the type of the buffer when the group is done.
+ *
  * @author OUCHI Koji
  *
  */
@@ -40,505 +49,290 @@ public class AnalyticOverlappingLineMerger implements OverlappingLineMerger {
 
 	private static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-	private static class MyPointAndOriLineFactory {
-		public static List<MyPointAndOriLine> createWithCanoincalization(final OriLine line) {
-
-			var list = create(line).stream().sorted().toList();
-
-			list.get(0).isLeft = true;
-			list.get(1).isLeft = false;
-
-			return list;
-		}
-
-		public static List<MyPointAndOriLine> create(final OriLine line) {
-			var left = asLeft(line.getOriPoint0(), line);
-			var right = asRight(line.getOriPoint1(), line);
-
-			left.opposite = right;
-			right.opposite = left;
-
-			left.oppositeKey = right.getKey();
-			right.oppositeKey = left.getKey();
-
-			return List.of(left, right);
-		}
-
-		public static MyPointAndOriLine asLeft(final OriPoint point, final OriLine line) {
-			var left = new MyPointAndOriLine(point, line, true);
-			left.key = toSweepKey(left);
-
-			return left;
-		}
-
-		public static MyPointAndOriLine asRight(final OriPoint point, final OriLine line) {
-			var right = new MyPointAndOriLine(point, line, false);
-			right.key = toSweepKey(right);
-
-			return right;
-		}
+	private final ForkJoinPool pool;
 
+	/**
+	 * Merges the groups of lines sequentially.
+	 */
+	public AnalyticOverlappingLineMerger() {
+		this(null);
 	}
 
-	private static class MyPointAndOriLine implements Comparable<MyPointAndOriLine> {
-		private final OriPoint point;
-		private final OriLine line;
-		private boolean isLeft;
-
-		private final double intercept;
-		private final double coord;
-
-		private SweepKey key;
-		private SweepKey oppositeKey;
-
-		private MyPointAndOriLine opposite;
-
-		private MyPointAndOriLine(final OriPoint point, final OriLine line, final boolean isLeft) {
-			this.point = point;
-			this.line = line;
-			this.isLeft = isLeft;
-
-			if (line.pointStream().noneMatch(point::equals)) {
-				throw new IllegalArgumentException(
-						"point " + point + " should be equal to the one of the segment " + line + " end point.");
-			}
+	/**
+	 *
+	 * @param pool
+	 *            the pool to merge the groups of lines with the same angle in
+	 *            parallel. null means sequential merge.
+	 */
+	public AnalyticOverlappingLineMerger(final ForkJoinPool pool) {
+		this.pool = pool;
+	}
 
-			var p0 = line.getP0();
+	/**
+	 * Sweep keys of the lines in the buffer. A line is placed on the
+	 * coord-intercept space: y-intercept and x for a non-vertical line,
+	 * x-intercept and y for a vertical line. The left end point is the one
+	 * with smaller coord.
+	 */
+	private static final class SweepKeys {
+		private final double[] angles;
+		private final double[] intercepts;
+		private final double[] leftCoords, rightCoords;
+		private final boolean[] isP0Left;
+
+		private SweepKeys(final SegmentBuffer buffer) {
+			var n = buffer.size();
+			angles = new double[n];
+			intercepts = new double[n];
+			leftCoords = new double[n];
+			rightCoords = new double[n];
+			isP0Left = new boolean[n];
+
+			for (int i = 0; i < n; i++) {
+				var x0 = buffer.getX0(i);
+				var y0 = buffer.getY0(i);
+				var x1 = buffer.getX1(i);
+				var y1 = buffer.getY1(i);
+
+				angles[i] = computeAngle(x0, y0, x1, y1);
+
+				double coord0, coord1;
+				if (isVertical(angles[i])) {
+					// use x-intercept
+					intercepts[i] = x0;
+					coord0 = y0;
+					coord1 = y1;
+				} else {
+					// use y-intercept
+					intercepts[i] = (y1 - y0) * (0 - x0) / (x1 - x0) + y0;
+					coord0 = x0;
+					coord1 = x1;
+				}
 
-			if (line.isVertical()) {
-				// use x-intercept
-				intercept = p0.getX();
-				coord = point.getY();
-			} else {
-				// use y-intercept
-				intercept = line.getAffineYValueAt(0);
-				coord = point.getX();
+				isP0Left[i] = coord0 <= coord1;
+				leftCoords[i] = Math.min(coord0, coord1);
+				rightCoords[i] = Math.max(coord0, coord1);
 			}
-
-		}
-
-		public boolean isLeft() {
-			return isLeft;
-		}
-
-		public boolean isRight() {
-			return !isLeft;
-		}
-
-		public MyPointAndOriLine getLeft() {
-			return isLeft ? this : opposite;
-		}
-
-		public MyPointAndOriLine getRight() {
-			return isRight() ? this : opposite;
-		}
-
-		public double getAngle() {
-			return line.getAngle();
-		}
-
-		public boolean isVertical() {
-			return line.isVertical();
 		}
 
 		/**
-		 * @return line
+		 * Same as {@link oripa.geom.Segment#getAngle()}.
 		 */
-		public OriLine getLine() {
-			return line;
-		}
-
-//		public double getAngle() {
-//			return angle;
-//		}
-//
-		public double getX() {
-			return point.getX();
-		}
-
-		public double getY() {
-			return point.getY();
-		}
-
-		public double getCoord() {
-			return coord;
-		}
-
-		public double getIntercept() {
-			return intercept;
-		}
-
-		public SweepKey getKey() {
-			return key;
-		}
-
-		@Override
-		public int compareTo(final MyPointAndOriLine o) {
-
-			var comp = key.compareTo(o.key);
-
-			if (comp == 0) {
-				return oppositeKey.compareTo(o.oppositeKey);
+		private static double computeAngle(final double x0, final double y0, final double x1, final double y1) {
+			var angle = Math.atan2(y1 - y0, x1 - x0);
+			// limit the angle 0 to PI.
+			if (angle < 0) {
+				angle += Math.PI;
 			}
-
-			return comp;
-		}
-
-		@Override
-		public int hashCode() {
-			return Objects.hash(point, opposite.point);
-		}
-
-		@Override
-		public boolean equals(final Object obj) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
+			// a line with angle PI is the same as one with angle 0.
+			if (Math.PI - angle < MathUtil.angleRadianEps()) {
+				angle = 0;
 			}
 
-			if (obj instanceof MyPointAndOriLine other) {
-				return compareTo(other) == 0;
-			}
-			return true;
+			return angle;
 		}
 
-		@Override
-		public String toString() {
-			return (isLeft ? "left " : "right ") + line.toString();
+		/**
+		 * Same as {@link oripa.geom.Segment#isVertical()}.
+		 */
+		private static boolean isVertical(final double angle) {
+			return MathUtil.areRadianEqual(angle, Math.PI / 2)
+					|| MathUtil.areRadianEqual(angle, 3 * Math.PI / 2);
 		}
 	}
 
-	private static record SweepKey(double intercept, double coord) implements Comparable<SweepKey> {
-
-		@Override
-		public int compareTo(final SweepKey other) {
-//			if (angle != other.angle) {
-//				return (int) Math.signum(angle - other.angle);
-//			}
-			if (coord != other.coord) {
-				return (int) Math.signum(coord - other.coord);
-
-			}
+	@Override
+	public Collection<OriLine> mergeIgnoringType(final Collection<OriLine> inputLines, final double eps) {
+		var results = new HashSet<OriLine>();
 
-			return (int) Math.signum(intercept - other.intercept);
-		}
+		var buffer = SegmentBuffer.of(inputLines.stream()
+				.filter(line -> line.length() >= eps)
+				.toList());
+		var keys = new SweepKeys(buffer);
 
-		private static Comparator<SweepKey> getComparatorOnSweep() {
-			return (a, b) -> {
-				if (a.intercept != b.intercept) {
-					return (int) Math.signum(a.intercept - b.intercept);
+		var byAngles = groupByAngle(keys);
 
-				}
+		// adds the merged lines in the order of the groups so that the result
+		// is the same as the sequential merge.
+		mergeGroups(byAngles, buffer, keys, eps).forEach(results::addAll);
 
-				return (int) Math.signum(a.coord - b.coord);
-			};
-		}
-	}
+		logger.trace("merged {} lines into {} lines", buffer.size(), results.size());
 
-	private static SweepKey toSweepKey(final MyPointAndOriLine p) {
-		return new SweepKey(p.intercept, p.getCoord());
+		return results;
 	}
 
-	private SweepKey toSweepKey(final MyPointAndOriLine p, final TreeSet<SweepKey> keys, final double eps) {
-		var key = findKey(p, keys, eps);
-		if (key != null) {
-			return key;
+	/**
+	 * Splits the indices of the lines in the same way as
+	 * {@link oripa.domain.cptool.compgeom.HashFactory}: the angle of each line
+	 * in a group is within {@link MathUtil#angleRadianEps()} from the one of
+	 * the first line in the group.
+	 */
+	private List<int[]> groupByAngle(final SweepKeys keys) {
+		var indices = new int[keys.angles.length];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = i;
+		}
+		sort(indices, 0, indices.length, keys.angles, null);
+
+		var groups = new ArrayList<int[]>();
+
+		int start = 0;
+		for (int k = 1; k <= indices.length; k++) {
+			if (k == indices.length
+					|| keys.angles[indices[k]] - keys.angles[indices[start]] > MathUtil.angleRadianEps()) {
+				groups.add(Arrays.copyOfRange(indices, start, k));
+				start = k;
+			}
 		}
 
-		return p.getKey();
+		return groups;
 	}
 
-	private SweepKey findKey(final MyPointAndOriLine p, final TreeSet<SweepKey> sortedKeys, final double eps) {
-		var key = p.getKey();
-
-		var coord = p.getCoord();
-
-		var range = CollectionUtil.rangeSetInclusive(sortedKeys,
-				new SweepKey(key.intercept - eps, coord - eps),
-				new SweepKey(key.intercept + eps, coord + eps));
-
-		var filtered = range.stream()
-				.filter(k -> MathUtil.areEqual(k.intercept, key.intercept, eps))
-				.filter(k -> MathUtil.areEqual(k.coord, key.coord, eps));
-		return filtered.findFirst().get();
+	private List<List<OriLine>> mergeGroups(final List<int[]> groups, final SegmentBuffer buffer,
+			final SweepKeys keys, final double eps) {
+		if (pool == null) {
+			return groups.stream()
+					.map(group -> execute(group, buffer, keys, eps))
+					.toList();
+		}
 
+		return pool.submit(() -> groups.parallelStream()
+				.map(group -> execute(group, buffer, keys, eps))
+				.toList())
+				.join();
 	}
 
-	private HashMap<MyPointAndOriLine, SweepKey> createKeyTable(final Collection<MyPointAndOriLine> points,
+	/**
+	 * Sweeps the lines of the same angle on coord-intercept space. The lines
+	 * are grouped by intercept and each intercept group is swept along coord:
+	 * a line is merged into the current run if it overlaps the run.
+	 *
+	 * @param group
+	 *            indices of the lines with the same angle. The content is
+	 *            reordered.
+	 */
+	private List<OriLine> execute(final int[] group, final SegmentBuffer buffer, final SweepKeys keys,
 			final double eps) {
-		var sorted = new TreeSet<SweepKey>();
-		points.forEach(p -> sorted.add(toSweepKey(p)));
-
-		var keyTable = new HashMap<MyPointAndOriLine, SweepKey>();
+		var results = new ArrayList<OriLine>();
 
-		for (var p : points) {
-
-			var presentativeKey = findKey(p, sorted, eps);
-			keyTable.put(p, presentativeKey);
-		}
+		sort(group, 0, group.length, keys.intercepts, null);
 
-		return keyTable;
-	}
-
-	@Override
-	public Collection<OriLine> mergeIgnoringType(final Collection<OriLine> inputLines, final double eps) {
-		var results = new HashSet<OriLine>();
-
-		var points = new ArrayList<MyPointAndOriLine>();
-		for (var line : inputLines) {
-			if (line.length() < eps) {
-				continue;
+		int start = 0;
+		while (start < group.length) {
+			var intercept = keys.intercepts[group[start]];
+			int end = start + 1;
+			while (end < group.length && keys.intercepts[group[end]] - intercept <= eps) {
+				end++;
 			}
-			points.addAll(MyPointAndOriLineFactory.createWithCanoincalization(line));
-		}
-
-		points.sort(Comparator.comparing(MyPointAndOriLine::getAngle));
-
-		var byAngles = new HashFactory().create(points, MyPointAndOriLine::getAngle, MathUtil.angleRadianEps());
-
-		for (var byAngle : byAngles) {
-			results.addAll(execute(byAngle, eps));
-		}
-
-		return results;
-	}
-
-	private Collection<OriLine> execute(final Collection<MyPointAndOriLine> points, final double eps) {
-		// sweep line on coord-intercept space, along coord.
-		// for a pair of angle and intercept, only one mergeable line appears
-		// when the sweep encounter a point.
-
-		var results = new HashMap<SweepKey, OriLine>();
-
-		var keyTable = createKeyTable(points, eps);
-		var keys = new TreeSet<>(keyTable.values());
-
-		var events = new PriorityQueue<MyPointAndOriLine>(points);
-
-		var onSweepLine = new TreeMap<SweepKey, Set<MyPointAndOriLine>>(SweepKey.getComparatorOnSweep());
-
-		var p = events.peek();
-		var eventLeftKey = keyTable.get(p);
-
-		var eventPoint = p;
-		var count = 0;
-		while (!events.isEmpty() && count++ <= 2 * points.size() * points.size()) {
-//		while (!events.isEmpty() && count++ <= 100) {
-			eventPoint = events.poll();
-			logger.trace("event : {}", eventPoint);
-			// logger.trace("event : {}, remain: {}", eventPoint, events);
 
-			eventLeftKey = keyTable.get(eventPoint.getLeft());
-			var eventRightKey = keyTable.get(eventPoint.getRight());
-
-			var merging = getMerging(eventLeftKey, eventPoint, onSweepLine, eps);
-
-			var mergingLeft = merging == null ? null : merging.getLeft();
-			var mergingRight = merging == null ? null : merging.getRight();
-			var mergingLeftKey = merging == null ? null : toSweepKey(mergingLeft, keys, eps);
-			var mergingRightKey = merging == null ? null : toSweepKey(mergingRight, keys, eps);
-
-			logger.trace("sweep key:{} merging value: {}", eventLeftKey, merging);
-
-			if (eventPoint.isRight()) {
-				events.remove(eventPoint.opposite);
-				remove(eventLeftKey, eventPoint, onSweepLine);
-				remove(eventRightKey, eventPoint, onSweepLine);
-
-				if (mergingRightKey == null) {
-					results.put(eventRightKey, eventPoint.getLine());
+			sort(group, start, end, keys.leftCoords, keys.rightCoords);
+
+			var runLeft = group[start];
+			var runRight = runLeft;
+			var runSize = 1;
+			for (int k = start + 1; k < end; k++) {
+				var i = group[k];
+				if (canMerge(runRight, i, keys)) {
+					if (keys.rightCoords[i] > keys.rightCoords[runRight]) {
+						runRight = i;
+					}
+					runSize++;
 					continue;
 				}
+				results.add(toLine(runLeft, runRight, runSize, buffer, keys));
 
-				// merging point is on the right.
-				// it should be treated in the future.
-				if (getComparatorOnSweep().compare(merging, eventPoint) == 1) {
-					continue;
-				}
-
-				var merged = merge(merging, eventPoint, eps);
-				logger.trace("merge result: {}", merged);
-
-				events.remove(mergingLeft);
-				events.remove(mergingRight);
-				remove(mergingLeftKey, mergingLeft, onSweepLine);
-				remove(mergingRightKey, mergingRight, onSweepLine);
-
-				var mergedLeft = merged.get(0);
-				var mergedRight = merged.get(1);
-				var mergedLeftKey = toSweepKey(mergedLeft, keys, eps);
-				var mergedRightKey = toSweepKey(mergedRight, keys, eps);
-
-				add(mergedRightKey, mergedRight, onSweepLine);
-				keyTable.put(mergedLeft, mergedLeftKey);
-				keyTable.put(mergedRight, mergedRightKey);
-
-				results.remove(mergingRightKey);
-				results.remove(eventRightKey);
-				results.put(mergedRightKey, mergedRight.getLine());
-
-				continue;
-			}
-
-			if (merging == null) {
-				merging = eventPoint;
-				mergingLeft = eventPoint.getLeft();
-				mergingRight = eventPoint.getRight();
-				mergingLeftKey = eventLeftKey;
-				mergingRightKey = eventRightKey;
+				runLeft = i;
+				runRight = i;
+				runSize = 1;
 			}
+			results.add(toLine(runLeft, runRight, runSize, buffer, keys));
 
-			// event is left side
-
-			// remove points to be old.
-			var rightEventPoint = eventPoint.opposite;
-			events.remove(rightEventPoint);
-			events.remove(mergingRight);
-			remove(eventLeftKey, eventPoint, onSweepLine);
-			remove(eventRightKey, rightEventPoint, onSweepLine);
-			remove(mergingLeftKey, mergingLeft, onSweepLine);
-			remove(mergingRightKey, mergingRight, onSweepLine);
-
-			logger.trace("after remove, remain: {}", events);
-
-			var merged = merge(merging, eventPoint, eps);
-			logger.trace("merge result: {}", merged);
-
-			var mergedLeft = merged.get(0);
-			var mergedRight = merged.get(1);
-			var mergedLeftKey = toSweepKey(mergedLeft, keys, eps);
-			var mergedRightKey = toSweepKey(mergedRight, keys, eps);
-
-			events.add(mergedRight);
-
-			keyTable.put(mergedLeft, mergedLeftKey);
-			keyTable.put(mergedRight, mergedRightKey);
-
-			// left has been swept and no need to be remembered.
-			add(mergedRightKey, mergedRight, onSweepLine);
-
-			results.remove(mergingRightKey);
-			results.remove(eventRightKey);
-
-			logger.trace("after add, remain: {}", events);
-
-			logger.trace("on sweep line {}", onSweepLine);
+			start = end;
 		}
 
-		logger.trace("results: {}", results);
-
-		logger.info("loop count: {}", count);
-
-		return results.values().stream().toList();
-
+		return results;
 	}
 
-	private List<MyPointAndOriLine> merge(final MyPointAndOriLine merging, final MyPointAndOriLine eventPoint,
-			final double eps) {
-
-		if (merging.getLine().equals(eventPoint.getLine(), eps)) {
-			var list = List.of(merging, merging.opposite)
-					.stream()
-					.sorted(getComparatorOnSweep())
-					.toList();
-
-			return MyPointAndOriLineFactory.create(
-					new OriLine(list.getFirst().point, list.getLast().point, Type.MOUNTAIN));
-		}
-
-		var list = List.of(merging, merging.opposite, eventPoint, eventPoint.opposite)
-				.stream()
-				.sorted(getComparatorOnSweep())
-				.toList();
-
-		var merged = MyPointAndOriLineFactory.create(
-				new OriLine(list.getFirst().point, list.getLast().point, Type.MOUNTAIN));
+	/**
+	 * Whether the line {@code i} overlaps the run whose right end is the one of
+	 * the line {@code runRight}. The line {@code i} should not be on the left
+	 * of the run. The lines touching at the end points are not merged since
+	 * the end point should be kept as a vertex.
+	 */
+	private boolean canMerge(final int runRight, final int i, final SweepKeys keys) {
+		return keys.leftCoords[i] < keys.rightCoords[runRight];
+	}
 
-		if (merged.get(0).getLine().length() + eps < merging.getLine().length()
-				|| merged.get(0).getLine().length() + eps < eventPoint.getLine().length()) {
-			throw new IllegalStateException(
-					"wrong merge. %s %s result in %s".formatted(merging, eventPoint, merged.get(0)));
+	/**
+	 * A run of one line keeps the line as it is. Merged line ignores the type.
+	 */
+	private OriLine toLine(final int runLeft, final int runRight, final int runSize, final SegmentBuffer buffer,
+			final SweepKeys keys) {
+		if (runSize == 1) {
+			return new OriLine(buffer.getX0(runLeft), buffer.getY0(runLeft),
+					buffer.getX1(runLeft), buffer.getY1(runLeft), buffer.getType(runLeft));
 		}
 
-		return merged;
+		return new OriLine(getLeftX(runLeft, buffer, keys), getLeftY(runLeft, buffer, keys),
+				getRightX(runRight, buffer, keys), getRightY(runRight, buffer, keys), Type.MOUNTAIN);
 	}
 
-	private MyPointAndOriLine getMerging(final SweepKey key, final MyPointAndOriLine p,
-			final TreeMap<SweepKey, Set<MyPointAndOriLine>> onSweepLine, final double eps) {
-
-		var group = CollectionUtil.rangeMapInclusive(onSweepLine,
-				new SweepKey(key.intercept - eps, key.coord - eps),
-				new SweepKey(key.intercept + eps, key.coord + eps));
-
-		var candidates = new TreeSet<MyPointAndOriLine>(getComparatorOnSweep());
-
-		// FIXME: O(n log n)
-		group.forEach((key_, points) -> {
-			if (MathUtil.areEqual(key.intercept, key_.intercept, eps)) {
-				candidates.addAll(points);
-			}
-		});
-
-		logger.trace("merging's candidates {}", candidates);
-
-		var lower = candidates.lower(p);
-		var higher = candidates.higher(p);
-
-		var merging = lower == null ? higher : lower;
-
-		if (merging == null) {
-			return null;
-		}
-
-		var overlapType = GeomUtil.distinguishSegmentsOverlap(merging.getLine(), p.getLine(), eps);
-		var canMerge = switch (overlapType) {
-		case 2, 3, 4 -> true;
-		default -> false;
-		};
+	private double getLeftX(final int i, final SegmentBuffer buffer, final SweepKeys keys) {
+		return keys.isP0Left[i] ? buffer.getX0(i) : buffer.getX1(i);
+	}
 
-		logger.trace("overlap type {}, {} {}", overlapType, p.getLine(), merging.getLine());
+	private double getLeftY(final int i, final SegmentBuffer buffer, final SweepKeys keys) {
+		return keys.isP0Left[i] ? buffer.getY0(i) : buffer.getY1(i);
+	}
 
-		return canMerge ? merging : null;
+	private double getRightX(final int i, final SegmentBuffer buffer, final SweepKeys keys) {
+		return keys.isP0Left[i] ? buffer.getX1(i) : buffer.getX0(i);
 	}
 
-	private Comparator<MyPointAndOriLine> getComparatorOnSweep() {
-		return Comparator.comparing(MyPointAndOriLine::getCoord);
+	private double getRightY(final int i, final SegmentBuffer buffer, final SweepKeys keys) {
+		return keys.isP0Left[i] ? buffer.getY1(i) : buffer.getY0(i);
 	}
 
-	private MyPointAndOriLine get(final SweepKey key, final MyPointAndOriLine p,
-			final TreeMap<SweepKey, Set<MyPointAndOriLine>> onSweepLine) {
+	/**
+	 * Stable merge sort of {@code indices[from, to)} by {@code values} and then
+	 * by {@code tieValues} if given.
+	 */
+	private static void sort(final int[] indices, final int from, final int to, final double[] values,
+			final double[] tieValues) {
+		if (to - from < 2) {
+			return;
+		}
+		var work = new int[to - from];
+		sort(indices, from, to, values, tieValues, work);
+	}
 
-		var set = onSweepLine.get(key);
-		if (set == null || set.isEmpty()) {
-			return null;
+	private static void sort(final int[] indices, final int from, final int to, final double[] values,
+			final double[] tieValues, final int[] work) {
+		if (to - from < 2) {
+			return;
 		}
+		var mid = (from + to) >>> 1;
+		sort(indices, from, mid, values, tieValues, work);
+		sort(indices, mid, to, values, tieValues, work);
 
-		if (set.contains(p)) {
-			return p;
+		System.arraycopy(indices, from, work, 0, to - from);
+		int a = 0, b = mid - from, k = from;
+		while (a < mid - from && b < to - from) {
+			indices[k++] = compare(work[b], work[a], values, tieValues) < 0 ? work[b++] : work[a++];
+		}
+		while (a < mid - from) {
+			indices[k++] = work[a++];
+		}
+		while (b < to - from) {
+			indices[k++] = work[b++];
 		}
-
-		return onSweepLine.get(key).iterator().next();
-	}
-
-	private void add(final SweepKey key, final MyPointAndOriLine p,
-			final TreeMap<SweepKey, Set<MyPointAndOriLine>> onSweepLine) {
-		onSweepLine.putIfAbsent(key, new HashSet<>());
-
-		onSweepLine.get(key).add(p);
 	}
 
-	private MyPointAndOriLine remove(final SweepKey key, final MyPointAndOriLine p,
-			final TreeMap<SweepKey, Set<MyPointAndOriLine>> onSweepLine) {
-		var set = onSweepLine.get(key);
-
-		if (set == null || set.isEmpty()) {
-			return null;
+	private static int compare(final int i, final int j, final double[] values, final double[] tieValues) {
+		var comp = Double.compare(values[i], values[j]);
+		if (comp != 0 || tieValues == null) {
+			return comp;
 		}
-
-		set.remove(get(key, p, onSweepLine));
-
-		return p;
+		return Double.compare(tieValues[i], tieValues[j]);
 	}
 }
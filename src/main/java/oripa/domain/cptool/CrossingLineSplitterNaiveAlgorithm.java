@@ -45,31 +45,45 @@ public class CrossingLineSplitterNaiveAlgorithm implements CrossingLineSplitter
 
 		// every line can be split by other lines
 		for (var line0 : inputLines) {
-			var splits = new ArrayList<OriLine>();
-			splits.add(line0);
-
-			// test all pairs
-			for (var line1 : inputLines) {
-				var itr = splits.iterator();
-				Collection<OriLine> result = List.of();
-
-				// find and remove segment to split
-				while (itr.hasNext()) {
-					var s = itr.next();
-					result = split(s, line1, eps);
-					if (result.size() == 2) {
-						itr.remove();
-						break;
-					}
+			splitLines.addAll(splitByLines(line0, inputLines, eps));
+		}
+
+		return splitLines;
+	}
+
+	/**
+	 * Splits the given line by the other lines in the order of iteration.
+	 *
+	 * @param line0
+	 *            line to be split.
+	 * @param otherLines
+	 *            lines to split {@code line0}. May contain {@code line0}.
+	 * @param eps
+	 * @return split segments of {@code line0}.
+	 */
+	List<OriLine> splitByLines(final OriLine line0, final Collection<OriLine> otherLines, final double eps) {
+		var splits = new ArrayList<OriLine>();
+		splits.add(line0);
+
+		// test all pairs
+		for (var line1 : otherLines) {
+			var itr = splits.iterator();
+			Collection<OriLine> result = List.of();
+
+			// find and remove segment to split
+			while (itr.hasNext()) {
+				var s = itr.next();
+				result = split(s, line1, eps);
+				if (result.size() == 2) {
+					itr.remove();
+					break;
 				}
-				// add the result of split
-				splits.addAll(result);
 			}
-
-			splitLines.addAll(splits);
+			// add the result of split
+			splits.addAll(result);
 		}
 
-		return splitLines;
+		return splits;
 	}
 
 	private Collection<OriLine> split(final OriLine toSplit, final OriLine other, final double eps) {
@@ -0,0 +1,97 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import oripa.geom.RectangleDomain;
+import oripa.util.MathUtil;
+import oripa.value.OriLine;
+
+/**
+ * Parallel version of {@link CrossingLineSplitterNaiveAlgorithm}. The split of
+ * a line depends only on the line and the others, so that each line is split
+ * on its own thread. Each line is tested only against the lines whose
+ * bounding boxes overlap its own, which are found by a uniform grid over the
+ * lines. The lines are tested in the order of the input, so the result is the
+ * same as the one of {@link CrossingLineSplitterNaiveAlgorithm}.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class CrossingLineSplitterParallelAlgorithm implements CrossingLineSplitter {
+	private final CrossingLineSplitterNaiveAlgorithm naiveAlgorithm;
+	private final SegmentPairCandidateFinder candidateFinder = new SegmentPairCandidateFinder();
+
+	public CrossingLineSplitterParallelAlgorithm(final LineDivider lineDivider) {
+		naiveAlgorithm = new CrossingLineSplitterNaiveAlgorithm(lineDivider);
+	}
+
+	@Override
+	public Collection<OriLine> splitIgnoringType(final Collection<OriLine> inputLines, final double eps) {
+		var lines = List.copyOf(inputLines);
+		var candidates = findCandidates(lines, eps);
+
+		var splits = IntStream.range(0, lines.size()).parallel()
+				.mapToObj(i -> naiveAlgorithm.splitByLines(
+						lines.get(i),
+						Arrays.stream(candidates[i]).mapToObj(lines::get).toList(),
+						eps))
+				.toList();
+
+		// same insertion order as the naive algorithm.
+		var splitLines = new HashSet<OriLine>();
+		splits.forEach(splitLines::addAll);
+
+		return splitLines;
+	}
+
+	/**
+	 * @return the indices of the lines which can split the line of each
+	 *         index, in ascending order. The line itself is included since
+	 *         it can split its own pieces slightly tilted by numerical error.
+	 */
+	private int[][] findCandidates(final List<OriLine> lines, final double eps) {
+		if (lines.isEmpty()) {
+			return new int[0][];
+		}
+
+		// cross points are accepted with the tolerance of the parameters
+		// along the lines.
+		var margin = eps
+				+ 2 * MathUtil.normalizedValueEps() * RectangleDomain.createFromSegments(lines).maxWidthHeight();
+
+		var builders = IntStream.range(0, lines.size())
+				.mapToObj(i -> IntStream.builder().add(i))
+				.toList();
+
+		candidateFinder.findCandidatePairs(lines, i -> true, margin).forEach(pair -> {
+			builders.get(pair.v1()).add(pair.v2());
+			builders.get(pair.v2()).add(pair.v1());
+		});
+
+		return builders.stream()
+				.map(builder -> builder.build().sorted().toArray())
+				.toArray(int[][]::new);
+	}
+}
@@ -3,6 +3,8 @@ package oripa.domain.cptool;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +12,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
@@ -18,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import oripa.domain.creasepattern.CreasePattern;
 import oripa.geom.GeomUtil;
 import oripa.geom.RectangleDomain;
+import oripa.geom.Segment;
 import oripa.util.StopWatch;
 import oripa.value.OriLine;
 import oripa.value.OriPoint;
@@ -29,6 +33,7 @@ public class LineAdder {
 	private final SequentialLineFactory sequentialLineFactory = new SequentialLineFactory();
 	private final PointSorter pointSorter = new PointSorter();
 	private final OverlappingLineDivider divider = new OverlappingLineDivider();
+	private final SegmentPairCandidateFinder pairCandidateFinder = new SegmentPairCandidateFinder();
 
 	/**
 	 * divides the current lines by the input line and returns a map of the
@@ -285,9 +290,13 @@ public class LineAdder {
 
 	/**
 	 * Adds all of {@code inputLines} to {@code currentLines}. The lines will be
-	 * split at the intersections of the lines.
+	 * split at the intersections of the lines. The result is the same as
+	 * adding the lines one by one by {@link #addLine(OriLine, Collection, double)}.
 	 *
-	 * TODO: test two other algorithms (OUCHI Koji, and scan line intersections)
+	 * The overlaps among the input lines are settled first in the order of
+	 * {@code inputLines} so that the later line overwrites the type of the
+	 * earlier one. Then the cross points of all lines are found at once through
+	 * a grid and the overlaps with the current lines are resolved at once.
 	 *
 	 * @param inputLines
 	 *            lines to be added
@@ -296,7 +305,264 @@ public class LineAdder {
 	 */
 	public void addAll(final Collection<OriLine> inputLines,
 			final Collection<OriLine> currentLines, final double pointEps) {
-		inputLines.forEach(line -> addLine(line, currentLines, pointEps));
+		if (inputLines.size() < 2) {
+			inputLines.forEach(line -> addLine(line, currentLines, pointEps));
+			return;
+		}
+		addAllInBatch(settleOverlaps(new ArrayList<>(inputLines), pointEps), currentLines, pointEps);
+	}
+
+	/**
+	 * Resolves the overlaps among {@code inputLines} as adding them one by one
+	 * does. The lines without overlaps are kept as they are.
+	 *
+	 * @return lines without overlaps among them.
+	 */
+	private List<OriLine> settleOverlaps(final List<OriLine> inputLines, final double pointEps) {
+		var overlapGroups = new OverlappingLineExtractor().extractOverlapsGroupedBySupport(inputLines, pointEps);
+		if (overlapGroups.isEmpty()) {
+			return inputLines;
+		}
+
+		// the last index wins for the same lines as the last addition does.
+		var order = new HashMap<OriLine, Integer>();
+		IntStream.range(0, inputLines.size()).forEach(i -> order.put(inputLines.get(i), i));
+
+		var overlappingLines = new HashSet<OriLine>();
+		overlapGroups.forEach(overlappingLines::addAll);
+
+		var settledLines = new ArrayList<OriLine>(inputLines.stream()
+				.filter(line -> !overlappingLines.contains(line))
+				.toList());
+
+		// the clusters are apart from each other and can be settled
+		// independently.
+		overlapGroups.parallelStream()
+				.flatMap(overlaps -> clusterOnSupport(overlaps, pointEps).stream())
+				.map(cluster -> settleOverlapsOnSupport(cluster.stream()
+						.sorted(Comparator.comparing(order::get))
+						.toList(), pointEps))
+				.toList()
+				.forEach(settledLines::addAll);
+
+		logger.debug("settled {} input lines into {} lines", inputLines.size(), settledLines.size());
+
+		return settledLines;
+	}
+
+	/**
+	 * Splits the lines on the same support into clusters of lines connected by
+	 * overlaps. The lines in different clusters at most touch each other at
+	 * the end points and don't divide each other.
+	 */
+	private List<List<OriLine>> clusterOnSupport(final Collection<OriLine> overlaps, final double pointEps) {
+		var first = overlaps.iterator().next();
+		var origin = first.getP0();
+		var dir = first.getP1().subtract(origin).normalize();
+
+		ToDoubleFunction<Vector2d> toParameter = p -> p.subtract(origin).dot(dir);
+		ToDoubleFunction<OriLine> toStart = line -> Math.min(
+				toParameter.applyAsDouble(line.getP0()), toParameter.applyAsDouble(line.getP1()));
+		ToDoubleFunction<OriLine> toEnd = line -> Math.max(
+				toParameter.applyAsDouble(line.getP0()), toParameter.applyAsDouble(line.getP1()));
+
+		var sortedLines = overlaps.stream()
+				.sorted(Comparator.comparingDouble(toStart))
+				.toList();
+
+		var clusters = new ArrayList<List<OriLine>>();
+		var cluster = new ArrayList<OriLine>();
+		var end = Double.NEGATIVE_INFINITY;
+		for (var line : sortedLines) {
+			if (toStart.applyAsDouble(line) > end - pointEps) {
+				cluster = new ArrayList<OriLine>();
+				clusters.add(cluster);
+			}
+			cluster.add(line);
+			end = Math.max(end, toEnd.applyAsDouble(line));
+		}
+
+		return clusters;
+	}
+
+	/**
+	 * Same as the division and the type overwriting of
+	 * {@link #addLine(OriLine, Collection, double)} applied for each of
+	 * {@code sortedOverlaps} in the order. The lines should be on the same
+	 * support.
+	 */
+	private Collection<OriLine> settleOverlapsOnSupport(final List<OriLine> sortedOverlaps, final double pointEps) {
+		var lastLine = sortedOverlaps.getLast();
+
+		// copies of the same segment, e.g., a border shared by tiles. the last
+		// one overwrites all.
+		if (sortedOverlaps.stream().allMatch(line -> lastLine.equals((Segment) line, pointEps))) {
+			return List.of(lastLine);
+		}
+
+		var overwriter = new LineTypeOverwriter();
+
+		Collection<OriLine> settledLines = new HashSet<OriLine>(List.of(sortedOverlaps.getFirst()));
+
+		for (var line : sortedOverlaps.subList(1, sortedOverlaps.size())) {
+			var dividedSettledLines = divider.divideIfOverlap(List.of(line), settledLines, pointEps);
+			var dividedLines = divider.divideIfOverlap(settledLines, List.of(line), pointEps);
+
+			var lines = new HashSet<OriLine>(dividedSettledLines);
+			lines.addAll(dividedLines);
+
+			settledLines = overwriter.overwriteLineTypes(dividedLines, lines, pointEps);
+		}
+
+		return settledLines;
+	}
+
+	private void addAllInBatch(final List<OriLine> inputLines,
+			final Collection<OriLine> currentLines, final double pointEps) {
+		StopWatch watch = new StopWatch(true);
+
+		var inputDomain = RectangleDomain.createFromSegments(inputLines);
+
+		RectangleClipper inputDomainClipper = new RectangleClipper(
+				inputDomain,
+				pointEps);
+
+		List<OriLine> crossingCurrentLines;
+
+		if (currentLines instanceof CreasePattern cp) {
+			crossingCurrentLines = new ArrayList<>(
+					new HashSet<>(inputDomainClipper.selectByArea(cp.clip(inputDomain, pointEps))));
+			currentLines.removeAll(crossingCurrentLines);
+		} else {
+			crossingCurrentLines = new ArrayList<>(
+					new HashSet<>(inputDomainClipper.selectByArea(currentLines)));
+		}
+
+		Collection<OriLine> outsideLines = new HashSet<OriLine>();
+		if (!(currentLines instanceof Set<OriLine> || currentLines instanceof CreasePattern)) {
+			outsideLines.addAll(currentLines);
+			outsideLines.removeAll(crossingCurrentLines);
+		}
+
+		var splitPoints = collectSplitPoints(inputLines, crossingCurrentLines, pointEps);
+		logger.trace("addAllInBatch() cross points: {}[ms]", watch.getMilliSec());
+
+		var splitNewLines = IntStream.range(0, inputLines.size()).parallel()
+				.mapToObj(i -> sequentialLineFactory.createSequentialLines(
+						pointSorter.sortPointsOnLine(splitPoints.get(i), inputLines.get(i)),
+						inputLines.get(i).getType(), pointEps))
+				.flatMap(Collection::stream)
+				.toList();
+
+		var splitCurrentLines = IntStream.range(0, crossingCurrentLines.size()).parallel()
+				.mapToObj(i -> splitCurrentLine(crossingCurrentLines.get(i),
+						splitPoints.get(inputLines.size() + i), pointEps))
+				.flatMap(Collection::stream)
+				.toList();
+
+		Collection<OriLine> insideLines = new HashSet<OriLine>();
+
+		var dividedCrossingCurrentLines = divider.divideIfOverlap(inputLines, splitCurrentLines, pointEps);
+		insideLines.addAll(dividedCrossingCurrentLines);
+
+		var dividedSplitNewLines = divider.divideIfOverlap(splitCurrentLines, splitNewLines, pointEps);
+		insideLines.addAll(dividedSplitNewLines);
+
+		var insideOverwrittens = new LineTypeOverwriter().overwriteLineTypes(
+				dividedSplitNewLines, insideLines, pointEps);
+
+		if (currentLines instanceof CreasePattern) {
+			currentLines.addAll(insideOverwrittens);
+		} else if (currentLines instanceof Set<OriLine>) {
+			currentLines.removeAll(crossingCurrentLines);
+			currentLines.addAll(insideOverwrittens);
+		} else {
+			currentLines.clear();
+			currentLines.addAll(outsideLines);
+			currentLines.addAll(insideOverwrittens);
+		}
+		logger.debug("addAllInBatch() {} lines: {}[ms]", inputLines.size(), watch.getMilliSec());
+	}
+
+	/**
+	 * Finds the cross points of the lines whose bounding boxes overlap. Only
+	 * the pairs including at least one input line are tested as
+	 * {@link #addLine(OriLine, Collection, double)} does.
+	 *
+	 * @return points to split each line. The indices of the current lines
+	 *         follow the ones of the input lines. The list of an input line
+	 *         contains its end points.
+	 */
+	private List<List<Vector2d>> collectSplitPoints(final List<OriLine> inputLines,
+			final List<OriLine> currentLines, final double pointEps) {
+		var lines = new ArrayList<OriLine>(inputLines);
+		lines.addAll(currentLines);
+
+		List<List<Vector2d>> splitPoints = IntStream.range(0, lines.size())
+				.<List<Vector2d>>mapToObj(i -> i < inputLines.size()
+						? new ArrayList<Vector2d>(List.of(lines.get(i).getP0(), lines.get(i).getP1()))
+						: new ArrayList<Vector2d>())
+				.toList();
+
+		var pairs = pairCandidateFinder.findCandidatePairs(lines, i -> i < inputLines.size(), pointEps);
+
+		for (var pair : pairs) {
+			var line = lines.get(pair.v1());
+			var other = lines.get(pair.v2());
+
+			// lines sharing an end point don't split each other.
+			if (line.sharesEndPoint(other, pointEps)) {
+				continue;
+			}
+			GeomUtil.getCrossPoint(line, other).ifPresent(crossPoint -> {
+				addSplitPoints(pair.v1(), line, other, crossPoint, inputLines.size(), splitPoints, pointEps);
+				addSplitPoints(pair.v2(), other, line, crossPoint, inputLines.size(), splitPoints, pointEps);
+			});
+		}
+
+		return splitPoints;
+	}
+
+	/**
+	 * Same as {@link #divideCurrentLines(OriLine, Collection, double)} and
+	 * {@link #createInputLinePoints(OriLine, Map, double)} for one cross point.
+	 */
+	private void addSplitPoints(final int index, final OriLine line, final OriLine crossingLine,
+			final Vector2d crossPoint, final int inputLineCount, final List<List<Vector2d>> splitPoints,
+			final double pointEps) {
+		var points = splitPoints.get(index);
+
+		if (index >= inputLineCount) {
+			points.add(crossPoint);
+			return;
+		}
+
+		if (GeomUtil.distancePointToSegment(crossingLine.getP0(), line) < pointEps) {
+			points.add(crossingLine.getP0());
+		}
+		if (GeomUtil.distancePointToSegment(crossingLine.getP1(), line) < pointEps) {
+			points.add(crossingLine.getP1());
+		}
+		points.add(crossPoint);
+	}
+
+	private List<OriLine> splitCurrentLine(final OriLine line, final List<Vector2d> crossPoints,
+			final double pointEps) {
+		if (crossPoints.isEmpty()) {
+			return List.of(line);
+		}
+
+		var points = new ArrayList<Vector2d>(crossPoints);
+		points.add(line.getP0());
+		points.add(line.getP1());
+
+		var splitLines = sequentialLineFactory.createSequentialLines(
+				pointSorter.sortPointsOnLine(points, line), line.getType(), pointEps);
+
+		// keep selection not to change the target of copy.
+		splitLines.forEach(l -> l.setSelected(line.isSelected()));
+
+		return splitLines;
 	}
 
 	/**
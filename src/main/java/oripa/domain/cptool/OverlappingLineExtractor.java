@@ -20,12 +20,15 @@ package oripa.domain.cptool;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import oripa.domain.cptool.compgeom.AnalyticLine;
 import oripa.domain.cptool.compgeom.AnalyticLineHashFactory;
 import oripa.geom.GeomUtil;
 import oripa.util.StopWatch;
@@ -55,25 +58,13 @@ public class OverlappingLineExtractor {
 
 		var overlapGroups = new ConcurrentLinkedQueue<Collection<OriLine>>();
 
-		// for each angle and intercept, try all pairs of lines and find
-		// overlaps.
+		// for each angle and intercept, sweep the lines along the support and
+		// find overlaps.
 		IntStream.range(0, hash.size()).parallel().forEach(angle_i -> {
 			var byAngle = hash.get(angle_i);
 			IntStream.range(0, byAngle.size()).parallel().forEach(intercept_i -> {
 				var byIntercept = byAngle.get(intercept_i);
-				Collection<OriLine> overlaps = new ConcurrentLinkedQueue<OriLine>();
-				// for each line
-				IntStream.range(0, byIntercept.size()).parallel().forEach(i -> {
-					var line0 = byIntercept.get(i).getLine();
-					// search another line of overlapping
-					IntStream.range(i + 1, byIntercept.size()).parallel().forEach(j -> {
-						var line1 = byIntercept.get(j).getLine();
-						if (GeomUtil.isOverlap(line0, line1, pointEps)) {
-							overlaps.add(line0);
-							overlaps.add(line1);
-						}
-					});
-				});
+				var overlaps = findOverlaps(byIntercept, pointEps);
 				if (!overlaps.isEmpty()) {
 					overlapGroups.add(overlaps);
 				}
@@ -83,6 +74,52 @@ public class OverlappingLineExtractor {
 		return new ArrayList<>(overlapGroups);
 	}
 
+	/**
+	 * Lines can overlap only if their ranges on the support overlap. Each
+	 * overlapping pair adds both lines as the test of all pairs does. The
+	 * pairs are tested on a {@link SegmentBuffer} since a bucket of a long
+	 * support line yields many touching pairs.
+	 */
+	private Collection<OriLine> findOverlaps(final List<AnalyticLine> byIntercept, final double pointEps) {
+		var overlaps = new ArrayList<OriLine>();
+
+		if (byIntercept.size() < 2) {
+			return overlaps;
+		}
+
+		var longest = byIntercept.stream()
+				.map(AnalyticLine::getLine)
+				.max(Comparator.comparing(OriLine::length))
+				.get();
+		var direction = longest.getP1().subtract(longest.getP0()).normalize();
+		var ranges = byIntercept.stream()
+				.map(AnalyticLine::getLine)
+				.map(line -> {
+					var t0 = line.getP0().dot(direction);
+					var t1 = line.getP1().dot(direction);
+					return new Range(line, Math.min(t0, t1), Math.max(t0, t1));
+				})
+				.sorted(Comparator.comparing(Range::min))
+				.toList();
+
+		var buffer = SegmentBuffer.of(ranges.stream().map(Range::line).toList());
+
+		for (int i = 0; i < ranges.size(); i++) {
+			var range0 = ranges.get(i);
+			for (int j = i + 1; j < ranges.size() && ranges.get(j).min() <= range0.max() + pointEps; j++) {
+				if (buffer.isOverlap(i, j, pointEps)) {
+					overlaps.add(buffer.getLine(i));
+					overlaps.add(buffer.getLine(j));
+				}
+			}
+		}
+
+		return overlaps;
+	}
+
+	private record Range(OriLine line, double min, double max) {
+	}
+
 	/**
 	 * extracts all possible overlapping lines.
 	 *
@@ -98,8 +98,7 @@ public class Painter {
 	/**
 	 * Add all given lines to crease pattern. Each line in {@code lines} and
 	 * crease pattern is divided at the cross points. However, if the crossing
-	 * lines are both in the same {@code lines} or crease pattern, such a
-	 * division won't be done.
+	 * lines are both in the crease pattern, such a division won't be done.
 	 *
 	 * @param lines
 	 */
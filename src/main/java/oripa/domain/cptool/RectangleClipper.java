@@ -24,6 +24,7 @@ import java.util.Optional;
 
 import oripa.geom.RectangleDomain;
 import oripa.geom.Segment;
+import oripa.util.MathUtil;
 import oripa.value.OriLine;
 import oripa.vecmath.Vector2d;
 
@@ -92,7 +93,40 @@ public class RectangleClipper {
 	 *         clipping rectangle.
 	 */
 	public boolean intersects(final Segment line) {
-		return clip(line).isPresent();
+		return intersects(line.getP0().getX(), line.getP0().getY(), line.getP1().getX(), line.getP1().getY());
+	}
+
+	/**
+	 * Allocation-free version of {@link #intersects(Segment)} for the segment
+	 * (x0, y0)-(x1, y1). The result is the same as the test by
+	 * {@link #clip(Segment)}.
+	 *
+	 * @return {@code true} if the segment is included in or crosses the
+	 *         clipping rectangle.
+	 */
+	public boolean intersects(final double x0, final double y0, final double x1, final double y1) {
+		final int p0Code = calcCode(x0, y0);
+		final int p1Code = calcCode(x1, y1);
+
+		// the line is in the rectangle
+		if ((p0Code == 0) && (p1Code == 0)) {
+			return true;
+		}
+
+		// the line is in the {left, right, top, bottom} area.
+		if ((p0Code & p1Code) != 0) {
+			return false;
+		}
+
+		// each end point outside of the rectangle should be clipped.
+		if (p0Code != 0 && !isClippable(p0Code, x0, y0, x1, y1)) {
+			return false;
+		}
+		if (p1Code != 0 && !isClippable(p1Code, x0, y0, x1, y1)) {
+			return false;
+		}
+
+		return true;
 	}
 
 	/**
@@ -236,6 +270,78 @@ public class RectangleClipper {
 		return Optional.empty();
 	}
 
+	/**
+	 * Primitive version of {@link #createClippedPointOptional(int, Segment)}.
+	 *
+	 * @return true if the clipped point exists.
+	 */
+	private boolean isClippable(final int code, final double x0, final double y0, final double x1,
+			final double y1) {
+		if ((code & LEFT) != 0 && isInYRange(affineYValueAt(x0, y0, x1, y1, domain.getLeft()))) {
+			return true;
+		}
+		if ((code & RIGHT) != 0 && isInYRange(affineYValueAt(x0, y0, x1, y1, domain.getRight()))) {
+			return true;
+		}
+		if ((code & TOP) != 0 && isInXRange(affineXValueAt(x0, y0, x1, y1, domain.getTop()))) {
+			return true;
+		}
+		if ((code & BOTTOM) != 0 && isInXRange(affineXValueAt(x0, y0, x1, y1, domain.getBottom()))) {
+			return true;
+		}
+
+		return false;
+	}
+
+	private boolean isInXRange(final double x) {
+		return x >= relaxedDomain.getLeft() && x <= relaxedDomain.getRight();
+	}
+
+	private boolean isInYRange(final double y) {
+		return y >= relaxedDomain.getTop() && y <= relaxedDomain.getBottom();
+	}
+
+	/*
+	 * The same computations as Segment#getAffineYValueAt() and
+	 * Segment#getAffineXValueAt().
+	 */
+
+	private static double affineYValueAt(final double x0, final double y0, final double x1, final double y1,
+			final double xTested) {
+		// vertical line does not have y value.
+		var angle = angle(x0, y0, x1, y1);
+		if (MathUtil.areRadianEqual(angle, Math.PI / 2)
+				|| MathUtil.areRadianEqual(angle, 3 * Math.PI / 2)) {
+			return Double.NaN;
+		}
+		return (y1 - y0) * (xTested - x0) / (x1 - x0) + y0;
+	}
+
+	private static double affineXValueAt(final double x0, final double y0, final double x1, final double y1,
+			final double yTested) {
+		// horizontal line does not have x value.
+		var angle = angle(x0, y0, x1, y1);
+		if (MathUtil.areRadianEqual(angle, 0)
+				|| MathUtil.areRadianEqual(angle, Math.PI)
+				|| MathUtil.areRadianEqual(angle, 2 * Math.PI)) {
+			return Double.NaN;
+		}
+		return (x1 - x0) * (yTested - y0) / (y1 - y0) + x0;
+	}
+
+	private static double angle(final double x0, final double y0, final double x1, final double y1) {
+		var angle = Math.atan2(y1 - y0, x1 - x0);
+		// limit the angle 0 to PI.
+		if (angle < 0) {
+			angle += Math.PI;
+		}
+		// a line with angle PI is the same as one with angle 0.
+		if (Math.PI - angle < MathUtil.angleRadianEps()) {
+			angle = 0;
+		}
+		return angle;
+	}
+
 	private Optional<Vector2d> createPointClippedByX(final Segment l, final double clipX) {
 		var yRange = relaxedDomain.getYRange();
 
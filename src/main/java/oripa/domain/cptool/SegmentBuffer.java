@@ -0,0 +1,258 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import java.util.List;
+
+import oripa.util.MathUtil;
+import oripa.value.OriLine;
+
+/**
+ * Struct-of-arrays copy of the end points and the types of lines for the
+ * geometric kernels run on many lines. The tests of this class allocate
+ * nothing and return exactly the same results as the ones of
+ * {@link oripa.geom.GeomUtil} on {@link oripa.vecmath.Vector2d}, since they
+ * follow the same arithmetic. Lines are referred by index and the original
+ * lines are given back by {@link #getLine(int)}.
+ *
+ * @author OUCHI Koji
+ *
+ */
+final class SegmentBuffer {
+	private final List<? extends OriLine> lines;
+
+	private final double[] x0s, y0s, x1s, y1s;
+
+	/**
+	 * normalized direction p1 - p0 of each line.
+	 */
+	private final double[] dirXs, dirYs;
+
+	/**
+	 * {@link OriLine.Type#toInt()} of each line.
+	 */
+	private final byte[] types;
+
+	public static SegmentBuffer of(final List<? extends OriLine> lines) {
+		return new SegmentBuffer(lines);
+	}
+
+	private SegmentBuffer(final List<? extends OriLine> lines) {
+		this.lines = lines;
+
+		var n = lines.size();
+		x0s = new double[n];
+		y0s = new double[n];
+		x1s = new double[n];
+		y1s = new double[n];
+		dirXs = new double[n];
+		dirYs = new double[n];
+		types = new byte[n];
+
+		for (int i = 0; i < n; i++) {
+			var line = lines.get(i);
+			x0s[i] = line.getP0().getX();
+			y0s[i] = line.getP0().getY();
+			x1s[i] = line.getP1().getX();
+			y1s[i] = line.getP1().getY();
+
+			var dx = x1s[i] - x0s[i];
+			var dy = y1s[i] - y0s[i];
+			dirXs[i] = normalX(dx, dy);
+			dirYs[i] = normalY(dx, dy);
+
+			types[i] = (byte) line.getType().toInt();
+		}
+	}
+
+	public int size() {
+		return lines.size();
+	}
+
+	public OriLine getLine(final int i) {
+		return lines.get(i);
+	}
+
+	public double getX0(final int i) {
+		return x0s[i];
+	}
+
+	public double getY0(final int i) {
+		return y0s[i];
+	}
+
+	public double getX1(final int i) {
+		return x1s[i];
+	}
+
+	public double getY1(final int i) {
+		return y1s[i];
+	}
+
+	public OriLine.Type getType(final int i) {
+		return OriLine.Type.fromInt(types[i]);
+	}
+
+	/**
+	 * Same as {@link oripa.geom.GeomUtil#isOverlap(oripa.geom.Segment, oripa.geom.Segment, double)}
+	 * for the lines of given indices.
+	 */
+	public boolean isOverlap(final int i, final int j, final double pointEps) {
+		var overlapCount = distinguishSegmentsOverlap(i, j, pointEps);
+		if (overlapCount >= 3) {
+			return true;
+		}
+		if (overlapCount == 2) {
+			// any end point should not touch other end point.
+			return !sharesEndPoint(i, j, pointEps);
+		}
+
+		return false;
+	}
+
+	private int distinguishSegmentsOverlap(final int i, final int j, final double pointEps) {
+		if (!isParallel(i, j)) {
+			return 0;
+		}
+
+		int cnt = 0;
+		if (distancePointToSegment(x0s[i], y0s[i], j) < pointEps) {
+			cnt++;
+		}
+		if (distancePointToSegment(x1s[i], y1s[i], j) < pointEps) {
+			cnt++;
+		}
+		if (distancePointToSegment(x0s[j], y0s[j], i) < pointEps) {
+			cnt++;
+		}
+		if (distancePointToSegment(x1s[j], y1s[j], i) < pointEps) {
+			cnt++;
+		}
+		return cnt;
+	}
+
+	private boolean isParallel(final int i, final int j) {
+		var cos = dirXs[i] * dirXs[j] + dirYs[i] * dirYs[j];
+
+		if (cos < -1.0) {
+			cos = -1.0;
+		}
+		if (cos > 1.0) {
+			cos = 1.0;
+		}
+
+		var angle = Math.acos(cos);
+		return angle < MathUtil.angleRadianEps() || angle > Math.PI - MathUtil.angleRadianEps();
+	}
+
+	private boolean sharesEndPoint(final int i, final int j, final double pointEps) {
+		return isClose(x0s[i], y0s[i], x0s[j], y0s[j], pointEps)
+				|| isClose(x0s[i], y0s[i], x1s[j], y1s[j], pointEps)
+				|| isClose(x1s[i], y1s[i], x0s[j], y0s[j], pointEps)
+				|| isClose(x1s[i], y1s[i], x1s[j], y1s[j], pointEps);
+	}
+
+	private static boolean isClose(final double px, final double py, final double qx, final double qy,
+			final double pointEps) {
+		return length(px - qx, py - qy) < pointEps;
+	}
+
+	/**
+	 * Same as {@link oripa.geom.GeomUtil#distancePointToSegment(oripa.vecmath.Vector2d, oripa.geom.Segment)}.
+	 */
+	private double distancePointToSegment(final double px, final double py, final int i) {
+		var length = length(x0s[i] - x1s[i], y0s[i] - y1s[i]);
+
+		var ds = length(px - x0s[i], py - y0s[i]);
+		var de = length(px - x1s[i], py - y1s[i]);
+
+		// start from the farther end point.
+		var reversed = !(ds > de);
+		var sx = reversed ? x1s[i] : x0s[i];
+		var sy = reversed ? y1s[i] : y0s[i];
+		var ex = reversed ? x0s[i] : x1s[i];
+		var ey = reversed ? y0s[i] : y1s[i];
+
+		// direction of the line
+		var dirX = normalX(ex - sx, ey - sy);
+		var dirY = normalY(ex - sx, ey - sy);
+
+		var subX = px - sx;
+		var subY = py - sy;
+		var t = length(subX, subY) * (dirX * normalX(subX, subY) + dirY * normalY(subX, subY));
+
+		if (t <= 0.0) {
+			return length(px - sx, py - sy);
+		} else if (t >= length) {
+			return length(px - ex, py - ey);
+		} else {
+			return length(px - (sx + t * dirX), py - (sy + t * dirY));
+		}
+	}
+
+	/*
+	 * The robust normalization of Vector2d, algorithm 2 of
+	 * https://arxiv.org/abs/1606.06508
+	 */
+
+	private static double length(final double x, final double y) {
+		var ax = Math.abs(x);
+		var ay = Math.abs(y);
+
+		if (ax > ay) {
+			var y_ = y / x;
+			return ax * Math.sqrt(1 + y_ * y_);
+		}
+		if (ay == 0) {
+			return 0;
+		}
+		var x_ = x / y;
+		return ay * Math.sqrt(x_ * x_ + 1);
+	}
+
+	private static double normalX(final double x, final double y) {
+		var ax = Math.abs(x);
+		var ay = Math.abs(y);
+
+		if (ax > ay) {
+			var y_ = y / x;
+			return Math.signum(x) / Math.sqrt(1 + y_ * y_);
+		}
+		if (ay == 0) {
+			return 0;
+		}
+		var x_ = x / y;
+		return x_ * (Math.signum(y) / Math.sqrt(x_ * x_ + 1));
+	}
+
+	private static double normalY(final double x, final double y) {
+		var ax = Math.abs(x);
+		var ay = Math.abs(y);
+
+		if (ax > ay) {
+			var y_ = y / x;
+			return y_ * (Math.signum(x) / Math.sqrt(1 + y_ * y_));
+		}
+		if (ay == 0) {
+			return 0;
+		}
+		var x_ = x / y;
+		return Math.signum(y) / Math.sqrt(x_ * x_ + 1);
+	}
+}
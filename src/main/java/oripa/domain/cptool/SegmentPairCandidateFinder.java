@@ -0,0 +1,146 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import oripa.geom.RectangleDomain;
+import oripa.geom.Segment;
+import oripa.util.IntPair;
+
+/**
+ * Finds the pairs of segments whose bounding boxes overlap by a uniform grid.
+ * Each pair is reported once at the cell where the both bounding boxes start.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class SegmentPairCandidateFinder {
+
+	/**
+	 *
+	 * @param segments
+	 * @param isTarget
+	 *            pairs including at least one segment of target index are
+	 *            returned.
+	 * @param eps
+	 *            margin of the bounding boxes.
+	 * @return pairs of the indices of the segments whose bounding boxes
+	 *         overlap. Each pair {@code (i, j)} satisfies {@code i < j}.
+	 */
+	public List<IntPair> findCandidatePairs(final List<? extends Segment> segments, final IntPredicate isTarget,
+			final double eps) {
+		var pairs = new ArrayList<IntPair>();
+		if (segments.isEmpty()) {
+			return pairs;
+		}
+
+		var domain = RectangleDomain.createFromSegments(segments);
+		domain.enlarge(eps);
+
+		var averageLength = segments.stream()
+				.mapToDouble(s -> Math.max(
+						Math.abs(s.getP0().getX() - s.getP1().getX()),
+						Math.abs(s.getP0().getY() - s.getP1().getY())))
+				.average().orElse(0);
+
+		// cells about as large as a segment. the count of cells is limited
+		// for the case that a few segments are very short.
+		var maxDivisionCount = Math.max(1, (int) Math.ceil(Math.sqrt(segments.size())));
+		var divisionCount = Math.clamp(
+				(long) Math.ceil(domain.maxWidthHeight() / Math.max(averageLength, eps)), 1, maxDivisionCount);
+
+		var n = segments.size();
+		var minXs = new double[n];
+		var minYs = new double[n];
+		var maxXs = new double[n];
+		var maxYs = new double[n];
+		var minCellXs = new int[n];
+		var minCellYs = new int[n];
+
+		for (int i = 0; i < n; i++) {
+			var s = segments.get(i);
+			minXs[i] = Math.min(s.getP0().getX(), s.getP1().getX()) - eps;
+			minYs[i] = Math.min(s.getP0().getY(), s.getP1().getY()) - eps;
+			maxXs[i] = Math.max(s.getP0().getX(), s.getP1().getX()) + eps;
+			maxYs[i] = Math.max(s.getP0().getY(), s.getP1().getY()) + eps;
+		}
+
+		var toCellX = new CellConverter(domain.getLeft(), domain.getWidth(), divisionCount);
+		var toCellY = new CellConverter(domain.getTop(), domain.getHeight(), divisionCount);
+
+		var cellLists = IntStream.range(0, divisionCount * divisionCount)
+				.mapToObj(i -> IntStream.builder())
+				.toList();
+
+		for (int i = 0; i < n; i++) {
+			minCellXs[i] = toCellX.apply(minXs[i]);
+			minCellYs[i] = toCellY.apply(minYs[i]);
+			var maxCellX = toCellX.apply(maxXs[i]);
+			var maxCellY = toCellY.apply(maxYs[i]);
+			for (int y = minCellYs[i]; y <= maxCellY; y++) {
+				for (int x = minCellXs[i]; x <= maxCellX; x++) {
+					cellLists.get(y * divisionCount + x).add(i);
+				}
+			}
+		}
+
+		for (int cellIndex = 0; cellIndex < cellLists.size(); cellIndex++) {
+			var cell = cellLists.get(cellIndex).build().toArray();
+			var cellX = cellIndex % divisionCount;
+			var cellY = cellIndex / divisionCount;
+
+			for (int a = 0; a < cell.length; a++) {
+				var i = cell[a];
+				var isTargetI = isTarget.test(i);
+				for (int b = a + 1; b < cell.length; b++) {
+					var j = cell[b];
+					if (!isTargetI && !isTarget.test(j)) {
+						continue;
+					}
+
+					// report the pair only at the first common cell.
+					if (Math.max(minCellXs[i], minCellXs[j]) != cellX
+							|| Math.max(minCellYs[i], minCellYs[j]) != cellY) {
+						continue;
+					}
+					if (minXs[i] <= maxXs[j] && minXs[j] <= maxXs[i]
+							&& minYs[i] <= maxYs[j] && minYs[j] <= maxYs[i]) {
+						pairs.add(new IntPair(i, j));
+					}
+				}
+			}
+		}
+
+		return pairs;
+	}
+
+	private record CellConverter(double origin, double size, int divisionCount) {
+		int apply(final double value) {
+			if (size <= 0) {
+				return 0;
+			}
+			var index = (int) Math.floor((value - origin) / size * divisionCount);
+			return Math.clamp(index, 0, divisionCount - 1);
+		}
+	}
+}
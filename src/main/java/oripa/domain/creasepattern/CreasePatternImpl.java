@@ -70,8 +70,8 @@ class CreasePatternImpl implements CreasePattern {
 	private static final long serialVersionUID = -6919017534440930379L;
 
 	private final LineManager lines;
-	private VerticesManager vertices;
-	private OriLineClip clip;
+	private VerticesQuadTree vertices;
+	private OriLineQuadTree clip;
 
 	/**
 	 * @param paperDomain
@@ -79,8 +79,8 @@ class CreasePatternImpl implements CreasePattern {
 	 */
 	public CreasePatternImpl(final RectangleDomain paperDomain) {
 		lines = new LineManager();
-		vertices = new VerticesManager(paperDomain);
-		clip = new OriLineClip(paperDomain);
+		vertices = new VerticesQuadTree(paperDomain);
+		clip = new OriLineQuadTree(paperDomain);
 	}
 
 	@Override
@@ -123,8 +123,8 @@ class CreasePatternImpl implements CreasePattern {
 			vertices.add(e.getP0());
 			vertices.add(e.getP1());
 
-			if (!getPaperDomain().contains(e)) {
-				clip = OriLineClip.createWithMargin(this);
+			if (!clip.getDomain().contains(e)) {
+				clip = OriLineQuadTree.createWithMargin(this);
 				logger.info("recreate clip");
 			}
 
@@ -274,8 +274,8 @@ class CreasePatternImpl implements CreasePattern {
 
 			clear();
 
-			vertices = new VerticesManager(currentDomain);
-			clip = new OriLineClip(currentDomain);
+			vertices = new VerticesQuadTree(currentDomain);
+			clip = new OriLineQuadTree(currentDomain);
 			addAll(lines);
 		}
 	}
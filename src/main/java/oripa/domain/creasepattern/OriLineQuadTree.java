@@ -0,0 +1,350 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import oripa.geom.RectangleDomain;
+import oripa.value.OriLine;
+
+/**
+ * Loose quadtree of lines. Each line is held by exactly one node: the deepest
+ * one whose loosened bounds, the node area enlarged by half of its size on
+ * each side, contain the bounding box of the line. Unlike {@link OriLineClip},
+ * the cells get small only where lines are dense and a line is never
+ * registered to many cells.
+ *
+ * A leaf is divided when it holds more lines than the capacity, and a node is
+ * merged back into a leaf when its subtree holds at most half of the capacity.
+ * Lines out of the domain are held by the root.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class OriLineQuadTree implements Clippable<OriLine> {
+	static final int DEFAULT_CAPACITY = 16;
+	static final int MAX_DEPTH = 10;
+
+	private final RectangleDomain domain;
+	private final int capacity;
+
+	private Node root;
+
+	private class Node {
+		private final double left, top, right, bottom;
+		private final double looseLeft, looseTop, looseRight, looseBottom;
+		private final int depth;
+
+		/**
+		 * lines held by this node with their bounding boxes.
+		 */
+		private Map<OriLine, Box> lines = new HashMap<>();
+		private Node[] children;
+
+		/**
+		 * the number of lines in the subtree.
+		 */
+		private int count;
+
+		Node(final double left, final double top, final double right, final double bottom, final int depth) {
+			this.left = left;
+			this.top = top;
+			this.right = right;
+			this.bottom = bottom;
+			this.depth = depth;
+
+			var marginX = (right - left) / 2;
+			var marginY = (bottom - top) / 2;
+			looseLeft = left - marginX;
+			looseTop = top - marginY;
+			looseRight = right + marginX;
+			looseBottom = bottom + marginY;
+		}
+
+		boolean isLeaf() {
+			return children == null;
+		}
+
+		/**
+		 * @return the child which should hold the given box, or null if no
+		 *         child can hold it.
+		 */
+		Node childFor(final Box box) {
+			var index = (box.centerX() < (left + right) / 2 ? 0 : 1)
+					+ (box.centerY() < (top + bottom) / 2 ? 0 : 2);
+			var child = children[index];
+			return child.looselyContains(box) ? child : null;
+		}
+
+		boolean looselyContains(final Box box) {
+			return looseLeft <= box.x0 && box.x1 <= looseRight
+					&& looseTop <= box.y0 && box.y1 <= looseBottom;
+		}
+
+		boolean looselyIntersects(final Box box) {
+			return looseLeft <= box.x1 && box.x0 <= looseRight
+					&& looseTop <= box.y1 && box.y0 <= looseBottom;
+		}
+
+		void split() {
+			var cx = (left + right) / 2;
+			var cy = (top + bottom) / 2;
+			children = new OriLineQuadTree.Node[] {
+					new Node(left, top, cx, cy, depth + 1),
+					new Node(cx, top, right, cy, depth + 1),
+					new Node(left, cy, cx, bottom, depth + 1),
+					new Node(cx, cy, right, bottom, depth + 1),
+			};
+
+			var remaining = new HashMap<OriLine, Box>();
+			lines.forEach((line, box) -> {
+				var child = childFor(box);
+				if (child == null) {
+					remaining.put(line, box);
+				} else {
+					child.lines.put(line, box);
+					child.count++;
+				}
+			});
+			lines = remaining;
+		}
+
+		void merge() {
+			collect(lines);
+			children = null;
+		}
+
+		private void collect(final Map<OriLine, Box> result) {
+			if (isLeaf()) {
+				return;
+			}
+			for (var child : children) {
+				result.putAll(child.lines);
+				child.collect(result);
+			}
+		}
+	}
+
+	private record Box(double x0, double y0, double x1, double y1) {
+		Box(final OriLine line) {
+			this(Math.min(line.getP0().getX(), line.getP1().getX()),
+					Math.min(line.getP0().getY(), line.getP1().getY()),
+					Math.max(line.getP0().getX(), line.getP1().getX()),
+					Math.max(line.getP0().getY(), line.getP1().getY()));
+		}
+
+		Box(final RectangleDomain domain, final double eps) {
+			this(domain.getLeft() - eps, domain.getTop() - eps,
+					domain.getRight() + eps, domain.getBottom() + eps);
+		}
+
+		double centerX() {
+			return (x0 + x1) / 2;
+		}
+
+		double centerY() {
+			return (y0 + y1) / 2;
+		}
+
+		boolean intersects(final Box other) {
+			return x0 <= other.x1 && other.x0 <= x1 && y0 <= other.y1 && other.y0 <= y1;
+		}
+	}
+
+	public static OriLineQuadTree create(final Collection<OriLine> lines) {
+		var tree = new OriLineQuadTree(RectangleDomain.createFromSegments(lines));
+
+		lines.forEach(tree::add);
+
+		return tree;
+	}
+
+	/**
+	 * Creates a tree whose domain includes the given lines with margin so
+	 * that lines added later near the border still go down the tree.
+	 *
+	 * @param lines
+	 * @return
+	 */
+	public static OriLineQuadTree createWithMargin(final Collection<OriLine> lines) {
+		var domain = RectangleDomain.createFromSegments(lines);
+		domain.enlarge(domain.maxWidthHeight() / 2);
+		var tree = new OriLineQuadTree(domain);
+
+		lines.forEach(tree::add);
+
+		return tree;
+	}
+
+	public OriLineQuadTree(final RectangleDomain domain) {
+		this(domain, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param domain
+	 *            rectangle domain that will include lines to be managed.
+	 * @param capacity
+	 *            the number of lines a leaf can hold before it is divided.
+	 */
+	public OriLineQuadTree(final RectangleDomain domain, final int capacity) {
+		this.domain = domain;
+		this.capacity = capacity;
+		root = createRoot();
+	}
+
+	private Node createRoot() {
+		return new Node(domain.getLeft(), domain.getTop(), domain.getRight(), domain.getBottom(), 0);
+	}
+
+	public RectangleDomain getDomain() {
+		return domain;
+	}
+
+	public synchronized void add(final OriLine line) {
+		var box = new Box(line);
+
+		var node = root;
+		while (!node.isLeaf()) {
+			var child = node.childFor(box);
+			if (child == null) {
+				break;
+			}
+			node.count++;
+			node = child;
+		}
+
+		if (node.lines.putIfAbsent(line, box) != null) {
+			// already exists. cancel the increments.
+			decrementCounts(box, node);
+			return;
+		}
+		node.count++;
+
+		while (node.isLeaf() && node.lines.size() > capacity && node.depth < MAX_DEPTH) {
+			node.split();
+			var child = node.childFor(box);
+			if (child == null) {
+				break;
+			}
+			node = child;
+		}
+	}
+
+	private void decrementCounts(final Box box, final Node last) {
+		var node = root;
+		while (node != last) {
+			node.count--;
+			node = node.childFor(box);
+		}
+	}
+
+	public synchronized void remove(final OriLine line) {
+		var box = new Box(line);
+
+		var path = new ArrayList<Node>();
+		var node = root;
+		while (!node.isLeaf()) {
+			var child = node.childFor(box);
+			if (child == null) {
+				break;
+			}
+			path.add(node);
+			node = child;
+		}
+
+		if (node.lines.remove(line) == null) {
+			return;
+		}
+		node.count--;
+		path.forEach(ancestor -> ancestor.count--);
+
+		if (!node.isLeaf()) {
+			path.add(node);
+		}
+		// merge from the top so that the whole sparse subtree is collapsed.
+		for (var ancestor : path) {
+			if (ancestor.count <= capacity / 2) {
+				ancestor.merge();
+				break;
+			}
+		}
+	}
+
+	/**
+	 * O(log n + k) for n lines in the tree and k lines near the domain. The
+	 * result contains the lines whose bounding boxes intersect the domain
+	 * enlarged by {@code pointEps}.
+	 */
+	@Override
+	public synchronized Collection<OriLine> clip(final RectangleDomain domain, final double pointEps) {
+		var lines = new HashSet<OriLine>();
+		collect(root, new Box(domain, pointEps), lines);
+		return lines;
+	}
+
+	private void collect(final Node node, final Box query, final Collection<OriLine> result) {
+		node.lines.forEach((line, box) -> {
+			if (query.intersects(box)) {
+				result.add(line);
+			}
+		});
+		if (node.isLeaf()) {
+			return;
+		}
+		for (var child : node.children) {
+			if (child.looselyIntersects(query)) {
+				collect(child, query, result);
+			}
+		}
+	}
+
+	@Override
+	public Collection<OriLine> clipAlong(final OriLine line, final double eps) {
+		var box = new Box(line);
+		return clip(new RectangleDomain(box.x0(), box.y0(), box.x1(), box.y1()), eps);
+	}
+
+	public synchronized void clear() {
+		root = createRoot();
+	}
+
+	/**
+	 * for test.
+	 *
+	 * @return the depth of the deepest leaf.
+	 */
+	synchronized int getDepth() {
+		return getDepth(root);
+	}
+
+	private int getDepth(final Node node) {
+		if (node.isLeaf()) {
+			return node.depth;
+		}
+		var depth = 0;
+		for (var child : node.children) {
+			depth = Math.max(depth, getDepth(child));
+		}
+		return depth;
+	}
+}
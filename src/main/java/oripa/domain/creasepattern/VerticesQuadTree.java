@@ -0,0 +1,317 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import oripa.geom.RectangleDomain;
+import oripa.util.collection.CollectionUtil;
+import oripa.vecmath.Vector2d;
+
+/**
+ * Point-region quadtree of vertices. Unlike {@link VerticesManager}, which
+ * divides the paper into a fixed grid, this tree divides the area only where
+ * vertices are dense, so that a pattern whose vertices gather in a small part
+ * of the paper still gets small cells there.
+ *
+ * A leaf is divided when it holds more vertices than the capacity, and a node
+ * is merged back into a leaf when its subtree holds at most half of the
+ * capacity.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class VerticesQuadTree implements NearVerticesGettable {
+	static final int DEFAULT_CAPACITY = 1;
+	static final int MAX_DEPTH = 20;
+
+	private final RectangleDomain domain;
+	private final int capacity;
+
+	private Node root;
+
+	/**
+	 * count existence of same values.
+	 */
+	private final Map<Vector2d, Integer> counts = new HashMap<>();
+
+	private class Node {
+		private final double left, top, right, bottom;
+		private final int depth;
+
+		private Set<Vector2d> vertices = CollectionUtil.newConcurrentHashSet();
+		private Node[] children;
+
+		/**
+		 * the number of distinct vertices in the subtree.
+		 */
+		private int count;
+
+		Node(final double left, final double top, final double right, final double bottom, final int depth) {
+			this.left = left;
+			this.top = top;
+			this.right = right;
+			this.bottom = bottom;
+			this.depth = depth;
+		}
+
+		boolean isLeaf() {
+			return children == null;
+		}
+
+		Node childOf(final Vector2d v) {
+			var index = (v.getX() < centerX() ? 0 : 1) + (v.getY() < centerY() ? 0 : 2);
+			return children[index];
+		}
+
+		double centerX() {
+			return (left + right) / 2;
+		}
+
+		double centerY() {
+			return (top + bottom) / 2;
+		}
+
+		boolean intersects(final double x0, final double y0, final double x1, final double y1) {
+			return left <= x1 && x0 <= right && top <= y1 && y0 <= bottom;
+		}
+
+		void split() {
+			var cx = centerX();
+			var cy = centerY();
+			children = new VerticesQuadTree.Node[] {
+					new Node(left, top, cx, cy, depth + 1),
+					new Node(cx, top, right, cy, depth + 1),
+					new Node(left, cy, cx, bottom, depth + 1),
+					new Node(cx, cy, right, bottom, depth + 1),
+			};
+			for (var v : vertices) {
+				var child = childOf(v);
+				child.vertices.add(v);
+				child.count++;
+			}
+			vertices = null;
+		}
+
+		void merge() {
+			var merged = CollectionUtil.<Vector2d>newConcurrentHashSet();
+			collect(merged);
+			children = null;
+			vertices = merged;
+		}
+
+		private void collect(final Set<Vector2d> result) {
+			if (isLeaf()) {
+				result.addAll(vertices);
+				return;
+			}
+			for (var child : children) {
+				child.collect(result);
+			}
+		}
+	}
+
+	/**
+	 * Constructor with the default capacity.
+	 *
+	 * @param domain
+	 *            rectangle domain that will include vertices to be managed.
+	 *            Vertices out of the domain are held by the leaves on the
+	 *            border.
+	 */
+	public VerticesQuadTree(final RectangleDomain domain) {
+		this(domain, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 *
+	 * @param domain
+	 *            rectangle domain that will include vertices to be managed.
+	 * @param capacity
+	 *            the number of vertices a leaf can hold before it is divided.
+	 */
+	public VerticesQuadTree(final RectangleDomain domain, final int capacity) {
+		this.domain = domain;
+		this.capacity = capacity;
+		root = createRoot();
+	}
+
+	private Node createRoot() {
+		return new Node(domain.getLeft(), domain.getTop(), domain.getRight(), domain.getBottom(), 0);
+	}
+
+	public RectangleDomain getDomain() {
+		return domain;
+	}
+
+	/**
+	 * remove all vertices.
+	 */
+	public synchronized void clear() {
+		root = createRoot();
+		counts.clear();
+	}
+
+	/**
+	 * add given vertex to appropriate leaf.
+	 *
+	 * @param v
+	 *            vertex to be managed by this object.
+	 */
+	public synchronized void add(final Vector2d v) {
+		// count duplication.
+		if (counts.merge(v, 1, Integer::sum) > 1) {
+			return;
+		}
+
+		var node = root;
+		while (!node.isLeaf()) {
+			node.count++;
+			node = node.childOf(v);
+		}
+		node.count++;
+		node.vertices.add(v);
+
+		while (node.vertices.size() > capacity && node.depth < MAX_DEPTH) {
+			node.split();
+			node = node.childOf(v);
+		}
+	}
+
+	/**
+	 * remove the given vertex from this object.
+	 *
+	 * @param v
+	 */
+	public synchronized void remove(final Vector2d v) {
+		var count = counts.get(v);
+
+		// should never happen.
+		if (count == null || count <= 0) {
+			throw new IllegalStateException("Nothing to remove");
+		}
+
+		// decrement existence.
+		if (count > 1) {
+			counts.put(v, count - 1);
+			return;
+		}
+
+		// No longer same vertices exists.
+		counts.remove(v);
+
+		var path = new ArrayList<Node>();
+		var node = root;
+		while (!node.isLeaf()) {
+			path.add(node);
+			node = node.childOf(v);
+		}
+		node.vertices.remove(v);
+		node.count--;
+
+		// merge from the top so that the whole sparse subtree is collapsed.
+		for (var ancestor : path) {
+			ancestor.count--;
+		}
+		for (var ancestor : path) {
+			if (ancestor.count <= capacity / 2) {
+				ancestor.merge();
+				break;
+			}
+		}
+	}
+
+	@Override
+	public synchronized Collection<Vector2d> getVerticesAround(final Vector2d v) {
+		var node = root;
+		while (!node.isLeaf()) {
+			node = node.childOf(v);
+		}
+		return node.vertices;
+	}
+
+	/**
+	 * returns the vertex sets of the leaves which intersect the rectangle
+	 * (x-distanse, y-distance, x+distance, y+distance). The rectangle is
+	 * clamped to the domain so that the vertices out of the domain are
+	 * reachable.
+	 */
+	@Override
+	public synchronized Collection<Collection<Vector2d>> getVerticesInArea(
+			final double x, final double y, final double distance) {
+
+		var x0 = clamp(x - distance, domain.getLeft(), domain.getRight());
+		var x1 = clamp(x + distance, domain.getLeft(), domain.getRight());
+		var y0 = clamp(y - distance, domain.getTop(), domain.getBottom());
+		var y1 = clamp(y + distance, domain.getTop(), domain.getBottom());
+
+		List<Collection<Vector2d>> result = new ArrayList<>();
+		collectLeaves(root, x0, y0, x1, y1, result);
+
+		return result;
+	}
+
+	private double clamp(final double value, final double min, final double max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private void collectLeaves(final Node node, final double x0, final double y0, final double x1,
+			final double y1, final List<Collection<Vector2d>> result) {
+		if (node.isLeaf()) {
+			if (!node.vertices.isEmpty()) {
+				result.add(node.vertices);
+			}
+			return;
+		}
+		for (var child : node.children) {
+			if (child.intersects(x0, y0, x1, y1)) {
+				collectLeaves(child, x0, y0, x1, y1, result);
+			}
+		}
+	}
+
+	public synchronized boolean isEmpty() {
+		return counts.isEmpty();
+	}
+
+	/**
+	 * for test.
+	 *
+	 * @return the depth of the deepest leaf.
+	 */
+	synchronized int getDepth() {
+		return getDepth(root);
+	}
+
+	private int getDepth(final Node node) {
+		if (node.isLeaf()) {
+			return node.depth;
+		}
+		var depth = 0;
+		for (var child : node.children) {
+			depth = Math.max(depth, getDepth(child));
+		}
+		return depth;
+	}
+}
@@ -18,9 +18,14 @@
 
 package oripa.domain.fold;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.util.StopWatch;
 
 class AssignedModelFolder implements Folder {
 	// helper object
@@ -38,24 +43,54 @@ class AssignedModelFolder implements Folder {
 
 	@Override
 	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType) {
+		var overlapRelations = new ArrayList<OverlapRelation>();
+
+		var result = fold(origamiModel, eps, estimationType, overlapRelations::add);
+
+		return new Result(
+				new FoldedModel(origamiModel, overlapRelations, result.foldedModel().subfaces()),
+				result.estimationRules(),
+				result.metrics());
+	}
+
+	@Override
+	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType,
+			final Consumer<OverlapRelation> answerConsumer) {
+		var metrics = new FoldingMetrics();
+		metrics.incrementAssignmentCount();
+
+		var watch = new StopWatch(true);
 		simpleFolder.simpleFoldWithoutZorder(origamiModel, eps);
 		faceDisplayModifier.setCurrentPositionsToDisplayPositions(origamiModel);
+		metrics.addTime(FoldingMetrics.Stage.SIMPLE_FOLD, watch.getMilliSec());
 
 		if (estimationType == EstimationType.X_RAY) {
 			origamiModel.setFolded(true);
-			return new Result(new FoldedModel(origamiModel, List.of(), List.of()), new EstimationResultRules());
+			return new Result(new FoldedModel(origamiModel, List.of(), List.of()), new EstimationResultRules(),
+					metrics);
 		}
 
-		var enumerationResult = enumerator.enumerate(origamiModel, eps, estimationType == EstimationType.FIRST_ONLY);
+		var enumerationResult = enumerator.enumerate(origamiModel, eps, estimationType == EstimationType.FIRST_ONLY,
+				answerConsumer, metrics);
 
-		var foldedModel = new FoldedModel(origamiModel, enumerationResult.getOverlapRelations(),
-				enumerationResult.getSubfaces());
+		var foldedModel = new FoldedModel(origamiModel, List.of(), enumerationResult.getSubfaces());
 
 		if (enumerationResult.isEmpty()) {
-			return new Result(foldedModel, enumerationResult.getRules());
+			return new Result(foldedModel, enumerationResult.getRules(), 0, metrics);
 		}
 
 		origamiModel.setFolded(true);
-		return new Result(foldedModel, enumerationResult.getRules());
+		return new Result(foldedModel, enumerationResult.getRules(), enumerationResult.getAnswerCount(), metrics);
+	}
+
+	@Override
+	public BigInteger count(final OrigamiModel origamiModel, final double eps, final FoldingMetrics metrics) {
+		metrics.incrementAssignmentCount();
+
+		var watch = new StopWatch(true);
+		simpleFolder.simpleFoldWithoutZorder(origamiModel, eps);
+		metrics.addTime(FoldingMetrics.Stage.SIMPLE_FOLD, watch.getMilliSec());
+
+		return enumerator.count(origamiModel, eps, metrics);
 	}
 }
@@ -18,9 +18,12 @@
  */
 package oripa.domain.fold;
 
+import java.math.BigInteger;
 import java.util.List;
+import java.util.function.Consumer;
 
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
 
 /**
  * @author OUCHI Koji
@@ -45,4 +48,23 @@ class ErrorAllowedFolder implements Folder {
 		return new Result(new FoldedModel(origamiModel, List.of(), List.of()), null);
 	}
 
+	/**
+	 * This folder doesn't compute the layer orders. {@code answerConsumer} is
+	 * never called.
+	 */
+	@Override
+	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType,
+			final Consumer<OverlapRelation> answerConsumer) {
+		return fold(origamiModel, eps, estimationType);
+	}
+
+	/**
+	 * This folder doesn't compute the layer orders.
+	 *
+	 * @return always zero.
+	 */
+	@Override
+	public BigInteger count(final OrigamiModel origamiModel, final double eps, final FoldingMetrics metrics) {
+		return BigInteger.ZERO;
+	}
 }
@@ -18,7 +18,11 @@
  */
 package oripa.domain.fold;
 
+import java.math.BigInteger;
+import java.util.function.Consumer;
+
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
 
 /**
  * @author OUCHI Koji
@@ -40,9 +44,24 @@ public interface Folder {
 	 */
 	record Result(
 			FoldedModel foldedModel,
-			EstimationResultRules estimationRules
+			EstimationResultRules estimationRules,
+			int answerCount,
+			FoldingMetrics metrics
 
 	) {
+		public Result(final FoldedModel foldedModel, final EstimationResultRules estimationRules,
+				final int answerCount) {
+			this(foldedModel, estimationRules, answerCount, new FoldingMetrics());
+		}
+
+		public Result(final FoldedModel foldedModel, final EstimationResultRules estimationRules) {
+			this(foldedModel, estimationRules, foldedModel.getFoldablePatternCount());
+		}
+
+		public Result(final FoldedModel foldedModel, final EstimationResultRules estimationRules,
+				final FoldingMetrics metrics) {
+			this(foldedModel, estimationRules, foldedModel.getFoldablePatternCount(), metrics);
+		}
 	}
 
 	/**
@@ -59,4 +78,59 @@ public interface Folder {
 	 *         the given {@code origamiModel}.
 	 */
 	Result fold(OrigamiModel origamiModel, double eps, EstimationType estimationType);
-}
\ No newline at end of file
+
+	/**
+	 * Computes folded states and passes each overlap relation to
+	 * {@code answerConsumer} as soon as it is found, so that the memory usage
+	 * doesn't depend on the number of the folded states. The consumer is
+	 * called by one thread at a time. Note that the faces are moved to the
+	 * folded positions before the first call.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data structure before folding. It will be
+	 *            affected by this method.
+	 * @param eps
+	 *            error upper-bound for point equality measured by distance.
+	 * @param estimationType
+	 *            Specify the algorithm.
+	 * @param answerConsumer
+	 *            receives each overlap relation.
+	 * @return folded model without overlap relations. The number of the
+	 *         answers is given by {@link Result#answerCount()}.
+	 */
+	Result fold(OrigamiModel origamiModel, double eps, EstimationType estimationType,
+			Consumer<OverlapRelation> answerConsumer);
+
+	/**
+	 * Counts folded states without holding any overlap relation. Independent
+	 * parts of the model are counted separately and the counts are multiplied,
+	 * so that this method is much faster than counting the result of
+	 * {@link #fold(OrigamiModel, double, EstimationType)} for a model with
+	 * many folded states.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data structure before folding. It will be
+	 *            affected by this method.
+	 * @param eps
+	 *            error upper-bound for point equality measured by distance.
+	 * @return the number of the folded states.
+	 */
+	default BigInteger count(final OrigamiModel origamiModel, final double eps) {
+		return count(origamiModel, eps, new FoldingMetrics());
+	}
+
+	/**
+	 * Same as {@link #count(OrigamiModel, double)} and records the timings and
+	 * the counters of the stages to {@code metrics}.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data structure before folding. It will be
+	 *            affected by this method.
+	 * @param eps
+	 *            error upper-bound for point equality measured by distance.
+	 * @param metrics
+	 *            receives the timings and the counters.
+	 * @return the number of the folded states.
+	 */
+	BigInteger count(OrigamiModel origamiModel, double eps, FoldingMetrics metrics);
+}
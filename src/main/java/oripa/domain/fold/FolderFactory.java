@@ -18,13 +18,15 @@
  */
 package oripa.domain.fold;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
 import oripa.domain.cptool.AnalyticOverlappingLineMerger;
-import oripa.domain.cptool.CrossingLineSplitterNaiveAlgorithm;
+import oripa.domain.cptool.CrossingLineSplitterParallelAlgorithm;
 import oripa.domain.cptool.LineDivider;
 import oripa.domain.cptool.PointsMerger;
 import oripa.domain.creasepattern.CreasePatternFactory;
 import oripa.domain.fold.halfedge.ModelType;
-import oripa.domain.fold.halfedge.OrigamiModel;
 import oripa.domain.fold.halfedge.OrigamiModelFactory;
 import oripa.domain.fold.subface.FacesToCreasePatternConverter;
 import oripa.domain.fold.subface.ParentFacesCollector;
@@ -39,19 +41,50 @@ import oripa.domain.fold.subface.SubFacesFactory;
  */
 public class FolderFactory {
 
+	private static final int INCREMENTAL_CACHE_SIZE = 2;
+
+	private final int maxOverlapRelationCopyCount;
+
+	/**
+	 * Uses the default limit of overlap relation copies for parallel search.
+	 */
+	public FolderFactory() {
+		this(LayerOrderSearch.DEFAULT_COPY_COUNT_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 *
+	 * @param maxOverlapRelationCopyCount
+	 *            max number of overlap relation matrices copied at the same
+	 *            time for the parallel search of layer orders. Smaller value
+	 *            reduces the peak memory usage. 0 makes the search sequential.
+	 */
+	public FolderFactory(final int maxOverlapRelationCopyCount) {
+		this.maxOverlapRelationCopyCount = maxOverlapRelationCopyCount;
+	}
+
 	/**
 	 *
 	 * @param type
-	 * @return Instance of {@link Folder}. Note that the instance for
-	 *         {@link ModelType#UNASSIGNED} can be used repeatedly only for the
-	 *         same {@link OrigamiModel} instance since the folder creates
-	 *         subfaces only once to reduce computation time.
+	 * @return Instance of {@link Folder}.
 	 */
 	public Folder create(final ModelType type) {
+		return create(type, new FoldingMonitor());
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param monitor
+	 *            stops the search of layer orders and receives the progress.
+	 *            The folder returns the folded states found until the stop.
+	 * @return Instance of {@link Folder}. See {@link #create(ModelType)}.
+	 */
+	public Folder create(final ModelType type, final FoldingMonitor monitor) {
 		return switch (type) {
-		case ASSIGNED -> createAssigned();
+		case ASSIGNED -> createAssigned(monitor);
 
-		case UNASSIGNED -> createUnassigned();
+		case UNASSIGNED -> createUnassigned(monitor);
 
 		case ERROR_CONTAINING -> createErrorContaining();
 
@@ -59,38 +92,66 @@ public class FolderFactory {
 		};
 	}
 
-	private Folder createAssigned() {
-		var subfacesFactory = new SubFacesFactory(
-				new FacesToCreasePatternConverter(
-						new CreasePatternFactory(),
-//						new CrossingLineSplitterSweepLineAlgorithm(),
-						new CrossingLineSplitterNaiveAlgorithm(new LineDivider()),
-						new PointsMerger(),
-						new AnalyticOverlappingLineMerger()),
+	/**
+	 * Creates a folder which keeps the geometric data of the recently folded
+	 * models and reuses them when only the mountain/valley assignment is
+	 * changed. The instance can live as long as the editing session.
+	 *
+	 * @return Instance of {@link Folder} for any {@link ModelType}. The models
+	 *         other than {@link ModelType#ASSIGNED} are folded without
+	 *         caching.
+	 */
+	public Folder createIncremental() {
+		return createIncremental(FoldingMonitor::new);
+	}
+
+	/**
+	 *
+	 * @param monitorFactory
+	 *            creates the monitor for each fold, which stops the search of
+	 *            layer orders and receives the progress.
+	 * @return Instance of {@link Folder}. See {@link #createIncremental()}.
+	 */
+	public Folder createIncremental(final Supplier<FoldingMonitor> monitorFactory) {
+		return new IncrementalFolder(
+				new SimpleFolder(),
 				new OrigamiModelFactory(),
-				new SplitFacesToSubFacesConverter(),
-				new ParentFacesCollector());
+				monitor -> new LayerOrderEnumerator(createSubFacesFactory(), createSearch(monitor), true),
+				this::create,
+				monitorFactory,
+				INCREMENTAL_CACHE_SIZE);
+	}
 
+	private Folder createAssigned(final FoldingMonitor monitor) {
 		return new AssignedModelFolder(
 				new SimpleFolder(),
-				new LayerOrderEnumerator(subfacesFactory, true));
+				new LayerOrderEnumerator(createSubFacesFactory(), createSearch(monitor), true));
 	}
 
-	private Folder createUnassigned() {
-		var subfacesFactory = new SubfacesOneTimeFactory(
+	/**
+	 * @return subfaces factory used by the folders.
+	 */
+	SubFacesFactory createSubFacesFactory() {
+		return new SubFacesFactory(
 				new FacesToCreasePatternConverter(
 						new CreasePatternFactory(),
 //						new CrossingLineSplitterSweepLineAlgorithm(),
-						new CrossingLineSplitterNaiveAlgorithm(new LineDivider()),
+						new CrossingLineSplitterParallelAlgorithm(new LineDivider()),
 						new PointsMerger(),
-						new AnalyticOverlappingLineMerger()),
+						new AnalyticOverlappingLineMerger(ForkJoinPool.commonPool())),
 				new OrigamiModelFactory(),
 				new SplitFacesToSubFacesConverter(),
 				new ParentFacesCollector());
+	}
 
+	private Folder createUnassigned(final FoldingMonitor monitor) {
 		return new UnassignedModelFolder(
 				new SimpleFolder(),
-				new LayerOrderEnumerator(subfacesFactory, false));
+				new LayerOrderEnumerator(createSubFacesFactory(), createSearch(monitor), false));
+	}
+
+	private LayerOrderSearch createSearch(final FoldingMonitor monitor) {
+		return new LayerOrderSearch(ForkJoinPool.commonPool(), maxOverlapRelationCopyCount, monitor);
 	}
 
 	private Folder createErrorContaining() {
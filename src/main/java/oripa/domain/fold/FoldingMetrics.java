@@ -0,0 +1,199 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Timings and counters of a fold. For an unassigned model, the values are the
+ * sums over all assignments except {@link #getPeakCopyCount()}, which is the
+ * max. This object is not thread-safe; the folder records the values on the
+ * calling thread.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldingMetrics {
+	public enum Stage {
+		/** moves faces to the folded positions. */
+		SIMPLE_FOLD,
+		/** creates subfaces and their parent faces. */
+		SUBFACES,
+		/** creates overlap relation by line types. */
+		OVERLAP_RELATION,
+		/** creates 3-face and 4-face stack conditions. */
+		STACK_CONDITIONS,
+		/** deterministic estimation of overlap relation. */
+		ESTIMATION,
+		/** heuristic ordering of subfaces before search. */
+		SUBFACE_ORDERING,
+		/** search of layer orders. */
+		SEARCH
+	}
+
+	private final Map<Stage, Long> stageTimes = new EnumMap<>(Stage.class);
+
+	private int assignmentCount;
+
+	private long searchNodeCount;
+	private long localLayerOrderCount;
+
+	private long failureCountOf2Faces;
+	private long failureCountOf3Faces;
+	private long failureCountOf4Faces;
+
+	private int peakCopyCount;
+
+	private long answerCount;
+
+	/**
+	 * Adds elapsed time to the stage.
+	 *
+	 * @param stage
+	 *            the stage.
+	 * @param milliSec
+	 *            elapsed time in milliseconds.
+	 */
+	public void addTime(final Stage stage, final long milliSec) {
+		stageTimes.merge(stage, milliSec, Long::sum);
+	}
+
+	/**
+	 * @return elapsed time of the stage in milliseconds.
+	 */
+	public long getTime(final Stage stage) {
+		return stageTimes.getOrDefault(stage, 0L);
+	}
+
+	/**
+	 * @return elapsed time of each stage in milliseconds. The stages which
+	 *         didn't run are not included.
+	 */
+	public Map<Stage, Long> getStageTimes() {
+		return Collections.unmodifiableMap(stageTimes);
+	}
+
+	/**
+	 * @return sum of the elapsed times of all stages in milliseconds.
+	 */
+	public long getTotalTime() {
+		return stageTimes.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	void incrementAssignmentCount() {
+		assignmentCount++;
+	}
+
+	/**
+	 * @return the number of the M/V assignments tried for an unassigned model.
+	 *         1 for an assigned model.
+	 */
+	public int getAssignmentCount() {
+		return assignmentCount;
+	}
+
+	void addSearchNodeCount(final long count) {
+		searchNodeCount += count;
+	}
+
+	/**
+	 * @return the number of nodes visited by the search.
+	 */
+	public long getSearchNodeCount() {
+		return searchNodeCount;
+	}
+
+	void addLocalLayerOrderCount(final long count) {
+		localLayerOrderCount += count;
+	}
+
+	/**
+	 * @return the number of local layer orders generated for subfaces.
+	 */
+	public long getLocalLayerOrderCount() {
+		return localLayerOrderCount;
+	}
+
+	void addFailureCounts(final long countOf2Faces, final long countOf3Faces, final long countOf4Faces) {
+		failureCountOf2Faces += countOf2Faces;
+		failureCountOf3Faces += countOf3Faces;
+		failureCountOf4Faces += countOf4Faces;
+	}
+
+	/**
+	 * @return the number of the branches pruned by stack conditions of 2
+	 *         faces in local layer ordering.
+	 */
+	public long getFailureCountOf2Faces() {
+		return failureCountOf2Faces;
+	}
+
+	/**
+	 * @return the number of the branches pruned by stack conditions of 3
+	 *         faces in local layer ordering.
+	 */
+	public long getFailureCountOf3Faces() {
+		return failureCountOf3Faces;
+	}
+
+	/**
+	 * @return the number of the branches pruned by stack conditions of 4
+	 *         faces in local layer ordering.
+	 */
+	public long getFailureCountOf4Faces() {
+		return failureCountOf4Faces;
+	}
+
+	void updatePeakCopyCount(final int count) {
+		peakCopyCount = Math.max(peakCopyCount, count);
+	}
+
+	/**
+	 * @return the max number of overlap relation copies which existed at the
+	 *         same time in the parallel search.
+	 */
+	public int getPeakCopyCount() {
+		return peakCopyCount;
+	}
+
+	void addAnswerCount(final long count) {
+		answerCount += count;
+	}
+
+	/**
+	 * @return the number of the folded states found.
+	 */
+	public long getAnswerCount() {
+		return answerCount;
+	}
+
+	/**
+	 * @return the number of the folded states found per second of the search.
+	 *         0 if the search took no measurable time.
+	 */
+	public double getAnswersPerSecond() {
+		var searchTime = getTime(Stage.SEARCH);
+		if (searchTime == 0) {
+			return 0;
+		}
+		return answerCount * 1000.0 / searchTime;
+	}
+}
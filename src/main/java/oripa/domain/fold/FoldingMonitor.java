@@ -0,0 +1,226 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Cancellation, budget and progress of a fold. The search of layer orders
+ * stops as soon as {@link #cancel()} is called or the budget is exhausted, and
+ * the folder returns the folded states found so far.
+ *
+ * <p>
+ * The progress is the explored fraction of the search tree, where each node
+ * shares its weight equally among its local layer orders. For example, the
+ * progress is 0.5 when the half of the local layer orders of the first
+ * subface has been explored. For an unassigned model, the progress starts
+ * from 0 for each M/V assignment.
+ *
+ * <p>
+ * An instance should be used for only one fold. The time limit is measured
+ * from the creation of the instance.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldingMonitor {
+	public enum StopReason {
+		/** the search has not been stopped. */
+		NONE,
+		/** {@link FoldingMonitor#cancel()} has been called. */
+		CANCELLED,
+		/** the time limit has been exceeded. */
+		TIME_LIMIT,
+		/** the answer limit has been reached. */
+		ANSWER_LIMIT
+	}
+
+	/**
+	 * Value for no time limit and no answer limit.
+	 */
+	public static final long NO_LIMIT = 0;
+
+	/**
+	 * Step of progress to notify the listener.
+	 */
+	private static final double PROGRESS_STEP = 0.01;
+
+	private static final double PROGRESS_EPS = 1e-9;
+
+	private final long deadline;
+	private final long answerLimit;
+	private final DoubleConsumer progressListener;
+
+	private volatile boolean cancelled = false;
+	private final AtomicReference<StopReason> stopReason = new AtomicReference<>(StopReason.NONE);
+
+	private final AtomicLong answerCount = new AtomicLong();
+
+	private final DoubleAdder progress = new DoubleAdder();
+	private volatile double progressShare = 1.0;
+	private volatile double notifiedProgress = 0;
+
+	/**
+	 * No limit and no progress listener. The search stops only by
+	 * {@link #cancel()}.
+	 */
+	public FoldingMonitor() {
+		this(NO_LIMIT, NO_LIMIT, p -> {
+		});
+	}
+
+	/**
+	 *
+	 * @param timeLimitMilliSec
+	 *            max time of the fold in milliseconds. {@link #NO_LIMIT} or a
+	 *            negative value means no limit.
+	 * @param answerLimit
+	 *            max number of the folded states to be found.
+	 *            {@link #NO_LIMIT} or a negative value means no limit. This is
+	 *            not applied to counting.
+	 * @param progressListener
+	 *            receives the progress in [0, 1] each time it advances by 1%.
+	 *            It can be called from the worker threads of the search but
+	 *            the calls are serialized.
+	 */
+	public FoldingMonitor(final long timeLimitMilliSec, final long answerLimit,
+			final DoubleConsumer progressListener) {
+		this.deadline = timeLimitMilliSec > 0
+				? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimitMilliSec)
+				: Long.MAX_VALUE;
+		this.answerLimit = answerLimit > 0 ? answerLimit : Long.MAX_VALUE;
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Requests to stop the fold. This method can be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return true if the search should stop. Once this method returns true,
+	 *         it always returns true.
+	 */
+	public boolean isStopped() {
+		if (stopReason.get() != StopReason.NONE) {
+			return true;
+		}
+		if (cancelled) {
+			return stop(StopReason.CANCELLED);
+		}
+		if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+			return stop(StopReason.TIME_LIMIT);
+		}
+		return isAnswerLimitReached();
+	}
+
+	/**
+	 * @return true if the number of the found folded states has reached the
+	 *         limit.
+	 */
+	boolean isAnswerLimitReached() {
+		if (answerCount.get() >= answerLimit) {
+			return stop(StopReason.ANSWER_LIMIT);
+		}
+		return false;
+	}
+
+	private boolean stop(final StopReason reason) {
+		stopReason.compareAndSet(StopReason.NONE, reason);
+		return true;
+	}
+
+	/**
+	 * @return the reason why the search stopped. {@link StopReason#NONE} if
+	 *         the search has completed, which means the result contains all
+	 *         folded states.
+	 */
+	public StopReason getStopReason() {
+		return stopReason.get();
+	}
+
+	void answerFound() {
+		answerCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of the folded states found so far.
+	 */
+	public long getAnswerCount() {
+		return answerCount.get();
+	}
+
+	/**
+	 * Resets the progress for a new search.
+	 */
+	synchronized void startProgress() {
+		progress.reset();
+		progressShare = 1.0;
+		notifiedProgress = 0;
+	}
+
+	/**
+	 * Sets the share of the following search runs in the whole progress. The
+	 * independent groups of subfaces are searched one by one with the share of
+	 * 1 / (number of groups).
+	 */
+	void setProgressShare(final double share) {
+		progressShare = share;
+	}
+
+	/**
+	 * Adds the weight of a finished branch of the search tree. The root has
+	 * the weight of 1. The progress doesn't change after the stop since the
+	 * branches can be cut off.
+	 */
+	void addProgress(final double weight) {
+		if (stopReason.get() != StopReason.NONE) {
+			return;
+		}
+		progress.add(weight * progressShare);
+
+		var current = getProgress();
+		if (current - notifiedProgress < PROGRESS_STEP && current < 1.0) {
+			return;
+		}
+		synchronized (this) {
+			current = getProgress();
+			if (current - notifiedProgress < PROGRESS_STEP && current < 1.0 || current == notifiedProgress) {
+				return;
+			}
+			notifiedProgress = current;
+			progressListener.accept(current);
+		}
+	}
+
+	/**
+	 * @return the explored fraction of the search tree in [0, 1].
+	 */
+	public double getProgress() {
+		var sum = progress.sum();
+		// the weights are not exact. avoid missing the completion.
+		return sum > 1.0 - PROGRESS_EPS ? 1.0 : sum;
+	}
+}
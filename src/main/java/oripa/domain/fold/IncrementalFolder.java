@@ -0,0 +1,366 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import oripa.domain.fold.halfedge.ModelType;
+import oripa.domain.fold.halfedge.OriEdge;
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.halfedge.OrigamiModelFactory;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+import oripa.util.StopWatch;
+import oripa.value.OriLine;
+
+/**
+ * Folder for assigned models which keeps the data of layer ordering depending
+ * only on the geometry. If the given model has the same creases as a cached
+ * one and only the mountain/valley assignment is changed, this folder skips
+ * the subface construction and the geometric part of the overlap relation and
+ * the stack conditions.
+ *
+ * The cached data is built on a private copy of the model, which is never
+ * returned. The given model is folded for each call and the result refers to
+ * it, so that the results never share a model. The face IDs of the given model
+ * are renumbered to match the cached data. A new {@link FoldingMonitor} is
+ * used for each call. The models which are not assigned or not locally flat
+ * foldable are folded by the folder for their type without caching.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class IncrementalFolder implements Folder {
+	private static final Logger logger = LoggerFactory.getLogger(IncrementalFolder.class);
+
+	private final FaceDisplayModifier faceDisplayModifier = new FaceDisplayModifier();
+
+	private final SimpleFolder simpleFolder;
+	private final OrigamiModelFactory modelFactory;
+	private final Function<FoldingMonitor, LayerOrderEnumerator> enumeratorFactory;
+	private final BiFunction<ModelType, FoldingMonitor, Folder> otherFolderProvider;
+	private final Supplier<FoldingMonitor> monitorFactory;
+
+	private final Map<GeometryKey, CacheEntry> cache;
+
+	/**
+	 * Key of the crease geometry which ignores the order of the edges and the
+	 * mountain/valley assignment.
+	 */
+	private record GeometryKey(Set<EdgeKey> edges, double eps) {
+	}
+
+	private record EdgeKey(double x0, double y0, double x1, double y1, boolean isBoundary, boolean isFoldLine) {
+		static EdgeKey of(final OriEdge edge) {
+			var p = edge.getStartVertex().getPositionBeforeFolding();
+			var q = edge.getEndVertex().getPositionBeforeFolding();
+
+			// order the end points so that the key doesn't depend on the
+			// direction of the edge.
+			if (p.getX() > q.getX() || (p.getX() == q.getX() && p.getY() > q.getY())) {
+				var tmp = p;
+				p = q;
+				q = tmp;
+			}
+			return new EdgeKey(p.getX(), p.getY(), q.getX(), q.getY(), edge.isBoundary(), edge.isFoldLine());
+		}
+	}
+
+	/**
+	 * @param edges
+	 *            edges of the private copy, whose types are overwritten for
+	 *            each call.
+	 * @param faceIDs
+	 *            face ID of the private copy for each set of face edges.
+	 */
+	private record CacheEntry(
+			Map<EdgeKey, OriEdge> edges,
+			Map<Set<EdgeKey>, Integer> faceIDs,
+			LayerOrderEnumerator.Geometry geometry) {
+	}
+
+	/**
+	 *
+	 * @param simpleFolder
+	 * @param modelFactory
+	 *            creates the private copy of the given model.
+	 * @param enumeratorFactory
+	 *            creates the enumerator of layer orders for assigned models
+	 *            which uses the given monitor.
+	 * @param otherFolderProvider
+	 *            provides the folder for the model which cannot be cached.
+	 * @param monitorFactory
+	 *            creates the monitor for each fold.
+	 * @param cacheSize
+	 *            max number of geometries kept by this folder. The least
+	 *            recently used one is discarded first.
+	 */
+	public IncrementalFolder(
+			final SimpleFolder simpleFolder,
+			final OrigamiModelFactory modelFactory,
+			final Function<FoldingMonitor, LayerOrderEnumerator> enumeratorFactory,
+			final BiFunction<ModelType, FoldingMonitor, Folder> otherFolderProvider,
+			final Supplier<FoldingMonitor> monitorFactory,
+			final int cacheSize) {
+		this.simpleFolder = simpleFolder;
+		this.modelFactory = modelFactory;
+		this.enumeratorFactory = enumeratorFactory;
+		this.otherFolderProvider = otherFolderProvider;
+		this.monitorFactory = monitorFactory;
+
+		cache = new LinkedHashMap<>(cacheSize, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<GeometryKey, CacheEntry> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	@Override
+	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType) {
+		var overlapRelations = new ArrayList<OverlapRelation>();
+
+		var result = fold(origamiModel, eps, estimationType, overlapRelations::add);
+
+		return new Result(
+				new FoldedModel(result.foldedModel().origamiModel(), overlapRelations,
+						result.foldedModel().subfaces()),
+				result.estimationRules(),
+				result.metrics());
+	}
+
+	@Override
+	public synchronized Result fold(final OrigamiModel origamiModel, final double eps,
+			final EstimationType estimationType, final Consumer<OverlapRelation> answerConsumer) {
+		var monitor = monitorFactory.get();
+
+		// x-ray needs no layer ordering.
+		if (!isCacheable(origamiModel) || estimationType == EstimationType.X_RAY) {
+			return otherFolderProvider.apply(origamiModel.getModelType(), monitor)
+					.fold(origamiModel, eps, estimationType, answerConsumer);
+		}
+
+		var enumerator = enumeratorFactory.apply(monitor);
+
+		var metrics = new FoldingMetrics();
+		metrics.incrementAssignmentCount();
+
+		var watch = new StopWatch(true);
+		simpleFolder.simpleFoldWithoutZorder(origamiModel, eps);
+		faceDisplayModifier.setCurrentPositionsToDisplayPositions(origamiModel);
+		metrics.addTime(FoldingMetrics.Stage.SIMPLE_FOLD, watch.getMilliSec());
+
+		var firstOnly = estimationType == EstimationType.FIRST_ONLY;
+
+		var enumerationResult = findOrCreate(origamiModel, eps, enumerator, metrics)
+				.filter(entry -> renumberFaces(origamiModel, entry))
+				.map(entry -> {
+					var result = enumerator.enumerate(entry.geometry(), eps, firstOnly, answerConsumer, metrics);
+					return result.withSubfaces(copySubfaces(result.getSubfaces(), origamiModel.getFaces(), eps));
+				})
+				.orElseGet(() -> {
+					logger.debug("the faces don't match the cached ones. fold without cache.");
+					return enumerator.enumerate(origamiModel, eps, firstOnly, answerConsumer, metrics);
+				});
+
+		var foldedModel = new FoldedModel(origamiModel, List.of(), enumerationResult.getSubfaces());
+
+		if (enumerationResult.isEmpty()) {
+			origamiModel.setFolded(false);
+			return new Result(foldedModel, enumerationResult.getRules(), 0, metrics);
+		}
+
+		origamiModel.setFolded(true);
+		return new Result(foldedModel, enumerationResult.getRules(), enumerationResult.getAnswerCount(), metrics);
+	}
+
+	@Override
+	public synchronized BigInteger count(final OrigamiModel origamiModel, final double eps,
+			final FoldingMetrics metrics) {
+		var monitor = monitorFactory.get();
+
+		if (!isCacheable(origamiModel)) {
+			return otherFolderProvider.apply(origamiModel.getModelType(), monitor)
+					.count(origamiModel, eps, metrics);
+		}
+
+		metrics.incrementAssignmentCount();
+
+		var enumerator = enumeratorFactory.apply(monitor);
+
+		// the given model is not folded since the counting doesn't refer to
+		// it.
+		return findOrCreate(origamiModel, eps, enumerator, metrics)
+				.map(entry -> enumerator.count(entry.geometry(), eps, metrics))
+				.orElseGet(() -> {
+					simpleFolder.simpleFoldWithoutZorder(origamiModel, eps);
+					return enumerator.count(origamiModel, eps, metrics);
+				});
+	}
+
+	private boolean isCacheable(final OrigamiModel origamiModel) {
+		return origamiModel.getModelType() == ModelType.ASSIGNED && origamiModel.isLocallyFlatFoldable();
+	}
+
+	/**
+	 * Returns the cache entry whose geometry is the same as the given model
+	 * after copying the crease types of the given model to the private copy. If
+	 * there is no such entry, creates and caches it.
+	 *
+	 * @return empty if the private copy doesn't have the same edges as the
+	 *         given model.
+	 */
+	private Optional<CacheEntry> findOrCreate(final OrigamiModel origamiModel, final double eps,
+			final LayerOrderEnumerator enumerator, final FoldingMetrics metrics) {
+
+		var edgeKeys = origamiModel.getEdges().stream()
+				.map(EdgeKey::of)
+				.toList();
+		var key = new GeometryKey(Set.copyOf(edgeKeys), eps);
+
+		var cached = cache.get(key);
+		if (cached != null) {
+			logger.debug("reuse the geometry.");
+		}
+
+		var entryOpt = Optional.ofNullable(cached)
+				.or(() -> createEntry(origamiModel, key, eps, enumerator, metrics));
+
+		entryOpt.ifPresent(entry -> {
+			copyTypes(origamiModel, edgeKeys, entry);
+			cache.put(key, entry);
+		});
+
+		return entryOpt;
+	}
+
+	private Optional<CacheEntry> createEntry(final OrigamiModel origamiModel, final GeometryKey key,
+			final double eps, final LayerOrderEnumerator enumerator, final FoldingMetrics metrics) {
+
+		var copy = createCopy(origamiModel, eps);
+
+		var edges = new HashMap<EdgeKey, OriEdge>();
+		copy.getEdges().forEach(edge -> edges.put(EdgeKey.of(edge), edge));
+
+		if (!edges.keySet().equals(key.edges()) || copy.getFaces().size() != origamiModel.getFaces().size()) {
+			return Optional.empty();
+		}
+
+		var watch = new StopWatch(true);
+		simpleFolder.simpleFoldWithoutZorder(copy, eps);
+		metrics.addTime(FoldingMetrics.Stage.SIMPLE_FOLD, watch.getMilliSec());
+
+		var faceIDs = new HashMap<Set<EdgeKey>, Integer>();
+		copy.getFaces().forEach(face -> faceIDs.put(createFaceKey(face), face.getFaceID()));
+
+		return Optional.of(new CacheEntry(edges, faceIDs, enumerator.createGeometry(copy, eps, metrics)));
+	}
+
+	/**
+	 * Creates the model of the same creases as the given one, which is shared
+	 * only by this folder.
+	 */
+	private OrigamiModel createCopy(final OrigamiModel origamiModel, final double eps) {
+		var lines = origamiModel.getEdges().stream()
+				.map(edge -> new OriLine(
+						edge.getStartVertex().getPositionBeforeFolding(),
+						edge.getEndVertex().getPositionBeforeFolding(),
+						OriLine.Type.fromInt(edge.getType())))
+				.toList();
+
+		return modelFactory.createOrigamiModel(lines, eps);
+	}
+
+	private Set<EdgeKey> createFaceKey(final OriFace face) {
+		return Set.copyOf(face.halfedgeStream()
+				.map(he -> EdgeKey.of(he.getEdge()))
+				.toList());
+	}
+
+	private void copyTypes(final OrigamiModel origamiModel, final List<EdgeKey> edgeKeys, final CacheEntry entry) {
+		var modelEdges = origamiModel.getEdges();
+		for (int i = 0; i < modelEdges.size(); i++) {
+			entry.edges().get(edgeKeys.get(i)).setType(modelEdges.get(i).getType());
+		}
+	}
+
+	/**
+	 * Sets the face IDs of the cached data to the faces of the given model and
+	 * sorts the faces by the ID, so that the folded states can be applied to
+	 * the given model.
+	 *
+	 * @return false if some face doesn't exist in the cached data.
+	 */
+	private boolean renumberFaces(final OrigamiModel origamiModel, final CacheEntry entry) {
+		var faces = origamiModel.getFaces();
+		var faceIDs = faces.stream()
+				.map(face -> entry.faceIDs().get(createFaceKey(face)))
+				.toList();
+
+		if (faceIDs.contains(null)) {
+			return false;
+		}
+
+		for (int i = 0; i < faces.size(); i++) {
+			faces.get(i).setFaceID(faceIDs.get(i));
+		}
+
+		origamiModel.setFaces(faces.stream()
+				.sorted(Comparator.comparingInt(OriFace::getFaceID))
+				.collect(Collectors.toCollection(ArrayList::new)));
+
+		return true;
+	}
+
+	/**
+	 * Creates the subfaces for the result whose parents are the faces of the
+	 * given model instead of the private copy.
+	 *
+	 * @param faces
+	 *            faces sorted by ID.
+	 */
+	private List<SubFace> copySubfaces(final List<SubFace> subfaces, final List<OriFace> faces, final double eps) {
+		return subfaces.stream()
+				.map(subface -> {
+					var copy = new SubFace(subface.getOutline(), eps);
+					var parents = new ArrayList<OriFace>();
+					subface.ParentFacesIterable().forEach(parent -> parents.add(faces.get(parent.getFaceID())));
+					copy.addParentFaces(parents);
+					return copy;
+				})
+				.toList();
+	}
+}
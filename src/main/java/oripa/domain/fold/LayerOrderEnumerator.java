@@ -18,13 +18,19 @@
  */
 package oripa.domain.fold;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,14 +38,12 @@ import org.slf4j.LoggerFactory;
 import oripa.domain.fold.condfac.StackConditionFactoryFacade;
 import oripa.domain.fold.halfedge.OriFace;
 import oripa.domain.fold.halfedge.OrigamiModel;
-import oripa.domain.fold.origeom.EstimationResult;
 import oripa.domain.fold.origeom.OverlapRelation;
 import oripa.domain.fold.stackcond.StackConditionOf3Faces;
 import oripa.domain.fold.stackcond.StackConditionOf4Faces;
 import oripa.domain.fold.subface.SubFace;
 import oripa.domain.fold.subface.SubFacesFactory;
 import oripa.util.IntPair;
-import oripa.util.Pair;
 import oripa.util.StopWatch;
 
 /**
@@ -50,20 +54,45 @@ class LayerOrderEnumerator {
 
 	public static class Result {
 		private final List<OverlapRelation> overlapRelations;
+		private final int answerCount;
 		private final List<SubFace> subfaces;
 		private final EstimationResultRules rules;
 
-		private Result(final List<OverlapRelation> overlapRelations, final List<SubFace> subfaces,
-				final EstimationResultRules rules) {
+		private Result(final List<OverlapRelation> overlapRelations, final int answerCount,
+				final List<SubFace> subfaces, final EstimationResultRules rules) {
 			this.overlapRelations = overlapRelations;
+			this.answerCount = answerCount;
 			this.subfaces = subfaces;
 			this.rules = rules;
 		}
 
+		private Result(final List<SubFace> subfaces, final EstimationResultRules rules) {
+			this(List.of(), 0, subfaces, rules);
+		}
+
+		private Result withOverlapRelations(final List<OverlapRelation> overlapRelations) {
+			return new Result(overlapRelations, answerCount, subfaces, rules);
+		}
+
+		Result withSubfaces(final List<SubFace> subfaces) {
+			return new Result(overlapRelations, answerCount, subfaces, rules);
+		}
+
+		/**
+		 * @return found overlap relations. Empty if they are passed to a
+		 *         consumer.
+		 */
 		public List<OverlapRelation> getOverlapRelations() {
 			return overlapRelations;
 		}
 
+		/**
+		 * @return the number of found overlap relations.
+		 */
+		public int getAnswerCount() {
+			return answerCount;
+		}
+
 		public List<SubFace> getSubfaces() {
 			return subfaces;
 		}
@@ -73,25 +102,28 @@ class LayerOrderEnumerator {
 		}
 
 		public boolean isEmpty() {
-			return overlapRelations.isEmpty();
+			return answerCount == 0;
 		}
 	}
 
 	private final static Logger logger = LoggerFactory.getLogger(LayerOrderEnumerator.class);
 
-	private AtomicInteger callCount;
-	private AtomicInteger localLayerOrderCount;
-
 	private final SubFacesFactory subfacesFactory;
 
-	private final boolean shouldLogStats;
-
-	private boolean firstOnly;
+	private final LayerOrderSearch search;
+	private final FoldingMonitor monitor;
 
-	private final TransitivityChecker transitivityChecker = new TransitivityChecker();
+	private final boolean shouldLogStats;
 
 	public LayerOrderEnumerator(final SubFacesFactory subfacesFactory, final boolean shouldLogStats) {
+		this(subfacesFactory, new LayerOrderSearch(), shouldLogStats);
+	}
+
+	public LayerOrderEnumerator(final SubFacesFactory subfacesFactory, final LayerOrderSearch search,
+			final boolean shouldLogStats) {
 		this.subfacesFactory = subfacesFactory;
+		this.search = search;
+		this.monitor = search.getMonitor();
 		this.shouldLogStats = shouldLogStats;
 	}
 
@@ -104,44 +136,389 @@ class LayerOrderEnumerator {
 	 *            true for only one state.
 	 */
 	public Result enumerate(final OrigamiModel origamiModel, final double eps, final boolean firstOnly) {
+		var overlapRelations = new ConcurrentLinkedQueue<OverlapRelation>();
+
+		var result = enumerate(origamiModel, eps, firstOnly, overlapRelations::add);
+
+		return result.withOverlapRelations(new ArrayList<>(overlapRelations));
+	}
+
+	/**
+	 * Passes each overlap relation to {@code answerConsumer} as soon as it is
+	 * found instead of holding all of them. The returned result has no overlap
+	 * relation.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data for origami model after moving faces.
+	 * @param eps
+	 *            max value of computation error.
+	 * @param firstOnly
+	 *            true for only one state.
+	 * @param answerConsumer
+	 *            receives the answers. It is called by one thread at a time.
+	 */
+	public Result enumerate(final OrigamiModel origamiModel, final double eps, final boolean firstOnly,
+			final Consumer<OverlapRelation> answerConsumer) {
+		return enumerate(origamiModel, eps, firstOnly, answerConsumer, new FoldingMetrics());
+	}
+
+	/**
+	 * Same as {@link #enumerate(OrigamiModel, double, boolean, Consumer)} and
+	 * records the timings and the counters of the stages to {@code metrics}.
+	 *
+	 * @param metrics
+	 *            receives the timings and the counters.
+	 */
+	public Result enumerate(final OrigamiModel origamiModel, final double eps, final boolean firstOnly,
+			final Consumer<OverlapRelation> answerConsumer, final FoldingMetrics metrics) {
+		if (monitor.isStopped()) {
+			return new Result(List.of(), new EstimationResultRules());
+		}
+
+		return enumerate(createGeometry(origamiModel, eps, metrics), eps, firstOnly, answerConsumer, metrics);
+	}
+
+	/**
+	 * Same as
+	 * {@link #enumerate(OrigamiModel, double, boolean, Consumer, FoldingMetrics)}
+	 * but uses the given geometry instead of creating it.
+	 *
+	 * @param geometry
+	 *            created by {@link #createGeometry(OrigamiModel, double, FoldingMetrics)}
+	 *            for the current positions of the faces.
+	 */
+	Result enumerate(final Geometry geometry, final double eps, final boolean firstOnly,
+			final Consumer<OverlapRelation> answerConsumer, final FoldingMetrics metrics) {
+		if (monitor.isStopped()) {
+			return new Result(List.of(), new EstimationResultRules());
+		}
+
+		var preparation = prepare(geometry, eps, metrics);
+
+		if (preparation.isUnfoldable()) {
+			return new Result(List.of(), preparation.rules());
+		}
+
+		var sortedSubfaces = preparation.subfaces();
+		var overlapRelation = preparation.overlapRelation();
+
+		var watch = new StopWatch(true);
+
+		var components = new SubfaceComponentSplitter().split(sortedSubfaces, overlapRelation).stream()
+				.map(component -> new SubfaceComponentAnswers(component, overlapRelation))
+				.toList();
+
+		var searchedComponentCount = components.stream()
+				.filter(component -> component.getUndefinedRelationCount() > 0)
+				.count();
+		logger.debug("#component = {}, #component to be searched = {}", components.size(),
+				searchedComponentCount);
+
+		Consumer<OverlapRelation> monitoredConsumer = answer -> {
+			answerConsumer.accept(answer);
+			monitor.answerFound();
+		};
+
+		monitor.startProgress();
+
+		var answerCount = searchedComponentCount > 1
+				? searchByComponents(preparation.faces(), components, overlapRelation, monitoredConsumer, firstOnly,
+						metrics)
+				: measureSearch(sortedSubfaces, metrics,
+						() -> search.search(preparation.faces(), sortedSubfaces, overlapRelation, monitoredConsumer,
+								firstOnly));
+
+		if (monitor.isStopped()) {
+			logger.info("search stopped: {}", monitor.getStopReason());
+		}
+		var time = watch.getMilliSec();
+		metrics.addAnswerCount(answerCount);
+
+		logger.debug("time = {}[ms]", time);
+
+		if (shouldLogStats) {
+			logStats(sortedSubfaces, overlapRelation);
+		}
+
+		// the combinations of the groups can exceed the range of int.
+		return new Result(List.of(), (int) Math.min(answerCount, Integer.MAX_VALUE), sortedSubfaces,
+				new EstimationResultRules());
+	}
+
+	/**
+	 * Searches each group of subfaces separately and passes the combinations
+	 * of their answers. The answers of a group are held as the values of its
+	 * undefined relations, which is much smaller than the matrices of the
+	 * whole combinations.
+	 *
+	 * The first answer of every group is searched before the others, so that
+	 * a stop by the monitor during the search of all answers still gives the
+	 * combinations of the answers found so far. If the monitor stops before
+	 * every group has an answer, no folded state is given.
+	 *
+	 * @return the number of the combinations given to {@code answerConsumer}.
+	 */
+	private long searchByComponents(final List<OriFace> faces, final List<SubfaceComponentAnswers> components,
+			final OverlapRelation overlapRelation, final Consumer<OverlapRelation> answerConsumer,
+			final boolean firstOnly, final FoldingMetrics metrics) {
+
+		// the first answers are not counted in the progress since the groups
+		// are searched again for all answers.
+		monitor.setProgressShare(firstOnly ? 1.0 / Math.max(components.size(), 1) : 0);
+
+		for (var component : components) {
+			measureSearch(component.getSubfaces(), metrics,
+					() -> search.search(faces, component.getSubfaces(), overlapRelation, component::add, true));
+			if (component.size() == 0) {
+				return 0;
+			}
+		}
+
+		var searchedComponents = firstOnly
+				? components
+				: searchAllByComponents(faces, components, overlapRelation, metrics);
+
+		var watch = new StopWatch(true);
+		var answerCount = new LayerOrderProduct(searchedComponents).forEach(overlapRelation, answerConsumer,
+				firstOnly, monitor::isStopped);
+		metrics.addTime(FoldingMetrics.Stage.SEARCH, watch.getMilliSec());
+
+		return answerCount;
+	}
+
+	/**
+	 * Searches all answers of each group.
+	 *
+	 * @param components
+	 *            groups which have their first answer.
+	 * @return the groups with all answers. The group whose search is stopped
+	 *         before finding any answer is replaced with the given one.
+	 */
+	private List<SubfaceComponentAnswers> searchAllByComponents(final List<OriFace> faces,
+			final List<SubfaceComponentAnswers> components, final OverlapRelation overlapRelation,
+			final FoldingMetrics metrics) {
+
+		monitor.setProgressShare(1.0 / Math.max(components.size(), 1));
+
+		return components.stream()
+				.map(component -> {
+					var allAnswers = new SubfaceComponentAnswers(component.getSubfaces(), overlapRelation);
+					measureSearch(component.getSubfaces(), metrics,
+							() -> search.search(faces, component.getSubfaces(), overlapRelation, allAnswers::add,
+									false));
+					return allAnswers.size() == 0 ? component : allAnswers;
+				})
+				.toList();
+	}
+
+	/**
+	 * Counts the folded states without holding any of them. The subfaces are
+	 * split into groups which don't share undefined relations and the count is
+	 * the product of the counts of the groups.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data for origami model after moving faces.
+	 * @param eps
+	 *            max value of computation error.
+	 * @param metrics
+	 *            receives the timings and the counters.
+	 * @return the number of the folded states. It is smaller than the actual
+	 *         number if the search has been stopped by the monitor.
+	 */
+	public BigInteger count(final OrigamiModel origamiModel, final double eps, final FoldingMetrics metrics) {
+		if (monitor.isStopped()) {
+			return BigInteger.ZERO;
+		}
+
+		return count(createGeometry(origamiModel, eps, metrics), eps, metrics);
+	}
+
+	/**
+	 * Same as {@link #count(OrigamiModel, double, FoldingMetrics)} but uses the
+	 * given geometry instead of creating it.
+	 */
+	BigInteger count(final Geometry geometry, final double eps, final FoldingMetrics metrics) {
+		if (monitor.isStopped()) {
+			return BigInteger.ZERO;
+		}
+
+		var preparation = prepare(geometry, eps, metrics);
+
+		if (preparation.isUnfoldable()) {
+			return BigInteger.ZERO;
+		}
+
+		var overlapRelation = preparation.overlapRelation();
+
+		var watch = new StopWatch(true);
+
+		var components = new SubfaceComponentSplitter().split(preparation.subfaces(), overlapRelation);
+		logger.debug("#component = {}", components.size());
+
+		monitor.startProgress();
+		monitor.setProgressShare(1.0 / Math.max(components.size(), 1));
+
+		var count = BigInteger.ONE;
+		for (var component : components) {
+			var componentCount = measureSearch(component, metrics,
+					() -> search.count(preparation.faces(), component, overlapRelation));
+			metrics.addAnswerCount(componentCount);
+			if (componentCount == 0) {
+				count = BigInteger.ZERO;
+				break;
+			}
+			count = count.multiply(BigInteger.valueOf(componentCount));
+		}
+
+		logger.debug("time = {}[ms]", watch.getMilliSec());
+
+		return count;
+	}
+
+	/**
+	 * Runs the search and records its time and counters. The failure counts of
+	 * the subfaces are accumulated over runs, so that the difference is
+	 * recorded.
+	 */
+	private long measureSearch(final List<SubFace> subfaces, final FoldingMetrics metrics,
+			final LongSupplier searchCall) {
+		var failureCountsBefore = sumFailureCounts(subfaces);
+
+		var watch = new StopWatch(true);
+		var answerCount = searchCall.getAsLong();
+		metrics.addTime(FoldingMetrics.Stage.SEARCH, watch.getMilliSec());
+
+		var failureCountsAfter = sumFailureCounts(subfaces);
+
+		metrics.addSearchNodeCount(search.getCallCount());
+		metrics.addLocalLayerOrderCount(search.getLocalLayerOrderCount());
+		metrics.updatePeakCopyCount(search.getPeakCopyCount());
+		metrics.addFailureCounts(
+				failureCountsAfter[0] - failureCountsBefore[0],
+				failureCountsAfter[1] - failureCountsBefore[1],
+				failureCountsAfter[2] - failureCountsBefore[2]);
+
+		return answerCount;
+	}
+
+	private long[] sumFailureCounts(final List<SubFace> subfaces) {
+		var counts = new long[3];
+		for (var subface : subfaces) {
+			counts[0] += subface.getFailureCountOf2Faces();
+			counts[1] += subface.getFailureCountOf3Faces();
+			counts[2] += subface.getFailureCountOf4Faces();
+		}
+		return counts;
+	}
+
+	/**
+	 * Data for layer ordering which don't depend on the assignment of
+	 * mountain/valley.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation filled only with "no overlap" and
+	 *            "undefined".
+	 */
+	record Geometry(
+			List<OriFace> faces,
+			List<SubFace> subfaces,
+			OverlapRelation overlapRelation,
+			StackConditionFactoryFacade conditionFactory) {
+	}
+
+	/**
+	 * Inputs for the search: the overlap relation after the deterministic
+	 * estimation and the subfaces sorted by heuristic.
+	 */
+	private record Preparation(
+			List<OriFace> faces,
+			List<SubFace> subfaces,
+			OverlapRelation overlapRelation,
+			EstimationResultRules rules) {
+
+		boolean isUnfoldable() {
+			return rules.isUnfoldable();
+		}
+	}
+
+	/**
+	 * Creates the data for layer ordering which depend only on the positions
+	 * of the faces after folding. They can be reused for another assignment of
+	 * mountain/valley on the same geometry.
+	 *
+	 * @param origamiModel
+	 *            half-edge based data for origami model after moving faces.
+	 * @param eps
+	 *            max value of computation error.
+	 * @param metrics
+	 *            receives the timings.
+	 */
+	Geometry createGeometry(final OrigamiModel origamiModel, final double eps, final FoldingMetrics metrics) {
 		var faces = origamiModel.getFaces();
 		var edges = origamiModel.getEdges();
 
-		this.firstOnly = firstOnly;
+		var stageWatch = new StopWatch(true);
 
 		// construct the subfaces
 		final double paperSize = origamiModel.getPaperSize();
 		var subfaces = subfacesFactory.createSubFaces(faces, paperSize, eps);
+		metrics.addTime(FoldingMetrics.Stage.SUBFACES, stageWatch.getMilliSec());
 
 		logger.debug("#subface={}", subfaces.size());
 		// addKeyValue() seems not to work... See:
 		// https://jira.qos.ch/browse/SLF4J-600
 //		logger.atDebug().addKeyValue("subfaces.size()", subfaces.size()).log();
 
+		stageWatch.start();
+		var overlapRelation = new OverlapRelationFactory().createOverlapRelation(faces, eps);
+		metrics.addTime(FoldingMetrics.Stage.OVERLAP_RELATION, stageWatch.getMilliSec());
+
+		stageWatch.start();
+		var conditionFactory = new StackConditionFactoryFacade(faces, edges, overlapRelation, subfaces, eps);
+		var time = stageWatch.getMilliSec();
+		metrics.addTime(FoldingMetrics.Stage.STACK_CONDITIONS, time);
+		logger.debug("preprocessing time = {}[ms]", time);
+
+		return new Geometry(faces, subfaces, overlapRelation, conditionFactory);
+	}
+
+	private Preparation prepare(final Geometry geometry, final double eps, final FoldingMetrics metrics) {
+		var faces = geometry.faces();
+		var subfaces = geometry.subfaces();
+
+		var stageWatch = new StopWatch(true);
+
 		// Set overlap relations based on valley/mountain folds information
 		OverlapRelation overlapRelation;
-		var result = new OverlapRelationFactory().createOverlapRelationByLineType(faces, eps);
+		var result = new OverlapRelationFactory().createOverlapRelationByLineType(faces,
+				geometry.overlapRelation());
 		overlapRelation = result.getOverlapRelation();
 		var rules = result.getRules();
+		metrics.addTime(FoldingMetrics.Stage.OVERLAP_RELATION, stageWatch.getMilliSec());
 
 		if (rules.isUnfoldable()) {
-			return new Result(List.of(), List.of(), rules);
+			return new Preparation(faces, List.of(), overlapRelation, rules);
 		}
 
 		var watch = new StopWatch(true);
+		stageWatch.start();
 
-		var conditionFactory = new StackConditionFactoryFacade(faces, edges, overlapRelation, subfaces, eps);
+		var conditionFactory = geometry.conditionFactory().withOverlapRelation(overlapRelation);
 
 		var overlappingFaceIndexIntersections = conditionFactory.getOverlappingFaceIndexIntersections();
 		var faceIndicesOnHalfedge = conditionFactory.getFaceIndicesOnHalfedge();
 
-		logger.debug("preprocessing time = {}[ms]", watch.getMilliSec());
+		// the subfaces can have the conditions of the previous assignment.
+		subfaces.forEach(SubFace::clearStackConditions);
 
 		var condition3s = conditionFactory.create3FaceConditions();
-		setConditionOf3facesToSubfaces(condition3s, subfaces);
+		setConditionOf3facesToSubfaces(condition3s, conditionFactory);
 
 		var condition4s = conditionFactory.create4FaceCondtions();
-		setConditionOf4facesToSubfaces(condition4s, subfaces);
+		setConditionOf4facesToSubfaces(condition4s, conditionFactory);
+		metrics.addTime(FoldingMetrics.Stage.STACK_CONDITIONS, stageWatch.getMilliSec());
+
+		stageWatch.start();
 
 		var estimator = new DeterministicLayerOrderEstimator(
 				faces, subfaces,
@@ -149,10 +526,11 @@ class LayerOrderEnumerator {
 				faceIndicesOnHalfedge,
 				condition4s);
 		var estimationResult = estimator.estimate(overlapRelation, eps);
+		metrics.addTime(FoldingMetrics.Stage.ESTIMATION, stageWatch.getMilliSec());
 
 		if (estimationResult.isUnfoldable()) {
 			logger.info("found unfoldable before searching.");
-			return new Result(List.of(), List.of(), estimationResult);
+			return new Preparation(faces, List.of(), overlapRelation, estimationResult);
 		}
 
 		var undefinedRelationCount = countUndefinedRelations(overlapRelation);
@@ -180,27 +558,11 @@ class LayerOrderEnumerator {
 						.thenComparingDouble((final SubFace sub) -> scores4Faces.get(sub))
 						.reversed())
 				.toList();
-		logger.debug("subface ordering = {}[ms]", watch.getMilliSec());
-
-		var overlapRelations = new ConcurrentLinkedQueue<OverlapRelation>();
+		var orderingTime = watch.getMilliSec();
+		metrics.addTime(FoldingMetrics.Stage.SUBFACE_ORDERING, orderingTime);
+		logger.debug("subface ordering = {}[ms]", orderingTime);
 
-		watch.start();
-
-		callCount = new AtomicInteger();
-		localLayerOrderCount = new AtomicInteger();
-		findAnswer(faces, sortedSubfaces, overlapRelation, overlapRelations);
-		var time = watch.getMilliSec();
-
-		logger.debug("#call = {}", callCount);
-		logger.debug("#LLO = {}", localLayerOrderCount);
-		logger.debug("time = {}[ms]", time);
-
-		if (shouldLogStats) {
-			logStats(sortedSubfaces, overlapRelation);
-		}
-
-		return new Result(new ArrayList<>(overlapRelations), sortedSubfaces,
-				new EstimationResultRules());
+		return new Preparation(faces, sortedSubfaces, overlapRelation, new EstimationResultRules());
 	}
 
 	private int countUndefinedRelations(final OverlapRelation overlapRelation) {
@@ -218,140 +580,64 @@ class LayerOrderEnumerator {
 		return count;
 	}
 
-	/**
-	 * Determines overlap relations which are left uncertain after using
-	 * necessary conditions.
-	 *
-	 * @param faces
-	 *            all faces of the origami model.
-	 * @param subfaces
-	 *            the subfaces to be used.
-	 * @param overlapRelation
-	 *            overlap relation matrix.
-	 * @param overlapRelations
-	 *            an object to store the result.
-	 */
-	private int findAnswer(
-			final List<OriFace> faces,
-			final List<SubFace> subfaces,
-			final OverlapRelation overlapRelation,
-			final Collection<OverlapRelation> overlapRelations) {
-		callCount.incrementAndGet();
-
-		if (firstOnly && !overlapRelations.isEmpty()) {
-			return 0;
-		}
-
-		if (subfaces.isEmpty()) {
-			var answer = overlapRelation.clone();
-			overlapRelations.add(answer);
-
-			return 1;
-		}
-
-		SubFace sub = subfaces.get(0);
-
-		if (transitivityChecker.checkSubfaceTransitivity(sub, overlapRelation) != null) {
-			return 0;
-		}
-
-		var localLayerOrders = sub.createLocalLayerOrders(faces, overlapRelation, false);
-
-		if (localLayerOrders == null) {
-			var nextSubfaces = popAndSort(subfaces);
-			return findAnswer(faces, nextSubfaces, overlapRelation, overlapRelations);
-		}
-
-		localLayerOrderCount.addAndGet(localLayerOrders.size());
-
-		var successCount = new AtomicInteger();
-
-		// Parallel search. It is fast but can exceed memory for
-		// complex model because of copying overlapRelation (a large matrix).
-		localLayerOrders.parallelStream().forEach(localLayerOrder -> {
-			int size = localLayerOrder.size();
-			var nextSubfaces = popAndSort(subfaces);
-			var nextOverlapRelation = overlapRelation.clone();
-
-			// determine overlap relations according to local layer order
-			for (int i = 0; i < size; i++) {
-				int index_i = localLayerOrder.get(i).getFaceID();
-				for (int j = i + 1; j < size; j++) {
-					int index_j = localLayerOrder.get(j).getFaceID();
-					// if index on local layer order is 0, the face is at
-					// the top of layer order (looking down the folded model
-					// on a table).
-					// therefore a face with smaller index i on local layer
-					// order should be UPPER than a face with index j on local
-					// layer order.
-					var result = nextOverlapRelation.setUpperIfPossible(index_i, index_j);
-					if (result == EstimationResult.UNFOLDABLE) {
-						return;
-					}
-				}
-			}
-
-			sub.incrementCallCount();
-			successCount.addAndGet(findAnswer(faces, nextSubfaces, nextOverlapRelation, overlapRelations));
-		});
-
-		sub.addSuccessCount(successCount.get());
-
-		return successCount.get();
-	}
-
-	private List<SubFace> popAndSort(final List<SubFace> subfaces) {
-		return subfaces.subList(1, subfaces.size()).stream()
-				// parallel processing causes different score values on the same
-				// subface.
-				// copy the pairs of subface and score to the temporary to fix
-				// the score.
-				.map(subface -> new Pair<Double, SubFace>(score(subface), subface))
-				// sort sublist for speeding up
-				.sorted(Comparator.comparing((final Pair<Double, SubFace> pair) -> pair.v1())
-						.reversed())
-				.map(Pair::v2)
-				.toList();
-	}
-
-	private double score(final SubFace subface) {
-		return subface.getSuccessRate();
-	}
-
 	private void setConditionOf3facesToSubfaces(
 			final List<StackConditionOf3Faces> conditions,
-			final List<SubFace> subfaces) {
+			final StackConditionFactoryFacade conditionFactory) {
 
-		var count = new AtomicInteger();
-
-		subfaces.parallelStream().forEach(subface -> {
-			for (var condition : conditions) {
-				if (subface.isRelatedTo(condition)) {
-					subface.addStackConditionOf3Faces(condition);
-					count.incrementAndGet();
-				}
-			}
-		});
+		var count = setConditionsToSubfaces(conditions, conditionFactory,
+				condition -> new int[] { condition.lower(), condition.upper(), condition.other() },
+				SubFace::isRelatedTo, SubFace::addStackConditionOf3Faces);
 
 		logger.debug("condtion3 set count ={}", count);
 	}
 
 	private void setConditionOf4facesToSubfaces(
 			final List<StackConditionOf4Faces> conditions,
-			final List<SubFace> subfaces) {
+			final StackConditionFactoryFacade conditionFactory) {
 
-		var count = new AtomicInteger();
+		var count = setConditionsToSubfaces(conditions, conditionFactory,
+				condition -> new int[] { condition.upper1(), condition.lower1(), condition.upper2(),
+						condition.lower2() },
+				SubFace::isRelatedTo, SubFace::addStackConditionOf4Faces);
 
-		subfaces.parallelStream().forEach(subface -> {
-			for (var condition : conditions) {
-				if (subface.isRelatedTo(condition)) {
-					subface.addStackConditionOf4Faces(condition);
-					count.incrementAndGet();
-				}
+		logger.debug("condtion4 set count ={}", count);
+	}
+
+	/**
+	 * Adds each condition to the subfaces related to it. The candidates of
+	 * the subfaces are the ones including the face of the condition which has
+	 * the fewest subfaces. Each subface receives the conditions in the order
+	 * of the given list.
+	 *
+	 * @return the number of the added conditions.
+	 */
+	private <T> int setConditionsToSubfaces(
+			final List<T> conditions,
+			final StackConditionFactoryFacade conditionFactory,
+			final Function<T, int[]> faceIndicesOfCondition,
+			final BiPredicate<SubFace, T> isRelated,
+			final BiConsumer<SubFace, T> addCondition) {
+
+		var relatedSubfaces = conditions.parallelStream()
+				.map(condition -> IntStream.of(faceIndicesOfCondition.apply(condition))
+						.mapToObj(conditionFactory::getSubFacesOf)
+						.min(Comparator.comparingInt(Set::size))
+						.orElse(Set.of())
+						.stream()
+						.filter(subface -> isRelated.test(subface, condition))
+						.toList())
+				.toList();
+
+		int count = 0;
+		for (int i = 0; i < conditions.size(); i++) {
+			var condition = conditions.get(i);
+			for (var subface : relatedSubfaces.get(i)) {
+				addCondition.accept(subface, condition);
+				count++;
 			}
-		});
+		}
 
-		logger.debug("condtion4 set count ={}", count);
+		return count;
 	}
 
 	private void logStats(final List<SubFace> subfaces, final OverlapRelation overlapRelation) {
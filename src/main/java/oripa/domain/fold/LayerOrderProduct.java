@@ -0,0 +1,117 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import oripa.domain.fold.origeom.OverlapRelation;
+
+/**
+ * Folded states given as the cartesian product of the answers of independent
+ * subface groups. Each combination is built on demand, so that the memory
+ * usage is the sum of the answers of the groups rather than the product.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class LayerOrderProduct {
+	private final List<SubfaceComponentAnswers> components;
+
+	public LayerOrderProduct(final List<SubfaceComponentAnswers> components) {
+		this.components = components;
+	}
+
+	/**
+	 * @return the number of the combinations.
+	 */
+	public long size() {
+		long size = 1;
+		for (var component : components) {
+			size = Math.multiplyExact(size, component.size());
+		}
+		return size;
+	}
+
+	/**
+	 * Passes each combination to {@code answerConsumer} in lexicographic order
+	 * of the answer indices of the groups.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation before the search. This is not modified.
+	 * @param answerConsumer
+	 *            receives a copy of each combination.
+	 * @param firstOnly
+	 *            true for only one combination.
+	 * @return the number of the combinations given to {@code answerConsumer}.
+	 */
+	public long forEach(final OverlapRelation overlapRelation, final Consumer<OverlapRelation> answerConsumer,
+			final boolean firstOnly) {
+		return forEach(overlapRelation, answerConsumer, firstOnly, () -> false);
+	}
+
+	/**
+	 * Same as {@link #forEach(OverlapRelation, Consumer, boolean)} but stops
+	 * when {@code isStopped} returns true.
+	 *
+	 * @param isStopped
+	 *            tells whether the enumeration should stop. It is checked after
+	 *            each combination.
+	 */
+	public long forEach(final OverlapRelation overlapRelation, final Consumer<OverlapRelation> answerConsumer,
+			final boolean firstOnly, final BooleanSupplier isStopped) {
+		if (components.stream().anyMatch(component -> component.size() == 0)) {
+			return 0;
+		}
+
+		var work = overlapRelation.clone();
+
+		var indices = new int[components.size()];
+		for (var component : components) {
+			component.apply(0, work);
+		}
+
+		long count = 0;
+		while (true) {
+			answerConsumer.accept(work.clone());
+			count++;
+
+			if (firstOnly || isStopped.getAsBoolean()) {
+				return count;
+			}
+
+			// increment the indices like an odometer and replace the relations
+			// only of the changed groups.
+			int position = indices.length - 1;
+			while (position >= 0 && indices[position] + 1 == components.get(position).size()) {
+				indices[position] = 0;
+				components.get(position).apply(0, work);
+				position--;
+			}
+
+			if (position < 0) {
+				return count;
+			}
+
+			indices[position]++;
+			components.get(position).apply(indices[position], work);
+		}
+	}
+}
@@ -0,0 +1,439 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.EstimationResult;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+import oripa.util.Pair;
+
+/**
+ * Backtracking search over local layer orders of subfaces. Branches are
+ * distributed on a work-stealing {@link ForkJoinPool}, where each forked
+ * branch works on its own copy of the overlap relation. The number of copies
+ * alive at the same time is limited by the given capacity. Once the capacity
+ * is exhausted, the remaining branches are searched depth-first on the
+ * caller's overlap relation by setting the relations in place and rolling them
+ * back with the trail of {@link OverlapRelation}. Therefore the peak memory is
+ * bounded by (capacity + 1) matrices and the sequential part allocates only
+ * for the changed cells.
+ *
+ * <p>
+ * {@link #count(List, List, OverlapRelation)} runs the same search but only
+ * increments a counter at the leaves, so that no answer is copied.
+ *
+ * <p>
+ * The search stops when the given {@link FoldingMonitor} tells so, and the
+ * answers found until then are kept. The weight of each finished branch is
+ * reported to the monitor as the progress.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class LayerOrderSearch {
+	private static final Logger logger = LoggerFactory.getLogger(LayerOrderSearch.class);
+
+	/**
+	 * Default upper bound of the overlap relation copies per available
+	 * processor.
+	 */
+	public static final int DEFAULT_COPY_COUNT_PER_PROCESSOR = 4;
+
+	private final ForkJoinPool pool;
+	private final int maxCopyCount;
+	private final FoldingMonitor monitor;
+
+	private final TransitivityChecker transitivityChecker = new TransitivityChecker();
+
+	private List<OriFace> faces;
+	private Consumer<OverlapRelation> answerConsumer;
+	private boolean firstOnly;
+
+	private final Object answerLock = new Object();
+	private AtomicLong answerCount;
+
+	private Semaphore copyPermits;
+	private AtomicInteger copyCount;
+	private AtomicInteger peakCopyCount;
+
+	private AtomicLong callCount;
+	private AtomicLong localLayerOrderCount;
+
+	/**
+	 * Uses the common pool and {@link #DEFAULT_COPY_COUNT_PER_PROCESSOR} copies
+	 * per processor.
+	 */
+	public LayerOrderSearch() {
+		this(ForkJoinPool.commonPool(),
+				DEFAULT_COPY_COUNT_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 *
+	 * @param pool
+	 *            the pool to run the search.
+	 * @param maxCopyCount
+	 *            max number of the overlap relation copies which exist at the
+	 *            same time for parallel search. 0 means sequential search.
+	 */
+	public LayerOrderSearch(final ForkJoinPool pool, final int maxCopyCount) {
+		this(pool, maxCopyCount, new FoldingMonitor());
+	}
+
+	/**
+	 *
+	 * @param pool
+	 *            the pool to run the search.
+	 * @param maxCopyCount
+	 *            max number of the overlap relation copies which exist at the
+	 *            same time for parallel search. 0 means sequential search.
+	 * @param monitor
+	 *            tells when to stop and receives the progress.
+	 */
+	public LayerOrderSearch(final ForkJoinPool pool, final int maxCopyCount, final FoldingMonitor monitor) {
+		if (maxCopyCount < 0) {
+			throw new IllegalArgumentException("maxCopyCount should be zero or positive.");
+		}
+		this.pool = pool;
+		this.maxCopyCount = maxCopyCount;
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Determines overlap relations which are left uncertain after using
+	 * necessary conditions.
+	 *
+	 * @param faces
+	 *            all faces of the origami model.
+	 * @param subfaces
+	 *            the subfaces to be used.
+	 * @param overlapRelation
+	 *            overlap relation matrix. The content is kept as given after
+	 *            the search.
+	 * @param answerConsumer
+	 *            receives a copy of each overlap relation as soon as it is
+	 *            found. The calls are serialized, so that the consumer doesn't
+	 *            have to be thread-safe. A slow consumer holds back the search
+	 *            and therefore the answers never pile up.
+	 * @param firstOnly
+	 *            true for only one state.
+	 * @return the number of the answers given to {@code answerConsumer}.
+	 */
+	public int search(
+			final List<OriFace> faces,
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation,
+			final Consumer<OverlapRelation> answerConsumer,
+			final boolean firstOnly) {
+		return Math.toIntExact(run(faces, subfaces, overlapRelation, answerConsumer, firstOnly));
+	}
+
+	/**
+	 * Counts the overlap relations which would be found by
+	 * {@link #search(List, List, OverlapRelation, Consumer, boolean)} without
+	 * copying them.
+	 *
+	 * @param faces
+	 *            all faces of the origami model.
+	 * @param subfaces
+	 *            the subfaces to be used.
+	 * @param overlapRelation
+	 *            overlap relation matrix. The content is kept as given after
+	 *            the search.
+	 * @return the number of the answers.
+	 */
+	public long count(
+			final List<OriFace> faces,
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation) {
+		return run(faces, subfaces, overlapRelation, null, false);
+	}
+
+	private long run(
+			final List<OriFace> faces,
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation,
+			final Consumer<OverlapRelation> answerConsumer,
+			final boolean firstOnly) {
+
+		this.faces = faces;
+		this.answerConsumer = answerConsumer;
+		this.firstOnly = firstOnly;
+
+		answerCount = new AtomicLong();
+
+		copyPermits = new Semaphore(maxCopyCount);
+		copyCount = new AtomicInteger();
+		peakCopyCount = new AtomicInteger();
+
+		callCount = new AtomicLong();
+		localLayerOrderCount = new AtomicLong();
+
+		var trailEnabled = overlapRelation.isTrailEnabled();
+
+		pool.invoke(new BranchTask(null, null, subfaces, overlapRelation, 1.0));
+
+		if (!trailEnabled) {
+			overlapRelation.discardTrail();
+		}
+
+		logger.debug("#call = {}", callCount);
+		logger.debug("#LLO = {}", localLayerOrderCount);
+		logger.debug("peak #copy = {}", peakCopyCount);
+
+		return answerCount.get();
+	}
+
+	/**
+	 * @param weight
+	 *            the fraction of the search tree under this node.
+	 */
+	private long findAnswer(
+			final List<SubFace> subfaces,
+			final OverlapRelation overlapRelation,
+			final double weight) {
+		callCount.incrementAndGet();
+
+		if (firstOnly && answerCount.get() > 0) {
+			monitor.addProgress(weight);
+			return 0;
+		}
+
+		if (subfaces.isEmpty()) {
+			// an answer is kept even after the time is up since it has been
+			// found already.
+			var count = deliver(overlapRelation);
+			monitor.addProgress(weight);
+			return count;
+		}
+
+		if (monitor.isStopped()) {
+			return 0;
+		}
+
+		SubFace sub = subfaces.get(0);
+
+		if (transitivityChecker.checkSubfaceTransitivity(sub, overlapRelation) != null) {
+			monitor.addProgress(weight);
+			return 0;
+		}
+
+		var localLayerOrders = sub.createLocalLayerOrders(faces, overlapRelation, false, monitor::isStopped);
+
+		if (localLayerOrders == null) {
+			var nextSubfaces = popAndSort(subfaces);
+			return findAnswer(nextSubfaces, overlapRelation, weight);
+		}
+
+		if (localLayerOrders.isEmpty()) {
+			monitor.addProgress(weight);
+		}
+
+		localLayerOrderCount.addAndGet(localLayerOrders.size());
+
+		var nextSubfaces = popAndSort(subfaces);
+
+		var tasks = new ArrayList<BranchTask>();
+		long successCount = 0;
+		var branchWeight = weight / localLayerOrders.size();
+
+		for (var localLayerOrder : localLayerOrders) {
+			if (copyPermits.tryAcquire()) {
+				// enough room for a copy: let an idle worker steal this branch.
+				updatePeakCopyCount();
+				var task = new BranchTask(sub, localLayerOrder, nextSubfaces, overlapRelation.clone(),
+						branchWeight);
+				task.fork();
+				tasks.add(task);
+				continue;
+			}
+
+			// too many copies: search on the given matrix and restore it.
+			var checkpoint = overlapRelation.checkpoint();
+			if (applyLocalLayerOrder(localLayerOrder, overlapRelation)) {
+				sub.incrementCallCount();
+				successCount += findAnswer(nextSubfaces, overlapRelation, branchWeight);
+			} else {
+				monitor.addProgress(branchWeight);
+			}
+			overlapRelation.rollback(checkpoint);
+		}
+
+		for (var task : tasks) {
+			successCount += task.join();
+		}
+
+		sub.addSuccessCount(successCount);
+
+		return successCount;
+	}
+
+	/**
+	 * Determines overlap relations according to local layer order.
+	 *
+	 * @return false if the order contradicts the overlap relation.
+	 */
+	private boolean applyLocalLayerOrder(final List<OriFace> localLayerOrder,
+			final OverlapRelation overlapRelation) {
+		int size = localLayerOrder.size();
+
+		for (int i = 0; i < size; i++) {
+			int index_i = localLayerOrder.get(i).getFaceID();
+			for (int j = i + 1; j < size; j++) {
+				int index_j = localLayerOrder.get(j).getFaceID();
+				// if index on local layer order is 0, the face is at
+				// the top of layer order (looking down the folded model
+				// on a table).
+				// therefore a face with smaller index i on local layer
+				// order should be UPPER than a face with index j on local
+				// layer order.
+				var result = overlapRelation.setUpperIfPossible(index_i, index_j);
+				if (result == EstimationResult.UNFOLDABLE) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private long deliver(final OverlapRelation overlapRelation) {
+		if (answerConsumer == null) {
+			// counting only.
+			answerCount.incrementAndGet();
+			return 1;
+		}
+		synchronized (answerLock) {
+			if (firstOnly && answerCount.get() > 0 || monitor.isAnswerLimitReached()) {
+				return 0;
+			}
+			answerConsumer.accept(overlapRelation.clone());
+			answerCount.incrementAndGet();
+		}
+		return 1;
+	}
+
+	private void updatePeakCopyCount() {
+		var count = copyCount.incrementAndGet();
+		peakCopyCount.accumulateAndGet(count, Math::max);
+	}
+
+	private List<SubFace> popAndSort(final List<SubFace> subfaces) {
+		return subfaces.subList(1, subfaces.size()).stream()
+				// parallel processing causes different score values on the same
+				// subface.
+				// copy the pairs of subface and score to the temporary to fix
+				// the score.
+				.map(subface -> new Pair<Double, SubFace>(score(subface), subface))
+				// sort sublist for speeding up
+				.sorted(Comparator.comparing((final Pair<Double, SubFace> pair) -> pair.v1())
+						.reversed())
+				.map(Pair::v2)
+				.toList();
+	}
+
+	private double score(final SubFace subface) {
+		return subface.getSuccessRate();
+	}
+
+	/**
+	 * @return the monitor which tells when to stop the search.
+	 */
+	FoldingMonitor getMonitor() {
+		return monitor;
+	}
+
+	/**
+	 * @return the number of calls of the recursive search in the last run.
+	 */
+	public long getCallCount() {
+		return callCount.get();
+	}
+
+	/**
+	 * @return the number of local layer orders generated in the last run.
+	 */
+	public long getLocalLayerOrderCount() {
+		return localLayerOrderCount.get();
+	}
+
+	/**
+	 * @return the max number of overlap relation copies which existed at the
+	 *         same time in the last run.
+	 */
+	public int getPeakCopyCount() {
+		return peakCopyCount.get();
+	}
+
+	/**
+	 * A branch of the search which owns a copy of the overlap relation. The
+	 * root task has no local layer order to be applied and works on the given
+	 * matrix.
+	 */
+	private class BranchTask extends RecursiveTask<Long> {
+		private final SubFace subface;
+		private final List<OriFace> localLayerOrder;
+		private final List<SubFace> subfaces;
+		private OverlapRelation overlapRelation;
+		private final double weight;
+
+		BranchTask(final SubFace subface, final List<OriFace> localLayerOrder,
+				final List<SubFace> subfaces, final OverlapRelation overlapRelation, final double weight) {
+			this.subface = subface;
+			this.localLayerOrder = localLayerOrder;
+			this.subfaces = subfaces;
+			this.overlapRelation = overlapRelation;
+			this.weight = weight;
+		}
+
+		@Override
+		protected Long compute() {
+			if (localLayerOrder == null) {
+				return findAnswer(subfaces, overlapRelation, weight);
+			}
+
+			try {
+				if (!applyLocalLayerOrder(localLayerOrder, overlapRelation)) {
+					monitor.addProgress(weight);
+					return 0L;
+				}
+				subface.incrementCallCount();
+				return findAnswer(subfaces, overlapRelation, weight);
+			} finally {
+				// the parent keeps this task until join. drop the copy now.
+				overlapRelation = null;
+				copyCount.decrementAndGet();
+				copyPermits.release();
+			}
+		}
+	}
+}
@@ -26,8 +26,8 @@ import org.slf4j.LoggerFactory;
 import oripa.domain.fold.halfedge.OriFace;
 import oripa.domain.fold.halfedge.OriHalfedge;
 import oripa.domain.fold.origeom.EstimationResult;
-import oripa.domain.fold.origeom.OriGeomUtil;
 import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.origeom.OverlappingFacePairFinder;
 
 /**
  * @author OUCHI Koji
@@ -70,7 +70,25 @@ class OverlapRelationFactory {
 	 */
 	public Result createOverlapRelationByLineType(
 			final List<OriFace> faces, final double eps) throws IllegalArgumentException {
-		var overlapRelation = createOverlapRelation(faces, eps);
+		return applyLineType(faces, createOverlapRelation(faces, eps));
+	}
+
+	/**
+	 * Determines the overlap relations by mountain/valley on a copy of the
+	 * given matrix, which allows to reuse the result of
+	 * {@link #createOverlapRelation(List, double)} for another assignment of
+	 * the same geometry.
+	 *
+	 * @param initialOverlapRelation
+	 *            matrix filled with "no overlap" or "undefined". This is not
+	 *            modified.
+	 */
+	public Result createOverlapRelationByLineType(
+			final List<OriFace> faces, final OverlapRelation initialOverlapRelation) {
+		return applyLineType(faces, initialOverlapRelation.clone());
+	}
+
+	private Result applyLineType(final List<OriFace> faces, final OverlapRelation overlapRelation) {
 		for (OriFace face : faces) {
 			for (OriHalfedge he : face.halfedgeIterable()) {
 				var pairOpt = he.getPair();
@@ -107,32 +125,24 @@ class OverlapRelationFactory {
 
 	/**
 	 * creates the matrix overlapRelation and fills it with "no overlap" or
-	 * "undefined"
+	 * "undefined". The result depends only on the positions of the faces.
 	 *
-	 * @param paperSize
-	 *            paper size before fold
 	 * @return initialized overlap relation matrix
 	 */
-	private OverlapRelation createOverlapRelation(
+	public OverlapRelation createOverlapRelation(
 			final List<OriFace> faces, final double eps) {
 
 		int size = faces.size();
+		// a new matrix is filled with "no overlap".
 		OverlapRelation overlapRelation = new OverlapRelation(size);
 
-		int countOfZeros = 0;
-		for (int i = 0; i < size; i++) {
-			overlapRelation.setNoOverlap(i, i);
-			countOfZeros++;
-			for (int j = i + 1; j < size; j++) {
-				if (OriGeomUtil.isFaceOverlap(faces.get(i), faces.get(j), eps)) {
-					overlapRelation.setUndefined(i, j);
-				} else {
-					overlapRelation.setNoOverlap(i, j);
-					countOfZeros += 2;
-				}
-			}
+		var overlappingPairs = new OverlappingFacePairFinder().findOverlappingPairs(faces, eps);
+		for (var pair : overlappingPairs) {
+			overlapRelation.setUndefined(pair.v1(), pair.v2());
 		}
 
+		int countOfZeros = size * size - 2 * overlappingPairs.size();
+
 		double rate = ((double) countOfZeros) / (size * size);
 		logger.debug("sparsity of overlap relation matrix = {}", rate);
 		// One element in dictionary of keys for byte value needs at least 16
@@ -0,0 +1,115 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * Answers of the search on a group of subfaces made by
+ * {@link SubfaceComponentSplitter}. Only the values of the relations which
+ * are undefined before the search are kept, since the other relations are the
+ * same for all answers.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class SubfaceComponentAnswers {
+	private final List<SubFace> subfaces;
+
+	private final int[] rows;
+	private final int[] columns;
+
+	private final List<byte[]> answers = new ArrayList<>();
+
+	/**
+	 *
+	 * @param subfaces
+	 *            a group of subfaces.
+	 * @param overlapRelation
+	 *            overlap relation before the search.
+	 */
+	public SubfaceComponentAnswers(final List<SubFace> subfaces, final OverlapRelation overlapRelation) {
+		this.subfaces = subfaces;
+
+		var keys = new HashSet<Long>();
+		var rowList = new ArrayList<Integer>();
+		var columnList = new ArrayList<Integer>();
+
+		for (var subface : subfaces) {
+			int parentFaceCount = subface.getParentFaceCount();
+			for (int a = 0; a < parentFaceCount; a++) {
+				int i = subface.getParentFace(a).getFaceID();
+				for (int b = a + 1; b < parentFaceCount; b++) {
+					int j = subface.getParentFace(b).getFaceID();
+					if (overlapRelation.isUndefined(i, j) && keys.add(((long) i << 32) | j)) {
+						rowList.add(i);
+						columnList.add(j);
+					}
+				}
+			}
+		}
+
+		rows = rowList.stream().mapToInt(Integer::intValue).toArray();
+		columns = columnList.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	public List<SubFace> getSubfaces() {
+		return subfaces;
+	}
+
+	/**
+	 * @return the number of the undefined relations of this group.
+	 */
+	public int getUndefinedRelationCount() {
+		return rows.length;
+	}
+
+	/**
+	 * Keeps the values of the undefined relations.
+	 *
+	 * @param answer
+	 *            overlap relation found by the search on this group.
+	 */
+	public synchronized void add(final OverlapRelation answer) {
+		var values = new byte[rows.length];
+		for (int k = 0; k < rows.length; k++) {
+			values[k] = answer.get(rows[k], columns[k]);
+		}
+		answers.add(values);
+	}
+
+	public int size() {
+		return answers.size();
+	}
+
+	/**
+	 * Sets the relations of the {@code index}-th answer.
+	 */
+	public void apply(final int index, final OverlapRelation overlapRelation) {
+		var values = answers.get(index);
+		for (int k = 0; k < rows.length; k++) {
+			overlapRelation.set(rows[k], columns[k], values[k]);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * Splits subfaces into groups which don't share any undefined overlap
+ * relation. A subface reads and writes only the relations between its parent
+ * faces, so that the layer orders of different groups can be searched
+ * independently and the number of the folded states is the product of the
+ * numbers for each group.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class SubfaceComponentSplitter {
+
+	/**
+	 *
+	 * @param subfaces
+	 *            subfaces to be split.
+	 * @param overlapRelation
+	 *            overlap relation after the deterministic estimation.
+	 * @return groups of subfaces. Each group keeps the order of the given
+	 *         list. A subface whose relations are all defined makes a group by
+	 *         itself.
+	 */
+	public List<List<SubFace>> split(final List<SubFace> subfaces, final OverlapRelation overlapRelation) {
+		var parents = new int[subfaces.size()];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+
+		// undefined relation -> the first subface which has it.
+		var owners = new HashMap<Long, Integer>();
+
+		for (int s = 0; s < subfaces.size(); s++) {
+			var subface = subfaces.get(s);
+			int parentFaceCount = subface.getParentFaceCount();
+
+			for (int a = 0; a < parentFaceCount; a++) {
+				int i = subface.getParentFace(a).getFaceID();
+				for (int b = a + 1; b < parentFaceCount; b++) {
+					int j = subface.getParentFace(b).getFaceID();
+					if (!overlapRelation.isUndefined(i, j)) {
+						continue;
+					}
+					var owner = owners.putIfAbsent(toKey(i, j), s);
+					if (owner != null) {
+						union(parents, owner, s);
+					}
+				}
+			}
+		}
+
+		var groups = new LinkedHashMap<Integer, List<SubFace>>();
+		for (int s = 0; s < subfaces.size(); s++) {
+			groups.computeIfAbsent(find(parents, s), root -> new ArrayList<>())
+					.add(subfaces.get(s));
+		}
+
+		return new ArrayList<>(groups.values());
+	}
+
+	private long toKey(final int i, final int j) {
+		return ((long) Math.min(i, j) << 32) | Math.max(i, j);
+	}
+
+	private int find(final int[] parents, final int index) {
+		int root = index;
+		while (parents[root] != root) {
+			root = parents[root];
+		}
+		// path compression
+		int i = index;
+		while (parents[i] != root) {
+			var next = parents[i];
+			parents[i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	private void union(final int[] parents, final int a, final int b) {
+		int rootA = find(parents, a);
+		int rootB = find(parents, b);
+		if (rootA == rootB) {
+			return;
+		}
+		// keep the smaller index as root to make the group order stable.
+		if (rootA < rootB) {
+			parents[rootB] = rootA;
+		} else {
+			parents[rootA] = rootB;
+		}
+	}
+}
@@ -18,10 +18,14 @@
  */
 package oripa.domain.fold;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.util.StopWatch;
 
 /**
  * @author OUCHI Koji
@@ -40,18 +44,39 @@ class UnassignedModelFolder implements Folder {
 
 	@Override
 	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType) {
+		var overlapRelations = new ArrayList<OverlapRelation>();
+
+		var result = fold(origamiModel, eps, estimationType, overlapRelations::add);
+
+		return new Result(
+				new FoldedModel(origamiModel, overlapRelations, result.foldedModel().subfaces()),
+				result.estimationRules(),
+				result.metrics());
+	}
+
+	@Override
+	public Result fold(final OrigamiModel origamiModel, final double eps, final EstimationType estimationType,
+			final Consumer<OverlapRelation> answerConsumer) {
+		var metrics = new FoldingMetrics();
+
+		var watch = new StopWatch(true);
 		simpleFolder.simpleFoldWithoutZorder(origamiModel, eps);
 		faceDisplayModifier.setCurrentPositionsToDisplayPositions(origamiModel);
+		metrics.addTime(FoldingMetrics.Stage.SIMPLE_FOLD, watch.getMilliSec());
 
 		if (estimationType == EstimationType.X_RAY) {
 			origamiModel.setFolded(true);
-			return new Result(new FoldedModel(origamiModel, List.of(), List.of()), new EstimationResultRules());
+			return new Result(new FoldedModel(origamiModel, List.of(), List.of()), new EstimationResultRules(),
+					metrics);
 		}
 
 		var firstOnly = estimationType == EstimationType.FIRST_ONLY;
 
 		var assignmentEnumerator = new AssignmentEnumerator();
 
+		// the assignments don't change the positions of the faces.
+		var geometry = layerOrderEnumerator.createGeometry(origamiModel, eps, metrics);
+
 		var results = new ArrayList<LayerOrderEnumerator.Result>();
 
 		assignmentEnumerator.enumerate(origamiModel,
@@ -59,20 +84,44 @@ class UnassignedModelFolder implements Folder {
 					if (firstOnly && results.stream().anyMatch(result -> !result.isEmpty())) {
 						return;
 					}
-					results.add(layerOrderEnumerator.enumerate(assignedModel, eps, firstOnly));
+					metrics.incrementAssignmentCount();
+					results.add(layerOrderEnumerator.enumerate(geometry, eps, firstOnly, answerConsumer,
+							metrics));
 				});
 
 		origamiModel.setFolded(true);
 
 		return new Result(
-				new FoldedModel(origamiModel,
-						results.stream()
-								.flatMap(result -> result.getOverlapRelations().stream())
-								.toList(),
-						results.get(0).getSubfaces()),
+				new FoldedModel(origamiModel, List.of(), geometry.subfaces()),
 				results.stream()
 						.map(result -> result.getRules())
-						.reduce(new EstimationResultRules(), (a, b) -> a.or(b)));
+						.reduce(new EstimationResultRules(), (a, b) -> a.or(b)),
+				results.stream()
+						.mapToInt(LayerOrderEnumerator.Result::getAnswerCount)
+						.sum(),
+				metrics);
+
+	}
+
+	@Override
+	public BigInteger count(final OrigamiModel origamiModel, final double eps, final FoldingMetrics metrics) {
+		var watch = new StopWatch(true);
+		simpleFolder.simpleFoldWithoutZorder(origamiModel, eps);
+		metrics.addTime(FoldingMetrics.Stage.SIMPLE_FOLD, watch.getMilliSec());
+
+		var assignmentEnumerator = new AssignmentEnumerator();
+
+		var geometry = layerOrderEnumerator.createGeometry(origamiModel, eps, metrics);
+
+		var counts = new ArrayList<BigInteger>();
+
+		assignmentEnumerator.enumerate(origamiModel,
+				assignedModel -> {
+					metrics.incrementAssignmentCount();
+					counts.add(layerOrderEnumerator.count(geometry, eps, metrics));
+				});
 
+		return counts.stream()
+				.reduce(BigInteger.ZERO, BigInteger::add);
 	}
 }
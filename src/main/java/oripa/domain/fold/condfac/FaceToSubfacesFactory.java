@@ -18,6 +18,8 @@
  */
 package oripa.domain.fold.condfac;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -45,4 +47,18 @@ public class FaceToSubfacesFactory {
 
 		return subFacesOfEachFace;
 	}
+
+	/**
+	 * Arranges the result of {@link #create(List, List)} by face ID.
+	 *
+	 * @return [FaceID] -> subfaces including the face
+	 */
+	public List<Set<SubFace>> createIndexedByFaceID(final List<OriFace> faces,
+			final Map<OriFace, Set<SubFace>> subFacesOfEachFace) {
+		var subFacesOfEachFaceID = new ArrayList<Set<SubFace>>(Collections.nCopies(faces.size(), Set.of()));
+
+		faces.forEach(face -> subFacesOfEachFaceID.set(face.getFaceID(), subFacesOfEachFace.get(face)));
+
+		return subFacesOfEachFaceID;
+	}
 }
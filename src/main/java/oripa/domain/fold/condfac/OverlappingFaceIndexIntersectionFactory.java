@@ -19,7 +19,6 @@
 package oripa.domain.fold.condfac;
 
 import java.lang.invoke.MethodHandles;
-import java.util.HashSet;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -27,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriHalfedge;
 import oripa.domain.fold.origeom.OverlapRelation;
 
 /**
@@ -36,58 +36,48 @@ import oripa.domain.fold.origeom.OverlapRelation;
 public class OverlappingFaceIndexIntersectionFactory {
 	private static Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-	@SuppressWarnings("unchecked")
-	public List<Integer>[][] create(
+	public OverlappingFaceIndexIntersections create(
 			final List<OriFace> faces,
 			final OverlapRelation overlapRelation) {
-		var indices = IntStream.range(0, faces.size())
-				.mapToObj(i -> new HashSet<Integer>())
-				.toList();
-
-		// prepare pair indices of overlapping faces.
-		for (var face : faces) {
-			for (var other : faces) {
-				var index_i = face.getFaceID();
-				var index_j = other.getFaceID();
-				if (!overlapRelation.isNoOverlap(index_i, index_j)) {
-					indices.get(index_i).add(index_j);
-				}
-			}
-		}
-
-		// extract overlapping-face indices shared by face pair.
-		var indexIntersections = new List[faces.size()][faces.size()];
-		faces.parallelStream().forEach(face -> {
-			for (var other : faces) {
-				var index_i = face.getFaceID();
-				var index_j = other.getFaceID();
-
-				if (index_i == index_j) {
-					continue;
-				}
+		var faceCount = faces.size();
 
-				var overlappingFaces_i = indices.get(index_i);
-				var overlappingFaces_j = indices.get(index_j);
+		// prepare indices of overlapping faces.
+		var overlappingFaces = new int[faceCount][];
+		faces.parallelStream().forEach(face -> {
+			var index_i = face.getFaceID();
+			overlappingFaces[index_i] = faces.stream()
+					.mapToInt(OriFace::getFaceID)
+					.filter(index_j -> !overlapRelation.isNoOverlap(index_i, index_j))
+					.sorted()
+					.toArray();
+		});
 
-				indexIntersections[index_i][index_j] = overlappingFaces_i.stream()
-						.filter(index -> overlappingFaces_j.contains(index))
-						.toList();
-			}
+		// extract overlapping-face indices shared by face pair sharing an
+		// edge.
+		var adjacentFaces = new int[faceCount][];
+		var intersections = new int[faceCount][][];
+		faces.parallelStream().forEach(face -> {
+			var index_i = face.getFaceID();
+
+			adjacentFaces[index_i] = face.halfedgeStream()
+					.flatMap(he -> he.getPair().stream())
+					.map(OriHalfedge::getFace)
+					.mapToInt(OriFace::getFaceID)
+					.filter(index_j -> index_j != index_i)
+					.distinct()
+					.sorted()
+					.toArray();
+
+			intersections[index_i] = IntStream.of(adjacentFaces[index_i])
+					.mapToObj(index_j -> OverlappingFaceIndexIntersections.intersect(
+							overlappingFaces[index_i], overlappingFaces[index_j]))
+					.toArray(int[][]::new);
 		});
 
-		int count = 0;
-		for (var intersectionLists : indexIntersections) {
-			if (intersectionLists == null) {
-				continue;
-			}
-			for (var intersections : intersectionLists) {
-				if (intersections == null) {
-					continue;
-				}
-				count += intersections.size();
-			}
-		}
-		logger.debug("#overlappingIntersection = {}", count);
+		var indexIntersections = new OverlappingFaceIndexIntersections(overlappingFaces, adjacentFaces,
+				intersections);
+
+		logger.debug("#overlappingIntersection = {}", indexIntersections.countHeldIndices());
 
 		return indexIntersections;
 	}
@@ -0,0 +1,107 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.condfac;
+
+import java.util.Arrays;
+
+/**
+ * Indices of faces overlapping both of two faces. The intersections are held
+ * as primitive arrays only for the pairs of faces sharing an edge, which are
+ * the pairs used by the conditions of 3 faces. The intersection for other
+ * pairs is computed from the sorted indices of overlapping faces at each
+ * call.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class OverlappingFaceIndexIntersections {
+	/**
+	 * [FaceID] -> sorted IDs of overlapping faces
+	 */
+	private final int[][] overlappingFaces;
+
+	/**
+	 * [FaceID] -> sorted IDs of faces sharing an edge
+	 */
+	private final int[][] adjacentFaces;
+
+	/**
+	 * [FaceID][position in adjacentFaces[FaceID]] -> sorted IDs of faces
+	 * overlapping both faces
+	 */
+	private final int[][][] intersections;
+
+	OverlappingFaceIndexIntersections(final int[][] overlappingFaces, final int[][] adjacentFaces,
+			final int[][][] intersections) {
+		this.overlappingFaces = overlappingFaces;
+		this.adjacentFaces = adjacentFaces;
+		this.intersections = intersections;
+	}
+
+	/**
+	 *
+	 * @param i
+	 *            face ID
+	 * @param j
+	 *            face ID
+	 * @return IDs of faces overlapping both face i and face j in ascending
+	 *         order. The array is shared and should not be modified.
+	 */
+	public int[] get(final int i, final int j) {
+		var position = Arrays.binarySearch(adjacentFaces[i], j);
+		if (position >= 0) {
+			return intersections[i][position];
+		}
+		return intersect(overlappingFaces[i], overlappingFaces[j]);
+	}
+
+	/**
+	 * @return the number of the face IDs held by this instance.
+	 */
+	public long countHeldIndices() {
+		return Arrays.stream(intersections)
+				.flatMap(Arrays::stream)
+				.mapToLong(indices -> indices.length)
+				.sum();
+	}
+
+	/**
+	 * Merges two sorted arrays.
+	 *
+	 * @return the values in both arrays in ascending order.
+	 */
+	static int[] intersect(final int[] a, final int[] b) {
+		var result = new int[Math.min(a.length, b.length)];
+		int count = 0;
+
+		for (int p = 0, q = 0; p < a.length && q < b.length;) {
+			if (a[p] < b[q]) {
+				p++;
+			} else if (a[p] > b[q]) {
+				q++;
+			} else {
+				result[count++] = a[p];
+				p++;
+				q++;
+			}
+		}
+
+		return count == result.length ? result : Arrays.copyOf(result, count);
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.condfac;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import oripa.geom.GeomUtil;
+import oripa.geom.Segment;
+import oripa.util.IntPair;
+import oripa.util.MathUtil;
+import oripa.vecmath.Vector2d;
+
+/**
+ * Finds the pairs of segments overlapping each other in the sense of
+ * {@link GeomUtil#isOverlap(Segment, Segment, double)} without testing all
+ * pairs. The segments are sorted by angle and chained into groups of almost
+ * parallel segments. In each group, the segments are swept along the normal
+ * of the group so that only the segments close to the same supporting line
+ * are tested.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class OverlappingSegmentPairFinder {
+	/**
+	 * Covers the error of the angle test in
+	 * {@link GeomUtil#isOverlap(Segment, Segment, double)}.
+	 */
+	private static final double ANGLE_TOLERANCE = 2 * MathUtil.angleRadianEps();
+
+	/**
+	 * Position of a segment in the coordinate system of its group.
+	 */
+	private record Projection(int index, double normalMin, double normalMax,
+			double tangentMin, double tangentMax) {
+	}
+
+	/**
+	 *
+	 * @param segments
+	 * @param eps
+	 * @return pairs of the indices of overlapping segments. Each pair
+	 *         {@code (i, j)} satisfies {@code i < j}.
+	 */
+	public List<IntPair> findOverlappingPairs(final List<Segment> segments, final double eps) {
+		var angles = segments.stream()
+				.mapToDouble(Segment::getAngle)
+				.toArray();
+
+		return createParallelGroups(angles).parallelStream()
+				.flatMap(group -> findOverlappingPairs(group, segments, angles, eps).stream())
+				.toList();
+	}
+
+	/**
+	 * Chains the indices sorted by angle while the difference of the
+	 * neighboring angles is within the tolerance. A group of angles close to
+	 * PI is merged into the group of angles close to 0.
+	 */
+	private List<List<Integer>> createParallelGroups(final double[] angles) {
+		var sortedIndices = IntStream.range(0, angles.length).boxed()
+				.sorted(Comparator.comparing(i -> angles[i]))
+				.toList();
+
+		var groups = new ArrayList<List<Integer>>();
+
+		List<Integer> group = null;
+		for (int k = 0; k < sortedIndices.size(); k++) {
+			var index = sortedIndices.get(k);
+			if (k == 0 || angles[index] - angles[sortedIndices.get(k - 1)] > ANGLE_TOLERANCE) {
+				group = new ArrayList<>();
+				groups.add(group);
+			}
+			group.add(index);
+		}
+
+		if (groups.size() > 1) {
+			var first = groups.getFirst();
+			var last = groups.getLast();
+			if (angles[first.getFirst()] + Math.PI - angles[last.getLast()] <= ANGLE_TOLERANCE) {
+				first.addAll(groups.removeLast());
+			}
+		}
+
+		return groups;
+	}
+
+	private List<IntPair> findOverlappingPairs(final List<Integer> group, final List<Segment> segments,
+			final double[] angles, final double eps) {
+		var angle = angles[group.getFirst()];
+		var tangent = new Vector2d(Math.cos(angle), Math.sin(angle));
+		var normal = new Vector2d(-Math.sin(angle), Math.cos(angle));
+
+		var projections = group.stream()
+				.map(index -> project(index, segments.get(index), tangent, normal))
+				.sorted(Comparator.comparing(Projection::normalMin))
+				.toList();
+
+		var pairs = new ArrayList<IntPair>();
+
+		for (int k = 0; k < projections.size(); k++) {
+			var p = projections.get(k);
+			for (int l = k + 1; l < projections.size(); l++) {
+				var q = projections.get(l);
+				if (q.normalMin() > p.normalMax() + eps) {
+					break;
+				}
+				if (q.tangentMin() > p.tangentMax() + eps || p.tangentMin() > q.tangentMax() + eps) {
+					continue;
+				}
+
+				var i = Math.min(p.index(), q.index());
+				var j = Math.max(p.index(), q.index());
+				if (GeomUtil.isOverlap(segments.get(i), segments.get(j), eps)) {
+					pairs.add(new IntPair(i, j));
+				}
+			}
+		}
+
+		return pairs;
+	}
+
+	private Projection project(final int index, final Segment segment, final Vector2d tangent,
+			final Vector2d normal) {
+		var n0 = normal.dot(segment.getP0());
+		var n1 = normal.dot(segment.getP1());
+		var t0 = tangent.dot(segment.getP0());
+		var t1 = tangent.dot(segment.getP1());
+
+		return new Projection(index, Math.min(n0, n1), Math.max(n0, n1), Math.min(t0, t1), Math.max(t0, t1));
+	}
+}
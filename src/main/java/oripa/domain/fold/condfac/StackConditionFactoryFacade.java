@@ -42,7 +42,8 @@ public class StackConditionFactoryFacade {
 	private static final Logger logger = LoggerFactory.getLogger(StackConditionFactoryFacade.class);
 
 	private final Map<OriFace, Set<SubFace>> subFacesOfEachFace;
-	private final List<Integer>[][] overlappingFaceIndexIntersections;
+	private final List<Set<SubFace>> subFacesOfEachFaceID;
+	private final OverlappingFaceIndexIntersections overlappingFaceIndexIntersections;
 	private final Map<OriHalfedge, Set<Integer>> faceIndicesOnHalfedge;
 
 	private final List<OriFace> faces;
@@ -60,7 +61,9 @@ public class StackConditionFactoryFacade {
 		this.eps = eps;
 
 		var watch = new StopWatch(true);
-		subFacesOfEachFace = new FaceToSubfacesFactory().create(faces, subfaces);
+		var faceToSubfacesFactory = new FaceToSubfacesFactory();
+		subFacesOfEachFace = faceToSubfacesFactory.create(faces, subfaces);
+		subFacesOfEachFaceID = faceToSubfacesFactory.createIndexedByFaceID(faces, subFacesOfEachFace);
 		logger.debug("create subfacesOfEachFace {}[ms]", watch.getMilliSec());
 
 		watch.start();
@@ -74,6 +77,32 @@ public class StackConditionFactoryFacade {
 
 	}
 
+	private StackConditionFactoryFacade(final StackConditionFactoryFacade source,
+			final OverlapRelation overlapRelation) {
+		this.faces = source.faces;
+		this.edges = source.edges;
+		this.eps = source.eps;
+		this.subFacesOfEachFace = source.subFacesOfEachFace;
+		this.subFacesOfEachFaceID = source.subFacesOfEachFaceID;
+		this.overlappingFaceIndexIntersections = source.overlappingFaceIndexIntersections;
+		this.faceIndicesOnHalfedge = source.faceIndicesOnHalfedge;
+		this.overlapRelation = overlapRelation;
+	}
+
+	/**
+	 * The data prepared in the constructor depend only on the geometry of the
+	 * faces and the subfaces. This method shares them with a facade which
+	 * creates the conditions for another assignment of mountain/valley.
+	 *
+	 * @param overlapRelation
+	 *            overlap relation whose "no overlap" cells are the same as the
+	 *            one given to this instance.
+	 * @return a facade using the given overlap relation.
+	 */
+	public StackConditionFactoryFacade withOverlapRelation(final OverlapRelation overlapRelation) {
+		return new StackConditionFactoryFacade(this, overlapRelation);
+	}
+
 	public List<StackConditionOf3Faces> create3FaceConditions() {
 		return new StackConditionOf3FaceFactory().createAll(
 				faces, overlapRelation, overlappingFaceIndexIntersections, faceIndicesOnHalfedge);
@@ -84,10 +113,19 @@ public class StackConditionFactoryFacade {
 				faces, edges, overlapRelation, subFacesOfEachFace, eps);
 	}
 
-	public List<Integer>[][] getOverlappingFaceIndexIntersections() {
+	public OverlappingFaceIndexIntersections getOverlappingFaceIndexIntersections() {
 		return overlappingFaceIndexIntersections;
 	}
 
+	/**
+	 *
+	 * @param faceID
+	 * @return subfaces including the face.
+	 */
+	public Set<SubFace> getSubFacesOf(final int faceID) {
+		return subFacesOfEachFaceID.get(faceID);
+	}
+
 	public Map<OriHalfedge, Set<Integer>> getFaceIndicesOnHalfedge() {
 		return faceIndicesOnHalfedge;
 	}
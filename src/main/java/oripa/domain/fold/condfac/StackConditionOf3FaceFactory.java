@@ -51,7 +51,7 @@ public class StackConditionOf3FaceFactory {
 	 */
 	public List<StackConditionOf3Faces> createAll(
 			final List<OriFace> faces, final OverlapRelation overlapRelation,
-			final List<Integer>[][] overlappingFaceIndexIntersections,
+			final OverlappingFaceIndexIntersections overlappingFaceIndexIntersections,
 			final Map<OriHalfedge, Set<Integer>> faceIndicesOnHalfedge) {
 
 		var conditions = new ArrayList<StackConditionOf3Faces>();
@@ -80,11 +80,11 @@ public class StackConditionOf3FaceFactory {
 
 	private Collection<StackConditionOf3Faces> createForIandJ(
 			final int index_i, final int index_j,
-			final List<Integer>[][] overlappingFaceIndexIntersections,
+			final OverlappingFaceIndexIntersections overlappingFaceIndexIntersections,
 			final Set<Integer> faceIndicesOnHalfedge) {
 
 		var conditions = new ArrayList<StackConditionOf3Faces>();
-		var indices = overlappingFaceIndexIntersections[index_i][index_j];
+		var indices = overlappingFaceIndexIntersections.get(index_i, index_j);
 		for (var index_k : indices) {
 			if (index_i == index_k || index_j == index_k) {
 				continue;
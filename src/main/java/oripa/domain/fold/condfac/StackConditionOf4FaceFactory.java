@@ -18,11 +18,11 @@
  */
 package oripa.domain.fold.condfac;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +32,6 @@ import oripa.domain.fold.halfedge.OriFace;
 import oripa.domain.fold.origeom.OverlapRelation;
 import oripa.domain.fold.stackcond.StackConditionOf4Faces;
 import oripa.domain.fold.subface.SubFace;
-import oripa.geom.GeomUtil;
 import oripa.util.StopWatch;
 
 /**
@@ -58,79 +57,97 @@ public class StackConditionOf4FaceFactory {
 			final List<OriEdge> edges, final OverlapRelation overlapRelation,
 			final Map<OriFace, Set<SubFace>> subFacesOfEachFace,
 			final double eps) {
-		var condition4s = new ConcurrentLinkedQueue<StackConditionOf4Faces>();
 
-		int edgeNum = edges.size();
-		logger.debug("edgeNum = " + edgeNum);
+		logger.debug("edgeNum = " + edges.size());
 
 		var watch = new StopWatch(true);
 
-		IntStream.range(0, edgeNum).parallel().forEach(i -> {
-			OriEdge e0 = edges.get(i);
-			var e0LeftOpt = e0.getLeft();
-			var e0RightOpt = e0.getRight();
+		var subfaceBits = createSubfaceBits(faces, subFacesOfEachFace);
 
-			if (e0LeftOpt.isEmpty() || e0RightOpt.isEmpty()) {
-				return;
-			}
+		// only the edges between two faces make conditions.
+		var innerEdges = edges.stream()
+				.filter(edge -> edge.getLeft().isPresent() && edge.getRight().isPresent())
+				.toList();
 
-			for (int j = i + 1; j < edgeNum; j++) {
-				OriEdge e1 = edges.get(j);
-				var e1LeftOpt = e1.getLeft();
-				var e1RightOpt = e1.getRight();
-				if (e1LeftOpt.isEmpty() || e1RightOpt.isEmpty()) {
-					continue;
-				}
-
-				if (!GeomUtil.isOverlap(e0.toSegment(), e1.toSegment(), eps)) {
-					continue;
-				}
-
-				var e0LeftFace = e0LeftOpt.get().getFace();
-				var e0RightFace = e0RightOpt.get().getFace();
-				var e1LeftFace = e1LeftOpt.get().getFace();
-				var e1RightFace = e1RightOpt.get().getFace();
-
-				var intersectionSubfaces = subFacesOfEachFace.get(e0LeftFace).stream()
-						.filter(s -> subFacesOfEachFace.get(e0RightFace).contains(s))
-						.filter(s -> subFacesOfEachFace.get(e1LeftFace).contains(s))
-						.filter(s -> subFacesOfEachFace.get(e1RightFace).contains(s))
-						.toList();
-
-				if (intersectionSubfaces.isEmpty()) {
-					continue;
-				}
-
-				var e0LeftFaceID = e0LeftFace.getFaceID();
-				var e0RightFaceID = e0RightFace.getFaceID();
-				var e1LeftFaceID = e1LeftFace.getFaceID();
-				var e1RightFaceID = e1RightFace.getFaceID();
-
-				int upper1, lower1, upper2, lower2;
-
-				if (overlapRelation.isUpper(e0LeftFaceID, e0RightFaceID)) {
-					upper1 = e0RightFaceID;
-					lower1 = e0LeftFaceID;
-				} else {
-					upper1 = e0LeftFaceID;
-					lower1 = e0RightFaceID;
-				}
-				if (overlapRelation.isUpper(e1LeftFaceID, e1RightFaceID)) {
-					upper2 = e1RightFaceID;
-					lower2 = e1LeftFaceID;
-				} else {
-					upper2 = e1LeftFaceID;
-					lower2 = e1RightFaceID;
-				}
-
-				condition4s.add(new StackConditionOf4Faces(upper1, lower1, upper2, lower2));
-			}
-		});
+		var edgePairs = new OverlappingSegmentPairFinder().findOverlappingPairs(
+				innerEdges.stream().map(OriEdge::toSegment).toList(), eps);
+
+		var condition4s = edgePairs.parallelStream()
+				.map(pair -> createCondition(innerEdges.get(pair.v1()), innerEdges.get(pair.v2()),
+						overlapRelation, subfaceBits))
+				.flatMap(Optional::stream)
+				.toList();
 
 		logger.debug("#condition4 = {}", condition4s.size());
 		logger.debug("condition4s computation time {}[ms]", watch.getMilliSec());
 
-		return condition4s.stream().toList();
+		return condition4s;
 	}
 
+	/**
+	 * @return [FaceID] -> bits of the subfaces including the face
+	 */
+	private long[][] createSubfaceBits(final List<OriFace> faces,
+			final Map<OriFace, Set<SubFace>> subFacesOfEachFace) {
+		var subfaceIndices = new HashMap<SubFace, Integer>();
+		subFacesOfEachFace.values().forEach(subfaces -> subfaces
+				.forEach(subface -> subfaceIndices.putIfAbsent(subface, subfaceIndices.size())));
+
+		var wordCount = (subfaceIndices.size() + Long.SIZE - 1) / Long.SIZE;
+
+		var bits = new long[faces.size()][wordCount];
+		for (var face : faces) {
+			var faceBits = bits[face.getFaceID()];
+			for (var subface : subFacesOfEachFace.getOrDefault(face, Set.of())) {
+				int index = subfaceIndices.get(subface);
+				faceBits[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+			}
+		}
+
+		return bits;
+	}
+
+	private Optional<StackConditionOf4Faces> createCondition(final OriEdge e0, final OriEdge e1,
+			final OverlapRelation overlapRelation, final long[][] subfaceBits) {
+		var e0LeftFaceID = e0.getLeft().get().getFace().getFaceID();
+		var e0RightFaceID = e0.getRight().get().getFace().getFaceID();
+		var e1LeftFaceID = e1.getLeft().get().getFace().getFaceID();
+		var e1RightFaceID = e1.getRight().get().getFace().getFaceID();
+
+		if (!sharesSubface(subfaceBits[e0LeftFaceID], subfaceBits[e0RightFaceID],
+				subfaceBits[e1LeftFaceID], subfaceBits[e1RightFaceID])) {
+			return Optional.empty();
+		}
+
+		int upper1, lower1, upper2, lower2;
+
+		if (overlapRelation.isUpper(e0LeftFaceID, e0RightFaceID)) {
+			upper1 = e0RightFaceID;
+			lower1 = e0LeftFaceID;
+		} else {
+			upper1 = e0LeftFaceID;
+			lower1 = e0RightFaceID;
+		}
+		if (overlapRelation.isUpper(e1LeftFaceID, e1RightFaceID)) {
+			upper2 = e1RightFaceID;
+			lower2 = e1LeftFaceID;
+		} else {
+			upper2 = e1LeftFaceID;
+			lower2 = e1RightFaceID;
+		}
+
+		return Optional.of(new StackConditionOf4Faces(upper1, lower1, upper2, lower2));
+	}
+
+	/**
+	 * @return true if a subface is included by all of the four faces.
+	 */
+	private boolean sharesSubface(final long[] a, final long[] b, final long[] c, final long[] d) {
+		for (int w = 0; w < a.length; w++) {
+			if ((a[w] & b[w] & c[w] & d[w]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
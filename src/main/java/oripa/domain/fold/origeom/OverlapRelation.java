@@ -18,6 +18,8 @@
  */
 package oripa.domain.fold.origeom;
 
+import java.util.Arrays;
+
 import oripa.util.AtomicByteDenseMatrix;
 import oripa.util.BitBlockByteMatrix;
 import oripa.util.ByteMatrix;
@@ -32,6 +34,17 @@ import oripa.util.ByteSparseMatrix;
 public class OverlapRelation {
 	private ByteMatrix overlapRelation;
 
+	/**
+	 * Undo log of changed cells. Each entry is a pair of the packed index
+	 * (i, j) and the internal value of [i][j] before the change. null if the
+	 * trail is disabled.
+	 */
+	private long[] trailIndices;
+	private byte[] trailValues;
+	private int trailSize;
+
+	private static final int INITIAL_TRAIL_CAPACITY = 64;
+
 	private static final byte NO_OVERLAP = 0;
 	private static final byte UPPER = 1;
 	private static final byte LOWER = 2;
@@ -78,7 +91,7 @@ public class OverlapRelation {
 	}
 
 	/**
-	 * @return deep copy of this instance.
+	 * @return deep copy of this instance. The trail is not copied.
 	 */
 	@Override
 	public OverlapRelation clone() {
@@ -110,6 +123,77 @@ public class OverlapRelation {
 		}
 	}
 
+	/**
+	 * Computes the length of the array given by {@link #toPackedUpperTriangle()}
+	 * for a relation of {@code faceCount} faces.
+	 */
+	public static int getPackedUpperTriangleLength(final int faceCount) {
+		long bitLength = (long) faceCount * (faceCount - 1);
+		return Math.toIntExact((bitLength + 63) / 64);
+	}
+
+	/**
+	 * Packs the upper triangle of this relation, that is, the values at [i][j]
+	 * for i &lt; j, into 2 bits per value. The values are ordered row by row
+	 * from [0][1] and the value at order k is at bits 2k and 2k+1 of the
+	 * sequence, where bit m of the sequence is bit m % 64 of the (m / 64)-th
+	 * element. The 2-bit codes are 0 for no overlap, 1 for upper, 2 for lower
+	 * and 3 for undefined. The rest is enough to restore the relation since
+	 * [j][i] is the inversion of [i][j].
+	 *
+	 * @return packed upper triangle.
+	 */
+	public long[] toPackedUpperTriangle() {
+		var size = getSize();
+		var packed = new long[getPackedUpperTriangleLength(size)];
+
+		long bitIndex = 0;
+		if (overlapRelation instanceof BitBlockByteMatrix bitMatrix) {
+			for (int i = 0; i < size; i++) {
+				bitIndex += bitMatrix.copyRowBitsTo(i, i + 1, packed, bitIndex);
+			}
+			return packed;
+		}
+
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++, bitIndex += 2) {
+				packed[(int) (bitIndex >>> 6)] |= (long) overlapRelation.get(i, j) << (bitIndex & 63);
+			}
+		}
+		return packed;
+	}
+
+	/**
+	 * Restores the relation from the result of
+	 * {@link #toPackedUpperTriangle()}.
+	 *
+	 * @param faceCount
+	 *            the number of faces of the model.
+	 * @param packed
+	 *            packed upper triangle.
+	 * @return restored relation.
+	 */
+	public static OverlapRelation fromPackedUpperTriangle(final int faceCount, final long[] packed) {
+		var restored = new OverlapRelation(faceCount);
+		var bitMatrix = (BitBlockByteMatrix) restored.overlapRelation;
+
+		long bitIndex = 0;
+		for (int i = 0; i < faceCount; i++) {
+			bitIndex += bitMatrix.copyRowBitsFrom(i, i + 1, packed, bitIndex);
+		}
+
+		for (int i = 0; i < faceCount; i++) {
+			for (int j = i + 1; j < faceCount; j++) {
+				var value = bitMatrix.get(i, j);
+				if (value != NO_OVERLAP) {
+					restored.setInternal(i, j, value);
+				}
+			}
+		}
+
+		return restored;
+	}
+
 	public void switchToSparseMatrix() {
 		var sparse = new ByteSparseMatrix(overlapRelation.rowCount(), overlapRelation.columnCount());
 		for (int i = 0; i < overlapRelation.rowCount(); i++) {
@@ -154,6 +238,15 @@ public class OverlapRelation {
 	 */
 	public void set(final int i, final int j, final byte value) throws IllegalArgumentException {
 		var internalValue = toInternal(value);
+
+		if (trailIndices != null) {
+			record(i, j);
+		}
+
+		setInternal(i, j, internalValue);
+	}
+
+	private void setInternal(final int i, final int j, final byte internalValue) {
 		overlapRelation.set(i, j, internalValue);
 
 		switch (internalValue) {
@@ -306,6 +399,81 @@ public class OverlapRelation {
 		return EstimationResult.NOT_CHANGED;
 	}
 
+	/**
+	 * Starts recording the changes if it is not started yet and returns the
+	 * current position of the trail. The changes after this call can be
+	 * reverted by {@link #rollback(int)} with the returned value. This is
+	 * much cheaper than {@link #clone()} when only a few cells are changed.
+	 *
+	 * @return checkpoint to be given to {@link #rollback(int)}.
+	 */
+	public int checkpoint() {
+		if (trailIndices == null) {
+			trailIndices = new long[INITIAL_TRAIL_CAPACITY];
+			trailValues = new byte[INITIAL_TRAIL_CAPACITY];
+			trailSize = 0;
+		}
+		return trailSize;
+	}
+
+	/**
+	 * Reverts all changes made after the given checkpoint.
+	 *
+	 * @param checkpoint
+	 *            a value returned by {@link #checkpoint()}.
+	 * @throws IllegalStateException
+	 *             when the trail is not started.
+	 * @throws IllegalArgumentException
+	 *             when the checkpoint is not on the trail.
+	 */
+	public void rollback(final int checkpoint) {
+		if (trailIndices == null) {
+			throw new IllegalStateException("trail is not started.");
+		}
+		if (checkpoint < 0 || checkpoint > trailSize) {
+			throw new IllegalArgumentException("wrong checkpoint: " + checkpoint);
+		}
+
+		for (int k = trailSize - 1; k >= checkpoint; k--) {
+			var packed = trailIndices[k];
+			setInternal((int) (packed >>> 32), (int) packed, trailValues[k]);
+		}
+		trailSize = checkpoint;
+	}
+
+	/**
+	 * Stops recording the changes and discards the trail.
+	 */
+	public void discardTrail() {
+		trailIndices = null;
+		trailValues = null;
+		trailSize = 0;
+	}
+
+	/**
+	 * @return {@code true} if the changes are recorded.
+	 */
+	public boolean isTrailEnabled() {
+		return trailIndices != null;
+	}
+
+	/**
+	 * @return the number of changes recorded on the trail.
+	 */
+	public int getTrailSize() {
+		return trailSize;
+	}
+
+	private void record(final int i, final int j) {
+		if (trailSize == trailIndices.length) {
+			trailIndices = Arrays.copyOf(trailIndices, trailSize * 2);
+			trailValues = Arrays.copyOf(trailValues, trailSize * 2);
+		}
+		trailIndices[trailSize] = ((long) i << 32) | (j & 0xFFFFFFFFL);
+		trailValues[trailSize] = overlapRelation.get(i, j);
+		trailSize++;
+	}
+
 	@Override
 	public String toString() {
 		var builder = new StringBuilder();
@@ -0,0 +1,106 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.origeom;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriHalfedge;
+import oripa.util.IntPair;
+import oripa.util.MathUtil;
+
+/**
+ * Finds the pairs of faces overlapping each other after folding. The pairs of
+ * faces whose bounding boxes overlap are collected by sweep and prune along x
+ * axis, and only those pairs are tested by
+ * {@link OriGeomUtil#isFaceOverlap(OriFace, OriFace, double)} in parallel.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class OverlappingFacePairFinder {
+
+	/**
+	 *
+	 * @param faces
+	 *            faces after folding.
+	 * @param eps
+	 * @return pairs of the indices of overlapping faces in {@code faces}. Each
+	 *         pair {@code (i, j)} satisfies {@code i < j}.
+	 */
+	public List<IntPair> findOverlappingPairs(final List<OriFace> faces, final double eps) {
+		var bounds = faces.stream()
+				.map(this::createBounds)
+				.toList();
+
+		var margin = computeMargin(bounds, eps);
+
+		// the faces build their triangles lazily. It should be done before
+		// the parallel tests.
+		faces.forEach(face -> face.getInnerPoints(eps));
+
+		var order = IntStream.range(0, faces.size()).boxed()
+				.sorted(Comparator.comparing(i -> bounds.get(i).minX()))
+				.mapToInt(Integer::intValue)
+				.toArray();
+
+		return IntStream.range(0, order.length).parallel()
+				.boxed()
+				.flatMap(k -> IntStream.range(k + 1, order.length)
+						.takeWhile(l -> bounds.get(order[l]).minX() <= bounds.get(order[k]).maxX() + margin)
+						.filter(l -> bounds.get(order[k]).overlapsInY(bounds.get(order[l]), margin))
+						.mapToObj(l -> new IntPair(
+								Math.min(order[k], order[l]),
+								Math.max(order[k], order[l])))
+						.filter(pair -> OriGeomUtil.isFaceOverlap(
+								faces.get(pair.v1()), faces.get(pair.v2()), eps)))
+				.toList();
+	}
+
+	/**
+	 * The tests of crossing use the tolerance relative to the length of the
+	 * segments. The margin covers it in addition to {@code eps}.
+	 */
+	private double computeMargin(final List<Bounds> bounds, final double eps) {
+		var width = bounds.stream().mapToDouble(Bounds::maxX).max().orElse(0)
+				- bounds.stream().mapToDouble(Bounds::minX).min().orElse(0);
+		var height = bounds.stream().mapToDouble(Bounds::maxY).max().orElse(0)
+				- bounds.stream().mapToDouble(Bounds::minY).min().orElse(0);
+
+		return eps + 2 * MathUtil.normalizedValueEps() * Math.max(width, height);
+	}
+
+	private Bounds createBounds(final OriFace face) {
+		var positions = face.halfedgeStream().map(OriHalfedge::getPosition).toList();
+
+		return new Bounds(
+				positions.stream().mapToDouble(p -> p.getX()).min().orElse(0),
+				positions.stream().mapToDouble(p -> p.getY()).min().orElse(0),
+				positions.stream().mapToDouble(p -> p.getX()).max().orElse(0),
+				positions.stream().mapToDouble(p -> p.getY()).max().orElse(0));
+	}
+
+	private record Bounds(double minX, double minY, double maxX, double maxY) {
+		boolean overlapsInY(final Bounds other, final double margin) {
+			return minY <= other.maxY + margin && other.minY <= maxY + margin;
+		}
+	}
+}
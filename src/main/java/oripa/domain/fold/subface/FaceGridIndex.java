@@ -0,0 +1,133 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.subface;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.halfedge.OriHalfedge;
+import oripa.geom.RectangleDomain;
+import oripa.util.MathUtil;
+import oripa.vecmath.Vector2d;
+
+/**
+ * Uniform grid over the bounding boxes of the faces after folding. Each cell
+ * holds the indices of the faces whose enlarged bounding box touches the
+ * cell, so that a face including a point is always found in the cell of the
+ * point.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class FaceGridIndex {
+	private final double left;
+	private final double top;
+	private final double cellWidth;
+	private final double cellHeight;
+	private final int divisionCount;
+
+	private final int[][] cells;
+
+	/**
+	 *
+	 * @param faces
+	 *            faces after folding.
+	 * @param eps
+	 */
+	public FaceGridIndex(final List<OriFace> faces, final double eps) {
+		var bounds = faces.stream()
+				.map(face -> RectangleDomain.createFromPoints(
+						face.halfedgeStream().map(OriHalfedge::getPosition).toList()))
+				.toList();
+
+		var domain = RectangleDomain.createFromPoints(bounds.stream()
+				.filter(b -> !b.isVoid())
+				.flatMap(b -> Stream.of(b.getLeftTop(), b.getRightBottom()))
+				.toList());
+
+		// the inclusion test uses the tolerance relative to the size of the
+		// faces in addition to eps.
+		var margin = domain.isVoid() ? eps
+				: eps + 2 * MathUtil.normalizedValueEps() * domain.maxWidthHeight();
+		bounds.stream().filter(b -> !b.isVoid()).forEach(b -> b.enlarge(margin));
+		if (!domain.isVoid()) {
+			domain.enlarge(margin);
+		}
+
+		// cells about as large as an average face. Stacked faces share cells
+		// and a finer grid only costs registrations.
+		var averageFaceSize = bounds.stream()
+				.filter(b -> !b.isVoid())
+				.mapToDouble(RectangleDomain::maxWidthHeight)
+				.average().orElse(1);
+		var maxDivisionCount = Math.max(1, (int) Math.ceil(Math.sqrt(faces.size())));
+		divisionCount = domain.isVoid() ? 1
+				: Math.clamp((int) Math.ceil(domain.maxWidthHeight() / averageFaceSize), 1, maxDivisionCount);
+
+		left = domain.isVoid() ? 0 : domain.getLeft();
+		top = domain.isVoid() ? 0 : domain.getTop();
+		cellWidth = domain.isVoid() ? 1 : Math.max(domain.getWidth() / divisionCount, eps);
+		cellHeight = domain.isVoid() ? 1 : Math.max(domain.getHeight() / divisionCount, eps);
+
+		var cellLists = IntStream.range(0, divisionCount * divisionCount)
+				.mapToObj(i -> IntStream.builder())
+				.toList();
+
+		for (int i = 0; i < faces.size(); i++) {
+			var b = bounds.get(i);
+			if (b.isVoid()) {
+				continue;
+			}
+			for (int y = toCellY(b.getTop()); y <= toCellY(b.getBottom()); y++) {
+				for (int x = toCellX(b.getLeft()); x <= toCellX(b.getRight()); x++) {
+					cellLists.get(y * divisionCount + x).add(i);
+				}
+			}
+		}
+
+		cells = cellLists.stream()
+				.map(builder -> builder.build().toArray())
+				.toArray(int[][]::new);
+	}
+
+	/**
+	 *
+	 * @param point
+	 * @return indices of the faces which can include the given point in
+	 *         ascending order.
+	 */
+	public int[] getCandidates(final Vector2d point) {
+		return cells[toCellY(point.getY()) * divisionCount + toCellX(point.getX())];
+	}
+
+	private int toCellX(final double x) {
+		return toCell(x, left, cellWidth);
+	}
+
+	private int toCellY(final double y) {
+		return toCell(y, top, cellHeight);
+	}
+
+	private int toCell(final double value, final double origin, final double cellSize) {
+		var index = (int) Math.floor((value - origin) / cellSize);
+		return Math.clamp(index, 0, divisionCount - 1);
+	}
+}
@@ -18,6 +18,7 @@
  */
 package oripa.domain.fold.subface;
 
+import java.util.BitSet;
 import java.util.List;
 
 import oripa.domain.fold.halfedge.OriFace;
@@ -35,4 +36,47 @@ public class ParentFacesCollector {
 				.filter(face -> innerPoints.stream().anyMatch(innerPoint -> face.includesExclusively(innerPoint, eps)))
 				.toList();
 	}
+
+	/**
+	 * Collects the parent faces of each subface at once. The candidates of the
+	 * inclusion test are narrowed by a grid over the faces and the subfaces are
+	 * processed in parallel.
+	 *
+	 * @param faces
+	 *            faces after folding.
+	 * @param subfaces
+	 * @param eps
+	 * @return the parent faces of each subface in the same order as
+	 *         {@code subfaces}. The order of the parent faces follows
+	 *         {@code faces}.
+	 */
+	public List<List<OriFace>> collect(final List<OriFace> faces, final List<SubFace> subfaces,
+			final double eps) {
+		var index = new FaceGridIndex(faces, eps);
+
+		// the faces build their triangles lazily. It should be done before
+		// the parallel tests.
+		faces.forEach(face -> face.getInnerPoints(eps));
+
+		return subfaces.parallelStream()
+				.map(sub -> collect(faces, index, sub, eps))
+				.toList();
+	}
+
+	private List<OriFace> collect(final List<OriFace> faces, final FaceGridIndex index, final SubFace sub,
+			final double eps) {
+		var parentIndices = new BitSet(faces.size());
+
+		for (var innerPoint : sub.getInnerPoints(eps)) {
+			for (var i : index.getCandidates(innerPoint)) {
+				if (!parentIndices.get(i) && faces.get(i).includesExclusively(innerPoint, eps)) {
+					parentIndices.set(i);
+				}
+			}
+		}
+
+		return parentIndices.stream()
+				.mapToObj(faces::get)
+				.toList();
+	}
 }
@@ -18,10 +18,8 @@
  */
 package oripa.domain.fold.subface;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import oripa.domain.fold.halfedge.OriFace;
@@ -34,139 +32,248 @@ import oripa.domain.fold.stackcond.StackConditionOf4Faces;
  * shared among processes running in parallel for ordering with a certain
  * overlap relation.
  *
+ * <p>
+ * The faces are identified by the local index, which is the index in the
+ * parent face list of the subface, so that the conditions are checked on
+ * primitive arrays. The set of the faces already put on the local layer order
+ * is given as a bit set of the local indices ({@link #createPlacedSet()}).
+ *
  * @author OUCHI Koji
  *
  */
 class StackConditionAggregate {
-	private final HashMap<OriFace, List<Integer>> stackConditionsOf2Faces = new HashMap<>();
-	private final HashMap<OriFace, List<StackConditionOf3Faces>> stackConditionsOf3Faces = new HashMap<>();
-	private final HashMap<OriFace, List<StackConditionOf4Faces>> stackConditionsOf4Faces = new HashMap<>();
+	private static final int[] EMPTY = new int[0];
+
+	private final int faceCount;
+
+	/**
+	 * local index -> face ID
+	 */
+	private final int[] faceIDs;
+
+	/**
+	 * face IDs in ascending order and their local indices for look-up.
+	 */
+	private final int[] sortedFaceIDs;
+	private final int[] sortedLocalIndices;
+
+	/**
+	 * [k] is a bit set of the faces which should be put before the face k.
+	 */
+	private long[][] stackConditionsOf2Faces;
+	private int[] countsOf2Faces;
+
+	/**
+	 * [k] is pairs of (lower, upper) where k is the other face.
+	 */
+	private int[][] stackConditionsOf3Faces;
+
+	/**
+	 * [k] is triples of (a, b, c) where the face k cannot be put if a and b
+	 * are put in this order and c is not put.
+	 */
+	private int[][] stackConditionsOf4Faces;
 
 	private final AtomicInteger failureCountOf2Faces = new AtomicInteger();
 	private final AtomicInteger failureCountOf3Faces = new AtomicInteger();
 	private final AtomicInteger failureCountOf4Faces = new AtomicInteger();
 
 	/**
-	 * Creates stack conditions of 2 faces for a subface and stores in
-	 * conditions in a style for efficient computation.
 	 *
 	 * @param parentFaces
 	 *            faces containing the subface.
+	 */
+	StackConditionAggregate(final List<OriFace> parentFaces) {
+		faceCount = parentFaces.size();
+		faceIDs = parentFaces.stream().mapToInt(OriFace::getFaceID).toArray();
+
+		var order = new long[faceCount];
+		for (int k = 0; k < faceCount; k++) {
+			order[k] = ((long) faceIDs[k] << 32) | k;
+		}
+		Arrays.sort(order);
+
+		sortedFaceIDs = new int[faceCount];
+		sortedLocalIndices = new int[faceCount];
+		for (int k = 0; k < faceCount; k++) {
+			sortedFaceIDs[k] = (int) (order[k] >>> 32);
+			sortedLocalIndices[k] = (int) order[k];
+		}
+	}
+
+	/**
+	 * @return local index of the face. -1 if the face is not a parent face.
+	 */
+	int toLocalIndex(final int faceID) {
+		var i = Arrays.binarySearch(sortedFaceIDs, faceID);
+		return i < 0 ? -1 : sortedLocalIndices[i];
+	}
+
+	int getFaceCount() {
+		return faceCount;
+	}
+
+	int getFaceID(final int localIndex) {
+		return faceIDs[localIndex];
+	}
+
+	/**
+	 * @return an empty bit set for the local indices.
+	 */
+	long[] createPlacedSet() {
+		return new long[(faceCount + Long.SIZE - 1) / Long.SIZE];
+	}
+
+	static boolean isPlaced(final long[] placed, final int localIndex) {
+		return (placed[localIndex >>> 6] & (1L << localIndex)) != 0;
+	}
+
+	static void place(final long[] placed, final int localIndex) {
+		placed[localIndex >>> 6] |= 1L << localIndex;
+	}
+
+	static void remove(final long[] placed, final int localIndex) {
+		placed[localIndex >>> 6] &= ~(1L << localIndex);
+	}
+
+	/**
+	 * Creates stack conditions of 2 faces for a subface and stores in
+	 * conditions in a style for efficient computation.
+	 *
 	 * @param overlapRelation
 	 *            overlap relation matrix.
 	 */
-	void prepareConditionsOf2Faces(
-			final List<OriFace> parentFaces,
-			final OverlapRelation overlapRelation) {
-		for (OriFace f : parentFaces) {
-			stackConditionsOf2Faces.put(f, new ArrayList<Integer>());
-
-			var faceID = f.getFaceID();
-			for (OriFace ff : parentFaces) {
-				var anotherFaceID = ff.getFaceID();
-				if (overlapRelation.isLower(faceID, anotherFaceID)) {
-					stackConditionsOf2Faces.get(f).add(anotherFaceID);
+	void prepareConditionsOf2Faces(final OverlapRelation overlapRelation) {
+		stackConditionsOf2Faces = new long[faceCount][];
+		countsOf2Faces = new int[faceCount];
+
+		for (int k = 0; k < faceCount; k++) {
+			var mask = createPlacedSet();
+			int count = 0;
+			for (int l = 0; l < faceCount; l++) {
+				if (overlapRelation.isLower(faceIDs[k], faceIDs[l])) {
+					place(mask, l);
+					count++;
 				}
 			}
+			stackConditionsOf2Faces[k] = mask;
+			countsOf2Faces[k] = count;
 		}
-
 	}
 
 	/**
 	 * Stores given stack conditions of 3 faces for a subface in a style for
 	 * efficient computation.
 	 *
-	 * @param parentFaces
-	 *            faces containing the subface.
-	 * @param overlapRelation
-	 *            overlap relation matrix.
 	 * @param condition3s
-	 *            stack conditions of 3 faces.
+	 *            stack conditions of 3 faces. All faces of each condition
+	 *            should be parent faces of the subface.
 	 */
-	void prepareConditionsOf3Faces(
-			final List<OriFace> parentFaces,
-			final OverlapRelation overlapRelation,
-			final List<StackConditionOf3Faces> condition3s) {
-		for (OriFace f : parentFaces) {
-			stackConditionsOf3Faces.put(f, new ArrayList<StackConditionOf3Faces>());
-
-			var faceID = f.getFaceID();
-			for (StackConditionOf3Faces cond : condition3s) {
-				if (faceID == cond.other()) {
-					stackConditionsOf3Faces.get(f).add(cond);
-				}
-			}
+	void prepareConditionsOf3Faces(final List<StackConditionOf3Faces> condition3s) {
+		var counts = new int[faceCount];
+		for (var cond : condition3s) {
+			counts[toLocalIndex(cond.other())] += 2;
 		}
 
+		stackConditionsOf3Faces = allocate(counts);
+
+		var sizes = new int[faceCount];
+		for (var cond : condition3s) {
+			var k = toLocalIndex(cond.other());
+			var entries = stackConditionsOf3Faces[k];
+			entries[sizes[k]++] = toLocalIndex(cond.lower());
+			entries[sizes[k]++] = toLocalIndex(cond.upper());
+		}
 	}
 
 	/**
 	 * Stores given stack conditions of 4 faces for a subface in a style for
 	 * efficient computation.
 	 *
-	 * @param parentFaces
-	 *            faces containing the subface.
-	 * @param overlapRelation
-	 *            overlap relation matrix.
-	 * @param condition3s
-	 *            stack conditions of 4 faces.
+	 * @param condition4s
+	 *            stack conditions of 4 faces. All faces of each condition
+	 *            should be parent faces of the subface.
 	 */
-	void prepareConditionsOf4Faces(
-			final List<OriFace> parentFaces,
-			final OverlapRelation overlapRelation,
-			final List<StackConditionOf4Faces> condition4s) {
-		for (OriFace f : parentFaces) {
-			stackConditionsOf4Faces.put(f, new ArrayList<StackConditionOf4Faces>());
-
-			var faceID = f.getFaceID();
-			for (StackConditionOf4Faces cond : condition4s) {
-				if (faceID == cond.upper1() || faceID == cond.upper2()) {
-					stackConditionsOf4Faces.get(f).add(cond);
-				}
-			}
+	void prepareConditionsOf4Faces(final List<StackConditionOf4Faces> condition4s) {
+		var counts = new int[faceCount];
+		for (var cond : condition4s) {
+			counts[toLocalIndex(cond.upper1())] += 3;
+			counts[toLocalIndex(cond.upper2())] += 3;
+		}
+
+		stackConditionsOf4Faces = allocate(counts);
+
+		var sizes = new int[faceCount];
+		for (var cond : condition4s) {
+			var lower1 = toLocalIndex(cond.lower1());
+			var lower2 = toLocalIndex(cond.lower2());
+			var upper1 = toLocalIndex(cond.upper1());
+			var upper2 = toLocalIndex(cond.upper2());
+
+			// stack lower2 < lower1, without upper1 being stacked, dont stack
+			// upper2
+			addTriple(upper2, lower2, lower1, upper1, sizes);
+			// stack lower1 < lower2, without upper2 being stacked, dont stack
+			// upper1
+			addTriple(upper1, lower1, lower2, upper2, sizes);
 		}
 	}
 
+	private int[][] allocate(final int[] counts) {
+		var conditions = new int[faceCount][];
+		for (int k = 0; k < faceCount; k++) {
+			conditions[k] = counts[k] == 0 ? EMPTY : new int[counts[k]];
+		}
+		return conditions;
+	}
+
+	private void addTriple(final int k, final int a, final int b, final int c, final int[] sizes) {
+		var entries = stackConditionsOf4Faces[k];
+		entries[sizes[k]++] = a;
+		entries[sizes[k]++] = b;
+		entries[sizes[k]++] = c;
+	}
+
 	/**
 	 * Test whether the given face can be put at the last position of the
 	 * ordering.
 	 *
-	 * @param alreadyInLocalLayerOrder
-	 *            a boolean array where [i] is whether a face with face ID i has
-	 *            been used in local layer order.
-	 * @param f
-	 *            a face to be tested.
-	 * @return {@code true} if {@code f} satisfies the condition of 2 faces.
+	 * @param placed
+	 *            a bit set of the local indices of the faces which have been
+	 *            used in local layer order.
+	 * @param k
+	 *            local index of a face to be tested.
+	 * @return {@code true} if the face satisfies the condition of 2 faces.
 	 */
-	boolean satisfiesConditionsOf2Faces(
-			final boolean[] alreadyInLocalLayerOrder,
-			final OriFace f) {
-		if (stackConditionsOf2Faces.get(f).stream()
-				.allMatch(i -> alreadyInLocalLayerOrder[i])) {
-			return true;
+	boolean satisfiesConditionsOf2Faces(final long[] placed, final int k) {
+		var mask = stackConditionsOf2Faces[k];
+		for (int w = 0; w < mask.length; w++) {
+			if ((placed[w] & mask[w]) != mask[w]) {
+				failureCountOf2Faces.incrementAndGet();
+				return false;
+			}
 		}
-		failureCountOf2Faces.incrementAndGet();
-		return false;
+		return true;
 	}
 
 	/**
 	 * Test whether the given face can be put at the last position of the
 	 * ordering.
 	 *
-	 * @param alreadyInLocalLayerOrder
-	 *            a boolean array where [i] is whether a face with face ID i has
-	 *            been used in local layer order.
-	 * @param f
-	 *            a face to be tested.
-	 * @return {@code true} if {@code f} satisfies the condition of 3 faces.
+	 * @param placed
+	 *            a bit set of the local indices of the faces which have been
+	 *            used in local layer order.
+	 * @param k
+	 *            local index of a face to be tested.
+	 * @return {@code true} if the face satisfies the condition of 3 faces.
 	 */
-	boolean satisfiesConditionsOf3Faces(
-			final boolean[] alreadyInLocalLayerOrder,
-			final OriFace face) {
-		if (stackConditionsOf3Faces.get(face).stream().anyMatch(cond -> alreadyInLocalLayerOrder[cond.lower()]
-				&& !alreadyInLocalLayerOrder[cond.upper()])) {
-			failureCountOf3Faces.incrementAndGet();
-			return false;
+	boolean satisfiesConditionsOf3Faces(final long[] placed, final int k) {
+		var entries = stackConditionsOf3Faces[k];
+		for (int e = 0; e < entries.length; e += 2) {
+			if (isPlaced(placed, entries[e]) && !isPlaced(placed, entries[e + 1])) {
+				failureCountOf3Faces.incrementAndGet();
+				return false;
+			}
 		}
 
 		return true;
@@ -176,48 +283,30 @@ class StackConditionAggregate {
 	 * Test whether the given face can be put at the last position of the
 	 * ordering.
 	 *
-	 * @param modelFaces
-	 *            all faces of origami model.
-	 * @param alreadyInLocalLayerOrder
-	 *            a boolean array where [i] is whether a face with face ID i has
-	 *            been used in local layer order.
-	 * @param indexOnOrdering
-	 *            a mapping face to index on local layer order.
-	 * @param f
-	 *            a face to be tested.
-	 * @return {@code true} if {@code f} satisfies the condition of 2 faces.
+	 * @param placed
+	 *            a bit set of the local indices of the faces which have been
+	 *            used in local layer order.
+	 * @param positions
+	 *            [i] is the index on local layer order of the face with local
+	 *            index i. Valid only for placed faces.
+	 * @param k
+	 *            local index of a face to be tested.
+	 * @return {@code true} if the face satisfies the condition of 4 faces.
 	 */
-	boolean satisfiesConditionsOf4Faces(
-			final List<OriFace> modelFaces,
-			final boolean[] alreadyInLocalLayerOrder,
-			final Map<OriFace, Integer> indexOnOrdering,
-			final OriFace face) {
+	boolean satisfiesConditionsOf4Faces(final long[] placed, final int[] positions, final int k) {
 		// check condition4
 		// aabb or abba or baab are good, but aba or bab are impossible
 
-		// stack lower2 < lower1, without upper1 being stacked, dont stack
-		// upper2
-		// stack lower1 < lower2, without upper2 being stacked, dont stack
-		// upper1
-
-		if (stackConditionsOf4Faces.get(face).stream().anyMatch(cond -> face.getFaceID() == cond.upper2()
-				&& alreadyInLocalLayerOrder[cond.lower2()]
-				&& alreadyInLocalLayerOrder[cond.lower1()]
-				&& !alreadyInLocalLayerOrder[cond.upper1()]
-				&& indexOnOrdering.get(modelFaces.get(cond.lower2())) < indexOnOrdering
-						.get(modelFaces.get(cond.lower1())))) {
-			failureCountOf4Faces.incrementAndGet();
-			return false;
-		}
-
-		if (stackConditionsOf4Faces.get(face).stream().anyMatch(cond -> face.getFaceID() == cond.upper1()
-				&& alreadyInLocalLayerOrder[cond.lower2()]
-				&& alreadyInLocalLayerOrder[cond.lower1()]
-				&& !alreadyInLocalLayerOrder[cond.upper2()]
-				&& indexOnOrdering.get(modelFaces.get(cond.lower1())) < indexOnOrdering.get(modelFaces
-						.get(cond.lower2())))) {
-			failureCountOf4Faces.incrementAndGet();
-			return false;
+		var entries = stackConditionsOf4Faces[k];
+		for (int e = 0; e < entries.length; e += 3) {
+			var a = entries[e];
+			var b = entries[e + 1];
+			var c = entries[e + 2];
+			if (isPlaced(placed, a) && isPlaced(placed, b) && !isPlaced(placed, c)
+					&& positions[a] < positions[b]) {
+				failureCountOf4Faces.incrementAndGet();
+				return false;
+			}
 		}
 
 		return true;
@@ -225,32 +314,32 @@ class StackConditionAggregate {
 
 	/**
 	 *
-	 * @param face
-	 *            target face.
+	 * @param k
+	 *            local index of target face.
 	 * @return the number of conditions of 2 faces for given face.
 	 */
-	int getCountOfConditionsOf2Faces(final OriFace face) {
-		return stackConditionsOf2Faces.get(face).size();
+	int getCountOfConditionsOf2Faces(final int k) {
+		return countsOf2Faces[k];
 	}
 
-	int getCountOfConditionsOf3Faces(final OriFace face) {
-		return stackConditionsOf3Faces.get(face).size();
+	int getCountOfConditionsOf3Faces(final int k) {
+		return stackConditionsOf3Faces[k].length / 2;
 	}
 
-	int getCountOfConditionsOf4Faces(final OriFace face) {
-		return stackConditionsOf4Faces.get(face).size();
+	int getCountOfConditionsOf4Faces(final int k) {
+		return stackConditionsOf4Faces[k].length / 3;
 	}
 
 	int getAllCountOfConditionsOf2Faces() {
-		return stackConditionsOf2Faces.values().stream().mapToInt(List::size).sum();
+		return Arrays.stream(countsOf2Faces).sum();
 	}
 
 	int getAllCountOfConditionsOf3Faces() {
-		return stackConditionsOf3Faces.values().stream().mapToInt(List::size).sum();
+		return Arrays.stream(stackConditionsOf3Faces).mapToInt(entries -> entries.length / 2).sum();
 	}
 
 	int getAllCountOfConditionsOf4Faces() {
-		return stackConditionsOf4Faces.values().stream().mapToInt(List::size).sum();
+		return Arrays.stream(stackConditionsOf4Faces).mapToInt(entries -> entries.length / 3).sum();
 	}
 
 	int getFailureCountOf2Faces() {
@@ -22,13 +22,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
 
 import oripa.domain.fold.halfedge.OriFace;
 import oripa.domain.fold.origeom.OverlapRelation;
@@ -49,10 +51,8 @@ public class SubFace {
 	private final List<StackConditionOf4Faces> condition4s = new ArrayList<>();
 	private final List<StackConditionOf3Faces> condition3s = new ArrayList<>();
 
-	private List<OriFace> modelFaces;
-
 	private final AtomicInteger callCount = new AtomicInteger(0);
-	private final AtomicInteger successCount = new AtomicInteger(0);
+	private final AtomicLong successCount = new AtomicLong(0);
 
 	private final AtomicInteger failureCountOf2Faces = new AtomicInteger();
 	private final AtomicInteger failureCountOf3Faces = new AtomicInteger();
@@ -74,7 +74,8 @@ public class SubFace {
 	 * to this subface before this method is called.
 	 *
 	 * @param modelFaces
-	 *            all faces of inputted model.
+	 *            all faces of inputted model. The search doesn't refer it since
+	 *            the faces are identified by the index on the parent faces.
 	 * @param overlapRelation
 	 *            overlap relation matrix.
 	 * @param parallel
@@ -84,14 +85,29 @@ public class SubFace {
 	 */
 	public List<List<OriFace>> createLocalLayerOrders(final List<OriFace> modelFaces,
 			final OverlapRelation overlapRelation, final boolean parallel) {
-		return solveLocalLayerOrders(modelFaces, overlapRelation, parallel);
+		return createLocalLayerOrders(modelFaces, overlapRelation, parallel, () -> false);
 	}
 
-	private List<List<OriFace>> solveLocalLayerOrders(final List<OriFace> modelFaces,
-			final OverlapRelation overlapRelation,
-			final boolean parallel) {
+	/**
+	 * Same as {@link #createLocalLayerOrders(List, OverlapRelation, boolean)}
+	 * but gives up the search when {@code isStopped} returns true.
+	 *
+	 * @param isStopped
+	 *            tells whether the search should stop. Once it returns true,
+	 *            it should always return true.
+	 * @return a list of possible local layer orders, which lacks some orders if
+	 *         the search has been stopped. {@code null} if order is uniquely
+	 *         determined by overlap relation.
+	 */
+	public List<List<OriFace>> createLocalLayerOrders(final List<OriFace> modelFaces,
+			final OverlapRelation overlapRelation, final boolean parallel, final BooleanSupplier isStopped) {
+		return solveLocalLayerOrders(overlapRelation, parallel, isStopped);
+	}
 
-		this.modelFaces = modelFaces;
+	private List<List<OriFace>> solveLocalLayerOrders(
+			final OverlapRelation overlapRelation,
+			final boolean parallel,
+			final BooleanSupplier isStopped) {
 
 		// Exit if the order is already settled
 		if (isLocalLayerOrderDeterminedByGlobal(overlapRelation)) {
@@ -102,48 +118,45 @@ public class SubFace {
 		// order is correct on this subface but it can be wrong on other
 		// subfaces.
 		var localLayerOrders = Collections.synchronizedList(new ArrayList<List<OriFace>>());
-		var localLayerOrder = new ArrayList<OriFace>();
-		var alreadyInLocalLayerOrder = new boolean[modelFaces.size()];
-		var indexOnOrdering = new HashMap<OriFace, Integer>();
-		var stackConditionAggregate = new StackConditionAggregate();
 
-		for (int i = 0; i < parentFaces.size(); i++) {
-			localLayerOrder.add(null);
-		}
+		// the faces are identified by the index on parentFaces in the search.
+		var stackConditionAggregate = new StackConditionAggregate(parentFaces);
 
-		stackConditionAggregate.prepareConditionsOf2Faces(parentFaces, overlapRelation);
-		stackConditionAggregate.prepareConditionsOf3Faces(parentFaces, overlapRelation, condition3s);
-		stackConditionAggregate.prepareConditionsOf4Faces(parentFaces, overlapRelation, condition4s);
+		stackConditionAggregate.prepareConditionsOf2Faces(overlapRelation);
+		stackConditionAggregate.prepareConditionsOf3Faces(condition3s);
+		stackConditionAggregate.prepareConditionsOf4Faces(condition4s);
 
-		for (OriFace f : parentFaces) {
-			alreadyInLocalLayerOrder[f.getFaceID()] = false;
-			indexOnOrdering.put(f, -1);
-		}
+		int parentFaceCount = parentFaces.size();
+		var localLayerOrder = new int[parentFaceCount];
+		var positions = new int[parentFaceCount];
+		var placed = stackConditionAggregate.createPlacedSet();
 
 		// Heuristic: a face with many stack conditions of 2 faces should be at
 		// some place with a large index on local layer order.
 		// Trying such face in early stage reduces failures at deep positions of
 		// the search tree.
 		// (earlier failure is better.)
-		var candidateFaces = parentFaces.stream()
+		var candidateFaces = IntStream.range(0, parentFaceCount).boxed()
 				.sorted(Comparator.comparing(stackConditionAggregate::getCountOfConditionsOf2Faces)
 						.thenComparing(stackConditionAggregate::getCountOfConditionsOf3Faces)
 						.thenComparing(stackConditionAggregate::getCountOfConditionsOf4Faces)
 						.reversed())
-				.toList();
+				.mapToInt(Integer::intValue)
+				.toArray();
 
-		var firstFace = candidateFaces.get(0);
+		var firstFace = parentFaces.get(candidateFaces[0]);
 		firstFaceCounts.get(firstFace).incrementAndGet();
 
 		// From the bottom
 		sort(candidateFaces,
 				localLayerOrders,
 				localLayerOrder,
-				alreadyInLocalLayerOrder,
-				indexOnOrdering,
+				placed,
+				positions,
 				stackConditionAggregate,
 				0,
-				parallel);
+				parallel,
+				isStopped);
 
 		failureCountOf2Faces.addAndGet(stackConditionAggregate.getFailureCountOf2Faces());
 		failureCountOf3Faces.addAndGet(stackConditionAggregate.getFailureCountOf3Faces());
@@ -166,84 +179,102 @@ public class SubFace {
 		return true;
 	}
 
+	/**
+	 * Puts the candidate faces one by one on the local layer order. The faces
+	 * are given by the index on {@link #parentFaces}.
+	 *
+	 * @param localLayerOrder
+	 *            [i] is the face at the i-th position.
+	 * @param placed
+	 *            bit set of the faces already in {@code localLayerOrder}.
+	 * @param positions
+	 *            [k] is the position of the face k in {@code localLayerOrder}.
+	 */
 	private void sort(
-			final List<OriFace> candidateFaces,
+			final int[] candidateFaces,
 			final List<List<OriFace>> localLayerOrders,
-			final List<OriFace> localLayerOrder,
-			final boolean[] alreadyInLocalLayerOrder,
-			final Map<OriFace, Integer> indexOnOrdering,
+			final int[] localLayerOrder,
+			final long[] placed,
+			final int[] positions,
 			final StackConditionAggregate stackConditionAggregate,
 			final int index,
-			final boolean parallel) {
+			final boolean parallel,
+			final BooleanSupplier isStopped) {
+
+		if (isStopped.getAsBoolean()) {
+			return;
+		}
 
 		if (index == parentFaces.size()) {
-			var ans = new ArrayList<>(localLayerOrder);
+			var ans = new ArrayList<OriFace>(localLayerOrder.length);
+			for (int k : localLayerOrder) {
+				ans.add(parentFaces.get(k));
+			}
 			localLayerOrders.add(ans);
 			return;
 		}
 
-		var facesToBePut = candidateFaces.stream()
-				.filter(f -> !alreadyInLocalLayerOrder[f.getFaceID()])
-				.toList();
-		var facesToBePutStream = facesToBePut.stream();
-
 		// Avoids overhead of insane parallelization.
 		final int PARALLELIZATION_LOWER_BOUND = 8;
-		boolean doParallel = parallel && facesToBePut.size() > PARALLELIZATION_LOWER_BOUND;
+		boolean doParallel = parallel && parentFaces.size() - index > PARALLELIZATION_LOWER_BOUND;
+
 		if (doParallel) {
-			facesToBePutStream = facesToBePutStream.parallel();
+			IntStream.of(candidateFaces).parallel()
+					.filter(k -> !StackConditionAggregate.isPlaced(placed, k))
+					.filter(k -> satisfiesConditions(stackConditionAggregate, placed, positions, k))
+					.forEach(k -> {
+						var nextLocalLayerOrder = localLayerOrder.clone();
+						var nextPlaced = placed.clone();
+						var nextPositions = positions.clone();
+
+						nextLocalLayerOrder[index] = k;
+						StackConditionAggregate.place(nextPlaced, k);
+						nextPositions[k] = index;
+
+						sort(candidateFaces,
+								localLayerOrders,
+								nextLocalLayerOrder,
+								nextPlaced,
+								nextPositions,
+								stackConditionAggregate,
+								index + 1,
+								parallel,
+								isStopped);
+					});
+			return;
 		}
 
-		facesToBePutStream.forEach(f -> {
-			if (!stackConditionAggregate.satisfiesConditionsOf2Faces(alreadyInLocalLayerOrder, f)) {
-				return;
+		for (int k : candidateFaces) {
+			if (StackConditionAggregate.isPlaced(placed, k)) {
+				continue;
 			}
-
-			if (!stackConditionAggregate.satisfiesConditionsOf3Faces(alreadyInLocalLayerOrder, f)) {
-				return;
+			if (!satisfiesConditions(stackConditionAggregate, placed, positions, k)) {
+				continue;
 			}
 
-			if (!stackConditionAggregate.satisfiesConditionsOf4Faces(modelFaces, alreadyInLocalLayerOrder,
-					indexOnOrdering, f)) {
-				return;
-			}
+			localLayerOrder[index] = k;
+			StackConditionAggregate.place(placed, k);
+			positions[k] = index;
+
+			sort(candidateFaces,
+					localLayerOrders,
+					localLayerOrder,
+					placed,
+					positions,
+					stackConditionAggregate,
+					index + 1,
+					parallel,
+					isStopped);
+
+			StackConditionAggregate.remove(placed, k);
+		}
+	}
 
-			if (doParallel) {
-				var nextLocalLayerOrder = new ArrayList<OriFace>(localLayerOrder);
-				var nextAlreadyInLocalLayerOrder = alreadyInLocalLayerOrder.clone();
-				var nextIndexOnOrdering = new HashMap<OriFace, Integer>(indexOnOrdering);
-
-				nextLocalLayerOrder.set(index, f);
-				nextAlreadyInLocalLayerOrder[f.getFaceID()] = true;
-				nextIndexOnOrdering.put(f, index);
-
-				sort(facesToBePut,
-						localLayerOrders,
-						nextLocalLayerOrder,
-						nextAlreadyInLocalLayerOrder,
-						nextIndexOnOrdering,
-						stackConditionAggregate,
-						index + 1,
-						parallel);
-			} else {
-				localLayerOrder.set(index, f);
-				alreadyInLocalLayerOrder[f.getFaceID()] = true;
-				indexOnOrdering.put(f, index);
-
-				sort(facesToBePut,
-						localLayerOrders,
-						localLayerOrder,
-						alreadyInLocalLayerOrder,
-						indexOnOrdering,
-						stackConditionAggregate,
-						index + 1,
-						parallel);
-
-				alreadyInLocalLayerOrder[localLayerOrder.get(index).getFaceID()] = false;
-				indexOnOrdering.put(localLayerOrder.get(index), -1);
-				localLayerOrder.set(index, null);
-			}
-		});
+	private boolean satisfiesConditions(final StackConditionAggregate stackConditionAggregate,
+			final long[] placed, final int[] positions, final int k) {
+		return stackConditionAggregate.satisfiesConditionsOf2Faces(placed, k)
+				&& stackConditionAggregate.satisfiesConditionsOf3Faces(placed, k)
+				&& stackConditionAggregate.satisfiesConditionsOf4Faces(placed, positions, k);
 	}
 
 	/**
@@ -337,44 +368,45 @@ public class SubFace {
 		return successCount.doubleValue() / callCount.doubleValue();
 	}
 
-	public int getSuccessCount() {
+	public long getSuccessCount() {
 		return successCount.get();
 	}
 
-	public void addSuccessCount(final int value) {
+	public void addSuccessCount(final long value) {
 		successCount.addAndGet(value);
 	}
 
 	public int getAllCountOfConditionsOf2Faces(final OverlapRelation overlapRelation) {
-		var stackConditionAggregate = new StackConditionAggregate();
+		var stackConditionAggregate = new StackConditionAggregate(parentFaces);
 
-		stackConditionAggregate.prepareConditionsOf2Faces(parentFaces, overlapRelation);
+		stackConditionAggregate.prepareConditionsOf2Faces(overlapRelation);
 
 		return stackConditionAggregate.getAllCountOfConditionsOf2Faces();
 	}
 
 	public int getAllCountOfConditionsOf3Faces(final OverlapRelation overlapRelation) {
-		var stackConditionAggregate = new StackConditionAggregate();
+		var stackConditionAggregate = new StackConditionAggregate(parentFaces);
 
-		stackConditionAggregate.prepareConditionsOf3Faces(parentFaces, overlapRelation, condition3s);
+		stackConditionAggregate.prepareConditionsOf3Faces(condition3s);
 
 		return stackConditionAggregate.getAllCountOfConditionsOf3Faces();
 	}
 
 	public int getAllCountOfConditionsOf4Faces(final OverlapRelation overlapRelation) {
-		var stackConditionAggregate = new StackConditionAggregate();
+		var stackConditionAggregate = new StackConditionAggregate(parentFaces);
 
-		stackConditionAggregate.prepareConditionsOf4Faces(parentFaces, overlapRelation, condition4s);
+		stackConditionAggregate.prepareConditionsOf4Faces(condition4s);
 
 		return stackConditionAggregate.getAllCountOfConditionsOf4Faces();
 	}
 
 	public int getCountOfConditionsOf2Faces(final OriFace face, final OverlapRelation overlapRelation) {
-		var stackConditionAggregate = new StackConditionAggregate();
+		var stackConditionAggregate = new StackConditionAggregate(parentFaces);
 
-		stackConditionAggregate.prepareConditionsOf2Faces(parentFaces, overlapRelation);
+		stackConditionAggregate.prepareConditionsOf2Faces(overlapRelation);
 
-		return stackConditionAggregate.getCountOfConditionsOf2Faces(face);
+		return stackConditionAggregate.getCountOfConditionsOf2Faces(
+				stackConditionAggregate.toLocalIndex(face.getFaceID()));
 	}
 
 	public int getFailureCountOf2Faces() {
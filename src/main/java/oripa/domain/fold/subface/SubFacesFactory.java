@@ -91,10 +91,11 @@ public class SubFacesFactory {
 
 		// Stores the face reference of given crease pattern into the subface
 		// that is contained in the face.
-		int i = 0;
-		for (SubFace sub : subfaces) {
-			sub.addParentFaces(parentCollector.collect(faces, sub, eps));
-			logger.trace("{} {} #parentFace={}", i++, sub.getOutline(), sub.getParentFaceCount());
+		var parentFacesOfEachSubface = parentCollector.collect(faces, subfaces, eps);
+		for (int i = 0; i < subfaces.size(); i++) {
+			var sub = subfaces.get(i);
+			sub.addParentFaces(parentFacesOfEachSubface.get(i));
+			logger.trace("{} {} #parentFace={}", i, sub.getOutline(), sub.getParentFaceCount());
 		}
 
 		// extract distinct subfaces by comparing face list's items.
@@ -18,65 +18,127 @@
  */
 package oripa.domain.paint;
 
-import java.util.Collection;
-
-import oripa.util.history.AbstractUndoManager;
-import oripa.value.OriLine;
+import oripa.domain.paint.history.CreasePatternDelta;
+import oripa.domain.paint.history.CreasePatternSnapshot;
+import oripa.util.history.DeltaUndoManager;
 
 /**
+ * Records the differences of crease pattern instead of the whole crease
+ * pattern. {@link #pushUndoInfo()} is called before each change, so the delta
+ * of a change is recorded at the next push, undo or redo by comparing the crease
+ * pattern with the snapshot at the last record.
+ *
  * @author Koji
  *
  */
 public class CreasePatternUndoerImpl implements CreasePatternUndoer {
-	private final AbstractUndoManager<Collection<OriLine>> undoManager = new CreasePatternUndoManager();
+	public static final int DEFAULT_MAX_STEP_COUNT = 1000;
+	public static final long DEFAULT_MAX_LINE_COUNT = 1_000_000;
+
+	private final DeltaUndoManager<CreasePatternDelta> undoManager;
 
 	private final CreasePatternHolder owner;
 
+	private CreasePatternSnapshot snapshot;
+	private boolean recordPending = false;
+	private boolean changed = false;
+
 	public CreasePatternUndoerImpl(final CreasePatternHolder aOwner) {
+		this(aOwner, DEFAULT_MAX_STEP_COUNT, DEFAULT_MAX_LINE_COUNT);
+	}
+
+	/**
+	 *
+	 * @param aOwner
+	 *            holder of the crease pattern to be edited.
+	 * @param maxStepCount
+	 *            max number of changes in the history.
+	 * @param maxLineCount
+	 *            max number of lines held by the history in total.
+	 */
+	public CreasePatternUndoerImpl(final CreasePatternHolder aOwner, final int maxStepCount,
+			final long maxLineCount) {
 		owner = aOwner;
+		undoManager = new DeltaUndoManager<>(maxStepCount, maxLineCount, CreasePatternDelta::lineCount);
+	}
+
+	/**
+	 * Records the change since the last push as a step of history even if
+	 * nothing is changed, as the push of the whole crease pattern did. The
+	 * change without push, such as reset of line selection on switching the
+	 * action, is not a step and only the snapshot follows it.
+	 */
+	private void record() {
+		var creasePattern = owner.getCreasePattern();
+
+		if (snapshot == null) {
+			snapshot = new CreasePatternSnapshot(creasePattern);
+			return;
+		}
+
+		var delta = snapshot.update(creasePattern);
+		if (recordPending) {
+			undoManager.push(delta);
+			recordPending = false;
+		}
 	}
 
 	@Override
 	public synchronized void pushUndoInfo() {
-		undoManager.push(owner.getCreasePattern());
+		record();
+		undoManager.discardRedo();
+
+		recordPending = true;
+		changed = true;
 	}
 
 	@Override
 	public synchronized void undo() {
-		var infoOpt = undoManager.undo(owner.getCreasePattern());
+		record();
 
-		infoOpt.ifPresent(info -> owner.getCreasePattern().replaceWith(info.getInfo()));
+		undoManager.undo().ifPresent(delta -> {
+			delta.undo(owner.getCreasePattern());
+			snapshot.undo(delta);
+			changed = true;
+		});
 	}
 
 	@Override
-	public boolean canUndo() {
-		return undoManager.canUndo();
+	public synchronized boolean canUndo() {
+		return recordPending || undoManager.canUndo();
 	}
 
 	@Override
 	public synchronized void redo() {
-		var infoOpt = undoManager.redo();
+		record();
 
-		infoOpt.ifPresent(info -> owner.getCreasePattern().replaceWith(info.getInfo()));
+		undoManager.redo().ifPresent(delta -> {
+			delta.redo(owner.getCreasePattern());
+			snapshot.redo(delta);
+			changed = true;
+		});
 	}
 
 	@Override
-	public boolean canRedo() {
+	public synchronized boolean canRedo() {
 		return undoManager.canRedo();
 	}
 
 	@Override
 	public boolean changeExists() {
-		return undoManager.isChanged();
+		return changed;
 	}
 
 	@Override
 	public void clearChanged() {
-		undoManager.clearChanged();
+		changed = false;
 	}
 
 	@Override
-	public void clear() {
+	public synchronized void clear() {
 		undoManager.clear();
+		snapshot = null;
+		recordPending = false;
+		changed = false;
 	}
 }
@@ -0,0 +1,114 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.paint.history;
+
+import java.util.Collection;
+import java.util.List;
+
+import oripa.value.OriLine;
+
+/**
+ * Difference between two states of a crease pattern. The lines are copies so
+ * that the later changes of the crease pattern do not affect the delta. The
+ * selection of a line is treated as a part of the state since the line
+ * selection is recorded in the undo history.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class CreasePatternDelta {
+	private final List<OriLine> addedLines;
+	private final List<OriLine> removedLines;
+	private final List<OriLine> reselectedLines;
+
+	/**
+	 *
+	 * @param addedLines
+	 *            lines which exist only in the new state.
+	 * @param removedLines
+	 *            lines which exist only in the old state.
+	 * @param reselectedLines
+	 *            lines whose selection is flipped. Each line holds the
+	 *            selection in the old state.
+	 */
+	CreasePatternDelta(final List<OriLine> addedLines, final List<OriLine> removedLines,
+			final List<OriLine> reselectedLines) {
+		this.addedLines = List.copyOf(addedLines);
+		this.removedLines = List.copyOf(removedLines);
+		this.reselectedLines = List.copyOf(reselectedLines);
+	}
+
+	/**
+	 * Converts the given lines in the new state to the old state.
+	 *
+	 * @param lines
+	 *            crease pattern to be modified.
+	 */
+	public void undo(final Collection<OriLine> lines) {
+		lines.removeAll(addedLines);
+		removedLines.forEach(line -> lines.add(new OriLine(line)));
+		reselectedLines.forEach(line -> reselect(lines, line, line.isSelected()));
+	}
+
+	/**
+	 * Converts the given lines in the old state to the new state.
+	 *
+	 * @param lines
+	 *            crease pattern to be modified.
+	 */
+	public void redo(final Collection<OriLine> lines) {
+		lines.removeAll(removedLines);
+		addedLines.forEach(line -> lines.add(new OriLine(line)));
+		reselectedLines.forEach(line -> reselect(lines, line, !line.isSelected()));
+	}
+
+	private void reselect(final Collection<OriLine> lines, final OriLine line, final boolean selected) {
+		var copy = new OriLine(line);
+		copy.setSelected(selected);
+
+		// the line in the crease pattern is replaced since the collection
+		// offers no way to get the line instance equal to the given one.
+		lines.remove(copy);
+		lines.add(copy);
+	}
+
+	List<OriLine> getAddedLines() {
+		return addedLines;
+	}
+
+	List<OriLine> getRemovedLines() {
+		return removedLines;
+	}
+
+	List<OriLine> getReselectedLines() {
+		return reselectedLines;
+	}
+
+	/**
+	 * @return the number of lines held by this delta, which is used as the
+	 *         memory size of the delta.
+	 */
+	public int lineCount() {
+		return addedLines.size() + removedLines.size() + reselectedLines.size();
+	}
+
+	public boolean isEmpty() {
+		return lineCount() == 0;
+	}
+}
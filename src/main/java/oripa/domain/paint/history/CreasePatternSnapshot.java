@@ -0,0 +1,101 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.paint.history;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import oripa.value.OriLine;
+
+/**
+ * Selection of each line in the crease pattern at the last time the history
+ * was recorded. The lines are compared with this snapshot to compute the
+ * delta, and this snapshot follows the crease pattern through the deltas
+ * without copying the whole crease pattern again.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class CreasePatternSnapshot {
+	private final Map<OriLine, Boolean> selections = new HashMap<>();
+
+	public CreasePatternSnapshot(final Collection<OriLine> lines) {
+		lines.forEach(line -> selections.put(new OriLine(line), line.isSelected()));
+	}
+
+	/**
+	 * Computes the difference from this snapshot to the given lines and updates
+	 * this snapshot to the given lines.
+	 *
+	 * @param lines
+	 *            current crease pattern.
+	 * @return difference from this snapshot to the given lines.
+	 */
+	public CreasePatternDelta update(final Collection<OriLine> lines) {
+		var addedLines = new ArrayList<OriLine>();
+		var reselectedLines = new ArrayList<OriLine>();
+
+		for (var line : lines) {
+			var selected = selections.get(line);
+			if (selected == null) {
+				addedLines.add(new OriLine(line));
+			} else if (selected != line.isSelected()) {
+				var copy = new OriLine(line);
+				copy.setSelected(selected);
+				reselectedLines.add(copy);
+			}
+		}
+
+		var removedLines = new ArrayList<OriLine>();
+		if (lines.size() - addedLines.size() != selections.size()) {
+			selections.forEach((line, selected) -> {
+				if (!lines.contains(line)) {
+					var copy = new OriLine(line);
+					copy.setSelected(selected);
+					removedLines.add(copy);
+				}
+			});
+		}
+
+		var delta = new CreasePatternDelta(addedLines, removedLines, reselectedLines);
+		redo(delta);
+
+		return delta;
+	}
+
+	/**
+	 * Moves this snapshot to the old state of the given delta.
+	 */
+	public void undo(final CreasePatternDelta delta) {
+		delta.getAddedLines().forEach(selections::remove);
+		delta.getRemovedLines().forEach(line -> selections.put(line, line.isSelected()));
+		delta.getReselectedLines().forEach(line -> selections.put(line, line.isSelected()));
+	}
+
+	/**
+	 * Moves this snapshot to the new state of the given delta.
+	 */
+	public void redo(final CreasePatternDelta delta) {
+		delta.getRemovedLines().forEach(selections::remove);
+		delta.getAddedLines().forEach(line -> selections.put(line, line.isSelected()));
+		delta.getReselectedLines().forEach(line -> selections.put(line, !line.isSelected()));
+	}
+}
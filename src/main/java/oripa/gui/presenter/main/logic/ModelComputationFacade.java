@@ -33,7 +33,6 @@ import oripa.domain.fold.EstimationResultRules;
 import oripa.domain.fold.FoldedModel;
 import oripa.domain.fold.Folder;
 import oripa.domain.fold.Folder.EstimationType;
-import oripa.domain.fold.FolderFactory;
 import oripa.domain.fold.TestedOrigamiModelFactory;
 import oripa.domain.fold.halfedge.OriVertex;
 import oripa.domain.fold.halfedge.OrigamiModel;
@@ -151,7 +150,7 @@ public class ModelComputationFacade {
 	}
 
 	private final TestedOrigamiModelFactory modelFactory;
-	private final FolderFactory folderFactory;
+	private final Folder folder;
 
 	private final Supplier<Boolean> needCleaningUpDuplication;
 	private final Runnable showCleaningUpMessage;
@@ -161,13 +160,13 @@ public class ModelComputationFacade {
 
 	public ModelComputationFacade(
 			final TestedOrigamiModelFactory modelFactory,
-			final FolderFactory folderFactory,
+			final Folder folder,
 			final Supplier<Boolean> needCleaningUpDuplication,
 			final Runnable showCleaningUpMessage,
 			final Runnable showFailureMessage,
 			final double eps) {
 		this.modelFactory = modelFactory;
-		this.folderFactory = folderFactory;
+		this.folder = folder;
 
 		this.needCleaningUpDuplication = needCleaningUpDuplication;
 		this.showCleaningUpMessage = showCleaningUpMessage;
@@ -189,10 +188,8 @@ public class ModelComputationFacade {
 			final ComputationType type) {
 
 		var foldResults = origamiModels.stream()
-				.map(model -> folderFactory
-						.create(model.getModelType())
-						.fold(model, determineEps(model, eps),
-								type.toEstimationType()))
+				.map(model -> folder.fold(model, determineEps(model, eps),
+						type.toEstimationType()))
 				.toList();
 
 		var foldedModels = foldResults.stream().map(Folder.Result::foldedModel).toList();
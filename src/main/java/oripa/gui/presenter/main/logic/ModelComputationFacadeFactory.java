@@ -19,6 +19,7 @@
 package oripa.gui.presenter.main.logic;
 
 import jakarta.inject.Inject;
+import oripa.domain.fold.Folder;
 import oripa.domain.fold.FolderFactory;
 import oripa.domain.fold.TestedOrigamiModelFactory;
 import oripa.gui.view.main.UIPanelView;
@@ -29,13 +30,14 @@ import oripa.gui.view.main.UIPanelView;
  */
 public class ModelComputationFacadeFactory {
 	private final TestedOrigamiModelFactory modelFactory;
-	private final FolderFactory folderFactory;
+	// reuses the geometry of the model while the crease pattern is edited.
+	private final Folder folder;
 
 	@Inject
 	public ModelComputationFacadeFactory(final TestedOrigamiModelFactory modelFactory,
 			final FolderFactory folderFactory) {
 		this.modelFactory = modelFactory;
-		this.folderFactory = folderFactory;
+		this.folder = folderFactory.createIncremental();
 	}
 
 	public ModelComputationFacade createModelComputationFacade(
@@ -43,7 +45,7 @@ public class ModelComputationFacadeFactory {
 			final double eps) {
 		return new ModelComputationFacade(
 				modelFactory,
-				folderFactory,
+				folder,
 				// ask if ORIPA should try to remove duplication.
 				view::showCleaningUpDuplicationDialog,
 				// clean up the crease pattern
@@ -18,13 +18,13 @@
 
 package oripa.persistence.doc.exporter;
 
-import java.beans.XMLEncoder;
 import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
 import oripa.DataSet;
 import oripa.persistence.doc.Doc;
+import oripa.persistence.xml.DataSetStreamWriter;
 
 public class ExporterXML implements DocExporter {
 
@@ -33,9 +33,8 @@ public class ExporterXML implements DocExporter {
 		DataSet dataset = new DataSet(doc);
 
 		try (var fos = new FileOutputStream(filePath);
-				var bos = new BufferedOutputStream(fos);
-				var enc = new XMLEncoder(bos);) {
-			enc.writeObject(dataset);
+				var bos = new BufferedOutputStream(fos);) {
+			new DataSetStreamWriter().write(dataset, bos);
 		}
 
 		return true;
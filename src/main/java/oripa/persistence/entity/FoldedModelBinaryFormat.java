@@ -0,0 +1,70 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity;
+
+/**
+ * Layout of the binary file of folded model. All numbers are little endian.
+ *
+ * <pre>
+ * header (64 bytes):
+ *   int  magic, int version, int face count, int folded state count,
+ *   long model offset, long model length, long table offset, reserved.
+ * records (each starts at a multiple of 8):
+ *   int type, int count, payload.
+ *   FULL:      count = the number of words, payload = long[count] of the
+ *              packed upper triangle of overlap relation.
+ *   DELTA:     count = the number of changed words, payload = int[count]
+ *              word indices (padded to a multiple of 8 bytes) and long[count]
+ *              XOR of the words against the previous folded state.
+ *   REFERENCE: count = the index of the same folded state written before.
+ * model: the key frame of FOLD format as UTF-8 JSON without face orders.
+ * table: long[folded state count] of the record offsets.
+ * </pre>
+ *
+ * The packed upper triangle is the one of
+ * {@link oripa.domain.fold.origeom.OverlapRelation#toPackedUpperTriangle()}.
+ * Model and table are written after the records so that the folded states
+ * can be written as soon as they are found.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public final class FoldedModelBinaryFormat {
+	public static final String EXTENSION = "ofb";
+
+	public static final int MAGIC = 0x4D42464F; // "OFBM"
+	public static final int VERSION = 1;
+
+	public static final int HEADER_LENGTH = 64;
+	public static final int RECORD_HEADER_LENGTH = 8;
+
+	public static final int FULL = 0;
+	public static final int DELTA = 1;
+	public static final int REFERENCE = 2;
+
+	/**
+	 * @return {@code length} rounded up to a multiple of 8.
+	 */
+	public static long align(final long length) {
+		return (length + 7) & ~7L;
+	}
+
+	private FoldedModelBinaryFormat() {
+	}
+}
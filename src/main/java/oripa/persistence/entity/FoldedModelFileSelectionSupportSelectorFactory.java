@@ -70,6 +70,12 @@ public class FoldedModelFileSelectionSupportSelectorFactory {
 				key,
 				accessSupportFactory.createFileAccessSupport(key, StringID.ModelUI.FILE_ID, " (all)"));
 
+		key = FoldedModelFileTypeKey.BINARY_ALL_OVERLAPS;
+		put(
+				supports,
+				key,
+				accessSupportFactory.createFileAccessSupport(key, StringID.ModelUI.FILE_ID, " (all, binary)"));
+
 		if (modelFlip) {
 			key = FoldedModelFileTypeKey.SVG_FOLDED_MODEL_FLIP;
 			put(
@@ -19,10 +19,12 @@
 package oripa.persistence.entity;
 
 import oripa.persistence.entity.exporter.ExporterORmat;
+import oripa.persistence.entity.exporter.FoldedModelAllExporterBinary;
 import oripa.persistence.entity.exporter.FoldedModelAllExporterFOLD;
 import oripa.persistence.entity.exporter.FoldedModelExporterSVG;
 import oripa.persistence.entity.exporter.FoldedModelPictureExporter;
 import oripa.persistence.entity.exporter.FoldedModelSingleExporterFOLD;
+import oripa.persistence.entity.loader.FoldedModelLoaderBinary;
 import oripa.persistence.filetool.Exporter;
 import oripa.persistence.filetool.FileTypePropertyWithAccessor;
 import oripa.persistence.filetool.Loader;
@@ -37,7 +39,9 @@ enum FoldedModelFileTypeKey implements FileTypePropertyWithAccessor<FoldedModelE
 	PICTURE("picture", 2, null, new FoldedModelPictureExporter(), "png", "jpg"),
 	ORMAT_FOLDED_MODEL("ormat", 3, null, new ExporterORmat(), "ormat"),
 	FOLD_SINGLE_OVERLAPS("fold_single_overlaps", 4, null, new FoldedModelSingleExporterFOLD(), "fold"),
-	FOLD_ALL_OVERLAPS("fold_all_overlaps", 5, null, new FoldedModelAllExporterFOLD(), "fold");
+	FOLD_ALL_OVERLAPS("fold_all_overlaps", 5, null, new FoldedModelAllExporterFOLD(), "fold"),
+	BINARY_ALL_OVERLAPS("binary_all_overlaps", 6, new FoldedModelLoaderBinary(), new FoldedModelAllExporterBinary(),
+			FoldedModelBinaryFormat.EXTENSION);
 
 	private final String keyText;
 	private final Integer order;
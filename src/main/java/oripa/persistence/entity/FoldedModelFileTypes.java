@@ -49,4 +49,7 @@ public class FoldedModelFileTypes {
 		return new FileType<>(FoldedModelFileTypeKey.FOLD_ALL_OVERLAPS);
 	}
 
+	public static FileType<FoldedModelEntity> binary() {
+		return new FileType<>(FoldedModelFileTypeKey.BINARY_ALL_OVERLAPS);
+	}
 }
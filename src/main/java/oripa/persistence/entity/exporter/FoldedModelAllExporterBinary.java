@@ -0,0 +1,54 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+import java.io.IOException;
+
+import oripa.persistence.entity.FoldedModelEntity;
+import oripa.persistence.filetool.Exporter;
+
+/**
+ * Exports all folded states as a binary file through
+ * {@link FoldedModelStreamWriterBinary}.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelAllExporterBinary implements Exporter<FoldedModelEntity> {
+
+	/**
+	 * @param configObj
+	 *            {@link FoldedModelBinaryConfig} or null for writing every
+	 *            folded state as it is.
+	 */
+	@Override
+	public boolean export(final FoldedModelEntity entity, final String filePath, final Object configObj)
+			throws IOException, IllegalArgumentException {
+		var config = configObj == null ? new FoldedModelBinaryConfig() : (FoldedModelBinaryConfig) configObj;
+
+		try (var writer = new FoldedModelStreamWriterBinary(entity.getOrigamiModel(), filePath, config)) {
+			for (var overlapRelation : entity.getOverlapRelations()) {
+				writer.write(overlapRelation);
+			}
+		}
+
+		return true;
+	}
+
+}
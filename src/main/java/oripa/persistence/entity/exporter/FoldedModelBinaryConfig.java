@@ -0,0 +1,80 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+/**
+ * Output options of binary file of folded model.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelBinaryConfig {
+	public static final int DEFAULT_KEY_STATE_INTERVAL = 32;
+
+	private boolean dedup = false;
+	private boolean delta = false;
+	private int keyStateInterval = DEFAULT_KEY_STATE_INTERVAL;
+
+	public boolean isDedup() {
+		return dedup;
+	}
+
+	/**
+	 *
+	 * @param dedup
+	 *            true if a folded state same as one written before should be
+	 *            written as a reference to it.
+	 */
+	public void setDedup(final boolean dedup) {
+		this.dedup = dedup;
+	}
+
+	public boolean isDelta() {
+		return delta;
+	}
+
+	/**
+	 *
+	 * @param delta
+	 *            true if a folded state should be written as the difference
+	 *            from the previous one when it is smaller.
+	 */
+	public void setDelta(final boolean delta) {
+		this.delta = delta;
+	}
+
+	public int getKeyStateInterval() {
+		return keyStateInterval;
+	}
+
+	/**
+	 *
+	 * @param keyStateInterval
+	 *            the maximum number of the records based on other records in
+	 *            a decoding chain, which consists of differences and
+	 *            references. Reading a folded state decodes at most this
+	 *            number of the other records.
+	 */
+	public void setKeyStateInterval(final int keyStateInterval) {
+		if (keyStateInterval < 1) {
+			throw new IllegalArgumentException("key state interval should be positive.");
+		}
+		this.keyStateInterval = keyStateInterval;
+	}
+}
@@ -16,32 +16,42 @@
     You should have received a copy of the GNU General Public License
     along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-package oripa.persistence.xml;
+package oripa.persistence.entity.exporter;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-public class TypedXPath {
-	private final XPath xpath;
+/**
+ * Output options of multiple frame FOLD file.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelFOLDConfig {
+	private boolean compact = false;
+	private boolean gzip = false;
 
-	public TypedXPath() {
-		this(XPathFactory.newInstance().newXPath());
+	public boolean isCompact() {
+		return compact;
 	}
 
-	public TypedXPath(final XPath xpath) {
-		this.xpath = xpath;
+	/**
+	 *
+	 * @param compact
+	 *            true if the JSON should be written without indents and line
+	 *            breaks.
+	 */
+	public void setCompact(final boolean compact) {
+		this.compact = compact;
 	}
 
-	public Node evaluateAsNode(final String expression, final Node node) throws XPathExpressionException {
-		return (Node) xpath.evaluate(expression, node, XPathConstants.NODE);
+	public boolean isGzip() {
+		return gzip;
 	}
 
-	public NodeList evaluateAsNodeList(final String expression, final Node node) throws XPathExpressionException {
-		return (NodeList) xpath.evaluate(expression, node, XPathConstants.NODESET);
+	/**
+	 *
+	 * @param gzip
+	 *            true if the output should be compressed by gzip.
+	 */
+	public void setGzip(final boolean gzip) {
+		this.gzip = gzip;
 	}
-}
\ No newline at end of file
+}
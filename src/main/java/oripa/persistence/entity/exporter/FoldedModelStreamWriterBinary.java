@@ -0,0 +1,303 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+import static oripa.persistence.entity.FoldedModelBinaryFormat.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.entity.FoldedModelBinaryFormat;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+
+/**
+ * Writes the folded states in the binary format described at
+ * {@link FoldedModelBinaryFormat}. Each overlap relation is written as its
+ * packed upper triangle as soon as it is given. The origami model and the
+ * table of the records are written at {@link #close()}.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelStreamWriterBinary implements FoldedModelStreamWriter {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final OrigamiModel origamiModel;
+	private final FoldedModelBinaryConfig config;
+	private final FileChannel channel;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private long position = HEADER_LENGTH;
+	private long flushedPosition = HEADER_LENGTH;
+
+	private long[] recordOffsets = new long[1024];
+	// number of the other records read to decode each record.
+	private int[] decodeDepths = new int[1024];
+	private int frameCount = 0;
+	private int faceCount = -1;
+
+	private long[] previous;
+
+	private final MessageDigest digest;
+	private final Map<ByteBuffer, Integer> writtenStates = new HashMap<>();
+
+	private boolean closed = false;
+
+	/**
+	 *
+	 * @param origamiModel
+	 *            the model to be folded. The overlap relations to be written
+	 *            should be of this model.
+	 * @param filePath
+	 *            output path.
+	 * @param config
+	 *            output options.
+	 * @throws IOException
+	 */
+	public FoldedModelStreamWriterBinary(final OrigamiModel origamiModel, final String filePath,
+			final FoldedModelBinaryConfig config) throws IOException {
+		this.origamiModel = origamiModel;
+		this.config = config;
+
+		try {
+			digest = config.isDedup() ? MessageDigest.getInstance("SHA-256") : null;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		channel = FileChannel.open(Path.of(filePath),
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	@Override
+	public void write(final OverlapRelation overlapRelation) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("already closed.");
+		}
+
+		if (faceCount < 0) {
+			faceCount = overlapRelation.getSize();
+		} else if (faceCount != overlapRelation.getSize()) {
+			throw new IllegalArgumentException("overlap relation should be of the same model.");
+		}
+
+		var packed = overlapRelation.toPackedUpperTriangle();
+
+		if (frameCount == recordOffsets.length) {
+			recordOffsets = Arrays.copyOf(recordOffsets, frameCount * 2);
+			decodeDepths = Arrays.copyOf(decodeDepths, frameCount * 2);
+		}
+		recordOffsets[frameCount] = position;
+
+		writeRecord(packed);
+
+		previous = packed;
+		frameCount++;
+	}
+
+	/**
+	 * Writes a reference or a delta if the decode depth of the record doesn't
+	 * exceed the key state interval. Otherwise writes a full record. The depth
+	 * of a reference or a delta is the depth of the record it is based on plus
+	 * one, which bounds the decoding chain even if they are mixed.
+	 */
+	private void writeRecord(final long[] packed) throws IOException {
+		var interval = config.getKeyStateInterval();
+
+		ByteBuffer key = null;
+		if (digest != null) {
+			key = ByteBuffer.wrap(digest.digest(toBytes(packed)));
+			var sameState = writtenStates.get(key);
+			if (sameState != null && decodeDepths[sameState] < interval) {
+				writeReference(sameState);
+				return;
+			}
+		}
+
+		writeDeltaOrFull(packed, interval);
+
+		if (key != null) {
+			// the latest one is not deeper than the interval.
+			writtenStates.put(key, frameCount);
+		}
+	}
+
+	private void writeDeltaOrFull(final long[] packed, final int interval) throws IOException {
+		if (config.isDelta() && previous != null && decodeDepths[frameCount - 1] < interval) {
+			var changedCount = countChangedWords(packed);
+			// index and word of delta are 12 bytes while a word of full
+			// record is 8 bytes.
+			if (align(changedCount * 4L) + changedCount * 8L < packed.length * 8L) {
+				writeDelta(packed, changedCount);
+				return;
+			}
+		}
+
+		writeFull(packed);
+	}
+
+	private byte[] toBytes(final long[] packed) {
+		var bytes = ByteBuffer.allocate(packed.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.asLongBuffer().put(packed);
+		return bytes.array();
+	}
+
+	private int countChangedWords(final long[] packed) {
+		int count = 0;
+		for (int k = 0; k < packed.length; k++) {
+			if (packed[k] != previous[k]) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void writeFull(final long[] packed) throws IOException {
+		ensureRemaining(RECORD_HEADER_LENGTH + packed.length * 8);
+
+		buffer.putInt(FULL);
+		buffer.putInt(packed.length);
+		for (var word : packed) {
+			buffer.putLong(word);
+		}
+		position += RECORD_HEADER_LENGTH + packed.length * 8L;
+
+		decodeDepths[frameCount] = 0;
+	}
+
+	private void writeDelta(final long[] packed, final int changedCount) throws IOException {
+		var indicesLength = (int) align(changedCount * 4L);
+		ensureRemaining(RECORD_HEADER_LENGTH + indicesLength + changedCount * 8);
+
+		buffer.putInt(DELTA);
+		buffer.putInt(changedCount);
+		for (int k = 0; k < packed.length; k++) {
+			if (packed[k] != previous[k]) {
+				buffer.putInt(k);
+			}
+		}
+		if (changedCount % 2 == 1) {
+			buffer.putInt(0);
+		}
+		for (int k = 0; k < packed.length; k++) {
+			if (packed[k] != previous[k]) {
+				buffer.putLong(packed[k] ^ previous[k]);
+			}
+		}
+		position += RECORD_HEADER_LENGTH + indicesLength + changedCount * 8L;
+
+		decodeDepths[frameCount] = decodeDepths[frameCount - 1] + 1;
+	}
+
+	private void writeReference(final int sameState) throws IOException {
+		ensureRemaining(RECORD_HEADER_LENGTH);
+
+		buffer.putInt(REFERENCE);
+		buffer.putInt(sameState);
+		position += RECORD_HEADER_LENGTH;
+
+		decodeDepths[frameCount] = decodeDepths[sameState] + 1;
+	}
+
+	private void ensureRemaining(final int length) throws IOException {
+		if (buffer.remaining() >= length) {
+			return;
+		}
+		flush();
+		if (buffer.capacity() < length) {
+			buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		writeFully(buffer, flushedPosition);
+		flushedPosition += buffer.limit();
+		buffer.clear();
+	}
+
+	@Override
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Writes the origami model, the table of the records and the header, and
+	 * closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try (channel) {
+			var factory = new FoldedModelFOLDFactory(new FoldedModelElementConverter());
+			var modelBytes = new Gson().toJson(factory.createWithoutFaceOrders(origamiModel))
+					.getBytes(StandardCharsets.UTF_8);
+
+			var modelOffset = position;
+			var tableOffset = align(modelOffset + modelBytes.length);
+
+			flush();
+			writeFully(ByteBuffer.wrap(modelBytes), modelOffset);
+
+			var padding = (int) (tableOffset - modelOffset - modelBytes.length);
+			var table = ByteBuffer.allocate(padding + frameCount * 8).order(ByteOrder.LITTLE_ENDIAN);
+			table.position(padding);
+			for (int i = 0; i < frameCount; i++) {
+				table.putLong(recordOffsets[i]);
+			}
+			table.flip();
+			writeFully(table, modelOffset + modelBytes.length);
+
+			var header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(faceCount < 0 ? origamiModel.getFaces().size() : faceCount);
+			header.putInt(frameCount);
+			header.putLong(modelOffset);
+			header.putLong(modelBytes.length);
+			header.putLong(tableOffset);
+			header.rewind();
+			writeFully(header, 0);
+		}
+	}
+
+	private void writeFully(final ByteBuffer bytes, final long offset) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes, offset + bytes.position());
+		}
+	}
+}
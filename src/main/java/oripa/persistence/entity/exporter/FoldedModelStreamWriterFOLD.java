@@ -0,0 +1,189 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+
+/**
+ * Writes a multiple frame FOLD file frame by frame. Each overlap relation is
+ * converted and written as soon as it is given, so that the memory usage
+ * doesn't depend on the number of frames. The key frame is written at
+ * {@link #close()} since the origami model can be changed while folding.
+ * Therefore {@code file_frames} comes before the key frame properties in the
+ * output, which is still valid JSON. The face orders are written directly from
+ * the overlap relation without building the frame object.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelStreamWriterFOLD implements FoldedModelStreamWriter {
+	private final FoldedModelElementConverter elementConverter = new FoldedModelElementConverter();
+	private final Gson gson;
+
+	private final OrigamiModel origamiModel;
+	private final Writer writer;
+	private final JsonWriter jsonWriter;
+
+	private int frameCount = 0;
+	private boolean closed = false;
+
+	/**
+	 * Writes pretty-printed JSON without compression.
+	 *
+	 * @param origamiModel
+	 *            the model to be folded. The overlap relations to be written
+	 *            should be of this model.
+	 * @param filePath
+	 *            output path.
+	 * @throws IOException
+	 */
+	public FoldedModelStreamWriterFOLD(final OrigamiModel origamiModel, final String filePath)
+			throws IOException {
+		this(origamiModel, filePath, new FoldedModelFOLDConfig());
+	}
+
+	/**
+	 *
+	 * @param origamiModel
+	 *            the model to be folded. The overlap relations to be written
+	 *            should be of this model.
+	 * @param filePath
+	 *            output path.
+	 * @param config
+	 *            output options.
+	 * @throws IOException
+	 */
+	public FoldedModelStreamWriterFOLD(final OrigamiModel origamiModel, final String filePath,
+			final FoldedModelFOLDConfig config) throws IOException {
+		this.origamiModel = origamiModel;
+
+		var gsonBuilder = new GsonBuilder();
+		if (!config.isCompact()) {
+			gsonBuilder.setPrettyPrinting();
+		}
+		gson = gsonBuilder.create();
+
+		OutputStream stream = Files.newOutputStream(Path.of(filePath));
+		if (config.isGzip()) {
+			stream = new GZIPOutputStream(stream);
+		}
+		writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		jsonWriter = gson.newJsonWriter(writer);
+
+		jsonWriter.beginObject();
+		jsonWriter.name("file_frames");
+		jsonWriter.beginArray();
+	}
+
+	/**
+	 * Writes the given overlap relation as a frame inheriting the key frame.
+	 * The properties are in the same order as {@code Frame} is serialized.
+	 *
+	 * @param overlapRelation
+	 *            an answer of folding.
+	 * @throws IOException
+	 */
+	@Override
+	public void write(final OverlapRelation overlapRelation) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("already closed.");
+		}
+
+		jsonWriter.beginObject();
+
+		jsonWriter.name("faceOrders");
+		jsonWriter.beginArray();
+		try {
+			elementConverter.forEachFaceOrder(origamiModel, overlapRelation, this::writeFaceOrder);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		jsonWriter.endArray();
+
+		jsonWriter.name("frame_parent").value(0);
+		jsonWriter.name("frame_inherit").value(true);
+
+		jsonWriter.endObject();
+
+		frameCount++;
+	}
+
+	private void writeFaceOrder(final int i, final int j, final int order) {
+		try {
+			jsonWriter.beginArray();
+			jsonWriter.value(i);
+			jsonWriter.value(j);
+			jsonWriter.value(order);
+			jsonWriter.endArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return the number of the frames written so far.
+	 */
+	@Override
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Writes the key frame and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try (writer) {
+			jsonWriter.endArray();
+
+			var factory = new FoldedModelFOLDFactory(elementConverter);
+			var keyFrame = gson.toJsonTree(factory.createWithoutFaceOrders(origamiModel)).getAsJsonObject();
+
+			for (var entry : keyFrame.entrySet()) {
+				jsonWriter.name(entry.getKey());
+				gson.toJson(entry.getValue(), jsonWriter);
+			}
+
+			jsonWriter.endObject();
+			jsonWriter.flush();
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import static oripa.persistence.entity.FoldedModelBinaryFormat.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import oripa.domain.fold.FoldedModel;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.entity.FoldedModelBinaryFormat;
+import oripa.persistence.entity.FoldedModelEntity;
+import oripa.persistence.filetool.WrongDataFormatException;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+import oripa.persistence.foldformat.FoldedModelFOLDFormat;
+
+/**
+ * Reads the folded states of the binary file described at
+ * {@link FoldedModelBinaryFormat} by index. The file is mapped into memory
+ * and only the records needed for the requested folded state are decoded.
+ * The last decoded folded state is kept so that reading the folded states in
+ * order doesn't decode the same differences again.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelBinaryReader implements Closeable {
+	private final FileChannel channel;
+	private final long fileSize;
+
+	/**
+	 * The whole file. null if the file is too large to be mapped at once.
+	 */
+	private final ByteBuffer mapped;
+
+	private final int faceCount;
+	private final int frameCount;
+	private final long tableOffset;
+
+	private final OrigamiModel origamiModel;
+
+	private int cachedIndex = -1;
+	private long[] cachedPacked;
+
+	/**
+	 *
+	 * @param filePath
+	 *            path of the binary file.
+	 */
+	public FoldedModelBinaryReader(final String filePath) throws IOException, WrongDataFormatException {
+		channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
+
+		try {
+			fileSize = channel.size();
+			if (fileSize < HEADER_LENGTH) {
+				throw new WrongDataFormatException("The file is too short.");
+			}
+
+			mapped = fileSize <= Integer.MAX_VALUE ? map(0, fileSize) : null;
+
+			var header = region(0, HEADER_LENGTH);
+			if (header.getInt() != MAGIC) {
+				throw new WrongDataFormatException("The file is not a binary of folded model.");
+			}
+			var version = header.getInt();
+			if (version != VERSION) {
+				throw new WrongDataFormatException("Unsupported version " + version + ".");
+			}
+			faceCount = header.getInt();
+			frameCount = header.getInt();
+			var modelOffset = header.getLong();
+			var modelLength = header.getLong();
+			tableOffset = header.getLong();
+
+			checkRange(modelOffset, modelLength);
+			checkRange(tableOffset, frameCount * 8L);
+
+			origamiModel = readOrigamiModel(modelOffset, (int) modelLength);
+			if (origamiModel.getFaces().size() != faceCount) {
+				throw new WrongDataFormatException("The number of faces is wrong.");
+			}
+		} catch (IOException | WrongDataFormatException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private ByteBuffer map(final long offset, final long length) throws IOException {
+		return channel.map(MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private ByteBuffer region(final long offset, final int length) throws IOException {
+		if (mapped == null) {
+			return map(offset, length);
+		}
+		return mapped.slice((int) offset, length).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private void checkRange(final long offset, final long length) throws WrongDataFormatException {
+		if (offset < HEADER_LENGTH || length < 0 || length > Integer.MAX_VALUE || offset + length > fileSize) {
+			throw new WrongDataFormatException("The file is broken.");
+		}
+	}
+
+	private OrigamiModel readOrigamiModel(final long modelOffset, final int modelLength)
+			throws IOException, WrongDataFormatException {
+		var modelBytes = new byte[modelLength];
+		region(modelOffset, modelLength).get(modelBytes);
+
+		FoldedModelFOLDFormat keyFrame;
+		try {
+			keyFrame = new Gson().fromJson(new String(modelBytes, StandardCharsets.UTF_8),
+					FoldedModelFOLDFormat.class);
+		} catch (JsonParseException e) {
+			throw new WrongDataFormatException("The model in the file is broken.", e);
+		}
+
+		return FoldedModelLoaderFOLD.createOrigamiModel(keyFrame, new FoldedModelElementConverter());
+	}
+
+	public OrigamiModel getOrigamiModel() {
+		return origamiModel;
+	}
+
+	/**
+	 * @return the number of the folded states.
+	 */
+	public int getOverlapRelationCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Decodes the folded state at the given index.
+	 */
+	public OverlapRelation getOverlapRelation(final int foldedStateIndex)
+			throws IOException, WrongDataFormatException {
+		Objects.checkIndex(foldedStateIndex, frameCount);
+
+		var packed = decode(foldedStateIndex);
+
+		cachedIndex = foldedStateIndex;
+		cachedPacked = packed.clone();
+
+		return OverlapRelation.fromPackedUpperTriangle(faceCount, packed);
+	}
+
+	/**
+	 * @return packed upper triangle which the caller can modify.
+	 */
+	private long[] decode(final int foldedStateIndex) throws IOException, WrongDataFormatException {
+		if (foldedStateIndex == cachedIndex) {
+			return cachedPacked.clone();
+		}
+
+		var recordOffset = region(tableOffset + foldedStateIndex * 8L, 8).getLong();
+		checkRange(recordOffset, RECORD_HEADER_LENGTH);
+
+		var recordHeader = region(recordOffset, RECORD_HEADER_LENGTH);
+		var type = recordHeader.getInt();
+		var count = recordHeader.getInt();
+		var payloadOffset = recordOffset + RECORD_HEADER_LENGTH;
+
+		var wordCount = OverlapRelation.getPackedUpperTriangleLength(faceCount);
+
+		switch (type) {
+		case FULL: {
+			if (count != wordCount) {
+				throw new WrongDataFormatException("Wrong record of folded state " + foldedStateIndex + ".");
+			}
+			checkRange(payloadOffset, count * 8L);
+			var packed = new long[count];
+			region(payloadOffset, count * 8).asLongBuffer().get(packed);
+			return packed;
+		}
+		case DELTA: {
+			var indicesLength = align(count * 4L);
+			if (foldedStateIndex == 0 || count < 0 || count > wordCount) {
+				throw new WrongDataFormatException("Wrong record of folded state " + foldedStateIndex + ".");
+			}
+			checkRange(payloadOffset, indicesLength + count * 8L);
+
+			var indices = new int[count];
+			region(payloadOffset, count * 4).asIntBuffer().get(indices);
+			var words = new long[count];
+			region(payloadOffset + indicesLength, count * 8).asLongBuffer().get(words);
+
+			var packed = decode(foldedStateIndex - 1);
+			for (int k = 0; k < count; k++) {
+				if (indices[k] < 0 || indices[k] >= wordCount) {
+					throw new WrongDataFormatException("Wrong record of folded state " + foldedStateIndex + ".");
+				}
+				packed[indices[k]] ^= words[k];
+			}
+			return packed;
+		}
+		case REFERENCE:
+			if (count < 0 || count >= foldedStateIndex) {
+				throw new WrongDataFormatException("Wrong record of folded state " + foldedStateIndex + ".");
+			}
+			return decode(count);
+		default:
+			throw new WrongDataFormatException("Unknown record type " + type + ".");
+		}
+	}
+
+	/**
+	 * @return entity holding only the folded state at the given index.
+	 */
+	public FoldedModelEntity load(final int foldedStateIndex) throws IOException, WrongDataFormatException {
+		var overlapRelation = getOverlapRelation(foldedStateIndex);
+		return new FoldedModelEntity(new FoldedModel(origamiModel, List.of(overlapRelation), List.of()), 0);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,539 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.JsonParser;
+
+import oripa.persistence.filetool.WrongDataFormatException;
+
+/**
+ * Index of a multiple frame FOLD file. The file is scanned once byte by byte
+ * without building JSON tree: the key frame properties are kept as JSON text
+ * and only the byte ranges of the elements of {@code file_frames} are
+ * remembered. Each frame is given the frame whose {@code faceOrders} it has or
+ * inherits, so that the face orders are the same as the ones of
+ * {@code FOLDFormat#getFrame(int)}.
+ *
+ * @author OUCHI Koji
+ *
+ */
+class FoldedModelFrameIndex {
+	private static final int MAGIC = 0x4F464958; // "OFIX"
+	private static final int VERSION = 1;
+
+	private static final String FILE_FRAMES = "file_frames";
+	private static final String FACE_ORDERS = "faceOrders";
+	private static final String FRAME_INHERIT = "frame_inherit";
+	private static final String FRAME_PARENT = "frame_parent";
+
+	private static final int NO_FRAME = -1;
+
+	private final byte[] keyFrameJson;
+	private final long[] frameStarts;
+	private final long[] frameEnds;
+	private final int[] faceOrdersFrames;
+
+	/**
+	 *
+	 * @param keyFrameJson
+	 *            JSON object of the key frame properties.
+	 * @param frameStarts
+	 *            start offset of each element of file_frames.
+	 * @param frameEnds
+	 *            end offset (exclusive) of each element of file_frames.
+	 * @param faceOrdersFrames
+	 *            the frame index whose face orders are used for each folded
+	 *            state. 0 is the key frame and i > 0 is file_frames[i - 1].
+	 */
+	private FoldedModelFrameIndex(final byte[] keyFrameJson, final long[] frameStarts, final long[] frameEnds,
+			final int[] faceOrdersFrames) {
+		this.keyFrameJson = keyFrameJson;
+		this.frameStarts = frameStarts;
+		this.frameEnds = frameEnds;
+		this.faceOrdersFrames = faceOrdersFrames;
+	}
+
+	public String getKeyFrameJson() {
+		return new String(keyFrameJson, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the number of the frames which have face orders.
+	 */
+	public int getFoldedStateCount() {
+		return faceOrdersFrames.length;
+	}
+
+	/**
+	 * @return the frame index of the given folded state. 0 means the key
+	 *         frame.
+	 */
+	public int getFaceOrdersFrame(final int foldedStateIndex) {
+		return faceOrdersFrames[foldedStateIndex];
+	}
+
+	/**
+	 * @param frameIndex
+	 *            index of frame larger than 0.
+	 */
+	public long getStart(final int frameIndex) {
+		return frameStarts[frameIndex - 1];
+	}
+
+	/**
+	 * @param frameIndex
+	 *            index of frame larger than 0.
+	 */
+	public long getEnd(final int frameIndex) {
+		return frameEnds[frameIndex - 1];
+	}
+
+	/**
+	 * Scans the given FOLD text.
+	 *
+	 * @throws WrongDataFormatException
+	 *             if the text is not a JSON object.
+	 */
+	public static FoldedModelFrameIndex scan(final InputStream input) throws IOException, WrongDataFormatException {
+		return new Scanner(input).scan();
+	}
+
+	/**
+	 * Writes this index in binary with the state of the indexed file.
+	 */
+	public void write(final OutputStream output, final long fileSize, final long lastModified) throws IOException {
+		var data = new DataOutputStream(output);
+
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeLong(fileSize);
+		data.writeLong(lastModified);
+
+		data.writeInt(keyFrameJson.length);
+		data.write(keyFrameJson);
+
+		data.writeInt(frameStarts.length);
+		for (int i = 0; i < frameStarts.length; i++) {
+			data.writeLong(frameStarts[i]);
+			data.writeLong(frameEnds[i]);
+		}
+
+		data.writeInt(faceOrdersFrames.length);
+		for (var frame : faceOrdersFrames) {
+			data.writeInt(frame);
+		}
+
+		data.flush();
+	}
+
+	/**
+	 * Reads the index written by {@link #write(OutputStream, long, long)}.
+	 *
+	 * @return null if the index is not of this version or the indexed file has
+	 *         been changed.
+	 */
+	public static FoldedModelFrameIndex read(final InputStream input, final long fileSize, final long lastModified)
+			throws IOException {
+		var data = new DataInputStream(new BufferedInputStream(input));
+
+		if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+			return null;
+		}
+		if (data.readLong() != fileSize || data.readLong() != lastModified) {
+			return null;
+		}
+
+		var keyFrameJson = new byte[data.readInt()];
+		data.readFully(keyFrameJson);
+
+		var frameCount = data.readInt();
+		var frameStarts = new long[frameCount];
+		var frameEnds = new long[frameCount];
+		for (int i = 0; i < frameCount; i++) {
+			frameStarts[i] = data.readLong();
+			frameEnds[i] = data.readLong();
+		}
+
+		var faceOrdersFrames = new int[data.readInt()];
+		for (int i = 0; i < faceOrdersFrames.length; i++) {
+			faceOrdersFrames[i] = data.readInt();
+		}
+
+		return new FoldedModelFrameIndex(keyFrameJson, frameStarts, frameEnds, faceOrdersFrames);
+	}
+
+	/**
+	 * Recursive descent on the bytes of JSON, which reads only the structure
+	 * and the keys needed for the index.
+	 */
+	private static class Scanner {
+		private final InputStream input;
+		private final byte[] buffer = new byte[1 << 16];
+		private int bufferPosition = 0;
+		private int bufferLength = 0;
+		private long position = 0;
+
+		/**
+		 * receives the consumed bytes if not null.
+		 */
+		private OutputStream capture;
+
+		private final ByteArrayOutputStream keyFrame = new ByteArrayOutputStream();
+		private boolean keyFrameHasFaceOrders = false;
+
+		private long[] frameStarts = new long[16];
+		private long[] frameEnds = new long[16];
+		private final List<FrameHeader> headers = new ArrayList<>();
+
+		private record FrameHeader(boolean hasFaceOrders, boolean inherit, int parent) {
+		}
+
+		Scanner(final InputStream input) {
+			this.input = input;
+		}
+
+		FoldedModelFrameIndex scan() throws IOException, WrongDataFormatException {
+			skipWhitespaces();
+			expect('{');
+
+			keyFrame.write('{');
+			var first = true;
+
+			skipWhitespaces();
+			if (peek() == '}') {
+				next();
+			} else {
+				while (true) {
+					skipWhitespaces();
+					var keyBytes = new ByteArrayOutputStream();
+					capture = keyBytes;
+					var key = readString();
+					capture = null;
+
+					skipWhitespaces();
+					expect(':');
+					skipWhitespaces();
+
+					if (key.equals(FILE_FRAMES)) {
+						scanFrames();
+					} else {
+						if (!first) {
+							keyFrame.write(',');
+						}
+						first = false;
+						keyFrameHasFaceOrders |= key.equals(FACE_ORDERS);
+
+						keyBytes.writeTo(keyFrame);
+						keyFrame.write(':');
+						capture = keyFrame;
+						skipValue();
+						capture = null;
+					}
+
+					skipWhitespaces();
+					if (next() == '}') {
+						break;
+					}
+				}
+			}
+			keyFrame.write('}');
+
+			return new FoldedModelFrameIndex(keyFrame.toByteArray(),
+					Arrays.copyOf(frameStarts, headers.size()),
+					Arrays.copyOf(frameEnds, headers.size()),
+					resolveFaceOrdersFrames());
+		}
+
+		private void scanFrames() throws IOException, WrongDataFormatException {
+			expect('[');
+			skipWhitespaces();
+			if (peek() == ']') {
+				next();
+				return;
+			}
+
+			while (true) {
+				skipWhitespaces();
+				var start = position;
+				var header = peek() == '{' ? scanFrame() : skipFrame();
+				addFrame(start, position, header);
+
+				skipWhitespaces();
+				if (next() == ']') {
+					return;
+				}
+			}
+		}
+
+		private FrameHeader skipFrame() throws IOException, WrongDataFormatException {
+			skipValue();
+			return new FrameHeader(false, false, 0);
+		}
+
+		private FrameHeader scanFrame() throws IOException, WrongDataFormatException {
+			var hasFaceOrders = false;
+			var inherit = false;
+			var parent = 0;
+
+			expect('{');
+			skipWhitespaces();
+			if (peek() == '}') {
+				next();
+				return new FrameHeader(false, false, 0);
+			}
+
+			while (true) {
+				skipWhitespaces();
+				var key = readString();
+				skipWhitespaces();
+				expect(':');
+				skipWhitespaces();
+
+				switch (key) {
+				case FACE_ORDERS -> {
+					hasFaceOrders = peek() != 'n';
+					skipValue();
+				}
+				case FRAME_INHERIT -> inherit = readLiteral().equals("true");
+				case FRAME_PARENT -> parent = parseParent(readLiteral());
+				default -> skipValue();
+				}
+
+				skipWhitespaces();
+				if (next() == '}') {
+					return new FrameHeader(hasFaceOrders, inherit, parent);
+				}
+			}
+		}
+
+		private int parseParent(final String literal) throws WrongDataFormatException {
+			try {
+				return (int) Double.parseDouble(literal);
+			} catch (NumberFormatException e) {
+				throw new WrongDataFormatException("frame_parent should be a number: " + literal, e);
+			}
+		}
+
+		private void addFrame(final long start, final long end, final FrameHeader header) {
+			var i = headers.size();
+			if (i == frameStarts.length) {
+				frameStarts = Arrays.copyOf(frameStarts, i * 2);
+				frameEnds = Arrays.copyOf(frameEnds, i * 2);
+			}
+			frameStarts[i] = start;
+			frameEnds[i] = end;
+			headers.add(header);
+		}
+
+		/**
+		 * Follows frame_parent as FOLDFormat#getFrame() merges the frames.
+		 */
+		private int[] resolveFaceOrdersFrames() {
+			var frameCount = headers.size() + 1;
+			var sources = new int[frameCount];
+			var count = 0;
+			for (int i = 0; i < frameCount; i++) {
+				sources[i] = findFaceOrdersFrame(i, 0);
+				if (sources[i] != NO_FRAME) {
+					count++;
+				}
+			}
+
+			var result = new int[count];
+			var j = 0;
+			for (var source : sources) {
+				if (source != NO_FRAME) {
+					result[j++] = source;
+				}
+			}
+			return result;
+		}
+
+		private int findFaceOrdersFrame(final int frameIndex, final int hops) {
+			if (frameIndex == 0) {
+				return keyFrameHasFaceOrders ? 0 : NO_FRAME;
+			}
+			if (frameIndex < 0 || frameIndex > headers.size() || hops > headers.size()) {
+				return NO_FRAME;
+			}
+			var header = headers.get(frameIndex - 1);
+			if (header.hasFaceOrders()) {
+				return frameIndex;
+			}
+			if (header.inherit()) {
+				return findFaceOrdersFrame(header.parent(), hops + 1);
+			}
+			return NO_FRAME;
+		}
+
+		private int peek() throws IOException {
+			if (bufferPosition == bufferLength) {
+				bufferLength = input.read(buffer);
+				bufferPosition = 0;
+				if (bufferLength <= 0) {
+					bufferLength = 0;
+					return -1;
+				}
+			}
+			return buffer[bufferPosition] & 0xff;
+		}
+
+		private int next() throws IOException, WrongDataFormatException {
+			var c = peek();
+			if (c < 0) {
+				throw new WrongDataFormatException("Unexpected end of JSON.");
+			}
+			bufferPosition++;
+			position++;
+			if (capture != null) {
+				capture.write(c);
+			}
+			return c;
+		}
+
+		private void expect(final char expected) throws IOException, WrongDataFormatException {
+			var c = next();
+			if (c != expected) {
+				throw new WrongDataFormatException(
+						"'" + expected + "' is expected but '" + (char) c + "' at " + (position - 1) + ".");
+			}
+		}
+
+		private void skipWhitespaces() throws IOException {
+			var capturing = capture;
+			capture = null;
+			while (true) {
+				var c = peek();
+				if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+					break;
+				}
+				bufferPosition++;
+				position++;
+			}
+			capture = capturing;
+		}
+
+		private String readString() throws IOException, WrongDataFormatException {
+			expect('"');
+			var bytes = new ByteArrayOutputStream();
+			var escaped = false;
+			while (true) {
+				var c = next();
+				if (c == '"') {
+					break;
+				}
+				bytes.write(c);
+				if (c == '\\') {
+					escaped = true;
+					bytes.write(next());
+				}
+			}
+
+			var text = bytes.toString(StandardCharsets.UTF_8);
+			if (escaped) {
+				return JsonParser.parseString("\"" + text + "\"").getAsString();
+			}
+			return text;
+		}
+
+		private String readLiteral() throws IOException, WrongDataFormatException {
+			var builder = new StringBuilder();
+			while (true) {
+				var c = peek();
+				if (c < 0 || c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+					return builder.toString();
+				}
+				builder.append((char) next());
+			}
+		}
+
+		/**
+		 * Skips a value without recursion, which is enough since the keys in
+		 * the value are not needed.
+		 */
+		private void skipValue() throws IOException, WrongDataFormatException {
+			var c = peek();
+			if (c == '"') {
+				readString();
+				return;
+			}
+			if (c != '{' && c != '[') {
+				readLiteral();
+				return;
+			}
+
+			// scans the buffer directly since the face orders are the most of
+			// the file.
+			var depth = 0;
+			var inString = false;
+			var escaped = false;
+			while (true) {
+				if (peek() < 0) {
+					throw new WrongDataFormatException("Unexpected end of JSON.");
+				}
+				int i = bufferPosition;
+				for (; i < bufferLength; i++) {
+					var b = buffer[i];
+					if (inString) {
+						if (escaped) {
+							escaped = false;
+						} else if (b == '\\') {
+							escaped = true;
+						} else if (b == '"') {
+							inString = false;
+						}
+						continue;
+					}
+					switch (b) {
+					case '"' -> inString = true;
+					case '{', '[' -> depth++;
+					case '}', ']' -> depth--;
+					default -> {
+					}
+					}
+					if (depth == 0) {
+						consume(i + 1);
+						return;
+					}
+				}
+				consume(i);
+			}
+		}
+
+		private void consume(final int end) throws IOException {
+			if (capture != null) {
+				capture.write(buffer, bufferPosition, end - bufferPosition);
+			}
+			position += end - bufferPosition;
+			bufferPosition = end;
+		}
+	}
+}
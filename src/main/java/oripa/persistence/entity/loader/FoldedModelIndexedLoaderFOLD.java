@@ -0,0 +1,228 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import oripa.domain.fold.FoldedModel;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.entity.FoldedModelEntity;
+import oripa.persistence.filetool.WrongDataFormatException;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+import oripa.persistence.foldformat.FoldedModelFOLDFormat;
+import oripa.persistence.foldformat.Frame;
+
+/**
+ * Loads the folded states of a multiple frame FOLD file one by one. On
+ * construction, the file is scanned once to restore the origami model from
+ * the key frame and to index the frames. The face orders of a folded state
+ * are read and decoded only when it is requested, so that browsing a huge
+ * file doesn't need to hold all of the folded states. The folded states are
+ * the same as the ones {@link FoldedModelLoaderFOLD} gives.
+ *
+ * The index can be saved as a file next to the FOLD file in order to skip the
+ * scan next time. Gzip-compressed FOLD file is also acceptable, but reading a
+ * frame needs to decompress the file until the frame.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelIndexedLoaderFOLD {
+	private static final Logger logger = LoggerFactory.getLogger(FoldedModelIndexedLoaderFOLD.class);
+
+	private static final String INDEX_FILE_EXTENSION = ".idx";
+
+	private final Gson gson = new Gson();
+	private final FoldedModelElementConverter converter = new FoldedModelElementConverter();
+
+	private final Path path;
+	private final boolean gzip;
+
+	private final FoldedModelFrameIndex index;
+	private final FoldedModelFOLDFormat keyFrame;
+	private final OrigamiModel origamiModel;
+
+	/**
+	 * Scans the file without index file.
+	 *
+	 * @param filePath
+	 *            path of FOLD file.
+	 */
+	public FoldedModelIndexedLoaderFOLD(final String filePath) throws IOException, WrongDataFormatException {
+		this(filePath, false);
+	}
+
+	/**
+	 *
+	 * @param filePath
+	 *            path of FOLD file.
+	 * @param usesIndexFile
+	 *            true if the index file should be used. The index file is
+	 *            written after the scan if it doesn't exist or it is older
+	 *            than the FOLD file.
+	 */
+	public FoldedModelIndexedLoaderFOLD(final String filePath, final boolean usesIndexFile)
+			throws IOException, WrongDataFormatException {
+		path = Path.of(filePath);
+		gzip = isGzip(path);
+
+		index = usesIndexFile ? loadIndex() : scan();
+
+		try {
+			keyFrame = gson.fromJson(index.getKeyFrameJson(), FoldedModelFOLDFormat.class);
+		} catch (JsonParseException e) {
+			throw new WrongDataFormatException(
+					"The file does not follow JSON style."
+							+ " Note that FOLD format is based on JSON.",
+					e);
+		}
+
+		origamiModel = FoldedModelLoaderFOLD.createOrigamiModel(keyFrame, converter);
+	}
+
+	/**
+	 * @return path of the index file for the given FOLD file.
+	 */
+	public static String getIndexFilePath(final String filePath) {
+		return filePath + INDEX_FILE_EXTENSION;
+	}
+
+	private static boolean isGzip(final Path path) throws IOException {
+		try (var input = Files.newInputStream(path)) {
+			return input.read() == 0x1f && input.read() == 0x8b;
+		}
+	}
+
+	private InputStream openText() throws IOException {
+		var input = Files.newInputStream(path);
+		return gzip ? new GZIPInputStream(input) : input;
+	}
+
+	private FoldedModelFrameIndex scan() throws IOException, WrongDataFormatException {
+		try (var input = openText()) {
+			return FoldedModelFrameIndex.scan(input);
+		}
+	}
+
+	private FoldedModelFrameIndex loadIndex() throws IOException, WrongDataFormatException {
+		var indexPath = Path.of(getIndexFilePath(path.toString()));
+		var fileSize = Files.size(path);
+		var lastModified = Files.getLastModifiedTime(path).toMillis();
+
+		if (Files.exists(indexPath)) {
+			try (var input = Files.newInputStream(indexPath)) {
+				var index = FoldedModelFrameIndex.read(input, fileSize, lastModified);
+				if (index != null) {
+					return index;
+				}
+			} catch (IOException e) {
+				logger.warn("failed to read index file {}", indexPath, e);
+			}
+		}
+
+		var index = scan();
+
+		try (var output = Files.newOutputStream(indexPath)) {
+			index.write(output, fileSize, lastModified);
+		} catch (IOException e) {
+			logger.warn("failed to write index file {}", indexPath, e);
+		}
+
+		return index;
+	}
+
+	public OrigamiModel getOrigamiModel() {
+		return origamiModel;
+	}
+
+	/**
+	 * @return the number of the folded states, that is, the frames having
+	 *         face orders.
+	 */
+	public int getOverlapRelationCount() {
+		return index.getFoldedStateCount();
+	}
+
+	/**
+	 * Reads and decodes the face orders of the folded state at the given
+	 * index.
+	 */
+	public OverlapRelation getOverlapRelation(final int foldedStateIndex)
+			throws IOException, WrongDataFormatException {
+		var frameIndex = index.getFaceOrdersFrame(foldedStateIndex);
+
+		if (frameIndex == 0) {
+			return converter.fromFaceOrders(keyFrame.getFaceOrders(), origamiModel.getFaces());
+		}
+
+		Frame frame;
+		try {
+			frame = gson.fromJson(readFrame(frameIndex), Frame.class);
+		} catch (JsonParseException e) {
+			throw new WrongDataFormatException("Wrong frame " + frameIndex + ".", e);
+		}
+		return converter.fromFaceOrders(frame.getFaceOrders(), origamiModel.getFaces());
+	}
+
+	private String readFrame(final int frameIndex) throws IOException {
+		var start = index.getStart(frameIndex);
+		var length = Math.toIntExact(index.getEnd(frameIndex) - start);
+
+		if (gzip) {
+			try (var input = openText()) {
+				input.skipNBytes(start);
+				return new String(input.readNBytes(length), StandardCharsets.UTF_8);
+			}
+		}
+
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			var buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, start + buffer.position()) < 0) {
+					break;
+				}
+			}
+			return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * @return entity holding only the folded state at the given index.
+	 */
+	public FoldedModelEntity load(final int foldedStateIndex) throws IOException, WrongDataFormatException {
+		var overlapRelation = getOverlapRelation(foldedStateIndex);
+		return new FoldedModelEntity(new FoldedModel(origamiModel, List.of(overlapRelation), List.of()), 0);
+	}
+}
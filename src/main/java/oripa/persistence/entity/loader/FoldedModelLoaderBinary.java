@@ -0,0 +1,56 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import oripa.domain.fold.FoldedModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.entity.FoldedModelEntity;
+import oripa.persistence.filetool.FileVersionError;
+import oripa.persistence.filetool.Loader;
+import oripa.persistence.filetool.WrongDataFormatException;
+
+/**
+ * Loads all folded states of the binary file through
+ * {@link FoldedModelBinaryReader}. Use the reader directly to read a part of
+ * them.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class FoldedModelLoaderBinary implements Loader<FoldedModelEntity> {
+
+	@Override
+	public Optional<FoldedModelEntity> load(final String filePath)
+			throws FileVersionError, IOException, WrongDataFormatException {
+		try (var reader = new FoldedModelBinaryReader(filePath)) {
+			var overlapRelations = new ArrayList<OverlapRelation>(reader.getOverlapRelationCount());
+			for (int i = 0; i < reader.getOverlapRelationCount(); i++) {
+				overlapRelations.add(reader.getOverlapRelation(i));
+			}
+
+			return Optional.of(new FoldedModelEntity(
+					new FoldedModel(reader.getOrigamiModel(), overlapRelations, List.of())));
+		}
+	}
+}
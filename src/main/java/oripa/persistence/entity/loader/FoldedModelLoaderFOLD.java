@@ -67,6 +67,35 @@ public class FoldedModelLoaderFOLD implements Loader<FoldedModelEntity> {
 					e);
 		}
 
+		var converter = new FoldedModelElementConverter();
+		var origamiModel = createOrigamiModel(foldFormat, converter);
+		var faces = origamiModel.getFaces();
+
+		var overlapRelations = new ArrayList<OverlapRelation>();
+		var frameCount = foldFormat.getFileFrames() == null ? 1 : foldFormat.getFileFrames().size() + 1;
+		for (int i = 0; i < frameCount; i++) {
+			var frame = foldFormat.getFrame(i);
+			if (frame.getFaceOrders() != null) {
+				overlapRelations.add(converter.fromFaceOrders(frame.getFaceOrders(), faces));
+			}
+		}
+
+		return Optional.of(new FoldedModelEntity(new FoldedModel(origamiModel, overlapRelations, List.of())));
+	}
+
+	/**
+	 * Validates the key frame and restores the origami model from it.
+	 *
+	 * @param foldFormat
+	 *            the key frame.
+	 * @param converter
+	 *            converter whose vertex IDs are set for the returned model.
+	 * @return origami model without face orders.
+	 * @throws WrongDataFormatException
+	 *             if the key frame lacks the data for folded model.
+	 */
+	static OrigamiModel createOrigamiModel(final FoldedModelFOLDFormat foldFormat,
+			final FoldedModelElementConverter converter) throws WrongDataFormatException {
 		if (!foldFormat.frameClassesContains(FrameClass.FOLDED_FORM)) {
 			throw new WrongDataFormatException("frame_classes does not contain " + FrameClass.FOLDED_FORM + ".");
 		}
@@ -81,8 +110,6 @@ public class FoldedModelLoaderFOLD implements Loader<FoldedModelEntity> {
 			throw new WrongDataFormatException("vertices_coords property is needed in the file.");
 		}
 
-		var converter = new FoldedModelElementConverter();
-
 		var vertices = converter.fromVerticesCoords(foldFormat.getVerticesCoords());
 		var positions = vertices.stream().map(OriVertex::getPosition).toList();
 
@@ -106,16 +133,7 @@ public class FoldedModelLoaderFOLD implements Loader<FoldedModelEntity> {
 		origamiModel.setEdges(edges);
 		origamiModel.setFaces(faces);
 
-		var overlapRelations = new ArrayList<OverlapRelation>();
-		var frameCount = foldFormat.getFileFrames() == null ? 1 : foldFormat.getFileFrames().size() + 1;
-		for (int i = 0; i < frameCount; i++) {
-			var frame = foldFormat.getFrame(i);
-			if (frame.getFaceOrders() != null) {
-				overlapRelations.add(converter.fromFaceOrders(frame.getFaceOrders(), faces));
-			}
-		}
-
-		return Optional.of(new FoldedModelEntity(new FoldedModel(origamiModel, overlapRelations, List.of())));
+		return origamiModel;
 	}
 
 }
@@ -112,10 +112,30 @@ public class FoldedModelElementConverter {
 				.collect(Collectors.toCollection(ArrayList::new));
 	}
 
+	/**
+	 * Receives a face order of FOLD format, that is, face {@code i} is above
+	 * ({@code order = 1}) or below ({@code order = -1}) face {@code j}.
+	 */
+	@FunctionalInterface
+	public interface FaceOrderConsumer {
+		void accept(int i, int j, int order);
+	}
+
 	public List<List<Integer>> toFaceOrders(final OrigamiModel origamiModel, final OverlapRelation overlapRelation) {
-		var faces = origamiModel.getFaces();
+		var orders = new ArrayList<List<Integer>>(origamiModel.getFaces().size());
+
+		forEachFaceOrder(origamiModel, overlapRelation, (i, j, order) -> orders.add(List.of(i, j, order)));
+
+		return orders;
+	}
 
-		var orders = new ArrayList<List<Integer>>(faces.size());
+	/**
+	 * Gives the face orders to the consumer one by one without creating the
+	 * list of them.
+	 */
+	public void forEachFaceOrder(final OrigamiModel origamiModel, final OverlapRelation overlapRelation,
+			final FaceOrderConsumer consumer) {
+		var faces = origamiModel.getFaces();
 
 		for (int i = 0; i < faces.size(); i++) {
 			for (int j = i + 1; j < faces.size(); j++) {
@@ -123,21 +143,19 @@ public class FoldedModelElementConverter {
 
 				if (g.isFaceFront()) {
 					if (overlapRelation.isUpper(i, j)) {
-						orders.add(List.of(i, j, 1));
+						consumer.accept(i, j, 1);
 					} else if (overlapRelation.isLower(i, j)) {
-						orders.add(List.of(i, j, -1));
+						consumer.accept(i, j, -1);
 					}
 				} else {
 					if (overlapRelation.isUpper(i, j)) {
-						orders.add(List.of(i, j, -1));
+						consumer.accept(i, j, -1);
 					} else if (overlapRelation.isLower(i, j)) {
-						orders.add(List.of(i, j, 1));
+						consumer.accept(i, j, 1);
 					}
 				}
 			}
 		}
-
-		return orders;
 	}
 
 	public List<OriVertex> fromVerticesCoords(final List<List<Double>> verticesCoords) {
@@ -0,0 +1,308 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+/**
+ * Reads {@link DataSet} written by {@link java.beans.XMLEncoder} in one pass
+ * of StAX without building DOM. As the loader for the old files did, the
+ * line proxies are collected from anywhere in the document, the text fields
+ * are found by {@code <void method="getField">} and the versions are read
+ * from the properties of the data set object.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class DataSetStreamReader {
+	private static final String ROOT_NODE_NAME = "java";
+	private static final String OBJECT_NODE_NAME = "object";
+	private static final String VOID_NODE_NAME = "void";
+	private static final String INT_NODE_NAME = "int";
+	private static final String DOUBLE_NODE_NAME = "double";
+	private static final String STRING_NODE_NAME = "string";
+
+	private static final String LINE_PROXY_CLASS = OriLineProxy.class.getName();
+
+	private final XMLInputFactory factory;
+
+	private List<OriLineProxy> proxies;
+	private Map<String, String> fieldValues;
+	private Integer mainVersion;
+	private Integer subVersion;
+
+	public DataSetStreamReader() {
+		factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/**
+	 *
+	 * @param input
+	 *            opx content.
+	 * @return data set whose lines are not null.
+	 * @throws XMLStreamException
+	 *             if the input is not XML or not written by
+	 *             {@link java.beans.XMLEncoder}.
+	 * @throws NumberFormatException
+	 *             if a number in the input is broken.
+	 */
+	public DataSet read(final InputStream input) throws XMLStreamException {
+		proxies = new ArrayList<>();
+		fieldValues = new HashMap<>();
+		mainVersion = null;
+		subVersion = null;
+
+		var reader = factory.createXMLStreamReader(input);
+		try {
+			reader.nextTag();
+			if (!reader.getLocalName().equals(ROOT_NODE_NAME)) {
+				throw new XMLStreamException("The root is not <" + ROOT_NODE_NAME + ">.", reader.getLocation());
+			}
+			readRoot(reader);
+		} finally {
+			reader.close();
+		}
+
+		var dataset = new DataSet();
+
+		dataset.setMainVersion(mainVersion == null ? 0 : mainVersion);
+		dataset.setSubVersion(subVersion == null ? 0 : subVersion);
+
+		// each field can be null.
+		dataset.title = fieldValues.get("title");
+		dataset.editorName = fieldValues.get("editorName");
+		dataset.originalAuthorName = fieldValues.get("originalAuthorName");
+		dataset.reference = fieldValues.get("reference");
+		dataset.memo = fieldValues.get("memo");
+
+		dataset.lines = proxies.toArray(OriLineProxy[]::new);
+
+		return dataset;
+	}
+
+	private void readRoot(final XMLStreamReader reader) throws XMLStreamException {
+		var datasetFound = false;
+		while (nextChild(reader)) {
+			if (!datasetFound && reader.getLocalName().equals(OBJECT_NODE_NAME)) {
+				datasetFound = true;
+				readDataSet(reader);
+			} else {
+				readElement(reader);
+			}
+		}
+	}
+
+	private void readDataSet(final XMLStreamReader reader) throws XMLStreamException {
+		while (nextChild(reader)) {
+			var property = getVoidAttribute(reader, "property");
+			if (property == null) {
+				readElement(reader);
+				continue;
+			}
+			switch (property) {
+			case "mainVersion" -> mainVersion = readIntProperty(reader, mainVersion);
+			case "subVersion" -> subVersion = readIntProperty(reader, subVersion);
+			default -> readElement(reader);
+			}
+		}
+	}
+
+	/**
+	 * Reads the current element and its descendants, collecting the line
+	 * proxies and the text fields in them.
+	 */
+	private void readElement(final XMLStreamReader reader) throws XMLStreamException {
+		var name = reader.getLocalName();
+
+		if (name.equals(OBJECT_NODE_NAME)
+				&& LINE_PROXY_CLASS.equals(reader.getAttributeValue(null, "class"))) {
+			proxies.add(readLineProxy(reader));
+			return;
+		}
+
+		if ("getField".equals(getVoidAttribute(reader, "method"))) {
+			readField(reader);
+			return;
+		}
+
+		while (nextChild(reader)) {
+			readElement(reader);
+		}
+	}
+
+	private void readField(final XMLStreamReader reader) throws XMLStreamException {
+		String fieldName = null;
+		String value = null;
+
+		while (nextChild(reader)) {
+			if (fieldName == null && reader.getLocalName().equals(STRING_NODE_NAME)) {
+				fieldName = readText(reader);
+			} else if ("set".equals(getVoidAttribute(reader, "method"))) {
+				while (nextChild(reader)) {
+					if (value == null && reader.getLocalName().equals(STRING_NODE_NAME)) {
+						value = readText(reader);
+					} else {
+						readElement(reader);
+					}
+				}
+			} else {
+				readElement(reader);
+			}
+		}
+
+		fieldValues.putIfAbsent(fieldName == null ? "" : fieldName, value == null ? "" : value);
+	}
+
+	private OriLineProxy readLineProxy(final XMLStreamReader reader) throws XMLStreamException {
+		var proxy = new OriLineProxy();
+		Integer type = null;
+		Double x0 = null, y0 = null, x1 = null, y1 = null;
+
+		while (nextChild(reader)) {
+			var property = getVoidAttribute(reader, "property");
+			if (property == null) {
+				skipElement(reader);
+				continue;
+			}
+			switch (property) {
+			case "type" -> type = readIntProperty(reader, type);
+			case "x0" -> x0 = readDoubleProperty(reader, x0);
+			case "y0" -> y0 = readDoubleProperty(reader, y0);
+			case "x1" -> x1 = readDoubleProperty(reader, x1);
+			case "y1" -> y1 = readDoubleProperty(reader, y1);
+			default -> skipElement(reader);
+			}
+		}
+
+		proxy.setType(type == null ? 0 : type);
+		proxy.setX0(x0 == null ? 0 : x0);
+		proxy.setY0(y0 == null ? 0 : y0);
+		proxy.setX1(x1 == null ? 0 : x1);
+		proxy.setY1(y1 == null ? 0 : y1);
+
+		return proxy;
+	}
+
+	/**
+	 * Reads {@code <void property="...">} holding {@code <int>}.
+	 *
+	 * @return the value read first.
+	 */
+	private Integer readIntProperty(final XMLStreamReader reader, final Integer current)
+			throws XMLStreamException {
+		var text = readPropertyValue(reader, INT_NODE_NAME);
+		if (current != null || text == null) {
+			return current;
+		}
+		return Integer.parseInt(text);
+	}
+
+	/**
+	 * Reads {@code <void property="...">} holding {@code <double>}.
+	 *
+	 * @return the value read first.
+	 */
+	private Double readDoubleProperty(final XMLStreamReader reader, final Double current)
+			throws XMLStreamException {
+		var text = readPropertyValue(reader, DOUBLE_NODE_NAME);
+		if (current != null || text == null) {
+			return current;
+		}
+		return Double.parseDouble(text);
+	}
+
+	private String readPropertyValue(final XMLStreamReader reader, final String typeName)
+			throws XMLStreamException {
+		String text = null;
+		while (nextChild(reader)) {
+			if (text == null && reader.getLocalName().equals(typeName)) {
+				text = readText(reader);
+			} else {
+				skipElement(reader);
+			}
+		}
+		return text;
+	}
+
+	private String getVoidAttribute(final XMLStreamReader reader, final String attributeName) {
+		if (!reader.getLocalName().equals(VOID_NODE_NAME)) {
+			return null;
+		}
+		return reader.getAttributeValue(null, attributeName);
+	}
+
+	/**
+	 * Moves to the next child element of the current element.
+	 *
+	 * @return false if the end of the current element is reached.
+	 */
+	private boolean nextChild(final XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				return true;
+			case XMLStreamConstants.END_ELEMENT:
+				return false;
+			default:
+				break;
+			}
+		}
+		throw new XMLStreamException("Unexpected end of document.", reader.getLocation());
+	}
+
+	/**
+	 * Concatenates the text in the current element including the descendants
+	 * like DOM's text content, and moves to the end of the element.
+	 */
+	private String readText(final XMLStreamReader reader) throws XMLStreamException {
+		var builder = new StringBuilder();
+		int depth = 1;
+		while (depth > 0) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT -> depth++;
+			case XMLStreamConstants.END_ELEMENT -> depth--;
+			case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+				builder.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+			default -> {
+			}
+			}
+		}
+		return builder.toString();
+	}
+
+	private void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+		while (nextChild(reader)) {
+			skipElement(reader);
+		}
+	}
+}
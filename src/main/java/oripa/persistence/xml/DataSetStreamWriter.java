@@ -0,0 +1,208 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+/**
+ * Writes {@link DataSet} in the same XML as {@link java.beans.XMLEncoder}
+ * does, so that the output can be read by {@link java.beans.XMLDecoder} and
+ * by the older versions of ORIPA. Each element is written directly without
+ * the introspection and the object graph of the encoder. The values equal to
+ * the default ones are omitted as the encoder does.
+ *
+ * @author OUCHI Koji
+ *
+ */
+public class DataSetStreamWriter {
+	private static final String DATASET_CLASS = DataSet.class.getName();
+	private static final String LINE_PROXY_CLASS = OriLineProxy.class.getName();
+	private static final String DATASET_ID = DataSet.class.getSimpleName() + "0";
+
+	private Writer writer;
+
+	/**
+	 * Writes the given data set. The stream is not closed.
+	 */
+	public void write(final DataSet dataset, final OutputStream output) throws IOException {
+		writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+		writeln(0, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		writeln(0, "<java version=\"" + System.getProperty("java.version") + "\" class=\"java.beans.XMLDecoder\">");
+		writeln(1, "<object class=\"" + DATASET_CLASS + "\" id=\"" + DATASET_ID + "\">");
+
+		// public fields in the order of declaration
+		if (dataset.lines != null) {
+			writeFieldStart("lines");
+			writeLines(dataset.lines);
+			writeFieldEnd();
+		}
+		writeStringField("title", dataset.title);
+		writeStringField("editorName", dataset.editorName);
+		writeStringField("originalAuthorName", dataset.originalAuthorName);
+		writeStringField("reference", dataset.reference);
+		writeStringField("memo", dataset.memo);
+
+		// other properties in alphabetical order
+		writeIntProperty(2, "mainVersion", dataset.getMainVersion());
+		writeDoubleProperty(2, "paperSize", dataset.getPaperSize());
+		writeIntProperty(2, "subVersion", dataset.getSubVersion());
+
+		writeln(1, "</object>");
+		writeln(0, "</java>");
+
+		writer.flush();
+	}
+
+	private void writeFieldStart(final String fieldName) throws IOException {
+		writeln(2, "<void class=\"" + DATASET_CLASS + "\" method=\"getField\">");
+		writeln(3, "<string>" + fieldName + "</string>");
+		writeln(3, "<void method=\"set\">");
+		writeln(4, "<object idref=\"" + DATASET_ID + "\"/>");
+	}
+
+	private void writeFieldEnd() throws IOException {
+		writeln(3, "</void>");
+		writeln(2, "</void>");
+	}
+
+	private void writeStringField(final String fieldName, final String value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		writeFieldStart(fieldName);
+		writeln(4, toStringElement(value));
+		writeFieldEnd();
+	}
+
+	private void writeLines(final OriLineProxy[] lines) throws IOException {
+		var arrayStart = "<array class=\"" + LINE_PROXY_CLASS + "\" length=\"" + lines.length + "\"";
+		if (lines.length == 0) {
+			writeln(4, arrayStart + "/>");
+			return;
+		}
+
+		writeln(4, arrayStart + ">");
+		for (int i = 0; i < lines.length; i++) {
+			writeln(5, "<void index=\"" + i + "\">");
+			writeLine(lines[i]);
+			writeln(5, "</void>");
+		}
+		writeln(4, "</array>");
+	}
+
+	private void writeLine(final OriLineProxy line) throws IOException {
+		var objectStart = "<object class=\"" + LINE_PROXY_CLASS + "\"";
+		if (line.getType() == 0 && isDefault(line.getX0()) && isDefault(line.getX1())
+				&& isDefault(line.getY0()) && isDefault(line.getY1())) {
+			writeln(6, objectStart + "/>");
+			return;
+		}
+
+		writeln(6, objectStart + ">");
+		writeIntProperty(7, "type", line.getType());
+		writeDoubleProperty(7, "x0", line.getX0());
+		writeDoubleProperty(7, "x1", line.getX1());
+		writeDoubleProperty(7, "y0", line.getY0());
+		writeDoubleProperty(7, "y1", line.getY1());
+		writeln(6, "</object>");
+	}
+
+	private void writeIntProperty(final int indentation, final String name, final int value) throws IOException {
+		if (value == 0) {
+			return;
+		}
+		writeProperty(indentation, name, "<int>" + value + "</int>");
+	}
+
+	private void writeDoubleProperty(final int indentation, final String name, final double value)
+			throws IOException {
+		if (isDefault(value)) {
+			return;
+		}
+		writeProperty(indentation, name, "<double>" + value + "</double>");
+	}
+
+	/**
+	 * The encoder compares the values by equals(), so -0.0 is not default.
+	 */
+	private boolean isDefault(final double value) {
+		return Double.doubleToLongBits(value) == Double.doubleToLongBits(0.0);
+	}
+
+	private void writeProperty(final int indentation, final String name, final String valueElement)
+			throws IOException {
+		writeln(indentation, "<void property=\"" + name + "\">");
+		writeln(indentation + 1, valueElement);
+		writeln(indentation, "</void>");
+	}
+
+	/**
+	 * Escapes the given text in the same way as the encoder. The characters
+	 * not allowed in XML are written as {@code <char>} elements.
+	 */
+	private String toStringElement(final String value) {
+		var builder = new StringBuilder("<string>");
+		int index = 0;
+		while (index < value.length()) {
+			int point = value.codePointAt(index);
+			if (!isValidCharCode(point)) {
+				builder.append("<char code=\"#").append(Integer.toString(value.charAt(index), 16)).append("\"/>");
+				index++;
+				continue;
+			}
+			switch (point) {
+			case '&' -> builder.append("&amp;");
+			case '<' -> builder.append("&lt;");
+			case '>' -> builder.append("&gt;");
+			case '"' -> builder.append("&quot;");
+			case '\'' -> builder.append("&apos;");
+			case '\r' -> builder.append("&#13;");
+			default -> builder.appendCodePoint(point);
+			}
+			index += Character.charCount(point);
+		}
+		return builder.append("</string>").toString();
+	}
+
+	private boolean isValidCharCode(final int code) {
+		return (0x0020 <= code && code <= 0xD7FF)
+				|| code == 0x000A
+				|| code == 0x0009
+				|| code == 0x000D
+				|| (0xE000 <= code && code <= 0xFFFD)
+				|| (0x10000 <= code && code <= 0x10FFFF);
+	}
+
+	private void writeln(final int indentation, final String text) throws IOException {
+		for (int i = 0; i < indentation; i++) {
+			writer.write(' ');
+		}
+		writer.write(text);
+		writer.write('\n');
+	}
+}
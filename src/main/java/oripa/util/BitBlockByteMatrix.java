@@ -120,6 +120,75 @@ public class BitBlockByteMatrix implements ByteMatrix {
 		array[i][arrayIndex] = arrayValue;
 	}
 
+	/**
+	 * Copies the blocks of row {@code i} from column {@code fromColumn} to the
+	 * last column into {@code dest} as a bit sequence. The blocks are packed
+	 * in the same way as the rows of this matrix: a block at lower column is
+	 * at lower bits, and bit {@code k} of the sequence is bit {@code k % 64} of
+	 * {@code dest[k / 64]}.
+	 *
+	 * @param i
+	 *            row index
+	 * @param fromColumn
+	 *            the first column to be copied.
+	 * @param dest
+	 *            destination of the bits.
+	 * @param destBitIndex
+	 *            position in {@code dest} where the first block is written.
+	 * @return the number of the copied bits.
+	 */
+	public long copyRowBitsTo(final int i, final int fromColumn, final long[] dest, final long destBitIndex) {
+		long length = (long) (columnCount - fromColumn) * blockLength;
+		copyBits(array[i], (long) fromColumn * blockLength, dest, destBitIndex, length);
+		return length;
+	}
+
+	/**
+	 * Overwrites the blocks of row {@code i} from column {@code fromColumn} to
+	 * the last column by the bit sequence in {@code src}. This is the inverse
+	 * of {@link #copyRowBitsTo(int, int, long[], long)}.
+	 *
+	 * @return the number of the copied bits.
+	 */
+	public long copyRowBitsFrom(final int i, final int fromColumn, final long[] src, final long srcBitIndex) {
+		long length = (long) (columnCount - fromColumn) * blockLength;
+		copyBits(src, srcBitIndex, array[i], (long) fromColumn * blockLength, length);
+		return length;
+	}
+
+	private static void copyBits(final long[] src, final long srcBitIndex, final long[] dest,
+			final long destBitIndex, final long length) {
+		for (long copied = 0; copied < length; copied += 64) {
+			int chunkLength = (int) Math.min(64, length - copied);
+			writeBits(dest, destBitIndex + copied, chunkLength,
+					readBits(src, srcBitIndex + copied, chunkLength));
+		}
+	}
+
+	private static long readBits(final long[] words, final long bitIndex, final int length) {
+		int index = (int) (bitIndex >>> 6);
+		int offset = (int) (bitIndex & 63);
+
+		long value = words[index] >>> offset;
+		if (offset + length > 64) {
+			value |= words[index + 1] << (64 - offset);
+		}
+		return length == 64 ? value : value & ((1L << length) - 1);
+	}
+
+	private static void writeBits(final long[] words, final long bitIndex, final int length, final long value) {
+		int index = (int) (bitIndex >>> 6);
+		int offset = (int) (bitIndex & 63);
+		long valueMask = length == 64 ? -1L : (1L << length) - 1;
+
+		words[index] = (words[index] & ~(valueMask << offset)) | ((value & valueMask) << offset);
+
+		if (offset + length > 64) {
+			long upperMask = (1L << (offset + length - 64)) - 1;
+			words[index + 1] = (words[index + 1] & ~upperMask) | ((value & valueMask) >>> (64 - offset));
+		}
+	}
+
 	public String toBinaryString() {
 		var strings = Arrays.stream(array)
 				.flatMapToLong(Arrays::stream)
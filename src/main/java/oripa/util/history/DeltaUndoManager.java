@@ -0,0 +1,161 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Undo history of differences between states. Unlike
+ * {@link AbstractUndoManager}, this class does not hold the states themselves:
+ * the caller applies the returned delta to the current state in the undo/redo
+ * direction. The history is capped by the number of steps and the total weight
+ * of the deltas, and the oldest entries are evicted when it exceeds either of
+ * them. The latest entry is always kept even if it exceeds the weight budget.
+ *
+ * @author OUCHI Koji
+ *
+ * @param <Delta>
+ *            difference between two consecutive states.
+ */
+public class DeltaUndoManager<Delta> {
+	private static final Logger logger = LoggerFactory.getLogger(DeltaUndoManager.class);
+
+	private final List<Delta> deltas = new ArrayList<>();
+	private int index = 0;
+	private long totalWeight = 0;
+
+	private final int maxStepCount;
+	private final long maxWeight;
+	private final ToLongFunction<Delta> weigher;
+
+	/**
+	 *
+	 * @param maxStepCount
+	 *            max number of deltas to be kept.
+	 * @param maxWeight
+	 *            max total weight of deltas to be kept.
+	 * @param weigher
+	 *            computes the weight of a delta, which is supposed to be the
+	 *            approximate size in memory.
+	 */
+	public DeltaUndoManager(final int maxStepCount, final long maxWeight, final ToLongFunction<Delta> weigher) {
+		if (maxStepCount < 1) {
+			throw new IllegalArgumentException("maxStepCount should be positive.");
+		}
+		this.maxStepCount = maxStepCount;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Adds the given delta as the latest change. The deltas which have been
+	 * undone are discarded.
+	 *
+	 * @param delta
+	 *            difference from the previous state to the current one.
+	 */
+	public synchronized void push(final Delta delta) {
+		discardRedo();
+
+		deltas.add(delta);
+		totalWeight += weigher.applyAsLong(delta);
+		index++;
+
+		evict();
+	}
+
+	/**
+	 * Discards the deltas which have been undone.
+	 */
+	public synchronized void discardRedo() {
+		while (deltas.size() > index) {
+			totalWeight -= weigher.applyAsLong(deltas.removeLast());
+		}
+	}
+
+	private void evict() {
+		while (deltas.size() > 1 && (deltas.size() > maxStepCount || totalWeight > maxWeight)) {
+			totalWeight -= weigher.applyAsLong(deltas.removeFirst());
+			index--;
+			logger.debug("evicted the oldest delta: {}", indexLog());
+		}
+	}
+
+	/**
+	 * @return the delta to be reverted on the current state. Empty if there is
+	 *         no delta to undo.
+	 */
+	public synchronized Optional<Delta> undo() {
+		if (!canUndo()) {
+			logger.debug("can't undo: {}", indexLog());
+			return Optional.empty();
+		}
+		return Optional.of(deltas.get(--index));
+	}
+
+	/**
+	 * @return the delta to be applied on the current state. Empty if there is
+	 *         no delta to redo.
+	 */
+	public synchronized Optional<Delta> redo() {
+		if (!canRedo()) {
+			logger.debug("can't redo: {}", indexLog());
+			return Optional.empty();
+		}
+		return Optional.of(deltas.get(index++));
+	}
+
+	public synchronized boolean canUndo() {
+		return index > 0;
+	}
+
+	public synchronized boolean canRedo() {
+		return index < deltas.size();
+	}
+
+	public synchronized void clear() {
+		deltas.clear();
+		index = 0;
+		totalWeight = 0;
+	}
+
+	/**
+	 * @return the number of deltas in the history including the undone ones.
+	 */
+	public synchronized int size() {
+		return deltas.size();
+	}
+
+	/**
+	 * @return the total weight of deltas in the history.
+	 */
+	public synchronized long getTotalWeight() {
+		return totalWeight;
+	}
+
+	private String indexLog() {
+		return "index = " + index + ", size = " + deltas.size() + ", weight = " + totalWeight;
+	}
+}
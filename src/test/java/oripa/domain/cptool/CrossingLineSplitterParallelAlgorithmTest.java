@@ -0,0 +1,53 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.value.OriLine;
+import oripa.value.OriLine.Type;
+
+public class CrossingLineSplitterParallelAlgorithmTest implements CrossingLineSplitterTest {
+	@Override
+	public CrossingLineSplitter createTarget() {
+		return new CrossingLineSplitterParallelAlgorithm(new LineDivider());
+	}
+
+	@Test
+	void testSplitIgnoringType_sameAsNaiveAlgorithm() {
+		var random = new Random(1);
+		var lines = new ArrayList<OriLine>();
+		for (int i = 0; i < 200; i++) {
+			lines.add(new OriLine(
+					random.nextInt(40) * 10.0, random.nextInt(40) * 10.0,
+					random.nextInt(40) * 10.0, random.nextInt(40) * 10.0, Type.MOUNTAIN));
+		}
+		lines.removeIf(line -> line.length() == 0);
+
+		var eps = 1e-6;
+		var expected = new CrossingLineSplitterNaiveAlgorithm(new LineDivider()).splitIgnoringType(lines, eps);
+
+		assertEquals(expected, createTarget().splitIgnoringType(lines, eps));
+	}
+}
@@ -30,6 +30,7 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import oripa.domain.creasepattern.CreasePatternFactory;
 import oripa.value.OriLine;
 
 /**
@@ -176,6 +177,64 @@ class LineAdderTest {
 		assertTypeCount(3, creasePattern, OriLine.Type.AUX);
 	}
 
+	@Test
+	void testAddAll_sameAsAddingOneByOne() {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		adder.addLine(new OriLine(-200, 0, 200, 0, OriLine.Type.AUX), creasePattern, POINT_EPS);
+		adder.addLine(new OriLine(0, -200, 0, 200, OriLine.Type.MOUNTAIN), creasePattern, POINT_EPS);
+
+		var oneByOne = new CreasePatternFactory().createCreasePattern(creasePattern);
+		var batch = new CreasePatternFactory().createCreasePattern(creasePattern);
+
+		var inputLines = new ArrayList<OriLine>();
+		for (int i = 1; i < 4; i++) {
+			var d = 100.0 * i - 200;
+			inputLines.add(new OriLine(d, -200, d, 200, OriLine.Type.VALLEY));
+			inputLines.add(new OriLine(-200, d, 200, d, OriLine.Type.MOUNTAIN));
+		}
+		inputLines.add(new OriLine(-200, -200, 200, 200, OriLine.Type.VALLEY));
+		inputLines.add(new OriLine(-150, 50, 50, -150, OriLine.Type.MOUNTAIN));
+
+		inputLines.forEach(line -> adder.addLine(line, oneByOne, POINT_EPS));
+		adder.addAll(inputLines, batch, POINT_EPS);
+
+		assertEquals(oneByOne.size(), batch.size());
+		oneByOne.forEach(expected -> assertTrue(
+				batch.stream().anyMatch(line -> line.equals(expected, POINT_EPS)), expected.toString()));
+	}
+
+	@Test
+	void testAddAll_tilesSharingBorders_sameAsAddingOneByOne() {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+
+		var oneByOne = new CreasePatternFactory().createCreasePattern(creasePattern);
+		var batch = new CreasePatternFactory().createCreasePattern(creasePattern);
+
+		// the borders of a tile are shared with the neighbors with different
+		// types, and the AUX line partially overlaps with the next copy.
+		var cellLines = List.of(
+				new OriLine(-150, -150, -50, -150, OriLine.Type.VALLEY),
+				new OriLine(-150, -150, -150, -50, OriLine.Type.VALLEY),
+				new OriLine(-150, -50, -50, -50, OriLine.Type.MOUNTAIN),
+				new OriLine(-50, -150, -50, -50, OriLine.Type.MOUNTAIN),
+				new OriLine(-150, -150, -50, -50, OriLine.Type.VALLEY),
+				new OriLine(-150, -100, -20, -100, OriLine.Type.AUX));
+
+		var inputLines = new ArrayList<OriLine>(cellLines);
+		inputLines.addAll(new TiledLineFactory().createTiledLines(3, 3, 100, 100, cellLines, creasePattern,
+				POINT_EPS));
+
+		assertFalse(new OverlappingLineExtractor().extractOverlapsGroupedBySupport(inputLines, POINT_EPS)
+				.isEmpty());
+
+		inputLines.forEach(line -> adder.addLine(line, oneByOne, POINT_EPS));
+		adder.addAll(inputLines, batch, POINT_EPS);
+
+		assertEquals(oneByOne.size(), batch.size());
+		oneByOne.forEach(expected -> assertTrue(
+				batch.stream().anyMatch(line -> line.equals(expected, POINT_EPS)), expected.toString()));
+	}
+
 	void assertTypeCount(final long expectedCount, final Collection<OriLine> creasePattern,
 			final OriLine.Type type) {
 		assertEquals(expectedCount,
@@ -20,7 +20,10 @@ package oripa.domain.cptool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -159,6 +162,37 @@ class OverlappingLineMergerTest {
 				(a, b) -> a.equals(b, 1e-8));
 	}
 
+	@Test
+	void test_2_Lines_Touch_notMerged() {
+		var lines = List.of(new OriLine(0, 0, 1, 0, Type.MOUNTAIN), new OriLine(1, 0, 2, 0, Type.MOUNTAIN));
+
+		OverlappingLineMerger merger = new AnalyticOverlappingLineMerger();
+
+		var result = merger.mergeIgnoringType(lines, 1e-8);
+
+		assertEquals(2, result.size());
+
+		AssertionUtil.assertAnyMatch(new OriLine(0, 0, 1, 0, Type.MOUNTAIN), result, (a, b) -> a.equals(b, 1e-8));
+		AssertionUtil.assertAnyMatch(new OriLine(1, 0, 2, 0, Type.MOUNTAIN), result, (a, b) -> a.equals(b, 1e-8));
+	}
+
+	@Test
+	void test_notMergedLineKeepsType() {
+		var lines = List.of(
+				new OriLine(0, 0, 1, 0, Type.VALLEY),
+				new OriLine(0, 1, 1, 1, Type.VALLEY),
+				new OriLine(0.5, 1, 2, 1, Type.VALLEY));
+
+		OverlappingLineMerger merger = new AnalyticOverlappingLineMerger();
+
+		var result = merger.mergeIgnoringType(lines, 1e-8);
+
+		assertEquals(2, result.size());
+
+		AssertionUtil.assertAnyMatch(new OriLine(0, 0, 1, 0, Type.VALLEY), result, (a, b) -> a.equals(b, 1e-8));
+		AssertionUtil.assertAnyMatch(new OriLine(0, 1, 2, 1, Type.MOUNTAIN), result, (a, b) -> a.equals(b, 1e-8));
+	}
+
 	@Test
 	void test_3_HorizontalLines_1_Overlaps() {
 		var lines = List.of(
@@ -368,4 +402,29 @@ class OverlappingLineMergerTest {
 				result,
 				(a, b) -> a.equals(b, 1e-8));
 	}
+
+	@Test
+	void test_parallelMergeIsSameAsSequentialOne() {
+		var random = new Random(1);
+		var lines = new ArrayList<OriLine>();
+		for (int i = 0; i < 300; i++) {
+			var x = random.nextInt(10) * 10.0;
+			var y = random.nextInt(10) * 10.0;
+			var length = random.nextInt(5) + 1;
+			var dx = random.nextInt(3) - 1;
+			var dy = dx == 0 ? 1 : random.nextInt(3) - 1;
+			lines.add(new OriLine(x, y, x + dx * length * 10.0, y + dy * length * 10.0, Type.MOUNTAIN));
+		}
+
+		var expected = new AnalyticOverlappingLineMerger().mergeIgnoringType(lines, 1e-8);
+
+		var pool = new ForkJoinPool(4);
+		try {
+			var result = new AnalyticOverlappingLineMerger(pool).mergeIgnoringType(lines, 1e-8);
+
+			assertEquals(List.copyOf(expected), List.copyOf(result));
+		} finally {
+			pool.shutdown();
+		}
+	}
 }
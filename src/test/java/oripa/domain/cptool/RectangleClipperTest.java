@@ -20,6 +20,8 @@ package oripa.domain.cptool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 import oripa.geom.Segment;
@@ -100,6 +102,18 @@ class RectangleClipperTest {
 		assertIntersects(new Segment(50, -1, 101, 60));
 	}
 
+	@Test
+	void testIntersects_sameAsClip() {
+		var random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			// coordinates on a grid so that many segments touch the edges.
+			var segment = new Segment(
+					random.nextInt(13) * 25 - 50.0, random.nextInt(13) * 25 - 50.0,
+					random.nextInt(13) * 25 - 50.0, random.nextInt(13) * 25 - 50.0);
+			assertEquals(clipper.clip(segment).isPresent(), clipper.intersects(segment), segment.toString());
+		}
+	}
+
 	void assertIntersects(final Segment segment) {
 		assertTrue(clipper.intersects(new OriLine(segment, OriLine.Type.MOUNTAIN)));
 	}
@@ -0,0 +1,90 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.geom.GeomUtil;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class SegmentBufferTest {
+
+	@Test
+	void testIsOverlap_sameAsGeomUtil() {
+		var random = new Random(1);
+		var lines = new ArrayList<OriLine>();
+		for (int i = 0; i < 300; i++) {
+			// coordinates on a coarse grid so that many lines are collinear.
+			lines.add(new OriLine(
+					random.nextInt(5) * 10.0, random.nextInt(5) * 10.0,
+					random.nextInt(5) * 10.0, random.nextInt(5) * 10.0, OriLine.Type.MOUNTAIN));
+		}
+		// almost collinear ones.
+		lines.add(new OriLine(0, 0, 40, 1e-7, OriLine.Type.MOUNTAIN));
+		lines.add(new OriLine(20, 1e-9, 30, 0, OriLine.Type.MOUNTAIN));
+
+		var buffer = SegmentBuffer.of(lines);
+
+		var overlapCount = 0;
+		for (int i = 0; i < lines.size(); i++) {
+			for (int j = 0; j < lines.size(); j++) {
+				var expected = GeomUtil.isOverlap(lines.get(i), lines.get(j), 1e-6);
+				assertEquals(expected, buffer.isOverlap(i, j, 1e-6));
+				overlapCount += expected ? 1 : 0;
+			}
+		}
+		assertTrue(overlapCount > lines.size());
+	}
+
+	@Test
+	void testGetLine() {
+		var line = new OriLine(0, 0, 1, 1, OriLine.Type.MOUNTAIN);
+		var buffer = SegmentBuffer.of(List.of(line));
+
+		assertEquals(1, buffer.size());
+		assertSame(line, buffer.getLine(0));
+	}
+
+	@Test
+	void testGetCoordinatesAndType() {
+		var buffer = SegmentBuffer.of(List.of(
+				new OriLine(0, 1, 2, 3, OriLine.Type.VALLEY),
+				new OriLine(4, 5, 6, 7, OriLine.Type.CUT_MODEL)));
+
+		assertEquals(0, buffer.getX0(0));
+		assertEquals(1, buffer.getY0(0));
+		assertEquals(2, buffer.getX1(0));
+		assertEquals(3, buffer.getY1(0));
+		assertEquals(OriLine.Type.VALLEY, buffer.getType(0));
+
+		assertEquals(4, buffer.getX0(1));
+		assertEquals(7, buffer.getY1(1));
+		assertEquals(OriLine.Type.CUT_MODEL, buffer.getType(1));
+	}
+}
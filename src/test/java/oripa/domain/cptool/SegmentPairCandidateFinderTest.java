@@ -0,0 +1,63 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.cptool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.util.IntPair;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class SegmentPairCandidateFinderTest {
+	private static final double EPS = 1e-6;
+
+	private final SegmentPairCandidateFinder finder = new SegmentPairCandidateFinder();
+
+	private final List<OriLine> lines = List.of(
+			new OriLine(0, 0, 10, 10, OriLine.Type.MOUNTAIN),
+			new OriLine(0, 10, 10, 0, OriLine.Type.MOUNTAIN),
+			new OriLine(10, 10, 20, 10, OriLine.Type.VALLEY),
+			new OriLine(50, 50, 60, 60, OriLine.Type.VALLEY),
+			new OriLine(-100, 0, 100, 0, OriLine.Type.AUX));
+
+	@Test
+	void testFindCandidatePairs() {
+		var pairs = finder.findCandidatePairs(lines, i -> true, EPS);
+
+		assertEquals(5, pairs.size());
+		assertTrue(pairs.containsAll(List.of(
+				new IntPair(0, 1), new IntPair(0, 2), new IntPair(1, 2),
+				new IntPair(0, 4), new IntPair(1, 4))));
+	}
+
+	@Test
+	void testFindCandidatePairs_target() {
+		var pairs = finder.findCandidatePairs(lines, i -> i == 2, EPS);
+
+		assertEquals(2, pairs.size());
+		assertTrue(pairs.containsAll(List.of(new IntPair(0, 2), new IntPair(1, 2))));
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.geom.RectangleDomain;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class OriLineQuadTreeTest {
+
+	@Test
+	void testClip_sameAsBoundingBoxTest() {
+		var tree = new OriLineQuadTree(new RectangleDomain(0, 0, 16, 16));
+		var lines = createLinesAtCorner();
+		lines.forEach(tree::add);
+
+		assertTrue(tree.getDepth() > 0);
+
+		var queries = List.of(
+				new RectangleDomain(0, 0, 1, 1),
+				new RectangleDomain(0.5, 0.5, 0.6, 0.6),
+				new RectangleDomain(1, 1, 2, 2),
+				new RectangleDomain(8, 8, 16, 16));
+
+		for (var query : queries) {
+			var expected = lines.stream()
+					.filter(line -> intersects(line, query))
+					.collect(Collectors.toSet());
+			assertEquals(expected, tree.clip(query, 0));
+		}
+	}
+
+	@Test
+	void testClip_outOfDomain() {
+		var tree = new OriLineQuadTree(new RectangleDomain(0, 0, 16, 16));
+		createLinesAtCorner().forEach(tree::add);
+
+		var line = new OriLine(20, 20, 30, 25, OriLine.Type.MOUNTAIN);
+		tree.add(line);
+
+		// clip is inclusive.
+		assertEquals(List.of(line), List.copyOf(tree.clip(new RectangleDomain(30, 25, 31, 26), 0)));
+		assertTrue(tree.clip(new RectangleDomain(31, 26, 32, 27), 0).isEmpty());
+	}
+
+	@Test
+	void testRemove_collapsesTree() {
+		var tree = new OriLineQuadTree(new RectangleDomain(0, 0, 16, 16));
+		var lines = createLinesAtCorner();
+		lines.forEach(tree::add);
+
+		lines.forEach(tree::remove);
+
+		assertEquals(0, tree.getDepth());
+		assertTrue(tree.clip(new RectangleDomain(0, 0, 16, 16), 0).isEmpty());
+	}
+
+	@Test
+	void testAdd_duplicationIsIgnored() {
+		var tree = new OriLineQuadTree(new RectangleDomain(0, 0, 16, 16));
+		var line = new OriLine(1.2, 1.2, 3.2, 5.2, OriLine.Type.MOUNTAIN);
+
+		tree.add(line);
+		tree.add(line);
+		tree.remove(line);
+
+		assertTrue(tree.clip(new RectangleDomain(0, 0, 16, 16), 0).isEmpty());
+	}
+
+	private List<OriLine> createLinesAtCorner() {
+		var random = new Random(1);
+		var lines = new ArrayList<OriLine>();
+		for (int i = 0; i < 200; i++) {
+			lines.add(new OriLine(random.nextDouble(), random.nextDouble(),
+					random.nextDouble(), random.nextDouble(), OriLine.Type.MOUNTAIN));
+		}
+		return lines;
+	}
+
+	private boolean intersects(final OriLine line, final RectangleDomain domain) {
+		return Math.min(line.getP0().getX(), line.getP1().getX()) <= domain.getRight()
+				&& domain.getLeft() <= Math.max(line.getP0().getX(), line.getP1().getX())
+				&& Math.min(line.getP0().getY(), line.getP1().getY()) <= domain.getBottom()
+				&& domain.getTop() <= Math.max(line.getP0().getY(), line.getP1().getY());
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.creasepattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.geom.RectangleDomain;
+import oripa.vecmath.Vector2d;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class VerticesQuadTreeTest {
+
+	@Test
+	void testAdd_outOfDomain() {
+		var tree = new VerticesQuadTree(new RectangleDomain(-200, -200, 200, 200));
+
+		var inside = new Vector2d(0, 0);
+		var left = new Vector2d(-200.1, -200.1);
+		var right = new Vector2d(200.1, 200.1);
+
+		tree.add(inside);
+		tree.add(left);
+		tree.add(right);
+
+		assertTrue(tree.getVerticesAround(inside).contains(inside));
+		assertTrue(tree.getVerticesAround(left).contains(left));
+		assertTrue(tree.getVerticesAround(right).contains(right));
+
+		assertTrue(tree.getVerticesInArea(-300, -300, 1).stream()
+				.anyMatch(vertices -> vertices.contains(left)));
+	}
+
+	@Test
+	void testGetVerticesInArea_containsAllNearVertices() {
+		var tree = new VerticesQuadTree(new RectangleDomain(-200, -200, 200, 200));
+
+		var random = new Random(1);
+		var vertices = new ArrayList<Vector2d>();
+		for (int i = 0; i < 500; i++) {
+			// skewed to the left-top corner.
+			var v = new Vector2d(-200 + Math.pow(random.nextDouble(), 4) * 400,
+					-200 + Math.pow(random.nextDouble(), 4) * 400);
+			vertices.add(v);
+			tree.add(v);
+		}
+
+		assertTrue(tree.getDepth() > 5);
+
+		for (var center : vertices.subList(0, 50)) {
+			var distance = 1.0;
+			var found = tree.getVerticesInArea(center.getX(), center.getY(), distance).stream()
+					.flatMap(area -> area.stream())
+					.toList();
+			vertices.stream()
+					.filter(v -> Math.abs(v.getX() - center.getX()) <= distance
+							&& Math.abs(v.getY() - center.getY()) <= distance)
+					.forEach(v -> assertTrue(found.contains(v)));
+		}
+	}
+
+	@Test
+	void testRemove_duplicationAndCollapse() {
+		var tree = new VerticesQuadTree(new RectangleDomain(-200, -200, 200, 200));
+
+		var p = new Vector2d(10, 10);
+		var q = new Vector2d(10.5, 10.5);
+
+		tree.add(p);
+		tree.add(p);
+		tree.add(q);
+
+		tree.remove(p);
+		assertTrue(tree.getVerticesAround(p).contains(p));
+
+		tree.remove(p);
+		assertFalse(tree.getVerticesAround(p).contains(p));
+
+		tree.remove(q);
+		assertTrue(tree.isEmpty());
+		assertEquals(0, tree.getDepth());
+
+		assertThrows(IllegalStateException.class, () -> tree.remove(q));
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.FoldingMetrics.Stage;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class FoldingMetricsTest {
+
+	@Test
+	void testAddTime_sumsByStage() {
+		var metrics = new FoldingMetrics();
+
+		metrics.addTime(Stage.SEARCH, 10);
+		metrics.addTime(Stage.SEARCH, 20);
+		metrics.addTime(Stage.SUBFACES, 5);
+
+		assertEquals(30, metrics.getTime(Stage.SEARCH));
+		assertEquals(5, metrics.getTime(Stage.SUBFACES));
+		assertEquals(0, metrics.getTime(Stage.ESTIMATION));
+		assertEquals(35, metrics.getTotalTime());
+		assertFalse(metrics.getStageTimes().containsKey(Stage.ESTIMATION));
+	}
+
+	@Test
+	void testCounters_areAccumulatedOverRuns() {
+		var metrics = new FoldingMetrics();
+
+		metrics.addFailureCounts(1, 2, 3);
+		metrics.addFailureCounts(10, 20, 30);
+		metrics.updatePeakCopyCount(4);
+		metrics.updatePeakCopyCount(2);
+		metrics.addSearchNodeCount(7);
+		metrics.addSearchNodeCount(8);
+
+		assertEquals(11, metrics.getFailureCountOf2Faces());
+		assertEquals(22, metrics.getFailureCountOf3Faces());
+		assertEquals(33, metrics.getFailureCountOf4Faces());
+		assertEquals(4, metrics.getPeakCopyCount());
+		assertEquals(15, metrics.getSearchNodeCount());
+	}
+
+	@Test
+	void testGetAnswersPerSecond() {
+		var metrics = new FoldingMetrics();
+
+		metrics.addAnswerCount(50);
+		assertEquals(0, metrics.getAnswersPerSecond());
+
+		metrics.addTime(Stage.SEARCH, 200);
+		assertEquals(250, metrics.getAnswersPerSecond(), 1e-9);
+	}
+}
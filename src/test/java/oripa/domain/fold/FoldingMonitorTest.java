@@ -0,0 +1,112 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.FoldingMonitor.StopReason;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class FoldingMonitorTest {
+
+	@Test
+	void testCancel() {
+		var monitor = new FoldingMonitor();
+
+		assertFalse(monitor.isStopped());
+		assertEquals(StopReason.NONE, monitor.getStopReason());
+
+		monitor.cancel();
+
+		assertTrue(monitor.isStopped());
+		assertEquals(StopReason.CANCELLED, monitor.getStopReason());
+	}
+
+	@Test
+	void testAnswerLimit() {
+		var monitor = new FoldingMonitor(FoldingMonitor.NO_LIMIT, 2, p -> {
+		});
+
+		monitor.answerFound();
+		assertFalse(monitor.isStopped());
+
+		monitor.answerFound();
+		assertTrue(monitor.isStopped());
+		assertEquals(StopReason.ANSWER_LIMIT, monitor.getStopReason());
+
+		// the first reason is kept.
+		monitor.cancel();
+		assertEquals(StopReason.ANSWER_LIMIT, monitor.getStopReason());
+	}
+
+	@Test
+	void testTimeLimit() throws InterruptedException {
+		var monitor = new FoldingMonitor(1, FoldingMonitor.NO_LIMIT, p -> {
+		});
+
+		Thread.sleep(10);
+
+		assertTrue(monitor.isStopped());
+		assertEquals(StopReason.TIME_LIMIT, monitor.getStopReason());
+	}
+
+	@Test
+	void testProgress_notifiedByStep() {
+		var notified = new ArrayList<Double>();
+		var monitor = new FoldingMonitor(FoldingMonitor.NO_LIMIT, FoldingMonitor.NO_LIMIT, notified::add);
+
+		monitor.startProgress();
+		monitor.setProgressShare(0.5);
+
+		// 4 branches of the first group
+		for (int i = 0; i < 4; i++) {
+			monitor.addProgress(0.25);
+		}
+		assertEquals(0.5, monitor.getProgress(), 1e-9);
+
+		// 1000 branches of the second group
+		for (int i = 0; i < 1000; i++) {
+			monitor.addProgress(0.001);
+		}
+		assertEquals(1.0, monitor.getProgress(), 1e-9);
+
+		assertTrue(notified.size() <= 4 + 100);
+		assertEquals(1.0, notified.get(notified.size() - 1), 1e-9);
+	}
+
+	@Test
+	void testProgress_frozenAfterStop() {
+		var monitor = new FoldingMonitor();
+
+		monitor.startProgress();
+		monitor.addProgress(0.25);
+		monitor.cancel();
+		monitor.isStopped();
+		monitor.addProgress(0.25);
+
+		assertEquals(0.25, monitor.getProgress(), 1e-9);
+	}
+}
@@ -0,0 +1,131 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.Folder.EstimationType;
+import oripa.domain.fold.halfedge.OriEdge;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.geom.GeomUtil;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class IncrementalFolderTest {
+	private static final double EPS = GeomUtil.pointEps();
+
+	@Test
+	void testFold_onlyAssignmentIsChanged() {
+		var folder = new FolderFactory().createIncremental();
+
+		var firstModel = createStrip(List.of(true, false, true, false));
+		var first = folder.fold(firstModel, EPS, EstimationType.FULL);
+		var firstTypes = getTypes(firstModel);
+
+		var second = folder.fold(createStrip(List.of(true, true, true, false)), EPS, EstimationType.FULL);
+
+		// each result has its own model which is not changed by the next fold.
+		assertSame(firstModel, first.foldedModel().origamiModel());
+		assertNotSame(first.foldedModel().origamiModel(), second.foldedModel().origamiModel());
+		assertEquals(firstTypes, getTypes(firstModel));
+
+		assertEquals(foldNormally(createStrip(List.of(true, false, true, false))), first.answerCount());
+		assertEquals(foldNormally(createStrip(List.of(true, true, true, false))), second.answerCount());
+		assertEquals(second.answerCount(), second.foldedModel().getFoldablePatternCount());
+	}
+
+	@Test
+	void testFold_monitorIsCreatedForEachFold() {
+		var monitors = new ArrayList<FoldingMonitor>();
+		var folder = new FolderFactory().createIncremental(() -> {
+			var monitor = new FoldingMonitor();
+			monitors.add(monitor);
+			return monitor;
+		});
+
+		folder.fold(createStrip(List.of(true, false, true, false)), EPS, EstimationType.FULL);
+		monitors.get(0).cancel();
+
+		var second = folder.fold(createStrip(List.of(true, true, true, false)), EPS, EstimationType.FULL);
+
+		assertEquals(2, monitors.size());
+		assertEquals(foldNormally(createStrip(List.of(true, true, true, false))), second.answerCount());
+	}
+
+	@Test
+	void testFold_geometryIsChanged() {
+		var folder = new FolderFactory().createIncremental();
+
+		var first = folder.fold(createStrip(List.of(true, false, true, false)), EPS, EstimationType.FULL);
+		var second = folder.fold(createStrip(List.of(true, true, true)), EPS, EstimationType.FULL);
+
+		assertNotSame(first.foldedModel().origamiModel(), second.foldedModel().origamiModel());
+		assertEquals(foldNormally(createStrip(List.of(true, true, true))), second.answerCount());
+	}
+
+	@Test
+	void testCount_afterFold() {
+		var folder = new FolderFactory().createIncremental();
+
+		folder.fold(createStrip(List.of(true, false, true, false)), EPS, EstimationType.X_RAY);
+		var count = folder.count(createStrip(List.of(true, true, false, false)), EPS);
+
+		assertEquals(foldNormally(createStrip(List.of(true, true, false, false))), count.intValue());
+	}
+
+	private List<Integer> getTypes(final OrigamiModel origamiModel) {
+		return origamiModel.getEdges().stream().map(OriEdge::getType).toList();
+	}
+
+	private int foldNormally(final OrigamiModel origamiModel) {
+		return new FolderFactory().create(origamiModel.getModelType())
+				.fold(origamiModel, EPS, EstimationType.FULL)
+				.answerCount();
+	}
+
+	/**
+	 * Creates a square with vertical creases of equal intervals.
+	 *
+	 * @param mountains
+	 *            true for mountain and false for valley for each crease.
+	 */
+	private OrigamiModel createStrip(final List<Boolean> mountains) {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		var adder = new LineAdder();
+		var n = mountains.size() + 1;
+
+		for (int i = 1; i < n; i++) {
+			var x = -200 + 400.0 * i / n;
+			var type = mountains.get(i - 1) ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY;
+			adder.addLine(new OriLine(x, -200, x, 200, type), creasePattern, EPS);
+		}
+
+		return new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.FoldingMonitor.StopReason;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.geom.GeomUtil;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class LayerOrderEnumeratorTest {
+	private static final double EPS = GeomUtil.pointEps();
+
+	// 2 independent groups of subfaces with 4 layer orders each.
+	private static final String PLEATS = "MMVVM";
+
+	@Test
+	void testEnumerate_independentGroups() {
+		var result = createEnumerator(new FoldingMonitor())
+				.enumerate(createFoldedModel(PLEATS), EPS, false);
+
+		assertEquals(16, result.getAnswerCount());
+	}
+
+	@Test
+	void testEnumerate_stoppedDuringSearchOfGroups() {
+		var monitorHolder = new FoldingMonitor[1];
+		// stops as soon as the search of all answers starts.
+		var monitor = new FoldingMonitor(FoldingMonitor.NO_LIMIT, FoldingMonitor.NO_LIMIT,
+				progress -> monitorHolder[0].cancel());
+		monitorHolder[0] = monitor;
+
+		var answers = new ArrayList<OverlapRelation>();
+		var result = createEnumerator(monitor)
+				.enumerate(createFoldedModel(PLEATS), EPS, false, answers::add);
+
+		assertEquals(StopReason.CANCELLED, monitor.getStopReason());
+
+		// the combinations of the answers found so far are given.
+		assertTrue(result.getAnswerCount() > 0);
+		assertTrue(result.getAnswerCount() < 16);
+		assertEquals(result.getAnswerCount(), answers.size());
+	}
+
+	private LayerOrderEnumerator createEnumerator(final FoldingMonitor monitor) {
+		return new LayerOrderEnumerator(new FolderFactory().createSubFacesFactory(),
+				new LayerOrderSearch(ForkJoinPool.commonPool(), 0, monitor), false);
+	}
+
+	/**
+	 * Creates a square whose opposite corners are pleated by the diagonal
+	 * creases of the given types, and folds it without layer ordering.
+	 *
+	 * @param types
+	 *            'M' for mountain and 'V' for valley from the corner.
+	 */
+	private OrigamiModel createFoldedModel(final String types) {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		var adder = new LineAdder();
+		var n = types.length();
+
+		for (int k = 1; k <= n; k++) {
+			var d = 150.0 * k / (n + 1);
+			var type = types.charAt(k - 1) == 'M' ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY;
+			adder.addLine(new OriLine(-200 + d, -200, -200, -200 + d, type), creasePattern, EPS);
+			adder.addLine(new OriLine(200 - d, 200, 200, 200 - d, type), creasePattern, EPS);
+		}
+
+		var origamiModel = new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+		new SimpleFolder().simpleFoldWithoutZorder(origamiModel, EPS);
+
+		return origamiModel;
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class LayerOrderProductTest {
+	OverlapRelation overlapRelation;
+
+	SubfaceComponentAnswers component0;
+	SubfaceComponentAnswers component1;
+
+	@BeforeEach
+	void setUp() {
+		var faces = IntStream.range(0, 4)
+				.mapToObj(i -> {
+					var face = new OriFace();
+					face.setFaceID(i);
+					return face;
+				})
+				.toList();
+
+		overlapRelation = new OverlapRelation(faces.size());
+		overlapRelation.setUndefined(0, 1);
+		overlapRelation.setUndefined(2, 3);
+
+		var subface0 = new SubFace(new OriFace(), 1e-6);
+		subface0.addParentFaces(List.of(faces.get(0), faces.get(1)));
+		var subface1 = new SubFace(new OriFace(), 1e-6);
+		subface1.addParentFaces(List.of(faces.get(2), faces.get(3)));
+
+		component0 = new SubfaceComponentAnswers(List.of(subface0), overlapRelation);
+		component1 = new SubfaceComponentAnswers(List.of(subface1), overlapRelation);
+
+		for (var upper : List.of(true, false)) {
+			var answer0 = overlapRelation.clone();
+			var answer1 = overlapRelation.clone();
+			if (upper) {
+				answer0.setUpper(0, 1);
+				answer1.setUpper(2, 3);
+			} else {
+				answer0.setLower(0, 1);
+				answer1.setLower(2, 3);
+			}
+			component0.add(answer0);
+			component1.add(answer1);
+		}
+	}
+
+	@Test
+	void testForEach() {
+		var product = new LayerOrderProduct(List.of(component0, component1));
+		assertEquals(4, product.size());
+
+		var answers = new ArrayList<OverlapRelation>();
+		assertEquals(4, product.forEach(overlapRelation, answers::add, false));
+
+		assertEquals(4, answers.stream().map(OverlapRelation::toString).distinct().count());
+		assertTrue(answers.stream().noneMatch(answer -> answer.isUndefined(0, 1) || answer.isUndefined(2, 3)));
+
+		// the given relation is kept.
+		assertTrue(overlapRelation.isUndefined(0, 1));
+		assertTrue(overlapRelation.isUndefined(2, 3));
+	}
+
+	@Test
+	void testForEach_firstOnly() {
+		var product = new LayerOrderProduct(List.of(component0, component1));
+
+		var answers = new ArrayList<OverlapRelation>();
+		assertEquals(1, product.forEach(overlapRelation, answers::add, true));
+		assertEquals(1, answers.size());
+	}
+
+	@Test
+	void testForEach_emptyComponent() {
+		var product = new LayerOrderProduct(List.of(component0,
+				new SubfaceComponentAnswers(component1.getSubfaces(), overlapRelation)));
+
+		assertEquals(0, product.size());
+		assertEquals(0, product.forEach(overlapRelation, answer -> fail(), false));
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class SubfaceComponentSplitterTest {
+	SubfaceComponentSplitter splitter = new SubfaceComponentSplitter();
+
+	List<OriFace> faces;
+	OverlapRelation overlapRelation;
+
+	@BeforeEach
+	void setUp() {
+		faces = IntStream.range(0, 6)
+				.mapToObj(i -> {
+					var face = new OriFace();
+					face.setFaceID(i);
+					return face;
+				})
+				.toList();
+
+		overlapRelation = new OverlapRelation(faces.size());
+	}
+
+	@Test
+	void testSplit_sharedUndefinedRelation() {
+		overlapRelation.setUndefined(0, 1);
+		overlapRelation.setUndefined(3, 4);
+
+		var subface0 = createSubface(0, 1, 2);
+		var subface1 = createSubface(3, 4);
+		var subface2 = createSubface(0, 1);
+		var subface3 = createSubface(4, 5);
+
+		var components = splitter.split(List.of(subface0, subface1, subface2, subface3), overlapRelation);
+
+		assertEquals(3, components.size());
+		assertEquals(List.of(subface0, subface2), components.get(0));
+		assertEquals(List.of(subface1), components.get(1));
+		assertEquals(List.of(subface3), components.get(2));
+	}
+
+	@Test
+	void testSplit_sharedFaceOnly() {
+		overlapRelation.setUndefined(0, 1);
+		overlapRelation.setUndefined(1, 2);
+		overlapRelation.setUpper(0, 2);
+
+		// shares face 1 but no undefined relation.
+		var subface0 = createSubface(0, 1);
+		var subface1 = createSubface(1, 2);
+		var subface2 = createSubface(0, 1, 2);
+
+		assertEquals(2, splitter.split(List.of(subface0, subface1), overlapRelation).size());
+
+		// subface2 connects all.
+		assertEquals(1, splitter.split(List.of(subface0, subface1, subface2), overlapRelation).size());
+	}
+
+	private SubFace createSubface(final int... faceIDs) {
+		var subface = new SubFace(new OriFace(), 1e-6);
+		subface.addParentFaces(IntStream.of(faceIDs).mapToObj(faces::get).toList());
+		return subface;
+	}
+}
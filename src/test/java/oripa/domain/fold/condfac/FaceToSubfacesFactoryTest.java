@@ -0,0 +1,64 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.condfac;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.subface.SubFace;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class FaceToSubfacesFactoryTest {
+	FaceToSubfacesFactory factory = new FaceToSubfacesFactory();
+
+	@Test
+	void testCreateIndexedByFaceID() {
+		var faces = IntStream.range(0, 3).mapToObj(i -> {
+			var face = new OriFace();
+			face.setFaceID(i);
+			return face;
+		}).toList();
+
+		var subface0 = createSubface(faces, 0, 1);
+		var subface1 = createSubface(faces, 1, 2);
+
+		var subFacesOfEachFace = factory.create(faces, List.of(subface0, subface1));
+		var subFacesOfEachFaceID = factory.createIndexedByFaceID(faces, subFacesOfEachFace);
+
+		assertEquals(3, subFacesOfEachFaceID.size());
+		assertEquals(Set.of(subface0), subFacesOfEachFaceID.get(0));
+		assertEquals(Set.of(subface0, subface1), subFacesOfEachFaceID.get(1));
+		assertEquals(Set.of(subface1), subFacesOfEachFaceID.get(2));
+	}
+
+	private SubFace createSubface(final List<OriFace> faces, final int... faceIDs) {
+		var subface = new SubFace(new OriFace(), 1e-6);
+		subface.addParentFaces(IntStream.of(faceIDs).mapToObj(faces::get).toList());
+		return subface;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.condfac;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class OverlappingFaceIndexIntersectionsTest {
+
+	@Test
+	void testIntersect() {
+		assertArrayEquals(new int[] { 2, 5 },
+				OverlappingFaceIndexIntersections.intersect(new int[] { 0, 2, 3, 5 }, new int[] { 1, 2, 5, 6 }));
+		assertArrayEquals(new int[] {},
+				OverlappingFaceIndexIntersections.intersect(new int[] { 0, 2 }, new int[] { 1, 3 }));
+		assertArrayEquals(new int[] {},
+				OverlappingFaceIndexIntersections.intersect(new int[] {}, new int[] { 1, 3 }));
+	}
+
+	@Test
+	void testGet() {
+		// face 0 and face 1 share an edge.
+		int[][] overlappingFaces = {
+				{ 1, 2, 3 },
+				{ 0, 2 },
+				{ 0, 1 },
+				{ 0 } };
+		int[][] adjacentFaces = { { 1 }, { 0 }, {}, {} };
+		int[][][] intersections = { { { 2 } }, { { 2 } }, {}, {} };
+
+		var indexIntersections = new OverlappingFaceIndexIntersections(overlappingFaces, adjacentFaces,
+				intersections);
+
+		assertArrayEquals(new int[] { 2 }, indexIntersections.get(0, 1));
+		assertArrayEquals(new int[] { 2 }, indexIntersections.get(1, 0));
+
+		// computed at the call
+		assertArrayEquals(new int[] { 1 }, indexIntersections.get(0, 2));
+		assertArrayEquals(new int[] { 0 }, indexIntersections.get(1, 3));
+
+		assertEquals(2, indexIntersections.countHeldIndices());
+	}
+}
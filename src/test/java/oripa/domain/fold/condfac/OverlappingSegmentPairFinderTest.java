@@ -0,0 +1,87 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.condfac;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.geom.GeomUtil;
+import oripa.geom.Segment;
+import oripa.util.IntPair;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class OverlappingSegmentPairFinderTest {
+	private static final double EPS = 1e-6;
+
+	@Test
+	void testFindOverlappingPairs_sameAsAllPairTest() {
+		var random = new Random(1);
+		var segments = new ArrayList<Segment>();
+
+		// segments on a few lines including almost horizontal ones whose
+		// angles are close to 0 or PI.
+		double[][] lines = { { 0, 0, 1, 0 }, { 0, 1, 1, 1 + 1e-9 }, { 0, 0, 1, 1 }, { 2, 0, 2, 1 } };
+		for (int k = 0; k < 40; k++) {
+			var line = lines[random.nextInt(lines.length)];
+			var s = random.nextDouble() * 10 - 5;
+			var t = random.nextDouble() * 10 - 5;
+			var dx = line[2] - line[0];
+			var dy = line[3] - line[1];
+			segments.add(new Segment(line[0] + s * dx, line[1] + s * dy, line[0] + t * dx, line[1] + t * dy));
+		}
+		// segments sharing end points only
+		segments.add(new Segment(10, 10, 11, 10));
+		segments.add(new Segment(12, 10, 11, 10));
+
+		var pairs = new OverlappingSegmentPairFinder().findOverlappingPairs(segments, EPS);
+
+		var expected = new HashSet<IntPair>();
+		for (int i = 0; i < segments.size(); i++) {
+			for (int j = i + 1; j < segments.size(); j++) {
+				if (GeomUtil.isOverlap(segments.get(i), segments.get(j), EPS)) {
+					expected.add(new IntPair(i, j));
+				}
+			}
+		}
+
+		assertFalse(expected.isEmpty());
+		assertEquals(expected.size(), pairs.size());
+		assertEquals(expected, new HashSet<>(pairs));
+	}
+
+	@Test
+	void testFindOverlappingPairs_oppositeDirections() {
+		var segments = List.of(
+				new Segment(0, 0, 2, 0),
+				new Segment(3, 1e-8, 1, 0));
+
+		var pairs = new OverlappingSegmentPairFinder().findOverlappingPairs(segments, EPS);
+
+		assertEquals(List.of(new IntPair(0, 1)), pairs);
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.origeom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class OverlapRelationTest {
+
+	OverlapRelation overlapRelation;
+
+	@BeforeEach
+	void setUp() {
+		overlapRelation = new OverlapRelation(10);
+		for (int i = 0; i < 10; i++) {
+			for (int j = i + 1; j < 10; j++) {
+				overlapRelation.setUndefined(i, j);
+			}
+		}
+	}
+
+	@Test
+	void testSetAndGet() {
+		overlapRelation.setUpper(1, 2);
+
+		assertTrue(overlapRelation.isUpper(1, 2));
+		assertTrue(overlapRelation.isLower(2, 1));
+	}
+
+	@Test
+	void testRollback() {
+		var checkpoint0 = overlapRelation.checkpoint();
+		overlapRelation.setUpper(1, 2);
+		overlapRelation.setNoOverlap(3, 4);
+
+		var checkpoint1 = overlapRelation.checkpoint();
+		overlapRelation.setLower(5, 6);
+		overlapRelation.setUpperIfPossible(3, 4);
+		overlapRelation.setLower(1, 2);
+
+		assertEquals(4, overlapRelation.getTrailSize());
+
+		overlapRelation.rollback(checkpoint1);
+
+		assertTrue(overlapRelation.isUpper(1, 2));
+		assertTrue(overlapRelation.isNoOverlap(4, 3));
+		assertTrue(overlapRelation.isUndefined(5, 6));
+		assertTrue(overlapRelation.isUndefined(6, 5));
+
+		overlapRelation.rollback(checkpoint0);
+
+		assertTrue(overlapRelation.isUndefined(1, 2));
+		assertTrue(overlapRelation.isUndefined(2, 1));
+		assertTrue(overlapRelation.isUndefined(3, 4));
+		assertEquals(0, overlapRelation.getTrailSize());
+	}
+
+	@Test
+	void testCloneDoesNotShareTrail() {
+		overlapRelation.checkpoint();
+		overlapRelation.setUpper(1, 2);
+
+		var cloned = overlapRelation.clone();
+
+		assertFalse(cloned.isTrailEnabled());
+		assertTrue(cloned.isUpper(1, 2));
+
+		overlapRelation.rollback(0);
+
+		assertTrue(cloned.isUpper(1, 2));
+	}
+
+	@Test
+	void testRollbackWithoutTrail() {
+		assertThrows(IllegalStateException.class, () -> overlapRelation.rollback(0));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 10, 33, 70 })
+	void testPackedUpperTriangle(final int faceCount) {
+		var random = new Random(faceCount);
+		var values = new byte[] { OverlapRelationValues.NO_OVERLAP, OverlapRelationValues.UPPER,
+				OverlapRelationValues.LOWER, OverlapRelationValues.UNDEFINED };
+
+		var relation = new OverlapRelation(faceCount);
+		for (int i = 0; i < faceCount; i++) {
+			for (int j = i + 1; j < faceCount; j++) {
+				relation.set(i, j, values[random.nextInt(values.length)]);
+			}
+		}
+
+		var packed = relation.toPackedUpperTriangle();
+		assertEquals(OverlapRelation.getPackedUpperTriangleLength(faceCount), packed.length);
+
+		var restored = OverlapRelation.fromPackedUpperTriangle(faceCount, packed);
+		assertEquals(relation.toString(), restored.toString());
+
+		relation.switchToSparseMatrix();
+		assertArrayEquals(packed, relation.toPackedUpperTriangle());
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.origeom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.Folder.EstimationType;
+import oripa.domain.fold.FolderFactory;
+import oripa.domain.fold.TestedOrigamiModelFactory;
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.geom.GeomUtil;
+import oripa.util.IntPair;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class OverlappingFacePairFinderTest {
+	private static final double EPS = GeomUtil.pointEps();
+
+	@Test
+	void testFindOverlappingPairs_sameAsAllPairTest() {
+		var faces = foldCorners(3);
+
+		var pairs = new OverlappingFacePairFinder().findOverlappingPairs(faces, EPS);
+
+		var expected = new HashSet<IntPair>();
+		for (int i = 0; i < faces.size(); i++) {
+			for (int j = i + 1; j < faces.size(); j++) {
+				if (OriGeomUtil.isFaceOverlap(faces.get(i), faces.get(j), EPS)) {
+					expected.add(new IntPair(i, j));
+				}
+			}
+		}
+
+		assertEquals(expected.size(), pairs.size());
+		assertEquals(expected, new HashSet<>(pairs));
+
+		// the faces at the opposite corners don't overlap.
+		assertTrue(expected.size() < faces.size() * (faces.size() - 1) / 2);
+	}
+
+	@Test
+	void testFindOverlappingPairs_noFace() {
+		assertTrue(new OverlappingFacePairFinder().findOverlappingPairs(new ArrayList<>(), EPS).isEmpty());
+	}
+
+	/**
+	 * Folds a square with parallel diagonal creases at two opposite corners.
+	 */
+	private List<OriFace> foldCorners(final int creaseCountPerCorner) {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		var adder = new LineAdder();
+
+		for (int k = 1; k <= creaseCountPerCorner; k++) {
+			var d = 25 * k;
+			var type = k % 2 == 0 ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY;
+			adder.addLine(new OriLine(-200 + d, -200, -200, -200 + d, type), creasePattern, EPS);
+			adder.addLine(new OriLine(200 - d, 200, 200, 200 - d, type), creasePattern, EPS);
+		}
+
+		var origamiModel = new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+		var result = new FolderFactory().create(origamiModel.getModelType())
+				.fold(origamiModel, EPS, EstimationType.X_RAY);
+
+		return result.foldedModel().origamiModel().getFaces();
+	}
+}
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import oripa.domain.fold.halfedge.OriFace;
 import oripa.domain.fold.subface.test.OriFaceFactoryForTest;
 import oripa.vecmath.Vector2d;
 
@@ -68,4 +69,36 @@ class ParentFacesCollectorTest {
 		assertTrue(parents.contains(face4));
 	}
 
+	@Test
+	void testCollect_allSubfaces() {
+		var face1 = createSquareFace(0, 0);
+		var face2 = createSquareFace(10, 0);
+		var face3 = createSquareFace(0, 10);
+		var face4 = createSquareFace(5, 5); // overlap
+
+		var faces = List.of(face1, face2, face3, face4);
+
+		var subface1 = mock(SubFace.class);
+		when(subface1.getInnerPoints(1e-6)).thenReturn(List.of(new Vector2d(8, 8), new Vector2d(7, 9)));
+		var subface2 = mock(SubFace.class);
+		when(subface2.getInnerPoints(1e-6)).thenReturn(List.of(new Vector2d(15, 3)));
+		var subface3 = mock(SubFace.class);
+		when(subface3.getInnerPoints(1e-6)).thenReturn(List.of(new Vector2d(30, 30)));
+
+		var parents = collector.collect(faces, List.of(subface1, subface2, subface3), 1e-6);
+
+		assertEquals(List.of(face1, face4), parents.get(0));
+		assertEquals(List.of(face2), parents.get(1));
+		assertEquals(List.of(), parents.get(2));
+	}
+
+	private OriFace createSquareFace(final double left, final double top) {
+		var face = OriFaceFactoryForTest.create10PxSquareMock(left, top);
+		lenient().when(face.includesExclusively(any(), anyDouble())).thenAnswer(invocation -> {
+			Vector2d p = invocation.getArgument(0);
+			return left < p.getX() && p.getX() < left + 10 && top < p.getY() && p.getY() < top + 10;
+		});
+		return face;
+	}
+
 }
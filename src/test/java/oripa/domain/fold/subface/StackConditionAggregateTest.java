@@ -0,0 +1,137 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.fold.subface;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.fold.halfedge.OriFace;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.domain.fold.stackcond.StackConditionOf3Faces;
+import oripa.domain.fold.stackcond.StackConditionOf4Faces;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class StackConditionAggregateTest {
+	// more than 64 faces to use multiple words of bit set.
+	static final int FACE_COUNT = 70;
+
+	// face ID = 100 + local index
+	static final int ID_OFFSET = 100;
+
+	StackConditionAggregate aggregate;
+	long[] placed;
+	int[] positions;
+
+	@BeforeEach
+	void setUp() {
+		var parentFaces = IntStream.range(0, FACE_COUNT)
+				.mapToObj(i -> {
+					var face = new OriFace();
+					face.setFaceID(ID_OFFSET + i);
+					return face;
+				})
+				.toList();
+
+		var overlapRelation = new OverlapRelation(ID_OFFSET + FACE_COUNT);
+		overlapRelation.setLower(id(0), id(69));
+		overlapRelation.setLower(id(0), id(1));
+
+		aggregate = new StackConditionAggregate(parentFaces);
+		aggregate.prepareConditionsOf2Faces(overlapRelation);
+		aggregate.prepareConditionsOf3Faces(List.of(
+				new StackConditionOf3Faces(id(2), id(3), id(4))));
+		aggregate.prepareConditionsOf4Faces(List.of(
+				new StackConditionOf4Faces(id(5), id(6), id(7), id(8))));
+
+		placed = aggregate.createPlacedSet();
+		positions = new int[FACE_COUNT];
+	}
+
+	@Test
+	void testToLocalIndex() {
+		assertEquals(69, aggregate.toLocalIndex(id(69)));
+		assertEquals(-1, aggregate.toLocalIndex(0));
+		assertEquals(id(3), aggregate.getFaceID(3));
+	}
+
+	@Test
+	void testConditionsOf2Faces() {
+		assertEquals(2, aggregate.getCountOfConditionsOf2Faces(0));
+		assertEquals(2, aggregate.getAllCountOfConditionsOf2Faces());
+
+		put(1, 0);
+		assertFalse(aggregate.satisfiesConditionsOf2Faces(placed, 0));
+
+		put(69, 1);
+		assertTrue(aggregate.satisfiesConditionsOf2Faces(placed, 0));
+
+		StackConditionAggregate.remove(placed, 69);
+		assertFalse(aggregate.satisfiesConditionsOf2Faces(placed, 0));
+
+		assertEquals(2, aggregate.getFailureCountOf2Faces());
+	}
+
+	@Test
+	void testConditionsOf3Faces() {
+		assertEquals(1, aggregate.getCountOfConditionsOf3Faces(4));
+
+		assertTrue(aggregate.satisfiesConditionsOf3Faces(placed, 4));
+
+		put(2, 0);
+		assertFalse(aggregate.satisfiesConditionsOf3Faces(placed, 4));
+
+		put(3, 1);
+		assertTrue(aggregate.satisfiesConditionsOf3Faces(placed, 4));
+	}
+
+	@Test
+	void testConditionsOf4Faces() {
+		assertEquals(1, aggregate.getCountOfConditionsOf4Faces(5));
+		assertEquals(1, aggregate.getCountOfConditionsOf4Faces(7));
+		assertEquals(2, aggregate.getAllCountOfConditionsOf4Faces());
+
+		// lower2 < lower1
+		put(8, 0);
+		put(6, 1);
+
+		// upper1 should be put before upper2.
+		assertFalse(aggregate.satisfiesConditionsOf4Faces(placed, positions, 7));
+		assertTrue(aggregate.satisfiesConditionsOf4Faces(placed, positions, 5));
+
+		put(5, 2);
+		assertTrue(aggregate.satisfiesConditionsOf4Faces(placed, positions, 7));
+	}
+
+	private void put(final int localIndex, final int position) {
+		StackConditionAggregate.place(placed, localIndex);
+		positions[localIndex] = position;
+	}
+
+	private int id(final int localIndex) {
+		return ID_OFFSET + localIndex;
+	}
+}
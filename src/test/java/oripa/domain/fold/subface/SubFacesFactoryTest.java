@@ -89,12 +89,16 @@ class SubFacesFactoryTest {
 
 		var conversionSubfaces = List.of(sub1, sub2);
 		when(facesToSubFacesConverter.convertToSubFaces(splitFaces, vertices, EPS)).thenReturn(conversionSubfaces);
+		when(parentCollector.collect(inputFaces, conversionSubfaces, EPS))
+				.thenReturn(List.of(List.of(face1), List.of(face2, face3)));
 
 		var subfaces = subFacesFactory.createSubFaces(inputFaces, PAPER_SIZE, EPS);
 
 		verify(facesToCPConverter).convertToCreasePattern(inputFaces, PAPER_SIZE, EPS);
 		verify(modelFactory).buildOrigamiForSubfaces(cp, PAPER_SIZE, EPS);
 		verify(facesToSubFacesConverter).convertToSubFaces(splitFaces, vertices, EPS);
+		verify(sub1).addParentFaces(List.of(face1));
+		verify(sub2).addParentFaces(List.of(face2, face3));
 
 		assertEquals(2, subfaces.size());
 
@@ -0,0 +1,187 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.domain.paint;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import oripa.domain.creasepattern.CreasePattern;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class CreasePatternUndoerImplTest {
+	private CreasePattern creasePattern;
+
+	private final CreasePatternHolder holder = new CreasePatternHolder() {
+		@Override
+		public CreasePattern getCreasePattern() {
+			return creasePattern;
+		}
+
+		@Override
+		public void setCreasePattern(final CreasePattern creasePattern) {
+			CreasePatternUndoerImplTest.this.creasePattern = creasePattern;
+		}
+	};
+
+	@BeforeEach
+	void setUp() {
+		creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+	}
+
+	private Set<String> state() {
+		return creasePattern.stream()
+				.map(line -> line.toString() + line.isSelected())
+				.collect(Collectors.toSet());
+	}
+
+	@Test
+	void testUndoAndRedoOfAddAndRemove() {
+		var undoer = new CreasePatternUndoerImpl(holder);
+
+		var initial = state();
+
+		undoer.pushUndoInfo();
+		var line = new OriLine(0, 0, 100, 100, OriLine.Type.MOUNTAIN);
+		creasePattern.add(line);
+		var added = state();
+
+		undoer.pushUndoInfo();
+		creasePattern.remove(line);
+		creasePattern.add(new OriLine(0, 0, -100, 100, OriLine.Type.VALLEY));
+		var replaced = state();
+
+		undoer.undo();
+		assertEquals(added, state());
+		undoer.undo();
+		assertEquals(initial, state());
+		assertFalse(undoer.canUndo());
+
+		undoer.redo();
+		assertEquals(added, state());
+		undoer.redo();
+		assertEquals(replaced, state());
+		assertFalse(undoer.canRedo());
+	}
+
+	@Test
+	void testUndoOfSelection() {
+		var undoer = new CreasePatternUndoerImpl(holder);
+
+		var line = new OriLine(0, 0, 100, 100, OriLine.Type.MOUNTAIN);
+		creasePattern.add(line);
+
+		undoer.pushUndoInfo();
+		line.setSelected(true);
+		var selected = state();
+
+		undoer.undo();
+		assertTrue(creasePattern.stream().noneMatch(OriLine::isSelected));
+
+		undoer.redo();
+		assertEquals(selected, state());
+	}
+
+	@Test
+	void testPushWithoutChangeIsStep() {
+		var undoer = new CreasePatternUndoerImpl(holder);
+
+		undoer.pushUndoInfo();
+		creasePattern.add(new OriLine(0, 0, 100, 100, OriLine.Type.MOUNTAIN));
+
+		// a command pushes and cancels itself by undo.
+		undoer.pushUndoInfo();
+		var added = state();
+		undoer.undo();
+
+		assertEquals(added, state());
+		assertTrue(undoer.canUndo());
+	}
+
+	@Test
+	void testChangeWithoutPushIsNotStep() {
+		var undoer = new CreasePatternUndoerImpl(holder);
+
+		var line = new OriLine(0, 0, 100, 100, OriLine.Type.MOUNTAIN);
+		line.setSelected(true);
+
+		undoer.pushUndoInfo();
+		creasePattern.add(line);
+
+		undoer.undo();
+		undoer.redo();
+		assertTrue(undoer.canUndo());
+
+		// reset of selection before redo should not discard the redo.
+		undoer.undo();
+		creasePattern.forEach(l -> l.setSelected(false));
+		assertTrue(undoer.canRedo());
+		undoer.redo();
+
+		assertTrue(creasePattern.contains(line));
+	}
+
+	@Test
+	void testEvictionOfOldSteps() {
+		var undoer = new CreasePatternUndoerImpl(holder, 2, 100);
+
+		var initial = state();
+
+		for (int i = 0; i < 3; i++) {
+			undoer.pushUndoInfo();
+			creasePattern.add(new OriLine(0, 0, 100, 10 * i, OriLine.Type.MOUNTAIN));
+		}
+		var latest = state();
+
+		undoer.undo();
+		undoer.undo();
+		assertFalse(undoer.canUndo());
+
+		assertNotEquals(initial, state());
+		assertEquals(initial.size() + 1, state().size());
+
+		undoer.redo();
+		undoer.redo();
+		assertEquals(latest, state());
+	}
+
+	@Test
+	void testClear() {
+		var undoer = new CreasePatternUndoerImpl(holder);
+
+		undoer.pushUndoInfo();
+		creasePattern.addAll(List.of(new OriLine(0, 0, 100, 100, OriLine.Type.MOUNTAIN)));
+		assertTrue(undoer.changeExists());
+
+		undoer.clear();
+
+		assertFalse(undoer.canUndo());
+		assertFalse(undoer.changeExists());
+	}
+}
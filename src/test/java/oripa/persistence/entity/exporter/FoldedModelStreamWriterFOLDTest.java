@@ -0,0 +1,146 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.exporter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.Folder;
+import oripa.domain.fold.FolderFactory;
+import oripa.domain.fold.TestedOrigamiModelFactory;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.foldformat.FoldedModelElementConverter;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class FoldedModelStreamWriterFOLDTest {
+	private static final double EPS = 1e-6;
+
+	@TempDir
+	Path tempDir;
+
+	private OrigamiModel origamiModel;
+	private List<OverlapRelation> overlapRelations;
+
+	@BeforeEach
+	void setUp() {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		// three strips to be folded in several ways.
+		var adder = new LineAdder();
+		adder.addLine(new OriLine(-200.0 / 3, -200, -200.0 / 3, 200, OriLine.Type.UNASSIGNED), creasePattern, EPS);
+		adder.addLine(new OriLine(200.0 / 3, -200, 200.0 / 3, 200, OriLine.Type.UNASSIGNED), creasePattern, EPS);
+
+		origamiModel = new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+		var result = new FolderFactory().create(origamiModel.getModelType())
+				.fold(origamiModel, EPS, Folder.EstimationType.FULL);
+		overlapRelations = result.foldedModel().overlapRelations();
+	}
+
+	private JsonObject write(final FoldedModelFOLDConfig config, final Path path) throws IOException {
+		try (var writer = new FoldedModelStreamWriterFOLD(origamiModel, path.toString(), config)) {
+			for (var overlapRelation : overlapRelations) {
+				writer.write(overlapRelation);
+			}
+			assertEquals(overlapRelations.size(), writer.getFrameCount());
+		}
+
+		if (config.isGzip()) {
+			try (var reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(path)),
+					StandardCharsets.UTF_8)) {
+				return JsonParser.parseReader(reader).getAsJsonObject();
+			}
+		}
+		return JsonParser.parseString(Files.readString(path)).getAsJsonObject();
+	}
+
+	private void assertFrames(final JsonObject json) {
+		var gson = new Gson();
+		var converter = new FoldedModelElementConverter();
+
+		var frames = json.getAsJsonArray("file_frames");
+		assertTrue(overlapRelations.size() > 1);
+		assertEquals(overlapRelations.size(), frames.size());
+
+		for (int i = 0; i < frames.size(); i++) {
+			var frame = frames.get(i).getAsJsonObject();
+			assertEquals(gson.toJsonTree(converter.toFaceOrders(origamiModel, overlapRelations.get(i))),
+					frame.get("faceOrders"));
+			assertEquals(0, frame.get("frame_parent").getAsInt());
+			assertTrue(frame.get("frame_inherit").getAsBoolean());
+		}
+
+		assertTrue(json.has("vertices_coords"));
+		assertTrue(json.has("faces_vertices"));
+	}
+
+	@Test
+	void testPrettyPrinting() throws IOException {
+		var path = tempDir.resolve("pretty.fold");
+
+		var json = write(new FoldedModelFOLDConfig(), path);
+
+		assertFrames(json);
+		assertTrue(Files.readString(path).contains("\n"));
+	}
+
+	@Test
+	void testCompact() throws IOException {
+		var path = tempDir.resolve("compact.fold");
+		var config = new FoldedModelFOLDConfig();
+		config.setCompact(true);
+
+		var json = write(config, path);
+
+		assertFrames(json);
+		assertFalse(Files.readString(path).contains("\n"));
+	}
+
+	@Test
+	void testGzip() throws IOException {
+		var path = tempDir.resolve("compressed.fold.gz");
+		var config = new FoldedModelFOLDConfig();
+		config.setCompact(true);
+		config.setGzip(true);
+
+		var json = write(config, path);
+
+		assertFrames(json);
+	}
+}
@@ -0,0 +1,217 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.Folder;
+import oripa.domain.fold.FolderFactory;
+import oripa.domain.fold.TestedOrigamiModelFactory;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.entity.FoldedModelBinaryFormat;
+import oripa.persistence.entity.exporter.FoldedModelBinaryConfig;
+import oripa.persistence.entity.exporter.FoldedModelStreamWriterBinary;
+import oripa.persistence.filetool.WrongDataFormatException;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class FoldedModelBinaryReaderTest {
+	private static final double EPS = 1e-6;
+
+	@TempDir
+	Path tempDir;
+
+	private OrigamiModel origamiModel;
+	private List<OverlapRelation> overlapRelations;
+
+	@BeforeEach
+	void setUp() {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		var adder = new LineAdder();
+		adder.addLine(new OriLine(-200.0 / 3, -200, -200.0 / 3, 200, OriLine.Type.UNASSIGNED), creasePattern, EPS);
+		adder.addLine(new OriLine(200.0 / 3, -200, 200.0 / 3, 200, OriLine.Type.UNASSIGNED), creasePattern, EPS);
+
+		origamiModel = new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+		var result = new FolderFactory().create(origamiModel.getModelType())
+				.fold(origamiModel, EPS, Folder.EstimationType.FULL);
+
+		// duplicates for dedup.
+		overlapRelations = new ArrayList<>(result.foldedModel().overlapRelations());
+		overlapRelations.add(overlapRelations.get(0));
+		overlapRelations.add(overlapRelations.get(1));
+	}
+
+	private Path write(final String fileName, final FoldedModelBinaryConfig config) throws IOException {
+		var path = tempDir.resolve(fileName);
+		try (var writer = new FoldedModelStreamWriterBinary(origamiModel, path.toString(), config)) {
+			for (var overlapRelation : overlapRelations) {
+				writer.write(overlapRelation);
+			}
+		}
+		return path;
+	}
+
+	private void assertSameStates(final Path path) throws IOException, WrongDataFormatException {
+		try (var reader = new FoldedModelBinaryReader(path.toString())) {
+			assertEquals(overlapRelations.size(), reader.getOverlapRelationCount());
+			assertEquals(origamiModel.getFaces().size(), reader.getOrigamiModel().getFaces().size());
+
+			// backward for decoding without the cache of the previous state.
+			for (int i = overlapRelations.size() - 1; i >= 0; i--) {
+				assertEquals(overlapRelations.get(i).toString(), reader.getOverlapRelation(i).toString());
+			}
+			for (int i = 0; i < overlapRelations.size(); i++) {
+				assertEquals(overlapRelations.get(i).toString(), reader.getOverlapRelation(i).toString());
+			}
+		}
+	}
+
+	@Test
+	void testFull() throws Exception {
+		var path = write("full.ofb", new FoldedModelBinaryConfig());
+
+		assertTrue(overlapRelations.size() > 3);
+		assertSameStates(path);
+	}
+
+	@Test
+	void testDeltaAndDedup() throws Exception {
+		var fullPath = write("full.ofb", new FoldedModelBinaryConfig());
+
+		var config = new FoldedModelBinaryConfig();
+		config.setDedup(true);
+		config.setDelta(true);
+		config.setKeyStateInterval(2);
+		var path = write("delta.ofb", config);
+
+		assertSameStates(path);
+		assertTrue(Files.size(path) < Files.size(fullPath));
+	}
+
+	@Test
+	void testDeltaAndDedup_decodeDepthIsBounded() throws Exception {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		var adder = new LineAdder();
+		for (int i = 1; i <= 40; i++) {
+			var x = -200 + 400.0 * i / 41;
+			var type = i % 2 == 0 ? OriLine.Type.MOUNTAIN : OriLine.Type.VALLEY;
+			adder.addLine(new OriLine(x, -200, x, 200, type), creasePattern, EPS);
+		}
+		origamiModel = new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+		var faceCount = origamiModel.getFaces().size();
+
+		// states which differ only in one relation, so that each of them is
+		// written as a delta.
+		var states = new ArrayList<OverlapRelation>();
+		for (int p = 0; p < 2; p++) {
+			for (int q = p + 1; q < faceCount; q++) {
+				var state = new OverlapRelation(faceCount);
+				for (int i = 0; i < faceCount; i++) {
+					for (int j = i + 1; j < faceCount; j++) {
+						state.setUpper(i, j);
+					}
+				}
+				state.setLower(p, q);
+				states.add(state);
+			}
+		}
+
+		var interval = FoldedModelBinaryConfig.DEFAULT_KEY_STATE_INTERVAL;
+
+		// the reference to the deepest state of the first chain is followed by
+		// another chain.
+		overlapRelations = new ArrayList<>(states.subList(0, interval + 2));
+		overlapRelations.add(states.get(interval));
+		overlapRelations.addAll(states.subList(interval + 2, states.size()));
+		assertTrue(overlapRelations.size() > 2 * interval);
+
+		var config = new FoldedModelBinaryConfig();
+		config.setDedup(true);
+		config.setDelta(true);
+		var path = write("mixed.ofb", config);
+
+		assertSameStates(path);
+
+		var depths = computeDecodeDepths(path);
+		assertTrue(depths.stream().allMatch(depth -> depth <= interval));
+		assertEquals(interval, depths.get(interval));
+	}
+
+	/**
+	 * Reads the record types and computes the number of the other records
+	 * read to decode each record.
+	 */
+	private List<Integer> computeDecodeDepths(final Path path) throws IOException {
+		var bytes = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+		var frameCount = bytes.getInt(12);
+		var tableOffset = bytes.getLong(32);
+
+		var depths = new ArrayList<Integer>();
+		for (int i = 0; i < frameCount; i++) {
+			var recordOffset = (int) bytes.getLong((int) tableOffset + i * 8);
+			var type = bytes.getInt(recordOffset);
+			var count = bytes.getInt(recordOffset + 4);
+
+			depths.add(switch (type) {
+			case FoldedModelBinaryFormat.DELTA -> depths.get(i - 1) + 1;
+			case FoldedModelBinaryFormat.REFERENCE -> depths.get(count) + 1;
+			default -> 0;
+			});
+		}
+		return depths;
+	}
+
+	@Test
+	void testLoader() throws Exception {
+		var path = write("loaded.ofb", new FoldedModelBinaryConfig());
+
+		var entity = new FoldedModelLoaderBinary().load(path.toString()).get();
+
+		assertEquals(overlapRelations.size(), entity.getOverlapRelations().size());
+		for (int i = 0; i < overlapRelations.size(); i++) {
+			assertEquals(overlapRelations.get(i).toString(), entity.getOverlapRelations().get(i).toString());
+		}
+	}
+
+	@Test
+	void testWrongFormat() throws IOException {
+		var path = tempDir.resolve("wrong.ofb");
+		Files.writeString(path, "{\"file_frames\": []}".repeat(10));
+
+		assertThrows(WrongDataFormatException.class, () -> new FoldedModelBinaryReader(path.toString()));
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.entity.loader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+import oripa.domain.cptool.LineAdder;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.fold.Folder;
+import oripa.domain.fold.FolderFactory;
+import oripa.domain.fold.TestedOrigamiModelFactory;
+import oripa.domain.fold.halfedge.OrigamiModel;
+import oripa.domain.fold.origeom.OverlapRelation;
+import oripa.persistence.entity.exporter.FoldedModelFOLDConfig;
+import oripa.persistence.entity.exporter.FoldedModelStreamWriterFOLD;
+import oripa.persistence.filetool.FileVersionError;
+import oripa.persistence.filetool.WrongDataFormatException;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class FoldedModelIndexedLoaderFOLDTest {
+	private static final double EPS = 1e-6;
+
+	@TempDir
+	Path tempDir;
+
+	private OrigamiModel origamiModel;
+	private List<OverlapRelation> overlapRelations;
+
+	@BeforeEach
+	void setUp() {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		var adder = new LineAdder();
+		adder.addLine(new OriLine(-200.0 / 3, -200, -200.0 / 3, 200, OriLine.Type.UNASSIGNED), creasePattern, EPS);
+		adder.addLine(new OriLine(200.0 / 3, -200, 200.0 / 3, 200, OriLine.Type.UNASSIGNED), creasePattern, EPS);
+
+		origamiModel = new TestedOrigamiModelFactory().createOrigamiModel(creasePattern, EPS);
+		var result = new FolderFactory().create(origamiModel.getModelType())
+				.fold(origamiModel, EPS, Folder.EstimationType.FULL);
+		overlapRelations = result.foldedModel().overlapRelations();
+	}
+
+	private Path write(final String fileName, final FoldedModelFOLDConfig config) throws IOException {
+		var path = tempDir.resolve(fileName);
+		try (var writer = new FoldedModelStreamWriterFOLD(origamiModel, path.toString(), config)) {
+			for (var overlapRelation : overlapRelations) {
+				writer.write(overlapRelation);
+			}
+		}
+		return path;
+	}
+
+	private void assertSameAsLoader(final Path path, final FoldedModelIndexedLoaderFOLD loader)
+			throws IOException, WrongDataFormatException, FileVersionError {
+		var expected = new FoldedModelLoaderFOLD().load(path.toString()).get().getOverlapRelations();
+
+		assertEquals(expected.size(), loader.getOverlapRelationCount());
+		assertEquals(origamiModel.getFaces().size(), loader.getOrigamiModel().getFaces().size());
+
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).toString(), loader.getOverlapRelation(i).toString());
+		}
+	}
+
+	@Test
+	void testPrettyPrinted() throws Exception {
+		var path = write("pretty.fold", new FoldedModelFOLDConfig());
+
+		var loader = new FoldedModelIndexedLoaderFOLD(path.toString());
+
+		assertTrue(overlapRelations.size() > 1);
+		assertSameAsLoader(path, loader);
+	}
+
+	@Test
+	void testCompactAndGzip() throws Exception {
+		var config = new FoldedModelFOLDConfig();
+		config.setCompact(true);
+		var path = write("compact.fold", config);
+
+		config.setGzip(true);
+		var gzipPath = write("compact.fold.gz", config);
+
+		var loader = new FoldedModelIndexedLoaderFOLD(gzipPath.toString());
+
+		assertEquals(overlapRelations.size(), loader.getOverlapRelationCount());
+		for (int i = 0; i < overlapRelations.size(); i++) {
+			assertEquals(new FoldedModelIndexedLoaderFOLD(path.toString()).getOverlapRelation(i).toString(),
+					loader.getOverlapRelation(i).toString());
+		}
+	}
+
+	@Test
+	void testIndexFile() throws Exception {
+		var path = write("indexed.fold", new FoldedModelFOLDConfig());
+		var indexPath = Path.of(FoldedModelIndexedLoaderFOLD.getIndexFilePath(path.toString()));
+
+		var scanned = new FoldedModelIndexedLoaderFOLD(path.toString(), true);
+		assertTrue(Files.exists(indexPath));
+		var indexModified = Files.getLastModifiedTime(indexPath);
+
+		var indexed = new FoldedModelIndexedLoaderFOLD(path.toString(), true);
+		assertEquals(indexModified, Files.getLastModifiedTime(indexPath));
+
+		assertEquals(scanned.getOverlapRelationCount(), indexed.getOverlapRelationCount());
+		assertSameAsLoader(path, indexed);
+	}
+
+	@Test
+	void testInheritedFaceOrders() throws Exception {
+		var path = write("original.fold", new FoldedModelFOLDConfig());
+
+		// key frame has face orders, the second frame inherits them, and the
+		// third frame has no face orders.
+		var json = JsonParser.parseString(Files.readString(path)).getAsJsonObject();
+		var frames = json.getAsJsonArray("file_frames");
+		json.add("faceOrders", frames.get(0).getAsJsonObject().get("faceOrders"));
+		frames.get(1).getAsJsonObject().remove("faceOrders");
+		var third = frames.get(2).getAsJsonObject();
+		third.remove("faceOrders");
+		third.addProperty("frame_inherit", false);
+
+		var modified = tempDir.resolve("modified.fold");
+		Files.writeString(modified, new Gson().toJson(json));
+
+		var loader = new FoldedModelIndexedLoaderFOLD(modified.toString());
+
+		assertEquals(overlapRelations.size(), loader.getOverlapRelationCount());
+		assertSameAsLoader(modified, loader);
+	}
+
+	@Test
+	void testWrongFormat() throws IOException {
+		var path = tempDir.resolve("wrong.fold");
+		Files.writeString(path, "[1, 2]");
+
+		assertThrows(WrongDataFormatException.class, () -> new FoldedModelIndexedLoaderFOLD(path.toString()));
+	}
+
+	@Test
+	void testLoadSingleState() throws Exception {
+		var path = write("single.fold", new FoldedModelFOLDConfig());
+
+		var entity = new FoldedModelIndexedLoaderFOLD(path.toString()).load(1);
+
+		assertEquals(1, entity.getOverlapRelations().size());
+		assertEquals(new FoldedModelLoaderFOLD().load(path.toString()).get().getOverlapRelations().get(1).toString(),
+				entity.getOverlapRelation().toString());
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.beans.XMLDecoder;
+import java.beans.XMLEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class DataSetStreamReaderTest {
+
+	static void assertSameDataSet(final DataSet expected, final DataSet actual) {
+		assertEquals(expected.getMainVersion(), actual.getMainVersion());
+		assertEquals(expected.getSubVersion(), actual.getSubVersion());
+		assertEquals(expected.title, actual.title);
+		assertEquals(expected.editorName, actual.editorName);
+		assertEquals(expected.originalAuthorName, actual.originalAuthorName);
+		assertEquals(expected.reference, actual.reference);
+		assertEquals(expected.memo, actual.memo);
+
+		assertEquals(expected.lines.length, actual.lines.length);
+		for (int i = 0; i < expected.lines.length; i++) {
+			var e = expected.lines[i];
+			var a = actual.lines[i];
+			assertEquals(e.getType(), a.getType());
+			assertEquals(e.getX0(), a.getX0());
+			assertEquals(e.getY0(), a.getY0());
+			assertEquals(e.getX1(), a.getX1());
+			assertEquals(e.getY1(), a.getY1());
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/crane_base_mitani.opx", "/waterbomb_base_collapse.opx" })
+	void testReadSameAsDecoder(final String resourceName) throws Exception {
+		DataSet expected;
+		try (var decoder = new XMLDecoder(getClass().getResourceAsStream(resourceName))) {
+			expected = (DataSet) decoder.readObject();
+		}
+
+		var actual = new DataSetStreamReader().read(getClass().getResourceAsStream(resourceName));
+
+		assertTrue(actual.lines.length > 0);
+		assertSameDataSet(expected, actual);
+	}
+
+	@Test
+	void testReadEscapedText() throws Exception {
+		var dataset = new DataSet();
+		dataset.setMainVersion(2);
+		dataset.lines = new OriLineProxy[] { new OriLineProxy() };
+		dataset.title = "";
+		dataset.memo = "a&b<c>d\"e'f\tg\nhé😀";
+
+		var output = new ByteArrayOutputStream();
+		try (var encoder = new XMLEncoder(output)) {
+			encoder.writeObject(dataset);
+		}
+
+		var actual = new DataSetStreamReader().read(new ByteArrayInputStream(output.toByteArray()));
+
+		assertSameDataSet(dataset, actual);
+	}
+
+	@Test
+	void testReadWrongFormat() {
+		var reader = new DataSetStreamReader();
+
+		assertThrows(XMLStreamException.class, () -> reader.read(
+				new ByteArrayInputStream("not xml".getBytes(StandardCharsets.UTF_8))));
+		assertThrows(XMLStreamException.class, () -> reader.read(
+				new ByteArrayInputStream("<svg><object/></svg>".getBytes(StandardCharsets.UTF_8))));
+	}
+}
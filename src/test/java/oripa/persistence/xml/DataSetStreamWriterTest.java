@@ -0,0 +1,101 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.persistence.xml;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.beans.XMLEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import oripa.DataSet;
+import oripa.OriLineProxy;
+import oripa.domain.creasepattern.CreasePatternFactory;
+import oripa.domain.projectprop.Property;
+import oripa.persistence.doc.Doc;
+import oripa.value.OriLine;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class DataSetStreamWriterTest {
+
+	private String encode(final DataSet dataset) {
+		var output = new ByteArrayOutputStream();
+		try (var encoder = new XMLEncoder(output)) {
+			encoder.writeObject(dataset);
+		}
+		return output.toString(StandardCharsets.UTF_8);
+	}
+
+	private String write(final DataSet dataset) throws Exception {
+		var output = new ByteArrayOutputStream();
+		new DataSetStreamWriter().write(dataset, output);
+		return output.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testWriteSameAsEncoder() throws Exception {
+		var dataset = new DataSet();
+		dataset.setMainVersion(2);
+		dataset.setSubVersion(1);
+		dataset.setPaperSize(400);
+
+		var line = new OriLineProxy();
+		line.setType(3);
+		line.setX0(-0.0);
+		line.setY1(1e-20);
+		dataset.lines = new OriLineProxy[] { new OriLineProxy(), line };
+
+		dataset.title = "";
+		dataset.reference = "ref";
+		dataset.memo = "a&b<c>d\"e'f\tg\r\nh\u0001ié😀\ud800";
+
+		assertEquals(encode(dataset), write(dataset));
+	}
+
+	@Test
+	void testWriteEmptySameAsEncoder() throws Exception {
+		var dataset = new DataSet();
+		dataset.lines = new OriLineProxy[0];
+
+		assertEquals(encode(dataset), write(dataset));
+	}
+
+	@Test
+	void testRoundTrip() throws Exception {
+		var creasePattern = new CreasePatternFactory().createSquareCreasePattern(400);
+		creasePattern.add(new OriLine(-200, -200, 200, 200, OriLine.Type.MOUNTAIN));
+		creasePattern.add(new OriLine(-200, 200, 200, -200, OriLine.Type.VALLEY));
+		creasePattern.add(new OriLine(0, -200, 0, 200, OriLine.Type.UNASSIGNED));
+		var property = new Property().setTitle("title").setMemo("memo");
+		var dataset = new DataSet(Doc.forSaving(creasePattern, property));
+
+		var output = new ByteArrayOutputStream();
+		new DataSetStreamWriter().write(dataset, output);
+
+		var actual = new DataSetStreamReader().read(new ByteArrayInputStream(output.toByteArray()));
+
+		DataSetStreamReaderTest.assertSameDataSet(dataset, actual);
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * ORIPA - Origami Pattern Editor
+ * Copyright (C) 2013-     ORIPA OSS Project  https://github.com/oripa/oripa
+ * Copyright (C) 2005-2009 Jun Mitani         http://mitani.cs.tsukuba.ac.jp/
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oripa.util.history;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author OUCHI Koji
+ *
+ */
+class DeltaUndoManagerTest {
+
+	@Test
+	void testUndoAndRedo() {
+		var manager = new DeltaUndoManager<Integer>(10, 100, i -> i);
+
+		manager.push(1);
+		manager.push(2);
+
+		assertEquals(2, manager.undo().get());
+		assertEquals(1, manager.undo().get());
+		assertFalse(manager.canUndo());
+		assertTrue(manager.undo().isEmpty());
+
+		assertEquals(1, manager.redo().get());
+		assertEquals(2, manager.redo().get());
+		assertFalse(manager.canRedo());
+	}
+
+	@Test
+	void testPushDiscardsUndoneDeltas() {
+		var manager = new DeltaUndoManager<Integer>(10, 100, i -> i);
+
+		manager.push(1);
+		manager.push(2);
+		manager.push(3);
+
+		manager.undo();
+		manager.undo();
+		manager.push(4);
+
+		assertFalse(manager.canRedo());
+		assertEquals(2, manager.size());
+		assertEquals(5, manager.getTotalWeight());
+		assertEquals(4, manager.undo().get());
+		assertEquals(1, manager.undo().get());
+	}
+
+	@Test
+	void testEvictionByStepCount() {
+		var manager = new DeltaUndoManager<Integer>(3, 100, i -> i);
+
+		for (int i = 1; i <= 5; i++) {
+			manager.push(i);
+		}
+
+		assertEquals(3, manager.size());
+		assertEquals(12, manager.getTotalWeight());
+		assertEquals(5, manager.undo().get());
+		assertEquals(4, manager.undo().get());
+		assertEquals(3, manager.undo().get());
+		assertFalse(manager.canUndo());
+	}
+
+	@Test
+	void testEvictionByWeight() {
+		var manager = new DeltaUndoManager<Integer>(10, 10, i -> i);
+
+		manager.push(4);
+		manager.push(5);
+		manager.push(3);
+
+		assertEquals(2, manager.size());
+		assertEquals(8, manager.getTotalWeight());
+
+		// the latest one is kept even if it is too heavy.
+		manager.push(20);
+
+		assertEquals(1, manager.size());
+		assertEquals(20, manager.undo().get());
+		assertFalse(manager.canUndo());
+	}
+}